@@ -16,14 +16,24 @@
 
 package io.terpomo.pmitz.all.usage.tracker;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import io.terpomo.pmitz.all.usage.tracker.impl.AsyncFeatureUsageTrackerImpl;
 import io.terpomo.pmitz.all.usage.tracker.impl.FeatureUsageTrackerImpl;
 import io.terpomo.pmitz.core.FeatureUsageInfo;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifier;
+import io.terpomo.pmitz.limits.AsyncLimitVerifier;
+import io.terpomo.pmitz.limits.IdempotentLimitVerifier;
+import io.terpomo.pmitz.limits.LimitOperation;
+import io.terpomo.pmitz.limits.LimitOperationResult;
 import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.ReservingLimitVerifier;
+import io.terpomo.pmitz.limits.impl.ExecutorAsyncLimitVerifier;
 
 public interface FeatureUsageTracker {
 
@@ -31,10 +41,42 @@ public interface FeatureUsageTracker {
 
 	void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits);
 
+	/**
+	 * Records the usage once per idempotency key, see
+	 * {@link IdempotentLimitVerifier#recordFeatureUsage(FeatureRef, UserGrouping, Map, String)}.
+	 * @throws UnsupportedOperationException if a key is given and the limit verifier of the
+	 * tracker is not an {@link IdempotentLimitVerifier}
+	 */
+	void recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> requestedUnits,
+			String idempotencyKey);
+
+	void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits,
+			String idempotencyKey);
+
+	/**
+	 * Reserves units ahead of their use, see
+	 * {@link ReservingLimitVerifier#reserveFeatureUsage(FeatureRef, UserGrouping, Map, Duration)}.
+	 * @return the id of the reservation
+	 * @throws UnsupportedOperationException if the limit verifier of the tracker is not a
+	 * {@link ReservingLimitVerifier}
+	 */
+	String reserveFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units,
+			Duration timeToLive);
+
+	void commitReservation(String reservationId, Map<String, Long> actualUnits);
+
+	void releaseReservation(String reservationId);
+
 	FeatureUsageInfo verifyLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits);
 
 	FeatureUsageInfo getUsageInfo(FeatureRef featureRef, UserGrouping userGrouping);
 
+	List<LimitOperationResult> recordFeatureUsage(List<LimitOperation> operations);
+
+	List<FeatureUsageInfo> verifyLimits(List<LimitOperation> operations);
+
+	List<FeatureUsageInfo> getUsageInfo(List<LimitOperation> operations);
+
 	class Builder {
 		private Builder() {
 			// disable instantiation of class
@@ -42,6 +84,20 @@ public interface FeatureUsageTracker {
 		public static FeatureUsageTracker build(LimitVerifier limitVerifier, SubscriptionVerifier subscriptionVerifier) {
 			return new FeatureUsageTrackerImpl(limitVerifier, subscriptionVerifier);
 		}
+
+		/**
+		 * Builds a tracker verifying subscriptions on the executor of the limit verifier, so
+		 * that blocking subscription verifiers are bounded like the limit verifications.
+		 */
+		public static AsyncFeatureUsageTracker buildAsync(ExecutorAsyncLimitVerifier limitVerifier,
+				SubscriptionVerifier subscriptionVerifier) {
+			return buildAsync(limitVerifier, subscriptionVerifier, limitVerifier.getExecutor());
+		}
+
+		public static AsyncFeatureUsageTracker buildAsync(AsyncLimitVerifier limitVerifier, SubscriptionVerifier subscriptionVerifier,
+				Executor subscriptionExecutor) {
+			return new AsyncFeatureUsageTrackerImpl(limitVerifier, subscriptionVerifier, subscriptionExecutor);
+		}
 	}
 
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.all.usage.tracker.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import io.terpomo.pmitz.all.usage.tracker.AsyncFeatureUsageTracker;
+import io.terpomo.pmitz.core.FeatureStatus;
+import io.terpomo.pmitz.core.FeatureUsageInfo;
+import io.terpomo.pmitz.core.exception.FeatureNotAllowedException;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.core.subscriptions.Subscription;
+import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifDetail;
+import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifier;
+import io.terpomo.pmitz.limits.AsyncLimitVerifier;
+import io.terpomo.pmitz.limits.impl.CancellableFuturesUtil;
+
+public class AsyncFeatureUsageTrackerImpl implements AsyncFeatureUsageTracker {
+
+	private final AsyncLimitVerifier limitVerifier;
+
+	private final SubscriptionVerifier subscriptionVerifier;
+
+	private final Executor subscriptionExecutor;
+
+	public AsyncFeatureUsageTrackerImpl(AsyncLimitVerifier limitVerifier, SubscriptionVerifier subscriptionVerifier,
+			Executor subscriptionExecutor) {
+		this.limitVerifier = limitVerifier;
+		this.subscriptionVerifier = subscriptionVerifier;
+		this.subscriptionExecutor = subscriptionExecutor;
+	}
+
+	@Override
+	public CompletableFuture<Void> recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> requestedUnits) {
+		return afterEntitlement(featureRef, userGrouping, subscriptionVerifDetail -> {
+			if (!subscriptionVerifDetail.isFeatureAllowed()) {
+				return CompletableFuture.failedFuture(
+						new FeatureNotAllowedException("Feature not allowed for userGrouping", featureRef, userGrouping));
+			}
+			return limitVerifier.recordFeatureUsage(featureRef, userGrouping, requestedUnits);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits) {
+		return limitVerifier.reduceFeatureUsage(featureRef, userGrouping, reducedUnits);
+	}
+
+	@Override
+	public CompletableFuture<FeatureUsageInfo> verifyLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		return afterEntitlement(featureRef, userGrouping, subscriptionVerifDetail -> {
+			if (!subscriptionVerifDetail.isFeatureAllowed()) {
+				return CompletableFuture.completedFuture(new FeatureUsageInfo(FeatureStatus.NOT_ALLOWED, Collections.emptyMap()));
+			}
+			Subscription fetchedSubscription = subscriptionVerifDetail.getFetchedSubscription().orElse(null);
+			return CancellableFuturesUtil.thenApply(
+					limitVerifier.getLimitsRemainingUnits(featureRef, (fetchedSubscription != null) ? fetchedSubscription : userGrouping),
+					remainingUnits -> FeatureUsageTrackerImpl.toUsageInfoAfterAdditions(remainingUnits, additionalUnits));
+		});
+	}
+
+	@Override
+	public CompletableFuture<FeatureUsageInfo> getUsageInfo(FeatureRef featureRef, UserGrouping userGrouping) {
+		return afterEntitlement(featureRef, userGrouping, subscriptionVerifDetail -> {
+			if (!subscriptionVerifDetail.isFeatureAllowed()) {
+				return CompletableFuture.completedFuture(new FeatureUsageInfo(FeatureStatus.NOT_ALLOWED, Collections.emptyMap()));
+			}
+			return CancellableFuturesUtil.thenApply(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping),
+					FeatureUsageTrackerImpl::toUsageInfo);
+		});
+	}
+
+	private <T> CompletableFuture<T> afterEntitlement(FeatureRef featureRef, UserGrouping userGrouping,
+			Function<SubscriptionVerifDetail, CompletableFuture<T>> limitsCall) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		AtomicReference<CompletableFuture<?>> currentStage = new AtomicReference<>();
+
+		CompletableFuture<SubscriptionVerifDetail> verification = CompletableFuture
+				.supplyAsync(() -> subscriptionVerifier.verifyEntitlement(featureRef, userGrouping), subscriptionExecutor);
+		currentStage.set(verification);
+		verification.whenComplete((subscriptionVerifDetail, verificationEx) -> {
+			if (verificationEx != null) {
+				result.completeExceptionally(unwrap(verificationEx));
+				return;
+			}
+			if (result.isDone()) {
+				return;
+			}
+			CompletableFuture<T> limitsStage;
+			try {
+				limitsStage = limitsCall.apply(subscriptionVerifDetail);
+			}
+			catch (RuntimeException ex) {
+				result.completeExceptionally(ex);
+				return;
+			}
+			currentStage.set(limitsStage);
+			limitsStage.whenComplete((value, limitsEx) -> {
+				if (limitsEx != null) {
+					result.completeExceptionally(unwrap(limitsEx));
+				}
+				else {
+					result.complete(value);
+				}
+			});
+			if (result.isDone()) {
+				limitsStage.cancel(true);
+			}
+		});
+
+		// cancelling the returned future, or timing it out, cancels the stage in progress
+		result.whenComplete((value, ex) -> {
+			if (ex != null) {
+				currentStage.get().cancel(true);
+			}
+		});
+		return result;
+	}
+
+	private static Throwable unwrap(Throwable ex) {
+		return (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+	}
+}
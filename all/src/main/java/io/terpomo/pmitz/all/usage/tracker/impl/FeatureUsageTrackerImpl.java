@@ -16,7 +16,10 @@
 
 package io.terpomo.pmitz.all.usage.tracker.impl;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
@@ -29,7 +32,11 @@ import io.terpomo.pmitz.core.subjects.UserGrouping;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.core.subscriptions.Subscription;
 import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifier;
+import io.terpomo.pmitz.limits.IdempotentLimitVerifier;
+import io.terpomo.pmitz.limits.LimitOperation;
+import io.terpomo.pmitz.limits.LimitOperationResult;
 import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.ReservingLimitVerifier;
 
 public class FeatureUsageTrackerImpl implements FeatureUsageTracker {
 
@@ -57,6 +64,50 @@ public class FeatureUsageTrackerImpl implements FeatureUsageTracker {
 		limitVerifier.reduceFeatureUsage(featureRef, userGrouping, reducedUnits);
 	}
 
+	@Override
+	public void recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> requestedUnits,
+			String idempotencyKey) {
+		if (!subscriptionVerifier.verifyEntitlement(featureRef, userGrouping).isFeatureAllowed()) {
+			throw new FeatureNotAllowedException("Feature not allowed for userGrouping", featureRef, userGrouping);
+		}
+		if (idempotencyKey == null) {
+			limitVerifier.recordFeatureUsage(featureRef, userGrouping, requestedUnits);
+		}
+		else {
+			idempotentLimitVerifier().recordFeatureUsage(featureRef, userGrouping, requestedUnits, idempotencyKey);
+		}
+	}
+
+	@Override
+	public void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits,
+			String idempotencyKey) {
+		if (idempotencyKey == null) {
+			limitVerifier.reduceFeatureUsage(featureRef, userGrouping, reducedUnits);
+		}
+		else {
+			idempotentLimitVerifier().reduceFeatureUsage(featureRef, userGrouping, reducedUnits, idempotencyKey);
+		}
+	}
+
+	@Override
+	public String reserveFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units,
+			Duration timeToLive) {
+		if (!subscriptionVerifier.verifyEntitlement(featureRef, userGrouping).isFeatureAllowed()) {
+			throw new FeatureNotAllowedException("Feature not allowed for userGrouping", featureRef, userGrouping);
+		}
+		return reservingLimitVerifier().reserveFeatureUsage(featureRef, userGrouping, units, timeToLive);
+	}
+
+	@Override
+	public void commitReservation(String reservationId, Map<String, Long> actualUnits) {
+		reservingLimitVerifier().commitReservation(reservationId, actualUnits);
+	}
+
+	@Override
+	public void releaseReservation(String reservationId) {
+		reservingLimitVerifier().releaseReservation(reservationId);
+	}
+
 	@Override
 	public FeatureUsageInfo verifyLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
 		var subscriptionVerifDetail = subscriptionVerifier.verifyEntitlement(featureRef, userGrouping);
@@ -67,14 +118,7 @@ public class FeatureUsageTrackerImpl implements FeatureUsageTracker {
 		Subscription fetchedSubscription = subscriptionVerifDetail.getFetchedSubscription().orElse(null);
 		var remainingUnits = limitVerifier.getLimitsRemainingUnits(featureRef, (fetchedSubscription != null) ? fetchedSubscription : userGrouping);
 
-		BiFunction<String, Long, Long> remainingUnitsCalculator = (key, value) -> value - additionalUnits.getOrDefault(key, DEFAULT_ADDITIONAL_UNIT);
-
-		var remainingUnitsAfterAdditions = remainingUnits.entrySet().stream()
-				.collect(Collectors.toMap(Map.Entry::getKey, mapEntry -> remainingUnitsCalculator.apply(mapEntry.getKey(), mapEntry.getValue())));
-
-		var anyLimitExceeded = remainingUnitsAfterAdditions.entrySet().stream().anyMatch(mapEntry -> mapEntry.getValue() < 0);
-
-		return new FeatureUsageInfo(anyLimitExceeded ? FeatureStatus.LIMIT_EXCEEDED : FeatureStatus.AVAILABLE, remainingUnitsAfterAdditions);
+		return toUsageInfoAfterAdditions(remainingUnits, additionalUnits);
 	}
 
 	@Override
@@ -85,9 +129,117 @@ public class FeatureUsageTrackerImpl implements FeatureUsageTracker {
 
 		var remainingUnits = limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
 
+		return toUsageInfo(remainingUnits);
+	}
+
+	@Override
+	public List<LimitOperationResult> recordFeatureUsage(List<LimitOperation> operations) {
+		LimitOperationResult[] results = new LimitOperationResult[operations.size()];
+		List<LimitOperation> allowedOperations = new ArrayList<>();
+		List<Integer> allowedIndexes = new ArrayList<>();
+		for (int i = 0; i < operations.size(); i++) {
+			LimitOperation operation = operations.get(i);
+			if (subscriptionVerifier.verifyEntitlement(operation.featureRef(), operation.userGrouping()).isFeatureAllowed()) {
+				allowedOperations.add(operation);
+				allowedIndexes.add(i);
+			}
+			else {
+				results[i] = LimitOperationResult.failure(operation, new FeatureNotAllowedException(
+						"Feature not allowed for userGrouping", operation.featureRef(), operation.userGrouping()));
+			}
+		}
+
+		if (!allowedOperations.isEmpty()) {
+			List<LimitOperationResult> limitResults = limitVerifier.recordFeatureUsage(allowedOperations);
+			for (int i = 0; i < limitResults.size(); i++) {
+				results[allowedIndexes.get(i)] = limitResults.get(i);
+			}
+		}
+		return List.of(results);
+	}
+
+	@Override
+	public List<FeatureUsageInfo> verifyLimits(List<LimitOperation> operations) {
+		FeatureUsageInfo[] usageInfos = new FeatureUsageInfo[operations.size()];
+		List<LimitOperation> allowedOperations = new ArrayList<>();
+		List<Integer> allowedIndexes = new ArrayList<>();
+		for (int i = 0; i < operations.size(); i++) {
+			LimitOperation operation = operations.get(i);
+			var subscriptionVerifDetail = subscriptionVerifier.verifyEntitlement(operation.featureRef(), operation.userGrouping());
+			if (subscriptionVerifDetail.isFeatureAllowed()) {
+				Subscription fetchedSubscription = subscriptionVerifDetail.getFetchedSubscription().orElse(null);
+				allowedOperations.add(new LimitOperation(operation.featureRef(),
+						(fetchedSubscription != null) ? fetchedSubscription : operation.userGrouping(), operation.units()));
+				allowedIndexes.add(i);
+			}
+			else {
+				usageInfos[i] = new FeatureUsageInfo(FeatureStatus.NOT_ALLOWED, Collections.emptyMap());
+			}
+		}
+
+		if (!allowedOperations.isEmpty()) {
+			List<Map<String, Long>> remainingUnits = limitVerifier.getLimitsRemainingUnits(allowedOperations);
+			for (int i = 0; i < remainingUnits.size(); i++) {
+				usageInfos[allowedIndexes.get(i)] = toUsageInfoAfterAdditions(remainingUnits.get(i),
+						allowedOperations.get(i).units());
+			}
+		}
+		return List.of(usageInfos);
+	}
+
+	@Override
+	public List<FeatureUsageInfo> getUsageInfo(List<LimitOperation> operations) {
+		FeatureUsageInfo[] usageInfos = new FeatureUsageInfo[operations.size()];
+		List<LimitOperation> allowedOperations = new ArrayList<>();
+		List<Integer> allowedIndexes = new ArrayList<>();
+		for (int i = 0; i < operations.size(); i++) {
+			LimitOperation operation = operations.get(i);
+			if (subscriptionVerifier.verifyEntitlement(operation.featureRef(), operation.userGrouping()).isFeatureAllowed()) {
+				allowedOperations.add(operation);
+				allowedIndexes.add(i);
+			}
+			else {
+				usageInfos[i] = new FeatureUsageInfo(FeatureStatus.NOT_ALLOWED, Collections.emptyMap());
+			}
+		}
+
+		if (!allowedOperations.isEmpty()) {
+			List<Map<String, Long>> remainingUnits = limitVerifier.getLimitsRemainingUnits(allowedOperations);
+			for (int i = 0; i < remainingUnits.size(); i++) {
+				usageInfos[allowedIndexes.get(i)] = toUsageInfo(remainingUnits.get(i));
+			}
+		}
+		return List.of(usageInfos);
+	}
+
+	static FeatureUsageInfo toUsageInfo(Map<String, Long> remainingUnits) {
 		var anyLimitExceeded = remainingUnits.entrySet().stream().anyMatch(mapEntry -> mapEntry.getValue() < 0);
 
 		return new FeatureUsageInfo(anyLimitExceeded ? FeatureStatus.LIMIT_EXCEEDED : FeatureStatus.AVAILABLE, remainingUnits);
 	}
 
+	static FeatureUsageInfo toUsageInfoAfterAdditions(Map<String, Long> remainingUnits, Map<String, Long> additionalUnits) {
+		BiFunction<String, Long, Long> remainingUnitsCalculator = (key, value) -> value - additionalUnits.getOrDefault(key, DEFAULT_ADDITIONAL_UNIT);
+
+		var remainingUnitsAfterAdditions = remainingUnits.entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, mapEntry -> remainingUnitsCalculator.apply(mapEntry.getKey(), mapEntry.getValue())));
+
+		var anyLimitExceeded = remainingUnitsAfterAdditions.entrySet().stream().anyMatch(mapEntry -> mapEntry.getValue() < 0);
+
+		return new FeatureUsageInfo(anyLimitExceeded ? FeatureStatus.LIMIT_EXCEEDED : FeatureStatus.AVAILABLE, remainingUnitsAfterAdditions);
+	}
+
+	private IdempotentLimitVerifier idempotentLimitVerifier() {
+		if (limitVerifier instanceof IdempotentLimitVerifier idempotentLimitVerifier) {
+			return idempotentLimitVerifier;
+		}
+		throw new UnsupportedOperationException("The limit verifier of the tracker was built without idempotency");
+	}
+
+	private ReservingLimitVerifier reservingLimitVerifier() {
+		if (limitVerifier instanceof ReservingLimitVerifier reservingLimitVerifier) {
+			return reservingLimitVerifier;
+		}
+		throw new UnsupportedOperationException("The limit verifier of the tracker was built without reservations");
+	}
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.all.usage.tracker.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.terpomo.pmitz.all.usage.tracker.FeatureUsageTracker;
+import io.terpomo.pmitz.core.FeatureStatus;
+import io.terpomo.pmitz.core.exception.FeatureNotAllowedException;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.core.subscriptions.Subscription;
+import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifDetail;
+import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifier;
+import io.terpomo.pmitz.limits.AsyncLimitVerifier;
+import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.impl.ExecutorAsyncLimitVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncFeatureUsageTrackerImplTests {
+
+	@Mock
+	AsyncLimitVerifier limitVerifier;
+	@Mock
+	SubscriptionVerifier subscriptionVerifier;
+
+	FeatureRef featureRef;
+
+	UserGrouping userGrouping = new IndividualUser("user001");
+
+	AsyncFeatureUsageTrackerImpl featureUsageTracker;
+
+	@BeforeEach
+	void init() {
+		featureRef = new FeatureRef("test-product", "FILE_UPLOAD");
+
+		featureUsageTracker = new AsyncFeatureUsageTrackerImpl(limitVerifier, subscriptionVerifier, Runnable::run);
+	}
+
+	@Test
+	void givenFeatureNotAllowedWhenRecordFeatureUsageThenCompleteWithFeatureNotAllowedException() {
+		when(subscriptionVerifier.verifyEntitlement(featureRef, userGrouping)).thenReturn(SubscriptionVerifDetail.verificationError(SubscriptionVerifDetail.ErrorCause.FEATURE_NOT_ALLOWED));
+
+		var future = featureUsageTracker.recordFeatureUsage(featureRef, userGrouping, Collections.singletonMap("FILE_SIZE", 1000L));
+
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(future::get)
+				.withCauseInstanceOf(FeatureNotAllowedException.class);
+		verifyNoInteractions(limitVerifier);
+	}
+
+	@Test
+	void givenFeatureAllowedWhenRecordFeatureUsageThenCallLimitVerifier() throws Exception {
+		var additionalUnits = Collections.singletonMap("FILE_SIZE", 1000L);
+		when(subscriptionVerifier.verifyEntitlement(featureRef, userGrouping)).thenReturn(SubscriptionVerifDetail.verificationOk());
+		when(limitVerifier.recordFeatureUsage(featureRef, userGrouping, additionalUnits)).thenReturn(CompletableFuture.completedFuture(null));
+
+		featureUsageTracker.recordFeatureUsage(featureRef, userGrouping, additionalUnits).get();
+
+		verify(limitVerifier).recordFeatureUsage(featureRef, userGrouping, additionalUnits);
+	}
+
+	@Test
+	void givenFetchedSubscriptionWhenVerifyLimitsThenUseFetchedSubscriptionForLimits() throws Exception {
+		String limitId = "FILE_UPLOAD";
+		Subscription subscription = new Subscription("subscription001");
+		when(subscriptionVerifier.verifyEntitlement(featureRef, userGrouping)).thenReturn(SubscriptionVerifDetail.verificationOk().withFetchedSubscription(subscription));
+		when(limitVerifier.getLimitsRemainingUnits(featureRef, subscription)).thenReturn(CompletableFuture.completedFuture(Map.of(limitId, 1L)));
+
+		var featureInfo = featureUsageTracker.verifyLimits(featureRef, userGrouping, Map.of(limitId, 2L)).get();
+
+		assertThat(featureInfo.featureStatus()).isEqualTo(FeatureStatus.LIMIT_EXCEEDED);
+		assertThat(featureInfo.remainingUsageUnits()).containsEntry(limitId, -1L);
+	}
+
+	@Test
+	void givenFeatureNotAllowedWhenGetUsageInfoThenFeatureStatusNotAllowed() throws Exception {
+		when(subscriptionVerifier.verifyEntitlement(featureRef, userGrouping)).thenReturn(SubscriptionVerifDetail.verificationError(SubscriptionVerifDetail.ErrorCause.INVALID_SUBSCRIPTION));
+
+		var featureInfo = featureUsageTracker.getUsageInfo(featureRef, userGrouping).get();
+
+		assertThat(featureInfo.featureStatus()).isEqualTo(FeatureStatus.NOT_ALLOWED);
+		assertThat(featureInfo.remainingUsageUnits()).isEmpty();
+	}
+
+	@Test
+	void givenTimeoutWhenGetUsageInfoThenCancelLimitVerification() {
+		CompletableFuture<Map<String, Long>> limitsFuture = new CompletableFuture<>();
+		when(subscriptionVerifier.verifyEntitlement(featureRef, userGrouping)).thenReturn(SubscriptionVerifDetail.verificationOk());
+		when(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).thenReturn(limitsFuture);
+
+		var future = featureUsageTracker.getUsageInfo(featureRef, userGrouping).orTimeout(50, TimeUnit.MILLISECONDS);
+
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(future::get)
+				.withCauseInstanceOf(TimeoutException.class);
+		assertThat(limitsFuture).isCancelled();
+	}
+
+	@Test
+	void givenExecutorAsyncLimitVerifierWhenBuildAsyncThenVerifySubscriptionsOnItsExecutor() throws Exception {
+		AtomicReference<String> subscriptionThread = new AtomicReference<>();
+		when(subscriptionVerifier.verifyEntitlement(featureRef, userGrouping)).thenAnswer(invocation -> {
+			subscriptionThread.set(Thread.currentThread().getName());
+			return SubscriptionVerifDetail.verificationOk();
+		});
+
+		try (var executorLimitVerifier = ExecutorAsyncLimitVerifier.builder(mock(LimitVerifier.class)).build()) {
+			var tracker = FeatureUsageTracker.Builder.buildAsync(executorLimitVerifier, subscriptionVerifier);
+
+			tracker.getUsageInfo(featureRef, userGrouping).get(5, TimeUnit.SECONDS);
+		}
+
+		assertThat(subscriptionThread.get()).startsWith("pmitz-async-limits-");
+	}
+}
@@ -17,6 +17,8 @@
 package io.terpomo.pmitz.all.usage.tracker.impl;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +35,8 @@ import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.core.subscriptions.Subscription;
 import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifDetail;
 import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifier;
+import io.terpomo.pmitz.limits.LimitOperation;
+import io.terpomo.pmitz.limits.LimitOperationResult;
 import io.terpomo.pmitz.limits.LimitVerifier;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -177,4 +181,51 @@ class FeatureUsageTrackerImplTests {
 		assertThat(featureInfo.remainingUsageUnits()).containsEntry(limitId, 1L);
 	}
 
+	@Test
+	void givenFeatureNotAllowedForOneOperationWhenRecordFeatureUsageInBatchThenRecordOthers() {
+		UserGrouping otherUserGrouping = new IndividualUser("user002");
+		var allowedOperation = new LimitOperation(featureRef, userGrouping, Map.of("FILE_SIZE", 1000L));
+		var notAllowedOperation = new LimitOperation(featureRef, otherUserGrouping, Map.of("FILE_SIZE", 500L));
+		when(subscriptionVerifier.verifyEntitlement(featureRef, userGrouping)).thenReturn(SubscriptionVerifDetail.verificationOk());
+		when(subscriptionVerifier.verifyEntitlement(featureRef, otherUserGrouping)).thenReturn(SubscriptionVerifDetail.verificationError(SubscriptionVerifDetail.ErrorCause.FEATURE_NOT_ALLOWED));
+		when(limitVerifier.recordFeatureUsage(List.of(allowedOperation))).thenReturn(List.of(LimitOperationResult.success(allowedOperation)));
+
+		var results = featureUsageTracker.recordFeatureUsage(List.of(notAllowedOperation, allowedOperation));
+
+		assertThat(results).hasSize(2);
+		assertThat(results.get(0).isSuccessful()).isFalse();
+		assertThat(results.get(0).failure()).isInstanceOf(FeatureNotAllowedException.class);
+		assertThat(results.get(1).isSuccessful()).isTrue();
+		verify(limitVerifier, never()).recordFeatureUsage(featureRef, otherUserGrouping, notAllowedOperation.units());
+	}
+
+	@Test
+	void givenOperationsWhenVerifyLimitsInBatchThenReturnUsageInfoPerOperation() {
+		String limitId = "FILE_UPLOAD";
+		UserGrouping otherUserGrouping = new IndividualUser("user002");
+		var firstOperation = new LimitOperation(featureRef, userGrouping, Map.of(limitId, 2L));
+		var secondOperation = new LimitOperation(featureRef, otherUserGrouping, Map.of(limitId, 2L));
+		when(subscriptionVerifier.verifyEntitlement(any(), any())).thenReturn(SubscriptionVerifDetail.verificationOk());
+		when(limitVerifier.getLimitsRemainingUnits(List.of(firstOperation, secondOperation)))
+				.thenReturn(List.of(Map.of(limitId, 5L), Map.of(limitId, 1L)));
+
+		var usageInfos = featureUsageTracker.verifyLimits(List.of(firstOperation, secondOperation));
+
+		assertThat(usageInfos).extracting(FeatureUsageInfo::featureStatus)
+				.containsExactly(FeatureStatus.AVAILABLE, FeatureStatus.LIMIT_EXCEEDED);
+		assertThat(usageInfos.get(0).remainingUsageUnits()).containsEntry(limitId, 3L);
+		assertThat(usageInfos.get(1).remainingUsageUnits()).containsEntry(limitId, -1L);
+	}
+
+	@Test
+	void givenFeatureNotAllowedWhenGetUsageInfoInBatchThenFeatureStatusNotAllowed() {
+		var operation = new LimitOperation(featureRef, userGrouping);
+		when(subscriptionVerifier.verifyEntitlement(featureRef, userGrouping)).thenReturn(SubscriptionVerifDetail.verificationError(SubscriptionVerifDetail.ErrorCause.INVALID_SUBSCRIPTION));
+
+		var usageInfos = featureUsageTracker.getUsageInfo(List.of(operation));
+
+		assertThat(usageInfos).singleElement().extracting(FeatureUsageInfo::featureStatus).isEqualTo(FeatureStatus.NOT_ALLOWED);
+		verifyNoInteractions(limitVerifier);
+	}
+
 }
@@ -17,6 +17,7 @@
 package io.terpomo.pmitz.core.limits.types;
 
 import java.time.DayOfWeek;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
@@ -27,6 +28,8 @@ public class CalendarPeriodRateLimit extends RateLimit {
 
 	private final Periodicity periodicity;
 
+	private transient volatile Window currentWindow;
+
 	public CalendarPeriodRateLimit(String id, long quota, Periodicity periodicity) {
 		super(id, quota, periodicity.getChronoUnit(), 1);
 		this.periodicity = periodicity;
@@ -38,7 +41,26 @@ public class CalendarPeriodRateLimit extends RateLimit {
 
 	@Override
 	public Optional<ZonedDateTime> getWindowStart(ZonedDateTime referenceDate) {
-		ZonedDateTime adjustedDateTime = switch (periodicity) {
+		return resolveWindow(referenceDate).start();
+	}
+
+	@Override
+	public Optional<ZonedDateTime> getWindowEnd(ZonedDateTime referenceDate) {
+		return resolveWindow(referenceDate).end();
+	}
+
+	private Window resolveWindow(ZonedDateTime referenceDate) {
+		long epochMillis = referenceDate.toEpochSecond() * 1000 + referenceDate.getNano() / 1_000_000;
+		Window window = this.currentWindow;
+		if (window == null || !window.contains(epochMillis, referenceDate.getZone())) {
+			window = computeWindow(referenceDate);
+			this.currentWindow = window;
+		}
+		return window;
+	}
+
+	private Window computeWindow(ZonedDateTime referenceDate) {
+		ZonedDateTime windowStart = switch (periodicity) {
 			case HOUR -> referenceDate.truncatedTo(ChronoUnit.HOURS);
 			case DAY -> referenceDate.truncatedTo(ChronoUnit.DAYS);
 			case WEEK ->
@@ -47,12 +69,7 @@ public class CalendarPeriodRateLimit extends RateLimit {
 			case YEAR -> referenceDate.with(TemporalAdjusters.firstDayOfYear()).truncatedTo(ChronoUnit.DAYS);
 		};
 
-		return Optional.of(adjustedDateTime);
-	}
-
-	@Override
-	public Optional<ZonedDateTime> getWindowEnd(ZonedDateTime referenceDate) {
-		ZonedDateTime adjustedDateTime = switch (periodicity) {
+		ZonedDateTime windowEnd = switch (periodicity) {
 			case HOUR -> referenceDate.plusHours(1).truncatedTo(ChronoUnit.HOURS).minusNanos(1);
 			case DAY -> lastNanosecondOfDay(referenceDate);
 			case WEEK -> lastNanosecondOfDay(referenceDate.with(TemporalAdjusters.nextOrSame(getLastDayOfWeek())));
@@ -60,7 +77,8 @@ public class CalendarPeriodRateLimit extends RateLimit {
 			case YEAR -> lastNanosecondOfDay(referenceDate.with(TemporalAdjusters.lastDayOfYear()));
 		};
 
-		return Optional.of(adjustedDateTime);
+		return new Window(referenceDate.getZone(), windowStart.toInstant().toEpochMilli(),
+				windowEnd.toInstant().toEpochMilli(), Optional.of(windowStart), Optional.of(windowEnd));
 	}
 
 	protected DayOfWeek getFirstDayOfWeek() {
@@ -75,6 +93,19 @@ public class CalendarPeriodRateLimit extends RateLimit {
 		return dateTime.with(ChronoField.NANO_OF_DAY, 1_000_000_000L * (60 * 60 * 24) - 1);
 	}
 
+	/**
+	 * Boundaries of the window containing the last reference date, kept until the reference
+	 * date rolls over to the next window, so that resolving the current window does not
+	 * allocate.
+	 */
+	private record Window(ZoneId zone, long startEpochMillis, long endEpochMillis, Optional<ZonedDateTime> start,
+			Optional<ZonedDateTime> end) {
+
+		boolean contains(long epochMillis, ZoneId zoneId) {
+			return epochMillis >= this.startEpochMillis && epochMillis <= this.endEpochMillis && this.zone.equals(zoneId);
+		}
+	}
+
 	public enum Periodicity {
 		HOUR(ChronoUnit.HOURS),
 		DAY(ChronoUnit.DAYS),
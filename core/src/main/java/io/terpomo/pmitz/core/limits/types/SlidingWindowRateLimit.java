@@ -0,0 +1,83 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.core.limits.types;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+public class SlidingWindowRateLimit extends RateLimit {
+
+	private final WindowUnit windowUnit;
+
+	private final long windowMillis;
+
+	/**
+	 * Creates a rate limit allowing {@code quota} units over any window of {@code duration}
+	 * window units. Usage is counted in fixed buckets of that length, aligned on the epoch,
+	 * and the usage of the previous bucket is weighted by the part of it still covered by
+	 * the sliding window.
+	 * @param id the limit identifier
+	 * @param quota the units allowed over a window
+	 * @param windowUnit the unit of the window length
+	 * @param duration the number of window units in a window
+	 */
+	public SlidingWindowRateLimit(String id, long quota, WindowUnit windowUnit, int duration) {
+		super(id, quota, windowUnit.getChronoUnit(), duration);
+		if (duration <= 0) {
+			throw new IllegalArgumentException("The duration of a sliding window must be positive");
+		}
+		this.windowUnit = windowUnit;
+		this.windowMillis = windowUnit.getChronoUnit().getDuration().multipliedBy(duration).toMillis();
+	}
+
+	public WindowUnit getWindowUnit() {
+		return windowUnit;
+	}
+
+	public Duration getWindowLength() {
+		return Duration.ofMillis(windowMillis);
+	}
+
+	/**
+	 * Returns the start of the bucket containing the reference date.
+	 */
+	@Override
+	public Optional<ZonedDateTime> getWindowStart(ZonedDateTime referenceDate) {
+		long windowStartMillis = Math.floorDiv(referenceDate.toInstant().toEpochMilli(), windowMillis) * windowMillis;
+		return Optional.of(Instant.ofEpochMilli(windowStartMillis).atZone(referenceDate.getZone()));
+	}
+
+	/**
+	 * Returns the last nanosecond of the bucket containing the reference date.
+	 */
+	@Override
+	public Optional<ZonedDateTime> getWindowEnd(ZonedDateTime referenceDate) {
+		return getWindowStart(referenceDate).map(windowStart -> windowStart.plus(windowMillis, ChronoUnit.MILLIS).minusNanos(1));
+	}
+
+	/**
+	 * Returns the weight of the previous bucket at the reference date, that is the fraction of
+	 * it still covered by the window ending at the reference date.
+	 */
+	public double getPreviousWindowWeight(ZonedDateTime referenceDate) {
+		long elapsedMillis = Math.floorMod(referenceDate.toInstant().toEpochMilli(), windowMillis);
+		return (double) (windowMillis - elapsedMillis) / windowMillis;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.core.limits.types;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+public class TokenBucketRateLimit extends RateLimit {
+
+	private final WindowUnit windowUnit;
+
+	private final long emissionIntervalNanos;
+
+	private final long capacityNanos;
+
+	/**
+	 * Creates a rate limit allowing bursts of up to {@code quota} units, refilled evenly over
+	 * {@code duration} window units. The limit is evaluated with the generic cell rate
+	 * algorithm: its whole state is the theoretical arrival time of the next unit, in
+	 * nanoseconds since the epoch.
+	 * @param id the limit identifier
+	 * @param quota the maximum burst, in units
+	 * @param windowUnit the unit of the refill period
+	 * @param duration the number of window units needed to refill the whole quota
+	 */
+	public TokenBucketRateLimit(String id, long quota, WindowUnit windowUnit, int duration) {
+		super(id, quota, windowUnit.getChronoUnit(), duration);
+		if (quota <= 0) {
+			throw new IllegalArgumentException("The quota of a token bucket must be positive");
+		}
+		if (duration <= 0) {
+			throw new IllegalArgumentException("The duration of a token bucket must be positive");
+		}
+		this.windowUnit = windowUnit;
+		this.emissionIntervalNanos = windowUnit.getChronoUnit().getDuration().multipliedBy(duration).toNanos() / quota;
+		if (emissionIntervalNanos == 0) {
+			throw new IllegalArgumentException("The quota of a token bucket cannot exceed one unit per nanosecond");
+		}
+		this.capacityNanos = emissionIntervalNanos * quota;
+	}
+
+	public WindowUnit getWindowUnit() {
+		return windowUnit;
+	}
+
+	public Duration getPeriod() {
+		return Duration.ofNanos(capacityNanos);
+	}
+
+	/**
+	 * Returns the time needed to refill one unit.
+	 */
+	public long getEmissionIntervalNanos() {
+		return emissionIntervalNanos;
+	}
+
+	/**
+	 * The state of a token bucket does not depend on a window: it is kept in a single record.
+	 */
+	@Override
+	public Optional<ZonedDateTime> getWindowStart(ZonedDateTime referenceDate) {
+		return Optional.empty();
+	}
+
+	@Override
+	public Optional<ZonedDateTime> getWindowEnd(ZonedDateTime referenceDate) {
+		return Optional.empty();
+	}
+
+	/**
+	 * Returns the theoretical arrival time after {@code units} are used at {@code nowNanos},
+	 * or {@code -1} if using them would exceed the limit.
+	 * @param arrivalTimeNanos the current theoretical arrival time, {@code 0} if none
+	 * @param nowNanos the current time, in nanoseconds since the epoch
+	 * @param units the units to use
+	 */
+	public long nextArrivalTime(long arrivalTimeNanos, long nowNanos, long units) {
+		if (units > getValue()) {
+			return -1;
+		}
+		long nextArrivalTimeNanos = Math.max(arrivalTimeNanos, nowNanos) + units * emissionIntervalNanos;
+		return (nextArrivalTimeNanos - nowNanos <= capacityNanos) ? nextArrivalTimeNanos : -1;
+	}
+
+	/**
+	 * Returns the units that can be used at {@code nowNanos}.
+	 * @param arrivalTimeNanos the current theoretical arrival time, {@code 0} if none
+	 * @param nowNanos the current time, in nanoseconds since the epoch
+	 */
+	public long getRemainingUnits(long arrivalTimeNanos, long nowNanos) {
+		return (capacityNanos - Math.max(arrivalTimeNanos - nowNanos, 0)) / emissionIntervalNanos;
+	}
+
+	/**
+	 * Returns the latest theoretical arrival time allowed at {@code nowNanos}.
+	 */
+	public long getMaxArrivalTime(long nowNanos) {
+		return nowNanos + capacityNanos;
+	}
+}
@@ -58,4 +58,14 @@ public interface ProductRepository {
 
 	boolean isFeatureIncluded(Plan plan, Feature feature);
 
+	/**
+	 * Registers a listener notified after each modification made through this repository.
+	 * @param listener the listener to register
+	 * @return <code>true</code> if the repository notifies changes, <code>false</code> if it does not,
+	 * in which case callers must not cache data derived from the products
+	 */
+	default boolean addChangeListener(ProductChangeListener listener) {
+		return false;
+	}
+
 }
@@ -19,10 +19,13 @@ package io.terpomo.pmitz.core.repository.product.inmemory;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -39,6 +42,9 @@ import io.terpomo.pmitz.core.exception.RepositoryException;
 import io.terpomo.pmitz.core.limits.LimitRule;
 import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
 import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
+import io.terpomo.pmitz.core.repository.product.ProductChangeListener;
 import io.terpomo.pmitz.core.repository.product.ProductRepository;
 
 public class InMemoryProductRepository implements ProductRepository {
@@ -46,6 +52,7 @@ public class InMemoryProductRepository implements ProductRepository {
 	public static final String PRODUCT_NOT_FOUND = "Product '%s' not found";
 	private final ObjectMapper mapper;
 	private Map<String, Product> products = new HashMap<>();
+	private final List<ProductChangeListener> changeListeners = new CopyOnWriteArrayList<>();
 
 	public InMemoryProductRepository() {
 
@@ -58,6 +65,8 @@ public class InMemoryProductRepository implements ProductRepository {
 				.addMixIn(LimitRule.class, LimitRuleMixIn.class)
 				.addMixIn(CalendarPeriodRateLimit.class, CalendarPeriodRateLimitMixIn.class)
 				.addMixIn(CountLimit.class, CountLimitMixIn.class)
+				.addMixIn(SlidingWindowRateLimit.class, SlidingWindowRateLimitMixIn.class)
+				.addMixIn(TokenBucketRateLimit.class, TokenBucketRateLimitMixIn.class)
 				.build();
 	}
 
@@ -89,6 +98,8 @@ public class InMemoryProductRepository implements ProductRepository {
 			linkProductFeatures(product);
 			return product;
 		});
+
+		notifyChange(product.getProductId());
 	}
 
 	@Override
@@ -103,6 +114,8 @@ public class InMemoryProductRepository implements ProductRepository {
 							throw new RepositoryException(String.format(PRODUCT_NOT_FOUND, product.getProductId()));
 						}
 				);
+
+		notifyChange(product.getProductId());
 	}
 
 	@Override
@@ -161,6 +174,8 @@ public class InMemoryProductRepository implements ProductRepository {
 		}
 
 		existingProduct.getFeatures().add(feature);
+
+		notifyChange(productId);
 	}
 
 	@Override
@@ -188,6 +203,8 @@ public class InMemoryProductRepository implements ProductRepository {
 
 			return existingProduct;
 		});
+
+		notifyChange(productId);
 	}
 
 	@Override
@@ -215,6 +232,8 @@ public class InMemoryProductRepository implements ProductRepository {
 
 			return existingProduct;
 		});
+
+		notifyChange(productId);
 	}
 
 	@Override
@@ -244,6 +263,8 @@ public class InMemoryProductRepository implements ProductRepository {
 		}
 
 		existingProduct.getPlans().add(plan);
+
+		notifyChange(productId);
 	}
 
 	@Override
@@ -271,6 +292,8 @@ public class InMemoryProductRepository implements ProductRepository {
 
 			return existingProduct;
 		});
+
+		notifyChange(productId);
 	}
 
 	@Override
@@ -298,6 +321,8 @@ public class InMemoryProductRepository implements ProductRepository {
 
 			return existingProduct;
 		});
+
+		notifyChange(productId);
 	}
 
 	@Override
@@ -306,8 +331,16 @@ public class InMemoryProductRepository implements ProductRepository {
 	}
 
 
+	@Override
+	public boolean addChangeListener(ProductChangeListener listener) {
+		changeListeners.add(listener);
+		return true;
+	}
+
 	public void clear() {
+		Set<String> productIds = new HashSet<>(this.products.keySet());
 		this.products.clear();
+		productIds.forEach(this::notifyChange);
 	}
 
 	public void load(InputStream inputStream) {
@@ -317,8 +350,11 @@ public class InMemoryProductRepository implements ProductRepository {
 
 		loadedProducts.forEach(this::linkProductPlans);
 
+		Set<String> productIds = new HashSet<>(this.products.keySet());
 		this.products = loadedProducts.stream()
 				.collect(Collectors.toMap(Product::getProductId, product -> product));
+		productIds.addAll(this.products.keySet());
+		productIds.forEach(this::notifyChange);
 	}
 
 	public void store(OutputStream outputStream) {
@@ -326,6 +362,10 @@ public class InMemoryProductRepository implements ProductRepository {
 		this.mapper.writeValue(outputStream, this.products.values());
 	}
 
+	private void notifyChange(String productId) {
+		changeListeners.forEach(listener -> listener.productChanged(productId));
+	}
+
 	private void linkProductFeatures(Product product) {
 		List<Feature> updatedFeatures = product.getFeatures().stream()
 				.map(f -> {
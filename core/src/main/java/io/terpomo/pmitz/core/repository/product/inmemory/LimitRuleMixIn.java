@@ -21,6 +21,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
 import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
 import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
 
 @JsonTypeInfo(
 		use = JsonTypeInfo.Id.NAME,
@@ -28,7 +30,9 @@ import io.terpomo.pmitz.core.limits.types.CountLimit;
 )
 @JsonSubTypes({
 		@JsonSubTypes.Type(value = CalendarPeriodRateLimit.class, name = "CalendarPeriodRateLimit"),
-		@JsonSubTypes.Type(value = CountLimit.class, name = "CountLimit")
+		@JsonSubTypes.Type(value = CountLimit.class, name = "CountLimit"),
+		@JsonSubTypes.Type(value = SlidingWindowRateLimit.class, name = "SlidingWindowRateLimit"),
+		@JsonSubTypes.Type(value = TokenBucketRateLimit.class, name = "TokenBucketRateLimit")
 })
 @ExcludeFromJacocoGeneratedReport
 public class LimitRuleMixIn {
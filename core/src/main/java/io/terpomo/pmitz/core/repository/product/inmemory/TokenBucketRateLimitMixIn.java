@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.core.repository.product.inmemory;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.terpomo.pmitz.core.limits.types.WindowUnit;
+
+@ExcludeFromJacocoGeneratedReport
+public abstract class TokenBucketRateLimitMixIn {
+
+	@JsonProperty("id")
+	private String id;
+	@JsonProperty("quota")
+	private long quota;
+	@JsonProperty("windowUnit")
+	private WindowUnit windowUnit;
+	@JsonProperty("duration")
+	private int duration;
+
+	@JsonCreator
+	protected TokenBucketRateLimitMixIn(
+			@JsonProperty("id") String id,
+			@JsonProperty("quota") long quota,
+			@JsonProperty("windowUnit") WindowUnit windowUnit,
+			@JsonProperty("duration") int duration) {
+	}
+
+	@JsonIgnore
+	public long getValue() {
+		return 0;
+	}
+
+	@JsonIgnore
+	public ChronoUnit getInterval() {
+		return null;
+	}
+
+	@JsonIgnore
+	public Duration getPeriod() {
+		return null;
+	}
+
+	@JsonIgnore
+	public long getEmissionIntervalNanos() {
+		return 0;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.core.subjects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+public class UserGroupingHierarchy extends UserGrouping {
+
+	private final UserGrouping member;
+
+	private final List<UserGrouping> parents;
+
+	public UserGroupingHierarchy(UserGrouping member, List<UserGrouping> parents) {
+		Objects.requireNonNull(member, "Member cannot be null");
+		Objects.requireNonNull(parents, "Parents cannot be null");
+		if (member instanceof UserGroupingHierarchy || parents.stream().anyMatch(parent -> parent == null || parent instanceof UserGroupingHierarchy)) {
+			throw new IllegalArgumentException("Hierarchy levels must be non-null and cannot be hierarchies");
+		}
+		this.member = member;
+		this.parents = List.copyOf(parents);
+	}
+
+	public UserGroupingHierarchy(UserGrouping member, UserGrouping... parents) {
+		this(member, List.of(parents));
+	}
+
+	@Override
+	public String getId() {
+		return member.getId();
+	}
+
+	public UserGrouping getMember() {
+		return member;
+	}
+
+	public List<UserGrouping> getParents() {
+		return parents;
+	}
+
+	/**
+	 * Returns the member followed by its parents. Usage is tracked separately for each level.
+	 * @return <code>List</code> of the user groupings of the hierarchy
+	 */
+	public List<UserGrouping> getLevels() {
+		List<UserGrouping> levels = new ArrayList<>(parents.size() + 1);
+		levels.add(member);
+		levels.addAll(parents);
+		return levels;
+	}
+
+	@Override
+	public boolean isProductAllowed(String productId) {
+		return getLevels().stream().allMatch(level -> level.isProductAllowed(productId));
+	}
+
+	@Override
+	public Optional<String> getPlan(String productId) {
+		return getLevels().stream()
+				.map(level -> level.getPlan(productId))
+				.flatMap(Optional::stream)
+				.findFirst();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		UserGroupingHierarchy that = (UserGroupingHierarchy) o;
+		return Objects.equals(member, that.member) && Objects.equals(parents, that.parents);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(member, parents);
+	}
+}
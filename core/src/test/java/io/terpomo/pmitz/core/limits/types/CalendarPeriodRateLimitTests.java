@@ -16,12 +16,14 @@
 
 package io.terpomo.pmitz.core.limits.types;
 
+import java.lang.management.ManagementFactory;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class CalendarPeriodRateLimitTests {
 
@@ -142,4 +144,47 @@ class CalendarPeriodRateLimitTests {
 		assertThat(expectedEndTime.isEqual(rateLimit.getWindowEnd(referenceDate).get())).isTrue();
 	}
 
+	@Test
+	void getWindowStartShouldReuseWindowUntilRollover() {
+		CalendarPeriodRateLimit rateLimit = new CalendarPeriodRateLimit(limitId, 10, CalendarPeriodRateLimit.Periodicity.DAY);
+
+		var windowStart = rateLimit.getWindowStart(referenceDate);
+		var sameDayWindowStart = rateLimit.getWindowStart(referenceDate.withHour(23).withMinute(59));
+		var nextDayWindowStart = rateLimit.getWindowStart(referenceDate.plusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0));
+
+		assertThat(sameDayWindowStart).isSameAs(windowStart);
+		assertThat(nextDayWindowStart.get()).isEqualTo(ZonedDateTime.of(2024, 2, 21, 0, 0, 0, 0, ZoneId.of("UTC")));
+		assertThat(rateLimit.getWindowEnd(referenceDate.plusDays(1)).get())
+				.isEqualTo(ZonedDateTime.of(2024, 2, 21, 23, 59, 59, 999_999_999, ZoneId.of("UTC")));
+	}
+
+	@Test
+	void getWindowStartShouldNotReuseWindowOfAnotherZone() {
+		CalendarPeriodRateLimit rateLimit = new CalendarPeriodRateLimit(limitId, 10, CalendarPeriodRateLimit.Periodicity.DAY);
+		rateLimit.getWindowStart(referenceDate);
+
+		var montrealReferenceDate = referenceDate.withZoneSameInstant(ZoneId.of("America/Montreal"));
+
+		assertThat(rateLimit.getWindowStart(montrealReferenceDate).get())
+				.isEqualTo(ZonedDateTime.of(2024, 2, 20, 0, 0, 0, 0, ZoneId.of("America/Montreal")));
+	}
+
+	@Test
+	void getWindowStartShouldNotAllocateWithinCurrentWindow() {
+		var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+		CalendarPeriodRateLimit rateLimit = new CalendarPeriodRateLimit(limitId, 10, CalendarPeriodRateLimit.Periodicity.MONTH);
+		rateLimit.getWindowStart(referenceDate);
+		long threadId = Thread.currentThread().getId();
+
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 10_000; i++) {
+			rateLimit.getWindowStart(referenceDate);
+			rateLimit.getWindowEnd(referenceDate);
+		}
+		long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+		// a single allocation per call would amount to hundreds of kilobytes
+		assertThat(allocatedBytes).isLessThan(1024);
+	}
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.core.limits.types;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.within;
+
+class SlidingWindowRateLimitTests {
+
+	ZonedDateTime referenceDate = ZonedDateTime.of(2024, 2, 20, 10, 15, 33, 7000, ZoneId.of("UTC"));
+
+	String limitId = "max-calls-per-5-minutes";
+
+	SlidingWindowRateLimit rateLimit = new SlidingWindowRateLimit(limitId, 100, WindowUnit.MINUTE, 5);
+
+	@Test
+	void getWindowStartShouldReturnStartOfBucketAlignedOnEpoch() {
+		ZonedDateTime expectedStartTime = ZonedDateTime.of(2024, 2, 20, 10, 15, 0, 0, ZoneId.of("UTC"));
+
+		assertThat(rateLimit.getWindowStart(referenceDate)).contains(expectedStartTime);
+	}
+
+	@Test
+	void getWindowEndShouldReturnLastNanosecondOfBucket() {
+		ZonedDateTime expectedEndTime = ZonedDateTime.of(2024, 2, 20, 10, 19, 59, 999_999_999, ZoneId.of("UTC"));
+
+		assertThat(rateLimit.getWindowEnd(referenceDate)).contains(expectedEndTime);
+	}
+
+	@Test
+	void getWindowStartShouldKeepZoneOfReferenceDate() {
+		ZonedDateTime montrealReferenceDate = referenceDate.withZoneSameInstant(ZoneId.of("America/Montreal"));
+
+		assertThat(rateLimit.getWindowStart(montrealReferenceDate).get().getZone()).isEqualTo(ZoneId.of("America/Montreal"));
+		assertThat(rateLimit.getWindowStart(montrealReferenceDate).get().toInstant())
+				.isEqualTo(rateLimit.getWindowStart(referenceDate).get().toInstant());
+	}
+
+	@Test
+	void getPreviousWindowWeightShouldReturnPartOfPreviousBucketStillInWindow() {
+		// 33 seconds elapsed in a 5 minutes bucket
+		assertThat(rateLimit.getPreviousWindowWeight(referenceDate)).isCloseTo(1 - 33.0 / 300, within(0.0001));
+		assertThat(rateLimit.getPreviousWindowWeight(rateLimit.getWindowStart(referenceDate).get())).isEqualTo(1.0);
+	}
+
+	@Test
+	void getWindowLengthShouldReturnDurationTimesWindowUnit() {
+		assertThat(rateLimit.getWindowLength()).isEqualTo(Duration.ofMinutes(5));
+		assertThat(rateLimit.getValue()).isEqualTo(100);
+		assertThat(rateLimit.getDuration()).isEqualTo(5);
+	}
+
+	@Test
+	void constructorShouldRejectNonPositiveDuration() {
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> new SlidingWindowRateLimit(limitId, 100, WindowUnit.SECOND, 0));
+	}
+}
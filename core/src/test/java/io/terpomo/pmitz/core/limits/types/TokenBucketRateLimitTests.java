@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.core.limits.types;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class TokenBucketRateLimitTests {
+
+	static final long NOW = 1_700_000_000_000_000_000L;
+
+	String limitId = "max-calls-per-second";
+
+	TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(limitId, 10, WindowUnit.SECOND, 1);
+
+	@Test
+	void emissionIntervalShouldSpreadQuotaOverPeriod() {
+		assertThat(rateLimit.getEmissionIntervalNanos()).isEqualTo(100_000_000L);
+		assertThat(rateLimit.getPeriod()).isEqualTo(Duration.ofSeconds(1));
+		assertThat(rateLimit.getValue()).isEqualTo(10);
+	}
+
+	@Test
+	void windowShouldBeEmpty() {
+		ZonedDateTime referenceDate = ZonedDateTime.of(2024, 2, 20, 10, 15, 33, 0, ZoneId.of("UTC"));
+
+		assertThat(rateLimit.getWindowStart(referenceDate)).isEmpty();
+		assertThat(rateLimit.getWindowEnd(referenceDate)).isEmpty();
+	}
+
+	@Test
+	void nextArrivalTimeShouldAllowBurstUpToQuota() {
+		assertThat(rateLimit.nextArrivalTime(0, NOW, 10)).isEqualTo(NOW + 1_000_000_000L);
+		assertThat(rateLimit.nextArrivalTime(NOW + 1_000_000_000L, NOW, 1)).isEqualTo(-1);
+		assertThat(rateLimit.nextArrivalTime(0, NOW, 11)).isEqualTo(-1);
+	}
+
+	@Test
+	void nextArrivalTimeShouldIgnoreArrivalTimeInThePast() {
+		assertThat(rateLimit.nextArrivalTime(NOW - 5_000_000_000L, NOW, 1)).isEqualTo(NOW + 100_000_000L);
+	}
+
+	@Test
+	void remainingUnitsShouldRefillOverTime() {
+		long arrivalTime = NOW + 1_000_000_000L;
+
+		assertThat(rateLimit.getRemainingUnits(arrivalTime, NOW)).isZero();
+		assertThat(rateLimit.getRemainingUnits(arrivalTime, NOW + 350_000_000L)).isEqualTo(3);
+		assertThat(rateLimit.getRemainingUnits(arrivalTime, NOW + 5_000_000_000L)).isEqualTo(10);
+	}
+
+	@Test
+	void constructorShouldRejectInvalidRates() {
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> new TokenBucketRateLimit(limitId, 0, WindowUnit.SECOND, 1));
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> new TokenBucketRateLimit(limitId, 10, WindowUnit.SECOND, 0));
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> new TokenBucketRateLimit(limitId, 2_000_000_000L, WindowUnit.SECOND, 1));
+	}
+}
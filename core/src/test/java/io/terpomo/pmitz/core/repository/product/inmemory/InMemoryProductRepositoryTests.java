@@ -19,6 +19,7 @@ package io.terpomo.pmitz.core.repository.product.inmemory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -961,6 +962,36 @@ class InMemoryProductRepositoryTests {
 		assertThat(result).isFalse();
 	}
 
+	@Test
+	void addChangeListener_notifiedOnChanges() {
+
+		List<String> changedProductIds = new ArrayList<>();
+		boolean added = this.repository.addChangeListener(changedProductIds::add);
+
+		Product p1 = new Product("p1");
+		this.repository.addProduct(p1);
+		Feature f1 = new Feature(p1, "f1");
+		this.repository.addFeature(f1);
+		f1.getLimits().add(new CountLimit("Maximum pictures", 10));
+		this.repository.updateFeature(f1);
+		this.repository.addPlan(new Plan(p1, "plan1", List.of("f1")));
+
+		assertThat(added).isTrue();
+		assertThat(changedProductIds).containsExactly("p1", "p1", "p1", "p1");
+	}
+
+	@Test
+	void addChangeListener_notifiedOnClear() {
+
+		this.repository.addProduct(new Product("p1"));
+		List<String> changedProductIds = new ArrayList<>();
+		this.repository.addChangeListener(changedProductIds::add);
+
+		this.repository.clear();
+
+		assertThat(changedProductIds).containsExactly("p1");
+	}
+
 	private void populateRepository() {
 
 		Product pictureHostingService = new Product("Picture hosting service");
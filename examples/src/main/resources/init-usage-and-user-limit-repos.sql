@@ -7,10 +7,13 @@ CREATE TABLE dbo.usage (
     limit_id VARCHAR(255),
     window_start TIMESTAMP,
     window_end TIMESTAMP,
-    units INT,
+    units BIGINT,
     expiration_date TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    PRIMARY KEY (usage_id)
+    shard SMALLINT DEFAULT 0 NOT NULL,
+    shard_count SMALLINT DEFAULT 1 NOT NULL,
+    PRIMARY KEY (usage_id),
+    CONSTRAINT uk_usage_natural_key UNIQUE NULLS NOT DISTINCT (product_id, feature_id, user_grouping, limit_id, window_start, shard)
 );
 CREATE TABLE dbo.user_limit (
     usage_id INT AUTO_INCREMENT,
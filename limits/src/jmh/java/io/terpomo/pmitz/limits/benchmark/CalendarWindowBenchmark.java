@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.benchmark;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
+import io.terpomo.pmitz.limits.LimitVerificationStrategy;
+import io.terpomo.pmitz.limits.impl.CoarseClock;
+import io.terpomo.pmitz.limits.impl.strategy.SimpleLimitVerificationStrategy;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarWindowBenchmark {
+
+	@Param({ "HOUR", "DAY", "WEEK", "MONTH", "YEAR" })
+	CalendarPeriodRateLimit.Periodicity periodicity;
+
+	LimitVerificationStrategy strategy = new SimpleLimitVerificationStrategy();
+
+	CalendarPeriodRateLimit limitRule;
+
+	ZonedDateTime referenceDate;
+
+	CoarseClock coarseClock;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		limitRule = new CalendarPeriodRateLimit("max-calls", 1000, periodicity);
+		referenceDate = ZonedDateTime.ofInstant(Instant.parse("2024-02-20T10:15:33Z"), ZoneOffset.UTC);
+		coarseClock = CoarseClock.of(Duration.ofMillis(1));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		coarseClock.close();
+	}
+
+	// Expected to report no allocation with the gc profiler
+	@Benchmark
+	public void resolveCurrentWindow(Blackhole blackhole) {
+		blackhole.consume(strategy.getWindowStart(limitRule, referenceDate));
+		blackhole.consume(strategy.getWindowEnd(limitRule, referenceDate));
+	}
+
+	@Benchmark
+	public void resolveNewWindow(Blackhole blackhole) {
+		CalendarPeriodRateLimit newLimitRule = new CalendarPeriodRateLimit("max-calls", 1000, periodicity);
+		blackhole.consume(strategy.getWindowStart(newLimitRule, referenceDate));
+		blackhole.consume(strategy.getWindowEnd(newLimitRule, referenceDate));
+	}
+
+	@Benchmark
+	public long readSystemClock() {
+		return Clock.systemUTC().millis();
+	}
+
+	@Benchmark
+	public long readCoarseClock() {
+		return coarseClock.millis();
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+import io.terpomo.pmitz.limits.usage.repository.impl.MappedFileUsageRepository;
+
+// Updates one counter of a memory-mapped file; with the gc profiler, gc.alloc.rate.norm shows the
+// bytes allocated per update: none for applyDeltas, the result list and scratch arrays for applyDeltasWithinLimits
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedFileUsageBenchmark {
+
+	ZonedDateTime windowStart = ZonedDateTime.ofInstant(Instant.parse("2025-03-01T00:00:00Z"), ZoneOffset.UTC);
+
+	List<UsageDelta> increments;
+
+	List<UsageDelta> incrementsWithinLimit;
+
+	Path path;
+
+	MappedFileUsageRepository repository;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		FeatureRef featureRef = new FeatureRef("product1", "feature1");
+		ZonedDateTime windowEnd = windowStart.plusMonths(1);
+		increments = List.of(new UsageDelta(featureRef, "user1", "max-calls", windowStart, windowEnd,
+				windowEnd.plusMonths(3), 1, UsageDelta.UNBOUNDED));
+		incrementsWithinLimit = List.of(new UsageDelta(featureRef, "user2", "max-calls", windowStart, windowEnd,
+				windowEnd.plusMonths(3), 1, Long.MAX_VALUE - 1));
+		path = Files.createTempFile("pmitz-usage", ".dat");
+		Files.delete(path);
+		repository = new MappedFileUsageRepository(path);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		repository.close();
+		Files.deleteIfExists(path);
+	}
+
+	@Benchmark
+	public void applyDeltas() {
+		repository.applyDeltas(increments);
+	}
+
+	@Benchmark
+	public void applyDeltasWithinLimits(Blackhole blackhole) {
+		blackhole.consume(repository.applyDeltasWithinLimits(incrementsWithinLimit));
+	}
+}
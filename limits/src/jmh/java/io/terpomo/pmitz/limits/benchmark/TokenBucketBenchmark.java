@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.benchmark;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
+import io.terpomo.pmitz.core.limits.types.WindowUnit;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitVerificationStrategy;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.impl.strategy.SimpleLimitVerificationStrategy;
+import io.terpomo.pmitz.limits.impl.strategy.TokenBucketLimitVerificationStrategy;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.impl.InMemoryUsageRepository;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBucketBenchmark {
+
+	FeatureRef featureRef = new FeatureRef("API", "Calls");
+
+	IndividualUser user = new IndividualUser("user1");
+
+	LimitVerificationStrategy simpleStrategy = new SimpleLimitVerificationStrategy();
+
+	LimitVerificationStrategy tokenBucketStrategy = new TokenBucketLimitVerificationStrategy();
+
+	CalendarPeriodRateLimit calendarLimit;
+
+	TokenBucketRateLimit tokenBucketLimit;
+
+	ZonedDateTime referenceDate;
+
+	LimitTrackingContext calendarContext;
+
+	LimitTrackingContext tokenBucketContext;
+
+	InMemoryUsageRepository calendarRepository;
+
+	InMemoryUsageRepository tokenBucketRepository;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		calendarLimit = new CalendarPeriodRateLimit("max-calls", 1_000_000, CalendarPeriodRateLimit.Periodicity.HOUR);
+		tokenBucketLimit = new TokenBucketRateLimit("max-calls", 1_000_000, WindowUnit.HOUR, 1);
+		referenceDate = ZonedDateTime.ofInstant(Instant.parse("2024-02-20T10:15:33Z"), ZoneOffset.UTC);
+
+		calendarContext = newContext(calendarLimit, new UsageRecord("max-calls", calendarLimit.getWindowStart(referenceDate).get(),
+				calendarLimit.getWindowEnd(referenceDate).get(), 10L, null));
+		tokenBucketContext = newContext(tokenBucketLimit, new UsageRecord("max-calls", null, null,
+				referenceDate.toEpochSecond() * 1_000_000_000L, null));
+	}
+
+	@Setup(Level.Iteration)
+	public void resetRepositories() {
+		calendarRepository = new InMemoryUsageRepository();
+		tokenBucketRepository = new InMemoryUsageRepository();
+	}
+
+	@Benchmark
+	public long remainingUnitsSimple() {
+		return simpleStrategy.getRemainingUnits(calendarContext, calendarLimit);
+	}
+
+	@Benchmark
+	public long remainingUnitsTokenBucket() {
+		return tokenBucketStrategy.getRemainingUnits(tokenBucketContext, tokenBucketLimit);
+	}
+
+	@Benchmark
+	public void recordUsageSimple(Blackhole blackhole) {
+		blackhole.consume(recordUsage(simpleStrategy, calendarLimit, calendarContext));
+	}
+
+	@Benchmark
+	public void recordUsageTokenBucket(Blackhole blackhole) {
+		blackhole.consume(recordUsage(tokenBucketStrategy, tokenBucketLimit, tokenBucketContext));
+	}
+
+	// One conditional CAS per call in both cases; the token bucket rejects once the burst is used
+	@Benchmark
+	public void applyDeltaSimple(Blackhole blackhole) {
+		blackhole.consume(calendarRepository.applyDeltasWithinLimits(List.of(
+				simpleStrategy.toUsageDelta(featureRef, user, calendarLimit, 1, referenceDate).get())));
+	}
+
+	@Benchmark
+	public void applyDeltaTokenBucket(Blackhole blackhole) {
+		blackhole.consume(tokenBucketRepository.applyDeltasWithinLimits(List.of(
+				tokenBucketStrategy.toUsageDelta(featureRef, user, tokenBucketLimit, 1, referenceDate).get())));
+	}
+
+	private LimitTrackingContext newContext(LimitRule limitRule, UsageRecord usageRecord) {
+		var context = new LimitTrackingContext(featureRef, user, List.of(new RecordSearchCriteria(limitRule.getId(),
+				limitRule.getWindowStart(referenceDate).orElse(null), limitRule.getWindowEnd(referenceDate).orElse(null))),
+				referenceDate);
+		context.addCurrentUsageRecords(List.of(usageRecord));
+		return context;
+	}
+
+	private LimitTrackingContext recordUsage(LimitVerificationStrategy strategy, LimitRule limitRule,
+			LimitTrackingContext currentContext) {
+		var context = new LimitTrackingContext(featureRef, user, currentContext.getSearchCriteria(), referenceDate);
+		context.addCurrentUsageRecords(currentContext.getCurrentUsageRecords());
+		strategy.recordFeatureUsage(context, limitRule, 1);
+		return context;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitVerificationStrategy;
+import io.terpomo.pmitz.limits.impl.strategy.SimpleLimitVerificationStrategy;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository.UpdateMode;
+
+// Records usage of a few users from concurrent threads, loading and writing the counters either
+// in two transactions or in one transaction locking them; the updates lost by the first mode are
+// printed when the trial ends
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class UsageContentionBenchmark {
+
+	private static final String TABLE_NAME = "usage";
+
+	@Param({ "READ_MODIFY_WRITE", "LOCKING_READ_MODIFY_WRITE" })
+	UpdateMode updateMode;
+
+	@Param({ "1", "16" })
+	int users;
+
+	FeatureRef featureRef = new FeatureRef("product1", "feature1");
+
+	LimitVerificationStrategy strategy = new SimpleLimitVerificationStrategy();
+
+	CalendarPeriodRateLimit limit = new CalendarPeriodRateLimit("max-calls", 1_000_000_000L,
+			CalendarPeriodRateLimit.Periodicity.MONTH);
+
+	ZonedDateTime referenceDate = ZonedDateTime.ofInstant(Instant.parse("2025-03-15T10:15:33Z"), ZoneOffset.UTC);
+
+	List<RecordSearchCriteria> searchCriteria;
+
+	JdbcConnectionPool connectionPool;
+
+	JDBCUsageRepository repository;
+
+	LongAdder recordedUnits = new LongAdder();
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		connectionPool = JdbcConnectionPool.create("jdbc:h2:mem:contentionbench;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+				"sa", "");
+		ZonedDateTime windowStart = limit.getWindowStart(referenceDate).get();
+		ZonedDateTime windowEnd = limit.getWindowEnd(referenceDate).get();
+		searchCriteria = List.of(new RecordSearchCriteria(limit.getId(), windowStart, windowEnd));
+		createUsageTable(windowStart, windowEnd);
+		repository = new JDBCUsageRepository(connectionPool, "bench", TABLE_NAME, updateMode);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		try (Connection connection = connectionPool.getConnection();
+				Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery("SELECT SUM(units) FROM " + repository.getFullTableName())) {
+				resultSet.next();
+				long storedUnits = resultSet.getLong(1);
+				System.out.println(System.lineSeparator() + updateMode + " with " + users + " users: "
+						+ recordedUnits.sum() + " units recorded, " + (recordedUnits.sum() - storedUnits) + " lost");
+			}
+			statement.execute("DROP SCHEMA bench CASCADE");
+		}
+		connectionPool.dispose();
+	}
+
+	@Benchmark
+	public void recordUsage() {
+		IndividualUser user = new IndividualUser("user" + ThreadLocalRandom.current().nextInt(users));
+		if (repository.supportsLockingUpdates()) {
+			repository.updateUsageRecordsLocked(loader -> {
+				var context = new LimitTrackingContext(featureRef, user, searchCriteria, referenceDate);
+				loader.accept(List.of(context));
+				strategy.recordFeatureUsage(context, limit, 1);
+				return List.of(context);
+			});
+		}
+		else {
+			var context = new LimitTrackingContext(featureRef, user, searchCriteria, referenceDate);
+			repository.loadUsageData(context);
+			strategy.recordFeatureUsage(context, limit, 1);
+			repository.updateUsageRecords(context);
+		}
+		recordedUnits.increment();
+	}
+
+	private void createUsageTable(ZonedDateTime windowStart, ZonedDateTime windowEnd) throws SQLException {
+		try (Connection connection = connectionPool.getConnection()) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE SCHEMA bench");
+				statement.execute("CREATE TABLE bench." + TABLE_NAME + " (usage_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+						+ "feature_id VARCHAR(255), product_id VARCHAR(255), user_grouping VARCHAR(255), "
+						+ "limit_id VARCHAR(255), window_start TIMESTAMP, window_end TIMESTAMP, units BIGINT, "
+						+ "expiration_date TIMESTAMP, shard SMALLINT DEFAULT 0, shard_count SMALLINT DEFAULT 1, "
+						+ "CONSTRAINT uk_bench_natural_key UNIQUE NULLS NOT DISTINCT "
+						+ "(product_id, feature_id, user_grouping, limit_id, window_start, shard))");
+			}
+			// counters are created up front, as the read-modify-write mode cannot create them concurrently
+			try (PreparedStatement statement = connection.prepareStatement("INSERT INTO bench." + TABLE_NAME
+					+ " (feature_id, product_id, user_grouping, limit_id, window_start, window_end, units, expiration_date)"
+					+ " VALUES ('feature1', 'product1', ?, ?, ?, ?, 0, ?)")) {
+				for (int user = 0; user < users; user++) {
+					statement.setString(1, "user" + user);
+					statement.setString(2, limit.getId());
+					statement.setTimestamp(3, Timestamp.from(windowStart.toInstant()));
+					statement.setTimestamp(4, Timestamp.from(windowEnd.toInstant()));
+					statement.setTimestamp(5, Timestamp.from(windowEnd.plusMonths(3).toInstant()));
+					statement.addBatch();
+				}
+				statement.executeBatch();
+			}
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.impl.H2UsageSqlDialect;
+import io.terpomo.pmitz.limits.usage.repository.impl.UsageSqlDialect;
+
+// Compares the query loading the usage records of one user written as a chain of ORed criteria
+// with the UNION ALL query of the usage SQL dialect, whose plans are printed when the trial starts
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsageLoadQueryBenchmark {
+
+	private static final String TABLE_NAME = "bench.usage";
+
+	private static final int USERS = 1_000;
+
+	private static final int LIMITS = 10;
+
+	private static final int WINDOWS = 3;
+
+	@Param({ "1", "3", "10" })
+	int limits;
+
+	@Param({ "OR_CHAIN", "UNION_ALL" })
+	String form;
+
+	UsageSqlDialect dialect = new H2UsageSqlDialect();
+
+	Connection connection;
+
+	LimitTrackingContext context;
+
+	String query;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:usageloadbench;DB_CLOSE_DELAY=-1");
+		connection = dataSource.getConnection();
+		ZonedDateTime windowStart = ZonedDateTime.of(2024, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+		createUsageTable(windowStart);
+
+		List<RecordSearchCriteria> criteria = new ArrayList<>();
+		ZonedDateTime currentWindowStart = windowStart.plusDays(WINDOWS - 1);
+		for (int i = 0; i < limits; i++) {
+			criteria.add(new RecordSearchCriteria("limit" + i, currentWindowStart, currentWindowStart.plusDays(1)));
+		}
+		context = new LimitTrackingContext(new FeatureRef("product1", "feature1"), new IndividualUser("user500"),
+				criteria);
+		query = "OR_CHAIN".equals(form) ? orChainSql() : dialect.loadUsageRecordsSql(TABLE_NAME, List.of(context));
+
+		try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + query)) {
+			bind(statement);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				resultSet.next();
+				System.out.println(System.lineSeparator() + form + " plan for " + limits + " limits:"
+						+ System.lineSeparator() + resultSet.getString(1));
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP SCHEMA bench CASCADE");
+		}
+		connection.close();
+	}
+
+	@Benchmark
+	public void loadUsageRecords(Blackhole blackhole) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			bind(statement);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					blackhole.consume(resultSet.getLong("units"));
+				}
+			}
+		}
+	}
+
+	private void createUsageTable(ZonedDateTime windowStart) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE SCHEMA bench");
+			statement.execute("CREATE TABLE " + TABLE_NAME + " (usage_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+					+ "feature_id VARCHAR(255), product_id VARCHAR(255), user_grouping VARCHAR(255), "
+					+ "limit_id VARCHAR(255), window_start TIMESTAMP, window_end TIMESTAMP, units BIGINT, "
+					+ "expiration_date TIMESTAMP, shard SMALLINT DEFAULT 0, shard_count SMALLINT DEFAULT 1)");
+			statement.execute("CREATE INDEX idx_bench_feature_product_user ON " + TABLE_NAME
+					+ " (feature_id, product_id, user_grouping)");
+		}
+		try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + TABLE_NAME
+				+ " (feature_id, product_id, user_grouping, limit_id, window_start, window_end, units, expiration_date)"
+				+ " VALUES ('feature1', 'product1', ?, ?, ?, ?, 1, ?)")) {
+			for (int user = 0; user < USERS; user++) {
+				for (int limit = 0; limit < LIMITS; limit++) {
+					for (int window = 0; window < WINDOWS; window++) {
+						ZonedDateTime start = windowStart.plusDays(window);
+						statement.setString(1, "user" + user);
+						statement.setString(2, "limit" + limit);
+						statement.setTimestamp(3, Timestamp.from(start.toInstant()));
+						statement.setTimestamp(4, Timestamp.from(start.plusDays(1).toInstant()));
+						statement.setTimestamp(5, Timestamp.from(start.plusMonths(3).toInstant()));
+						statement.addBatch();
+					}
+				}
+				statement.executeBatch();
+			}
+		}
+	}
+
+	private String orChainSql() {
+		List<String> conditions = new ArrayList<>();
+		for (int i = 0; i < limits; i++) {
+			conditions.add("(limit_id = ? AND (window_end >= ? OR window_end IS NULL)"
+					+ " AND (window_start <= ? OR window_start IS NULL))");
+		}
+		return "SELECT usage_id, limit_id, window_start, window_end, expiration_date, units FROM " + TABLE_NAME
+				+ " WHERE feature_id = ? AND product_id = ? AND user_grouping = ? AND ("
+				+ String.join(" OR ", conditions) + ")";
+	}
+
+	private void bind(PreparedStatement statement) throws SQLException {
+		if (!"OR_CHAIN".equals(form)) {
+			dialect.bindLoadUsageRecords(statement, List.of(context));
+			return;
+		}
+		int index = 1;
+		statement.setString(index++, context.getFeatureRef().featureId());
+		statement.setString(index++, context.getFeatureRef().productId());
+		statement.setString(index++, context.getUserGrouping().getId());
+		for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
+			statement.setString(index++, criteria.limitId());
+			statement.setTimestamp(index++, Timestamp.from(criteria.windowStart().toInstant()));
+			statement.setTimestamp(index++, Timestamp.from(criteria.windowEnd().toInstant()));
+		}
+	}
+}
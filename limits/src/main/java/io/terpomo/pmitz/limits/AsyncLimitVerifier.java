@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public interface AsyncLimitVerifier {
+
+	CompletableFuture<Boolean> isWithinLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits);
+
+	CompletableFuture<Void> recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits);
+
+	CompletableFuture<Void> reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits);
+
+	CompletableFuture<Map<String, Long>> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping);
+
+	default CompletableFuture<List<Boolean>> isWithinLimits(List<LimitOperation> operations) {
+		return allOf(operations.stream()
+				.map(operation -> isWithinLimits(operation.featureRef(), operation.userGrouping(), operation.units()))
+				.toList());
+	}
+
+	default CompletableFuture<List<LimitOperationResult>> recordFeatureUsage(List<LimitOperation> operations) {
+		return allOf(operations.stream()
+				.map(operation -> recordFeatureUsage(operation.featureRef(), operation.userGrouping(), operation.units())
+						.handle((result, ex) -> toResult(operation, ex)))
+				.toList());
+	}
+
+	default CompletableFuture<List<Map<String, Long>>> getLimitsRemainingUnits(List<LimitOperation> operations) {
+		return allOf(operations.stream()
+				.map(operation -> getLimitsRemainingUnits(operation.featureRef(), operation.userGrouping()))
+				.toList());
+	}
+
+	private static LimitOperationResult toResult(LimitOperation operation, Throwable ex) {
+		if (ex == null) {
+			return LimitOperationResult.success(operation);
+		}
+		Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+		if (cause instanceof LimitExceededException limitExceededException) {
+			return LimitOperationResult.failure(operation, limitExceededException);
+		}
+		throw (ex instanceof CompletionException completionException) ? completionException : new CompletionException(ex);
+	}
+
+	private static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+		CompletableFuture<List<T>> result = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+				.thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+		result.whenComplete((value, ex) -> {
+			if (ex != null) {
+				futures.forEach(future -> future.cancel(true));
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits;
+
+import java.util.Map;
+
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public interface IdempotentLimitVerifier extends LimitVerifier {
+
+	/**
+	 * Records the usage once per idempotency key. A replay of a request already processed
+	 * returns its original outcome without updating the usage again.
+	 * @param idempotencyKey the key supplied by the client, or {@code null} to always record
+	 * @throws io.terpomo.pmitz.core.exception.RequestInProgressException if a request with the
+	 * same key is being processed
+	 * @throws io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException if the key was
+	 * used for a request with another direction or other units
+	 */
+	void recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits,
+			String idempotencyKey);
+
+	/**
+	 * Reduces the usage once per idempotency key.
+	 * @param idempotencyKey the key supplied by the client, or {@code null} to always reduce
+	 * @see #recordFeatureUsage(FeatureRef, UserGrouping, Map, String)
+	 */
+	void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits,
+			String idempotencyKey);
+}
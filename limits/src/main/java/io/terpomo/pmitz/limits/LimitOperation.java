@@ -0,0 +1,30 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits;
+
+import java.util.Collections;
+import java.util.Map;
+
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public record LimitOperation(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units) {
+
+	public LimitOperation(FeatureRef featureRef, UserGrouping userGrouping) {
+		this(featureRef, userGrouping, Collections.emptyMap());
+	}
+}
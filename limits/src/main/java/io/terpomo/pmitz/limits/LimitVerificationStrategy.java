@@ -20,7 +20,10 @@ import java.time.ZonedDateTime;
 import java.util.Optional;
 
 import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
 
 public interface LimitVerificationStrategy {
 
@@ -35,4 +38,14 @@ public interface LimitVerificationStrategy {
 	Optional<ZonedDateTime> getWindowStart(LimitRule limitRule, ZonedDateTime referenceDate);
 
 	Optional<ZonedDateTime> getWindowEnd(LimitRule limitRule, ZonedDateTime referenceDate);
+
+	/**
+	 * Describes a usage change as a single counter delta, so that it can be applied atomically
+	 * by an {@link io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository}.
+	 * Strategies whose state is not a single counter per window return an empty optional.
+	 */
+	default Optional<UsageDelta> toUsageDelta(FeatureRef featureRef, UserGrouping userGrouping, LimitRule limitRule,
+			long units, ZonedDateTime referenceDate) {
+		return Optional.empty();
+	}
 }
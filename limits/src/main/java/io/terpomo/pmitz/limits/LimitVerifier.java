@@ -16,8 +16,11 @@
 
 package io.terpomo.pmitz.limits;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import io.terpomo.pmitz.core.exception.LimitExceededException;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 
@@ -30,4 +33,34 @@ public interface LimitVerifier {
 	void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits);
 
 	Map<String, Long> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping);
+
+	default List<Boolean> isWithinLimits(List<LimitOperation> operations) {
+		return operations.stream()
+				.map(operation -> isWithinLimits(operation.featureRef(), operation.userGrouping(), operation.units()))
+				.toList();
+	}
+
+	/**
+	 * Records the usage of each operation. An operation exceeding a limit is not recorded
+	 * and is reported in its result, the other operations are recorded.
+	 */
+	default List<LimitOperationResult> recordFeatureUsage(List<LimitOperation> operations) {
+		List<LimitOperationResult> results = new ArrayList<>(operations.size());
+		for (LimitOperation operation : operations) {
+			try {
+				recordFeatureUsage(operation.featureRef(), operation.userGrouping(), operation.units());
+				results.add(LimitOperationResult.success(operation));
+			}
+			catch (LimitExceededException ex) {
+				results.add(LimitOperationResult.failure(operation, ex));
+			}
+		}
+		return results;
+	}
+
+	default List<Map<String, Long>> getLimitsRemainingUnits(List<LimitOperation> operations) {
+		return operations.stream()
+				.map(operation -> getLimitsRemainingUnits(operation.featureRef(), operation.userGrouping()))
+				.toList();
+	}
 }
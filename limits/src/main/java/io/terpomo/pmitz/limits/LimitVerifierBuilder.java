@@ -16,15 +16,29 @@
 
 package io.terpomo.pmitz.limits;
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
 import javax.sql.DataSource;
 
 import io.terpomo.pmitz.core.repository.product.ProductRepository;
 import io.terpomo.pmitz.core.repository.product.inmemory.InMemoryProductRepository;
+import io.terpomo.pmitz.limits.idempotency.IdempotencyRepository;
+import io.terpomo.pmitz.limits.impl.CoarseClock;
+import io.terpomo.pmitz.limits.impl.ExecutorAsyncLimitVerifier;
+import io.terpomo.pmitz.limits.impl.IdempotentLimitVerifierImpl;
+import io.terpomo.pmitz.limits.impl.IdempotentReservingLimitVerifierImpl;
 import io.terpomo.pmitz.limits.impl.LimitRuleResolverImpl;
 import io.terpomo.pmitz.limits.impl.LimitVerifierImpl;
+import io.terpomo.pmitz.limits.impl.ReservingLimitVerifierImpl;
+import io.terpomo.pmitz.limits.impl.UsageNearCache;
 import io.terpomo.pmitz.limits.impl.strategy.LimitVerificationStrategyDefaultResolver;
+import io.terpomo.pmitz.limits.reservation.ReservationRepository;
 import io.terpomo.pmitz.limits.usage.repository.UsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.InMemoryUsageRepository;
 import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.MappedFileUsageRepository;
 import io.terpomo.pmitz.limits.userlimit.UserLimitRepository;
 
 public final class LimitVerifierBuilder {
@@ -53,18 +67,82 @@ public final class LimitVerifierBuilder {
 		LimitVerificationStrategySpec withCustomUsageRepository(UsageRepository usageRepository);
 
 		LimitVerificationStrategySpec withJdbcUsageRepository(DataSource dataSource, String schema, String table);
+
+		LimitVerificationStrategySpec withJdbcUsageRepository(DataSource dataSource, String schema, String table,
+				JDBCUsageRepository.UpdateMode updateMode);
+
+		LimitVerificationStrategySpec withInMemoryUsageRepository();
+
+		LimitVerificationStrategySpec withMappedFileUsageRepository(Path path);
 	}
 
 	public interface LimitVerificationStrategySpec {
 		Creator withUserLimitVerificationStrategy(LimitVerificationStrategy stratey);
 
+		/**
+		 * Sets the clock used to resolve the windows of the limits, such as a
+		 * {@link CoarseClock}. The clock is not closed by the verifier.
+		 */
+		Creator withClock(Clock clock);
+
+		/**
+		 * Detects replays of the requests recorded or reduced with an idempotency key. A request
+		 * being processed holds its key for {@link IdempotentLimitVerifierImpl#DEFAULT_PENDING_LEASE}.
+		 * The other options are set before, the verifier built is then an
+		 * {@link IdempotentLimitVerifier}.
+		 * @param idempotencyRepository the repository storing the keys and their outcome
+		 * @param timeToLive the time during which replays of a completed request are detected
+		 */
+		IdempotentCreator withIdempotency(IdempotencyRepository idempotencyRepository, Duration timeToLive);
+
+		/**
+		 * Serves the remaining units from the usage loaded during the given time, instead of
+		 * loading it from the usage repository on every read. Usage recorded or reduced through
+		 * the verifier is seen right away, usage recorded elsewhere once the cached usage is
+		 * stale.
+		 * @param maxStaleness the time during which loaded usage is cached
+		 */
+		Creator withUsageNearCache(Duration maxStaleness);
+
+		/**
+		 * Lets clients reserve units ahead of their use, and commit or release them later.
+		 * Expired reservations are released by a
+		 * {@link io.terpomo.pmitz.limits.impl.ReservationSweeper} built for the repository.
+		 * The other options are set before, the verifier built is then a
+		 * {@link ReservingLimitVerifier}.
+		 * @param reservationRepository the repository storing the reservations
+		 */
+		ReservingCreator withReservations(ReservationRepository reservationRepository);
+
 		LimitVerifier build();
+
+		/**
+		 * Builds the verifier and returns a builder of an {@link AsyncLimitVerifier} running it
+		 * on a bounded executor.
+		 */
+		ExecutorAsyncLimitVerifier.Builder async();
 	}
 
 	public interface Creator extends LimitVerificationStrategySpec {
 		LimitVerifier build();
 	}
 
+	public interface IdempotentCreator {
+		IdempotentReservingCreator withReservations(ReservationRepository reservationRepository);
+
+		IdempotentLimitVerifier build();
+	}
+
+	public interface ReservingCreator {
+		IdempotentReservingCreator withIdempotency(IdempotencyRepository idempotencyRepository, Duration timeToLive);
+
+		ReservingLimitVerifier build();
+	}
+
+	public interface IdempotentReservingCreator {
+		IdempotentReservingLimitVerifier build();
+	}
+
 	public static final class Builder implements LimitRuleResolverSpec, UsageRepositorySpec,
 			LimitVerificationStrategySpec, Creator {
 
@@ -74,6 +152,15 @@ public final class LimitVerifierBuilder {
 
 		private LimitVerificationStrategyResolver verificationStrategyResolver;
 
+		private Clock clock = Clock.systemDefaultZone();
+
+		private IdempotencyRepository idempotencyRepository;
+		private Duration idempotencyTimeToLive;
+
+		private Duration usageNearCacheMaxStaleness;
+
+		private ReservationRepository reservationRepository;
+
 		private Builder(ProductRepository productRepository) {
 			this.productRepository = productRepository;
 		}
@@ -107,18 +194,132 @@ public final class LimitVerifierBuilder {
 			return this;
 		}
 
+		@Override
+		public LimitVerificationStrategySpec withJdbcUsageRepository(DataSource dataSource, String schema, String table,
+				JDBCUsageRepository.UpdateMode updateMode) {
+			usageRepository = new JDBCUsageRepository(dataSource, schema, table, updateMode);
+			return this;
+		}
+
+		@Override
+		public LimitVerificationStrategySpec withInMemoryUsageRepository() {
+			usageRepository = new InMemoryUsageRepository();
+			return this;
+		}
+
+		@Override
+		public LimitVerificationStrategySpec withMappedFileUsageRepository(Path path) {
+			usageRepository = new MappedFileUsageRepository(path);
+			return this;
+		}
+
 		@Override
 		public Creator withUserLimitVerificationStrategy(LimitVerificationStrategy strategy) {
 			verificationStrategyResolver = new LimitVerificationStrategyDefaultResolver(strategy);
 			return this;
 		}
 
+		@Override
+		public Creator withClock(Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		@Override
+		public IdempotentCreator withIdempotency(IdempotencyRepository idempotencyRepository, Duration timeToLive) {
+			this.idempotencyRepository = idempotencyRepository;
+			this.idempotencyTimeToLive = timeToLive;
+			return new IdempotentBuilder(this);
+		}
+
+		@Override
+		public Creator withUsageNearCache(Duration maxStaleness) {
+			this.usageNearCacheMaxStaleness = maxStaleness;
+			return this;
+		}
+
+		@Override
+		public ReservingCreator withReservations(ReservationRepository reservationRepository) {
+			this.reservationRepository = reservationRepository;
+			return new ReservingBuilder(this);
+		}
+
 		@Override
 		public LimitVerifier build() {
 			if (verificationStrategyResolver == null) {
 				verificationStrategyResolver = new LimitVerificationStrategyDefaultResolver();
 			}
-			return new LimitVerifierImpl(limitRuleResolver, verificationStrategyResolver, usageRepository, productRepository);
+			UsageNearCache usageNearCache = (usageNearCacheMaxStaleness != null)
+					? UsageNearCache.builder(usageNearCacheMaxStaleness).clock(clock).build() : null;
+			return new LimitVerifierImpl(limitRuleResolver, verificationStrategyResolver,
+					usageRepository, productRepository, clock, usageNearCache);
+		}
+
+		private ReservingLimitVerifier buildReserving() {
+			return new ReservingLimitVerifierImpl(build(), reservationRepository, clock);
+		}
+
+		@Override
+		public ExecutorAsyncLimitVerifier.Builder async() {
+			return ExecutorAsyncLimitVerifier.builder(build());
+		}
+	}
+
+	private static final class IdempotentBuilder implements IdempotentCreator {
+
+		private final Builder builder;
+
+		private IdempotentBuilder(Builder builder) {
+			this.builder = builder;
+		}
+
+		@Override
+		public IdempotentReservingCreator withReservations(ReservationRepository reservationRepository) {
+			builder.reservationRepository = reservationRepository;
+			return new IdempotentReservingBuilder(builder);
+		}
+
+		@Override
+		public IdempotentLimitVerifier build() {
+			return new IdempotentLimitVerifierImpl(builder.build(), builder.idempotencyRepository,
+					builder.idempotencyTimeToLive, builder.clock);
+		}
+	}
+
+	private static final class ReservingBuilder implements ReservingCreator {
+
+		private final Builder builder;
+
+		private ReservingBuilder(Builder builder) {
+			this.builder = builder;
+		}
+
+		@Override
+		public IdempotentReservingCreator withIdempotency(IdempotencyRepository idempotencyRepository,
+				Duration timeToLive) {
+			builder.idempotencyRepository = idempotencyRepository;
+			builder.idempotencyTimeToLive = timeToLive;
+			return new IdempotentReservingBuilder(builder);
+		}
+
+		@Override
+		public ReservingLimitVerifier build() {
+			return builder.buildReserving();
+		}
+	}
+
+	private static final class IdempotentReservingBuilder implements IdempotentReservingCreator {
+
+		private final Builder builder;
+
+		private IdempotentReservingBuilder(Builder builder) {
+			this.builder = builder;
+		}
+
+		@Override
+		public IdempotentReservingLimitVerifier build() {
+			return new IdempotentReservingLimitVerifierImpl(builder.buildReserving(), builder.idempotencyRepository,
+					builder.idempotencyTimeToLive, builder.clock);
 		}
 	}
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+
+public interface MultiWindowLimitVerificationStrategy extends LimitVerificationStrategy {
+
+	/**
+	 * Returns the criteria of the usage records needed to verify a limit, when they do not
+	 * fit in the single window returned by {@link #getWindowStart} and {@link #getWindowEnd}.
+	 * @param limitRule the limit to verify
+	 * @param referenceDate the date usage is verified at
+	 * @return one criteria per usage record to load
+	 */
+	List<RecordSearchCriteria> getSearchCriteria(LimitRule limitRule, ZonedDateTime referenceDate);
+}
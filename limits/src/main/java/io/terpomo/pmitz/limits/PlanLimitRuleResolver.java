@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public interface PlanLimitRuleResolver extends LimitRuleResolver {
+
+	/**
+	 * Resolves the rule defined by the product, either overridden by the plan or global to the
+	 * feature.
+	 * @param featureRef the feature
+	 * @param limitRuleId the id of the limit rule
+	 * @param planId the plan of the user grouping, or <code>null</code> if it has none
+	 * @return the rule, or an empty optional if the product does not define it
+	 */
+	Optional<LimitRule> resolvePlanLimitRule(FeatureRef featureRef, String limitRuleId, String planId);
+
+	Optional<LimitRule> resolveUserLimitRule(FeatureRef featureRef, String limitRuleId, UserGrouping userGrouping);
+
+	/**
+	 * Resolves the rules defined for the user grouping among the given limit rules of a feature,
+	 * in a single lookup.
+	 * @return the rules found, by limit rule id
+	 */
+	Map<String, LimitRule> resolveUserLimitRules(FeatureRef featureRef, Collection<String> limitRuleIds,
+			UserGrouping userGrouping);
+
+	/**
+	 * Indicates whether rules may be defined for specific user groupings. When it returns
+	 * <code>false</code>, {@link #resolveUserLimitRule} never returns a rule.
+	 */
+	boolean hasUserLimitRules();
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits;
+
+import java.time.Duration;
+import java.util.Map;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.exception.ReservationNotFoundException;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public interface ReservingLimitVerifier extends LimitVerifier {
+
+	/**
+	 * Reserves units ahead of their use. The units are recorded right away, so that they count
+	 * against the limits until the reservation is committed, released or expires.
+	 * @param units the units to reserve by limit id
+	 * @param timeToLive the time after which the units are released unless committed
+	 * @return the id of the reservation
+	 * @throws LimitExceededException if the units would exceed a limit
+	 */
+	String reserveFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units,
+			Duration timeToLive);
+
+	/**
+	 * Replaces the reserved units with the units actually used. Reserved units not used are
+	 * released, units used beyond the reservation are recorded. Only the limits whose units
+	 * changed are updated.
+	 * @param actualUnits the units used by limit id, a reserved limit missing from them is released
+	 * @throws ReservationNotFoundException if the reservation was committed, released or expired
+	 * @throws LimitExceededException if the units used beyond the reservation would exceed a
+	 * limit, the reservation is then kept
+	 */
+	void commitReservation(String reservationId, Map<String, Long> actualUnits);
+
+	/**
+	 * Releases the reserved units.
+	 * @throws ReservationNotFoundException if the reservation was committed, released or expired
+	 */
+	void releaseReservation(String reservationId);
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.idempotency;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public final class IdempotencyKeyPurger implements AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(IdempotencyKeyPurger.class.getName());
+
+	private final IdempotencyRepository idempotencyRepository;
+	private final int batchSize;
+	private final Duration pauseBetweenBatches;
+	private final Duration maxRunTime;
+	private final Clock clock;
+	private final ReentrantLock purgeLock = new ReentrantLock();
+	private final ScheduledExecutorService scheduler;
+
+	private final LongAdder runs = new LongAdder();
+	private final LongAdder completedRuns = new LongAdder();
+	private final LongAdder failedRuns = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder purgedKeys = new LongAdder();
+
+	private IdempotencyKeyPurger(Builder builder) {
+		this.idempotencyRepository = builder.idempotencyRepository;
+		this.batchSize = builder.batchSize;
+		this.pauseBetweenBatches = builder.pauseBetweenBatches;
+		this.maxRunTime = builder.maxRunTime;
+		this.clock = builder.clock;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pmitz-idempotency-key-purge");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = builder.purgeInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::purgeQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public static Builder builder(IdempotencyRepository idempotencyRepository) {
+		return new Builder(idempotencyRepository);
+	}
+
+	/**
+	 * Deletes the keys expired at the current time, in batches each deleted in its own
+	 * transaction, until no expired key is left or the maximum run time is reached. A run
+	 * started while another one is in progress returns right away.
+	 * @return the number of keys deleted
+	 */
+	public int purgeExpiredKeys() {
+		if (!purgeLock.tryLock()) {
+			return 0;
+		}
+		try {
+			runs.increment();
+			Instant now = clock.instant();
+			long deadline = System.nanoTime() + maxRunTime.toNanos();
+			int purged = 0;
+			try {
+				while (true) {
+					int deleted = idempotencyRepository.deleteExpired(now, batchSize);
+					purged += deleted;
+					batches.increment();
+					purgedKeys.add(deleted);
+					if (deleted < batchSize) {
+						completedRuns.increment();
+						break;
+					}
+					if (System.nanoTime() - deadline >= 0 || !pause()) {
+						LOGGER.fine("Idempotency key purge stopped before the end, it resumes with the next run");
+						break;
+					}
+				}
+			}
+			catch (RuntimeException ex) {
+				failedRuns.increment();
+				throw ex;
+			}
+			int purgedInRun = purged;
+			LOGGER.fine(() -> "Purged " + purgedInRun + " expired idempotency keys");
+			return purged;
+		}
+		finally {
+			purgeLock.unlock();
+		}
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(runs.sum(), completedRuns.sum(), failedRuns.sum(), batches.sum(), purgedKeys.sum());
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private boolean pause() {
+		if (pauseBetweenBatches.isZero()) {
+			return true;
+		}
+		try {
+			Thread.sleep(pauseBetweenBatches.toMillis());
+			return true;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void purgeQuietly() {
+		try {
+			purgeExpiredKeys();
+		}
+		catch (RuntimeException ex) {
+			LOGGER.log(Level.WARNING, "Failed to purge expired idempotency keys, they will be purged by the next run", ex);
+		}
+	}
+
+	public record Statistics(long runs, long completedRuns, long failedRuns, long batches, long purgedKeys) {
+	}
+
+	public static final class Builder {
+
+		private final IdempotencyRepository idempotencyRepository;
+		private Duration purgeInterval = Duration.ofMinutes(10);
+		private int batchSize = 1_000;
+		private Duration pauseBetweenBatches = Duration.ofMillis(100);
+		private Duration maxRunTime = Duration.ofMinutes(1);
+		private Clock clock = Clock.systemUTC();
+
+		private Builder(IdempotencyRepository idempotencyRepository) {
+			this.idempotencyRepository = idempotencyRepository;
+		}
+
+		public Builder purgeInterval(Duration purgeInterval) {
+			if (purgeInterval.isNegative() || purgeInterval.isZero()) {
+				throw new IllegalArgumentException("purgeInterval must be positive");
+			}
+			this.purgeInterval = purgeInterval;
+			return this;
+		}
+
+		public Builder batchSize(int batchSize) {
+			if (batchSize <= 0) {
+				throw new IllegalArgumentException("batchSize must be positive");
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder pauseBetweenBatches(Duration pauseBetweenBatches) {
+			if (pauseBetweenBatches.isNegative()) {
+				throw new IllegalArgumentException("pauseBetweenBatches must not be negative");
+			}
+			this.pauseBetweenBatches = pauseBetweenBatches;
+			return this;
+		}
+
+		public Builder maxRunTime(Duration maxRunTime) {
+			if (maxRunTime.isNegative() || maxRunTime.isZero()) {
+				throw new IllegalArgumentException("maxRunTime must be positive");
+			}
+			this.maxRunTime = maxRunTime;
+			return this;
+		}
+
+		public Builder clock(Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		/**
+		 * Creates the purger, whose runs are scheduled every purge interval until it is closed.
+		 */
+		public IdempotencyKeyPurger build() {
+			return new IdempotencyKeyPurger(this);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.idempotency;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyRepository {
+
+	/**
+	 * Claims the key for a new request. The key is stored with the {@link UsageOutcome#PENDING}
+	 * outcome until the end of its lease, unless a request holding the same key has not expired
+	 * yet. A request whose lease lapsed before it completed, for instance because its node
+	 * stopped, can be taken over by a replay.
+	 * @param requestKey the key of the request
+	 * @param payloadHash the hash of the direction and units of the request
+	 * @param claimToken the token identifying the claim, which must be given to complete or
+	 * release the key
+	 * @param now the current time, keys expired at that time are claimed again
+	 * @param leaseExpiration the time after which a pending key can be claimed again
+	 * @return the outcome of the request already holding the key, empty when the key was claimed
+	 * @throws io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException if the key is held by a request with another payload
+	 */
+	Optional<UsageOutcome> claim(RequestKey requestKey, String payloadHash, String claimToken, Instant now,
+			Instant leaseExpiration);
+
+	/**
+	 * Stores the outcome of the request holding the key, so that its replays return it until
+	 * the expiration date. Nothing is stored when the key is no longer held with the given
+	 * token, because a replay took it over after the end of the lease.
+	 * @return {@code true} if the outcome was stored, {@code false} if the claim was lost
+	 */
+	boolean complete(RequestKey requestKey, String claimToken, UsageOutcome outcome, Instant expirationDate);
+
+	/**
+	 * Releases a key whose request failed without an outcome, so that it can be retried. The
+	 * key is kept when it is no longer held with the given token.
+	 */
+	void release(RequestKey requestKey, String claimToken);
+
+	/**
+	 * Deletes at most the given number of keys expired at the given time, so that a purge of
+	 * many keys can be split into short transactions.
+	 * @return the number of keys deleted
+	 */
+	int deleteExpired(Instant now, int maxKeys);
+}
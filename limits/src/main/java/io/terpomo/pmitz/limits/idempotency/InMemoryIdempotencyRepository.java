@@ -0,0 +1,187 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.idempotency;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
+
+public class InMemoryIdempotencyRepository implements IdempotencyRepository {
+
+	private final int maximumSize;
+	private final IdempotencyRepository backingRepository;
+
+	private final Map<RequestKey, Entry> entries;
+
+	public InMemoryIdempotencyRepository(int maximumSize) {
+		this(maximumSize, null);
+	}
+
+	/**
+	 * Creates a repository keeping the most recent keys in memory, in front of a repository
+	 * shared by all nodes. Keys evicted from memory are still found in the backing repository.
+	 * @param maximumSize the maximum number of keys kept in memory
+	 * @param backingRepository the repository storing all the keys, or {@code null} to only
+	 * keep them in memory
+	 */
+	public InMemoryIdempotencyRepository(int maximumSize, IdempotencyRepository backingRepository) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("maximumSize must be greater than 0");
+		}
+		this.maximumSize = maximumSize;
+		this.backingRepository = backingRepository;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<RequestKey, Entry> eldest) {
+				return size() > InMemoryIdempotencyRepository.this.maximumSize;
+			}
+		};
+	}
+
+	public IdempotencyRepository getBackingRepository() {
+		return backingRepository;
+	}
+
+	@Override
+	public Optional<UsageOutcome> claim(RequestKey requestKey, String payloadHash, String claimToken, Instant now,
+			Instant leaseExpiration) {
+		Entry claimingEntry = new Entry(payloadHash, claimToken, UsageOutcome.PENDING, leaseExpiration);
+		synchronized (entries) {
+			Entry entry = entries.get(requestKey);
+			if (entry != null && entry.expirationDate.isAfter(now)) {
+				if (!entry.payloadHash.equals(payloadHash)) {
+					throw new IdempotencyKeyReusedException(
+							"The idempotency key was used for a request with another payload", requestKey.idempotencyKey());
+				}
+				return Optional.of(entry.outcome);
+			}
+			entries.put(requestKey, claimingEntry);
+		}
+		if (backingRepository == null) {
+			return Optional.empty();
+		}
+
+		Optional<UsageOutcome> outcome;
+		try {
+			outcome = backingRepository.claim(requestKey, payloadHash, claimToken, now, leaseExpiration);
+		}
+		catch (RuntimeException ex) {
+			remove(requestKey, claimingEntry);
+			throw ex;
+		}
+		if (outcome.isPresent()) {
+			// a request held by another node is looked up again on its next replay
+			if (outcome.get() == UsageOutcome.PENDING) {
+				remove(requestKey, claimingEntry);
+			}
+			else {
+				synchronized (entries) {
+					claimingEntry.outcome = outcome.get();
+				}
+			}
+		}
+		return outcome;
+	}
+
+	@Override
+	public boolean complete(RequestKey requestKey, String claimToken, UsageOutcome outcome, Instant expirationDate) {
+		boolean held = true;
+		if (backingRepository != null) {
+			held = backingRepository.complete(requestKey, claimToken, outcome, expirationDate);
+		}
+		synchronized (entries) {
+			Entry entry = entries.get(requestKey);
+			if (entry == null || !entry.isHeldWith(claimToken)) {
+				// an evicted key may have been claimed again by a replay
+				return held && backingRepository != null;
+			}
+			if (!held) {
+				entries.remove(requestKey);
+				return false;
+			}
+			entry.outcome = outcome;
+			entry.expirationDate = expirationDate;
+			return true;
+		}
+	}
+
+	@Override
+	public void release(RequestKey requestKey, String claimToken) {
+		synchronized (entries) {
+			Entry entry = entries.get(requestKey);
+			if (entry != null && entry.isHeldWith(claimToken)) {
+				entries.remove(requestKey);
+			}
+		}
+		if (backingRepository != null) {
+			backingRepository.release(requestKey, claimToken);
+		}
+	}
+
+	@Override
+	public int deleteExpired(Instant now, int maxKeys) {
+		int deleted = 0;
+		synchronized (entries) {
+			Iterator<Entry> iterator = entries.values().iterator();
+			while (deleted < maxKeys && iterator.hasNext()) {
+				if (!iterator.next().expirationDate.isAfter(now)) {
+					iterator.remove();
+					deleted++;
+				}
+			}
+		}
+		return (backingRepository != null) ? backingRepository.deleteExpired(now, maxKeys) : deleted;
+	}
+
+	int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	private void remove(RequestKey requestKey, Entry entry) {
+		synchronized (entries) {
+			entries.remove(requestKey, entry);
+		}
+	}
+
+	private static final class Entry {
+
+		final String payloadHash;
+
+		final String claimToken;
+
+		UsageOutcome outcome;
+
+		Instant expirationDate;
+
+		Entry(String payloadHash, String claimToken, UsageOutcome outcome, Instant expirationDate) {
+			this.payloadHash = payloadHash;
+			this.claimToken = claimToken;
+			this.outcome = outcome;
+			this.expirationDate = expirationDate;
+		}
+
+		boolean isHeldWith(String claimToken) {
+			return outcome == UsageOutcome.PENDING && this.claimToken.equals(claimToken);
+		}
+	}
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.idempotency;
+
+import java.util.Objects;
+
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public record RequestKey(FeatureRef featureRef, String userGroupingId, String idempotencyKey) {
+
+	public RequestKey {
+		Objects.requireNonNull(featureRef, "featureRef must not be null");
+		Objects.requireNonNull(userGroupingId, "userGroupingId must not be null");
+		Objects.requireNonNull(idempotencyKey, "idempotencyKey must not be null");
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.idempotency.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
+import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.limits.idempotency.IdempotencyRepository;
+import io.terpomo.pmitz.limits.idempotency.RequestKey;
+import io.terpomo.pmitz.limits.idempotency.UsageOutcome;
+
+public class JDBCIdempotencyRepository implements IdempotencyRepository {
+
+	private static final String KEY_CONDITION =
+			"product_id = ? AND feature_id = ? AND user_grouping = ? AND request_key = ?";
+
+	private static final String CLAIM_CONDITION = "claim_token = ? AND outcome = ?";
+
+	private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+	private static final int MAX_CLAIM_ATTEMPTS = 2;
+
+	private final DataSource dataSource;
+	private final String schemaName;
+	private final String tableName;
+
+	public JDBCIdempotencyRepository(DataSource dataSource, String schemaName, String tableName) {
+		this.dataSource = dataSource;
+		this.schemaName = schemaName;
+		this.tableName = tableName;
+	}
+
+	@Override
+	public Optional<UsageOutcome> claim(RequestKey requestKey, String payloadHash, String claimToken, Instant now,
+			Instant leaseExpiration) {
+		try (Connection connection = dataSource.getConnection()) {
+			deleteIfExpired(connection, requestKey, now);
+			for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+				if (insert(connection, requestKey, payloadHash, claimToken, leaseExpiration)) {
+					return Optional.empty();
+				}
+				Optional<UsageOutcome> outcome = findOutcome(connection, requestKey, payloadHash);
+				if (outcome.isPresent()) {
+					return outcome;
+				}
+			}
+			// the key keeps being released by concurrent requests, which can be retried later
+			return Optional.of(UsageOutcome.PENDING);
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error claiming idempotency key", ex);
+		}
+	}
+
+	@Override
+	public boolean complete(RequestKey requestKey, String claimToken, UsageOutcome outcome, Instant expirationDate) {
+		String query = "UPDATE " + getFullTableName() + " SET outcome = ?, expiration_date = ? WHERE " + KEY_CONDITION
+				+ " AND " + CLAIM_CONDITION;
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, outcome.name());
+			statement.setTimestamp(2, Timestamp.from(expirationDate));
+			int index = setKey(statement, 3, requestKey);
+			setClaim(statement, index, claimToken);
+			return statement.executeUpdate() > 0;
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error completing idempotency key", ex);
+		}
+	}
+
+	@Override
+	public void release(RequestKey requestKey, String claimToken) {
+		String query = "DELETE FROM " + getFullTableName() + " WHERE " + KEY_CONDITION + " AND " + CLAIM_CONDITION;
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement(query)) {
+			int index = setKey(statement, 1, requestKey);
+			setClaim(statement, index, claimToken);
+			statement.executeUpdate();
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error releasing idempotency key", ex);
+		}
+	}
+
+	/**
+	 * Deletes the expired keys one by one in a single batch, since the bounded forms of
+	 * {@code DELETE} differ between databases.
+	 */
+	@Override
+	public int deleteExpired(Instant now, int maxKeys) {
+		String selectQuery = "SELECT product_id, feature_id, user_grouping, request_key FROM " + getFullTableName()
+				+ " WHERE expiration_date <= ?";
+		String deleteQuery = "DELETE FROM " + getFullTableName() + " WHERE " + KEY_CONDITION + " AND expiration_date <= ?";
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement selectStatement = connection.prepareStatement(selectQuery);
+				PreparedStatement deleteStatement = connection.prepareStatement(deleteQuery)) {
+			selectStatement.setMaxRows(maxKeys);
+			selectStatement.setTimestamp(1, Timestamp.from(now));
+			int selected = 0;
+			try (ResultSet resultSet = selectStatement.executeQuery()) {
+				while (resultSet.next()) {
+					for (int index = 1; index <= 4; index++) {
+						deleteStatement.setString(index, resultSet.getString(index));
+					}
+					deleteStatement.setTimestamp(5, Timestamp.from(now));
+					deleteStatement.addBatch();
+					selected++;
+				}
+			}
+			if (selected == 0) {
+				return 0;
+			}
+			int deleted = 0;
+			for (int count : deleteStatement.executeBatch()) {
+				deleted += (count == Statement.SUCCESS_NO_INFO) ? 1 : count;
+			}
+			return deleted;
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error deleting expired idempotency keys", ex);
+		}
+	}
+
+	private void deleteIfExpired(Connection connection, RequestKey requestKey, Instant now) throws SQLException {
+		String query = "DELETE FROM " + getFullTableName() + " WHERE " + KEY_CONDITION + " AND expiration_date <= ?";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			int index = setKey(statement, 1, requestKey);
+			statement.setTimestamp(index, Timestamp.from(now));
+			statement.executeUpdate();
+		}
+	}
+
+	private boolean insert(Connection connection, RequestKey requestKey, String payloadHash, String claimToken,
+			Instant leaseExpiration) throws SQLException {
+		String query = "INSERT INTO " + getFullTableName()
+				+ " (product_id, feature_id, user_grouping, request_key, payload_hash, claim_token, outcome, expiration_date)"
+				+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			int index = setKey(statement, 1, requestKey);
+			statement.setString(index++, payloadHash);
+			statement.setString(index++, claimToken);
+			statement.setString(index++, UsageOutcome.PENDING.name());
+			statement.setTimestamp(index, Timestamp.from(leaseExpiration));
+			statement.executeUpdate();
+			return true;
+		}
+		catch (SQLException ex) {
+			if (ex.getSQLState() != null && ex.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+				return false;
+			}
+			throw ex;
+		}
+	}
+
+	private Optional<UsageOutcome> findOutcome(Connection connection, RequestKey requestKey, String payloadHash)
+			throws SQLException {
+		String query = "SELECT payload_hash, outcome FROM " + getFullTableName() + " WHERE " + KEY_CONDITION;
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			setKey(statement, 1, requestKey);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (!resultSet.next()) {
+					return Optional.empty();
+				}
+				if (!payloadHash.equals(resultSet.getString("payload_hash"))) {
+					throw new IdempotencyKeyReusedException(
+							"The idempotency key was used for a request with another payload", requestKey.idempotencyKey());
+				}
+				return Optional.of(UsageOutcome.valueOf(resultSet.getString("outcome")));
+			}
+		}
+	}
+
+	private static int setKey(PreparedStatement statement, int index, RequestKey requestKey) throws SQLException {
+		statement.setString(index++, requestKey.featureRef().productId());
+		statement.setString(index++, requestKey.featureRef().featureId());
+		statement.setString(index++, requestKey.userGroupingId());
+		statement.setString(index++, requestKey.idempotencyKey());
+		return index;
+	}
+
+	private static void setClaim(PreparedStatement statement, int index, String claimToken) throws SQLException {
+		statement.setString(index, claimToken);
+		statement.setString(index + 1, UsageOutcome.PENDING.name());
+	}
+
+	private String getFullTableName() {
+		return schemaName + "." + tableName;
+	}
+}
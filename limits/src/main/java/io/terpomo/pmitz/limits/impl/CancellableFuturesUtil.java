@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public final class CancellableFuturesUtil {
+
+	private CancellableFuturesUtil() {
+		//Private constructor to prevent instantiation
+	}
+
+	/**
+	 * Same as {@link CompletableFuture#thenApply}, except that cancelling the returned future,
+	 * or completing it exceptionally with a timeout, also cancels the source future.
+	 */
+	public static <T, R> CompletableFuture<R> thenApply(CompletableFuture<T> source, Function<? super T, ? extends R> mapper) {
+		CompletableFuture<R> result = source.thenApply(mapper);
+		propagateCancellation(result, source);
+		return result;
+	}
+
+	/**
+	 * Cancels {@code upstream} when {@code downstream} completes exceptionally.
+	 */
+	public static void propagateCancellation(CompletableFuture<?> downstream, CompletableFuture<?> upstream) {
+		downstream.whenComplete((value, ex) -> {
+			if (ex != null) {
+				upstream.cancel(true);
+			}
+		});
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public final class CoarseClock extends Clock implements AutoCloseable {
+
+	private final Ticker ticker;
+
+	private final ZoneId zone;
+
+	private CoarseClock(Ticker ticker, ZoneId zone) {
+		this.ticker = ticker;
+		this.zone = zone;
+	}
+
+	/**
+	 * Creates a clock in the system default zone whose time is refreshed by a background
+	 * thread at the given precision, so that reading it neither calls the system clock nor
+	 * allocates.
+	 * @param precision interval between two refreshes of the time
+	 * @return the clock, to close once it is no longer used
+	 */
+	public static CoarseClock of(Duration precision) {
+		if (precision.isNegative() || precision.isZero()) {
+			throw new IllegalArgumentException("precision must be positive");
+		}
+		return new CoarseClock(new Ticker(Clock.systemUTC(), precision), ZoneId.systemDefault());
+	}
+
+	@Override
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+		return zone.equals(this.zone) ? this : new CoarseClock(ticker, zone);
+	}
+
+	@Override
+	public Instant instant() {
+		return ticker.instant;
+	}
+
+	@Override
+	public long millis() {
+		return ticker.instant.toEpochMilli();
+	}
+
+	public Duration getPrecision() {
+		return ticker.precision;
+	}
+
+	@Override
+	public void close() {
+		ticker.scheduler.shutdownNow();
+	}
+
+	private static final class Ticker {
+
+		final Clock source;
+
+		final Duration precision;
+
+		final ScheduledExecutorService scheduler;
+
+		volatile Instant instant;
+
+		Ticker(Clock source, Duration precision) {
+			this.source = source;
+			this.precision = precision;
+			this.instant = source.instant();
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "pmitz-coarse-clock");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long precisionNanos = precision.toNanos();
+			this.scheduler.scheduleAtFixedRate(this::tick, precisionNanos, precisionNanos, TimeUnit.NANOSECONDS);
+		}
+
+		void tick() {
+			this.instant = this.source.instant();
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.AsyncLimitVerifier;
+import io.terpomo.pmitz.limits.LimitOperation;
+import io.terpomo.pmitz.limits.LimitOperationResult;
+import io.terpomo.pmitz.limits.LimitVerifier;
+
+public final class ExecutorAsyncLimitVerifier implements AsyncLimitVerifier, AutoCloseable {
+
+	private final LimitVerifier delegate;
+	private final ExecutorService executorService;
+	private final boolean ownsExecutorService;
+	private final Duration timeout;
+
+	private ExecutorAsyncLimitVerifier(Builder builder) {
+		this.delegate = builder.delegate;
+		this.ownsExecutorService = builder.executorService == null;
+		this.executorService = ownsExecutorService
+				? newBoundedExecutor(builder.maximumConcurrency, builder.queueCapacity)
+				: builder.executorService;
+		this.timeout = builder.timeout;
+	}
+
+	public static Builder builder(LimitVerifier delegate) {
+		return new Builder(delegate);
+	}
+
+	public LimitVerifier getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Returns the executor running the calls, the bounded pool created by this verifier unless
+	 * an executor was supplied to the builder.
+	 */
+	public Executor getExecutor() {
+		return executorService;
+	}
+
+	@Override
+	public CompletableFuture<Boolean> isWithinLimits(FeatureRef featureRef, UserGrouping userGrouping,
+			Map<String, Long> additionalUnits) {
+		return submit(() -> delegate.isWithinLimits(featureRef, userGrouping, additionalUnits));
+	}
+
+	@Override
+	public CompletableFuture<Void> recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping,
+			Map<String, Long> additionalUnits) {
+		return submit(() -> {
+			delegate.recordFeatureUsage(featureRef, userGrouping, additionalUnits);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping,
+			Map<String, Long> reducedUnits) {
+		return submit(() -> {
+			delegate.reduceFeatureUsage(featureRef, userGrouping, reducedUnits);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Long>> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping) {
+		return submit(() -> delegate.getLimitsRemainingUnits(featureRef, userGrouping));
+	}
+
+	@Override
+	public CompletableFuture<List<Boolean>> isWithinLimits(List<LimitOperation> operations) {
+		return submit(() -> delegate.isWithinLimits(operations));
+	}
+
+	@Override
+	public CompletableFuture<List<LimitOperationResult>> recordFeatureUsage(List<LimitOperation> operations) {
+		return submit(() -> delegate.recordFeatureUsage(operations));
+	}
+
+	@Override
+	public CompletableFuture<List<Map<String, Long>>> getLimitsRemainingUnits(List<LimitOperation> operations) {
+		return submit(() -> delegate.getLimitsRemainingUnits(operations));
+	}
+
+	/**
+	 * Shuts down the executor created by this verifier. An executor supplied to the builder
+	 * is left running.
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutorService) {
+			executorService.shutdown();
+		}
+	}
+
+	private <T> CompletableFuture<T> submit(Supplier<T> task) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Future<?> execution;
+		try {
+			execution = executorService.submit(() -> {
+				if (result.isDone()) {
+					return;
+				}
+				try {
+					result.complete(task.get());
+				}
+				catch (RuntimeException | Error ex) {
+					result.completeExceptionally(ex);
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			result.completeExceptionally(ex);
+			return result;
+		}
+
+		// a cancelled or timed out call interrupts the thread running it, a failed call has
+		// already returned and leaves its thread alone
+		result.whenComplete((value, ex) -> {
+			if (ex instanceof CancellationException || ex instanceof TimeoutException) {
+				execution.cancel(true);
+			}
+		});
+		if (timeout != null) {
+			result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		return result;
+	}
+
+	private static ExecutorService newBoundedExecutor(int maximumConcurrency, int queueCapacity) {
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maximumConcurrency, maximumConcurrency,
+				60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "pmitz-async-limits-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	public static final class Builder {
+
+		private final LimitVerifier delegate;
+		private ExecutorService executorService;
+		private int maximumConcurrency = 16;
+		private int queueCapacity = 1_000;
+		private Duration timeout;
+
+		private Builder(LimitVerifier delegate) {
+			this.delegate = delegate;
+		}
+
+		/**
+		 * Runs the calls on the given executor instead of a bounded pool owned by the verifier.
+		 */
+		public Builder executorService(ExecutorService executorService) {
+			this.executorService = executorService;
+			return this;
+		}
+
+		public Builder maximumConcurrency(int maximumConcurrency) {
+			if (maximumConcurrency <= 0) {
+				throw new IllegalArgumentException("maximumConcurrency must be greater than 0");
+			}
+			this.maximumConcurrency = maximumConcurrency;
+			return this;
+		}
+
+		/**
+		 * Number of calls waiting for a thread beyond which new calls fail with a
+		 * {@link RejectedExecutionException}.
+		 */
+		public Builder queueCapacity(int queueCapacity) {
+			if (queueCapacity <= 0) {
+				throw new IllegalArgumentException("queueCapacity must be greater than 0");
+			}
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		public Builder timeout(Duration timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+
+		public ExecutorAsyncLimitVerifier build() {
+			return new ExecutorAsyncLimitVerifier(this);
+		}
+	}
+}
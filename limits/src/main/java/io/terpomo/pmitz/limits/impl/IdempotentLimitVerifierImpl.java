@@ -0,0 +1,237 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.exception.RequestInProgressException;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.IdempotentLimitVerifier;
+import io.terpomo.pmitz.limits.LimitOperation;
+import io.terpomo.pmitz.limits.LimitOperationResult;
+import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.idempotency.IdempotencyRepository;
+import io.terpomo.pmitz.limits.idempotency.RequestKey;
+import io.terpomo.pmitz.limits.idempotency.UsageOutcome;
+
+public class IdempotentLimitVerifierImpl implements IdempotentLimitVerifier {
+
+	private static final Logger LOGGER = Logger.getLogger(IdempotentLimitVerifierImpl.class.getName());
+
+	public static final Duration DEFAULT_PENDING_LEASE = Duration.ofSeconds(30);
+
+	private final LimitVerifier delegate;
+	private final IdempotencyRepository idempotencyRepository;
+	private final Duration timeToLive;
+	private final Duration pendingLease;
+	private final Clock clock;
+
+	public IdempotentLimitVerifierImpl(LimitVerifier delegate, IdempotencyRepository idempotencyRepository,
+			Duration timeToLive) {
+		this(delegate, idempotencyRepository, timeToLive, Clock.systemUTC());
+	}
+
+	public IdempotentLimitVerifierImpl(LimitVerifier delegate, IdempotencyRepository idempotencyRepository,
+			Duration timeToLive, Clock clock) {
+		this(delegate, idempotencyRepository, timeToLive, DEFAULT_PENDING_LEASE, clock);
+	}
+
+	/**
+	 * Creates a verifier processing each idempotency key once.
+	 * @param delegate the verifier processing the requests
+	 * @param idempotencyRepository the repository storing the keys and their outcome
+	 * @param timeToLive the time during which replays of a completed request are detected
+	 * @param pendingLease the time during which a request being processed holds its key, after
+	 * which a replay takes it over and the request is undone when it completes
+	 * @param clock the clock used to expire the keys
+	 */
+	public IdempotentLimitVerifierImpl(LimitVerifier delegate, IdempotencyRepository idempotencyRepository,
+			Duration timeToLive, Duration pendingLease, Clock clock) {
+		if (timeToLive.isNegative() || timeToLive.isZero()) {
+			throw new IllegalArgumentException("timeToLive must be positive");
+		}
+		if (pendingLease.isNegative() || pendingLease.isZero()) {
+			throw new IllegalArgumentException("pendingLease must be positive");
+		}
+		this.delegate = delegate;
+		this.idempotencyRepository = idempotencyRepository;
+		this.timeToLive = timeToLive;
+		this.pendingLease = pendingLease;
+		this.clock = clock;
+	}
+
+	public LimitVerifier getDelegate() {
+		return delegate;
+	}
+
+	public IdempotencyRepository getIdempotencyRepository() {
+		return idempotencyRepository;
+	}
+
+	@Override
+	public boolean isWithinLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		return delegate.isWithinLimits(featureRef, userGrouping, additionalUnits);
+	}
+
+	@Override
+	public void recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		delegate.recordFeatureUsage(featureRef, userGrouping, additionalUnits);
+	}
+
+	@Override
+	public void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits) {
+		delegate.reduceFeatureUsage(featureRef, userGrouping, reducedUnits);
+	}
+
+	@Override
+	public Map<String, Long> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping) {
+		return delegate.getLimitsRemainingUnits(featureRef, userGrouping);
+	}
+
+	@Override
+	public void recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits,
+			String idempotencyKey) {
+		if (idempotencyKey == null) {
+			delegate.recordFeatureUsage(featureRef, userGrouping, additionalUnits);
+		}
+		else {
+			runOnce(new RequestKey(featureRef, userGrouping.getId(), idempotencyKey), hashPayload(false, additionalUnits),
+					userGrouping, () -> delegate.recordFeatureUsage(featureRef, userGrouping, additionalUnits),
+					() -> delegate.reduceFeatureUsage(featureRef, userGrouping, additionalUnits));
+		}
+	}
+
+	@Override
+	public void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits,
+			String idempotencyKey) {
+		if (idempotencyKey == null) {
+			delegate.reduceFeatureUsage(featureRef, userGrouping, reducedUnits);
+		}
+		else {
+			runOnce(new RequestKey(featureRef, userGrouping.getId(), idempotencyKey), hashPayload(true, reducedUnits),
+					userGrouping, () -> delegate.reduceFeatureUsage(featureRef, userGrouping, reducedUnits),
+					() -> delegate.recordFeatureUsage(featureRef, userGrouping, reducedUnits));
+		}
+	}
+
+	@Override
+	public List<Boolean> isWithinLimits(List<LimitOperation> operations) {
+		return delegate.isWithinLimits(operations);
+	}
+
+	@Override
+	public List<LimitOperationResult> recordFeatureUsage(List<LimitOperation> operations) {
+		return delegate.recordFeatureUsage(operations);
+	}
+
+	@Override
+	public List<Map<String, Long>> getLimitsRemainingUnits(List<LimitOperation> operations) {
+		return delegate.getLimitsRemainingUnits(operations);
+	}
+
+	/**
+	 * Runs the operation unless its key is already held. The key is completed only if it is
+	 * still held with the token of this claim: when the lease ended while the operation was
+	 * running and a replay took the key over, the operation is undone so that the units are
+	 * counted once, by the replay.
+	 */
+	private void runOnce(RequestKey requestKey, String payloadHash, UserGrouping userGrouping, Runnable operation,
+			Runnable undo) {
+		String claimToken = UUID.randomUUID().toString();
+		Optional<UsageOutcome> previousOutcome = idempotencyRepository.claim(requestKey, payloadHash, claimToken,
+				clock.instant(), clock.instant().plus(pendingLease));
+		if (previousOutcome.isPresent()) {
+			replay(previousOutcome.get(), requestKey.featureRef(), userGrouping, requestKey.idempotencyKey());
+			return;
+		}
+
+		try {
+			operation.run();
+		}
+		catch (LimitExceededException ex) {
+			// nothing was updated, so there is nothing to undo if the claim was lost
+			complete(requestKey, claimToken, UsageOutcome.LIMIT_EXCEEDED);
+			throw ex;
+		}
+		catch (RuntimeException ex) {
+			idempotencyRepository.release(requestKey, claimToken);
+			throw ex;
+		}
+		if (!complete(requestKey, claimToken, UsageOutcome.COMPLETED)) {
+			try {
+				undo.run();
+			}
+			catch (RuntimeException ex) {
+				LOGGER.log(Level.SEVERE, "Failed to undo request {0} whose key was taken over by a replay, "
+						+ "its units may be counted twice", requestKey.idempotencyKey());
+				throw ex;
+			}
+			throw new RequestInProgressException(
+					"The lease of the request ended and a replay with the same idempotency key took it over",
+					requestKey.idempotencyKey());
+		}
+	}
+
+	private boolean complete(RequestKey requestKey, String claimToken, UsageOutcome outcome) {
+		return idempotencyRepository.complete(requestKey, claimToken, outcome, clock.instant().plus(timeToLive));
+	}
+
+	/**
+	 * Returns the hash of the direction and units of a request, stored with its key so that a
+	 * key reused for another request is rejected instead of replaying the outcome of the first one.
+	 */
+	private static String hashPayload(boolean reduce, Map<String, Long> units) {
+		StringBuilder payload = new StringBuilder(reduce ? "reduce" : "record");
+		for (Map.Entry<String, Long> limitUnits : new TreeMap<>(units).entrySet()) {
+			payload.append('\n').append(limitUnits.getKey()).append('=').append(limitUnits.getValue());
+		}
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(payload.toString().getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(hash);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	private static void replay(UsageOutcome outcome, FeatureRef featureRef, UserGrouping userGrouping,
+			String idempotencyKey) {
+		switch (outcome) {
+			case PENDING -> throw new RequestInProgressException(
+					"A request with the same idempotency key is being processed", idempotencyKey);
+			case LIMIT_EXCEEDED -> throw new LimitExceededException(
+					"Limit exceeded when the request was first processed", featureRef, userGrouping);
+			case COMPLETED -> {
+				// already processed, nothing to do
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.IdempotentReservingLimitVerifier;
+import io.terpomo.pmitz.limits.ReservingLimitVerifier;
+import io.terpomo.pmitz.limits.idempotency.IdempotencyRepository;
+
+public class IdempotentReservingLimitVerifierImpl extends IdempotentLimitVerifierImpl
+		implements IdempotentReservingLimitVerifier {
+
+	private final ReservingLimitVerifier reservingDelegate;
+
+	public IdempotentReservingLimitVerifierImpl(ReservingLimitVerifier delegate,
+			IdempotencyRepository idempotencyRepository, Duration timeToLive, Clock clock) {
+		this(delegate, idempotencyRepository, timeToLive, DEFAULT_PENDING_LEASE, clock);
+	}
+
+	/**
+	 * Creates a verifier processing each idempotency key once, and forwarding the reservations
+	 * to the delegate.
+	 * @see IdempotentLimitVerifierImpl#IdempotentLimitVerifierImpl(io.terpomo.pmitz.limits.LimitVerifier,
+	 * IdempotencyRepository, Duration, Duration, Clock)
+	 */
+	public IdempotentReservingLimitVerifierImpl(ReservingLimitVerifier delegate,
+			IdempotencyRepository idempotencyRepository, Duration timeToLive, Duration pendingLease, Clock clock) {
+		super(delegate, idempotencyRepository, timeToLive, pendingLease, clock);
+		this.reservingDelegate = delegate;
+	}
+
+	@Override
+	public String reserveFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units,
+			Duration timeToLive) {
+		return reservingDelegate.reserveFeatureUsage(featureRef, userGrouping, units, timeToLive);
+	}
+
+	@Override
+	public void commitReservation(String reservationId, Map<String, Long> actualUnits) {
+		reservingDelegate.commitReservation(reservationId, actualUnits);
+	}
+
+	@Override
+	public void releaseReservation(String reservationId) {
+		reservingDelegate.releaseReservation(reservationId);
+	}
+}
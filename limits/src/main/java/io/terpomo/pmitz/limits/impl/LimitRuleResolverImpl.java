@@ -16,7 +16,9 @@
 
 package io.terpomo.pmitz.limits.impl;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 
 import io.terpomo.pmitz.core.Plan;
@@ -24,10 +26,10 @@ import io.terpomo.pmitz.core.limits.LimitRule;
 import io.terpomo.pmitz.core.repository.product.ProductRepository;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
-import io.terpomo.pmitz.limits.LimitRuleResolver;
+import io.terpomo.pmitz.limits.PlanLimitRuleResolver;
 import io.terpomo.pmitz.limits.userlimit.UserLimitRepository;
 
-public class LimitRuleResolverImpl implements LimitRuleResolver {
+public class LimitRuleResolverImpl implements PlanLimitRuleResolver {
 
 	private final ProductRepository productRepository;
 	private final UserLimitRepository userLimitRepository;
@@ -43,20 +45,22 @@ public class LimitRuleResolverImpl implements LimitRuleResolver {
 
 	@Override
 	public Optional<LimitRule> resolveLimitRule(FeatureRef featureRef, String limitRuleId, UserGrouping userGrouping) {
-		var optUserLimitRule = userLimitRepository.findLimitRule(featureRef, limitRuleId, userGrouping);
+		var optUserLimitRule = resolveUserLimitRule(featureRef, limitRuleId, userGrouping);
 		if (optUserLimitRule.isPresent()) {
 			return optUserLimitRule;
 		}
+		return resolvePlanLimitRule(featureRef, limitRuleId, userGrouping.getPlan(featureRef.productId()).orElse(null));
+	}
 
+	@Override
+	public Optional<LimitRule> resolvePlanLimitRule(FeatureRef featureRef, String limitRuleId, String planId) {
 		var optProduct = productRepository.getProductById(featureRef.productId());
 		if (optProduct.isEmpty()) {
 			return Optional.empty();
 		}
 		var product = optProduct.get();
 
-		var optPlanId = userGrouping.getPlan(product.getProductId());
-
-		Optional<LimitRule> planLimitRule = optPlanId.flatMap(id -> productRepository.getPlan(product, id))
+		Optional<LimitRule> planLimitRule = Optional.ofNullable(planId).flatMap(id -> productRepository.getPlan(product, id))
 					.map(Plan::getLimitsOverride)
 					.orElseGet(Collections::emptyList)
 					.stream().filter(rule -> limitRuleId.equals(rule.getId()))
@@ -66,6 +70,22 @@ public class LimitRuleResolverImpl implements LimitRuleResolver {
 		return planLimitRule.or(() -> optFeature.flatMap(feature -> productRepository.getGlobalLimit(feature, limitRuleId)));
 	}
 
+	@Override
+	public Optional<LimitRule> resolveUserLimitRule(FeatureRef featureRef, String limitRuleId, UserGrouping userGrouping) {
+		return userLimitRepository.findLimitRule(featureRef, limitRuleId, userGrouping);
+	}
+
+	@Override
+	public Map<String, LimitRule> resolveUserLimitRules(FeatureRef featureRef, Collection<String> limitRuleIds,
+			UserGrouping userGrouping) {
+		return userLimitRepository.findLimitRules(featureRef, limitRuleIds, userGrouping);
+	}
+
+	@Override
+	public boolean hasUserLimitRules() {
+		return !(userLimitRepository instanceof NoOpUserLimitRepository);
+	}
+
 	public static class NoOpUserLimitRepository implements UserLimitRepository {
 
 		@Override
@@ -73,6 +93,12 @@ public class LimitRuleResolverImpl implements LimitRuleResolver {
 			return Optional.empty();
 		}
 
+		@Override
+		public Map<String, LimitRule> findLimitRules(FeatureRef featureRef, Collection<String> limitRuleIds,
+				UserGrouping userGrouping) {
+			return Collections.emptyMap();
+		}
+
 		@Override
 		public void updateLimitRule(FeatureRef featureRef, LimitRule limitRule, UserGrouping userGrouping) {
 			// No action
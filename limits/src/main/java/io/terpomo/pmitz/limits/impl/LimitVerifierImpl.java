@@ -16,41 +16,108 @@
 
 package io.terpomo.pmitz.limits.impl;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 import io.terpomo.pmitz.core.Feature;
+import io.terpomo.pmitz.core.exception.LimitExceededException;
 import io.terpomo.pmitz.core.limits.LimitRule;
 import io.terpomo.pmitz.core.repository.product.ProductRepository;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subjects.UserGroupingHierarchy;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitOperation;
+import io.terpomo.pmitz.limits.LimitOperationResult;
 import io.terpomo.pmitz.limits.LimitRuleResolver;
 import io.terpomo.pmitz.limits.LimitVerificationStrategy;
 import io.terpomo.pmitz.limits.LimitVerificationStrategyResolver;
 import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.MultiWindowLimitVerificationStrategy;
+import io.terpomo.pmitz.limits.PlanLimitRuleResolver;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
 import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.LockingUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.LockingUsageRepository.LockedUpdate;
 import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
 import io.terpomo.pmitz.limits.usage.repository.UsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.UsageUpdateConflictException;
 
 public class LimitVerifierImpl implements LimitVerifier {
+
+	private static final int MAX_CONFLICT_RETRIES = 5;
+
+	private static final long CONFLICT_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final long MAX_CONFLICT_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
 	private final LimitRuleResolver limitRuleResolver;
 
 	private final LimitVerificationStrategyResolver limitVerifierStrategyResolver;
 	private final UsageRepository usageRepository;
 	private final ProductRepository productRepository;
+	private final Clock clock;
+
+	private final Map<LimitPlanKey, LimitPlan> limitPlans = new ConcurrentHashMap<>();
+	private final AtomicLong productVersion = new AtomicLong();
+	private final LongAdder updateConflicts = new LongAdder();
+	private final LongAdder conflictRetries = new LongAdder();
+	private final boolean limitPlanCacheEnabled;
+	private final UsageNearCache usageNearCache;
 
 	public LimitVerifierImpl(LimitRuleResolver limitRuleResolver,
 			LimitVerificationStrategyResolver limitVerifierStrategyResolver,
 			UsageRepository usageRepository,
 			ProductRepository productRepository) {
+		this(limitRuleResolver, limitVerifierStrategyResolver, usageRepository, productRepository, Clock.systemDefaultZone());
+	}
+
+	public LimitVerifierImpl(LimitRuleResolver limitRuleResolver,
+			LimitVerificationStrategyResolver limitVerifierStrategyResolver,
+			UsageRepository usageRepository,
+			ProductRepository productRepository,
+			Clock clock) {
+		this(limitRuleResolver, limitVerifierStrategyResolver, usageRepository, productRepository, clock, null);
+	}
+
+	/**
+	 * Creates a verifier reading the remaining units from the given near cache, which holds the
+	 * usage loaded per feature and user grouping. Usage recorded or reduced by the verifier
+	 * replaces the cached usage, so that the following reads see it.
+	 * @param usageNearCache the near cache, or {@code null} to load usage on every read
+	 */
+	public LimitVerifierImpl(LimitRuleResolver limitRuleResolver,
+			LimitVerificationStrategyResolver limitVerifierStrategyResolver,
+			UsageRepository usageRepository,
+			ProductRepository productRepository,
+			Clock clock,
+			UsageNearCache usageNearCache) {
 		this.limitRuleResolver = limitRuleResolver;
 		this.usageRepository = usageRepository;
 		this.limitVerifierStrategyResolver = limitVerifierStrategyResolver;
 		this.productRepository = productRepository;
+		this.clock = clock;
+		this.usageNearCache = usageNearCache;
+		this.limitPlanCacheEnabled = limitRuleResolver instanceof PlanLimitRuleResolver
+				&& productRepository.addChangeListener(productId -> invalidateLimitPlans());
 	}
 
 	@Override
@@ -72,13 +139,21 @@ public class LimitVerifierImpl implements LimitVerifier {
 
 	@Override
 	public Map<String, Long> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping) {
+		if (userGrouping instanceof UserGroupingHierarchy hierarchy) {
+			Map<String, Long> remainingUnits = new HashMap<>();
+			List<BatchUsage> levelUsages = toLevelUsages(featureRef, hierarchy, ZonedDateTime.now(clock));
+			loadCachedUsageData(levelUsages.stream().map(BatchUsage::context).toList());
+			levelUsages.forEach(levelUsage -> levelUsage.getRemainingUnits().forEach((limitId, units) -> remainingUnits.merge(limitId, units, Math::min)));
+			return remainingUnits;
+		}
 		var limitVerificationStrategiesMap = findVerificationStrategiesByLimit(featureRef, userGrouping);
 
-		var limitSearchCriteriaList = gatherSearchCriteria(limitVerificationStrategiesMap);
+		var now = ZonedDateTime.now(clock);
+		var limitSearchCriteriaList = gatherSearchCriteria(limitVerificationStrategiesMap, now);
 
-		var context = new LimitTrackingContext(featureRef, userGrouping, limitSearchCriteriaList);
+		var context = new LimitTrackingContext(featureRef, userGrouping, limitSearchCriteriaList, now);
 
-		usageRepository.loadUsageData(context);
+		loadCachedUsageData(context);
 
 		return limitVerificationStrategiesMap.entrySet().stream()
 				.collect(Collectors.toMap(entry -> entry.getKey().getId(), entry -> entry.getValue().getRemainingUnits(context, entry.getKey())));
@@ -86,11 +161,16 @@ public class LimitVerifierImpl implements LimitVerifier {
 
 	@Override
 	public boolean isWithinLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		if (userGrouping instanceof UserGroupingHierarchy hierarchy) {
+			return loadHierarchyUsages(featureRef, hierarchy, ZonedDateTime.now(clock)).stream()
+					.allMatch(levelUsage -> levelUsage.isWithinLimits(additionalUnits));
+		}
 		var limitVerificationStrategiesMap = findVerificationStrategiesByLimit(featureRef, userGrouping);
 
-		var limitSearchCriteriaList = gatherSearchCriteria(limitVerificationStrategiesMap);
+		var now = ZonedDateTime.now(clock);
+		var limitSearchCriteriaList = gatherSearchCriteria(limitVerificationStrategiesMap, now);
 
-		var context = new LimitTrackingContext(featureRef, userGrouping, limitSearchCriteriaList);
+		var context = new LimitTrackingContext(featureRef, userGrouping, limitSearchCriteriaList, now);
 		usageRepository.loadUsageData(context);
 
 		return limitVerificationStrategiesMap.entrySet().stream()
@@ -98,6 +178,131 @@ public class LimitVerifierImpl implements LimitVerifier {
 
 	}
 
+	@Override
+	public List<Boolean> isWithinLimits(List<LimitOperation> operations) {
+		if (containsHierarchy(operations)) {
+			return LimitVerifier.super.isWithinLimits(operations);
+		}
+		var batchUsages = loadBatchUsages(operations, ZonedDateTime.now(clock));
+
+		return operations.stream()
+				.map(operation -> batchUsages.get(BatchKey.of(operation)).isWithinLimits(operation.units()))
+				.toList();
+	}
+
+	@Override
+	public List<LimitOperationResult> recordFeatureUsage(List<LimitOperation> operations) {
+		operations.forEach(operation -> LimitsValidationUtil.validateAdditionalUnits(operation.units()));
+		if (containsHierarchy(operations) || (usageRepository instanceof AtomicUsageRepository atomicUsageRepository
+				&& atomicUsageRepository.supportsAtomicUpdates())) {
+			return LimitVerifier.super.recordFeatureUsage(operations);
+		}
+
+		var now = ZonedDateTime.now(clock);
+		List<LimitOperationResult> results = new ArrayList<>(operations.size());
+		if (usageRepository instanceof LockingUsageRepository lockingUsageRepository
+				&& lockingUsageRepository.supportsLockingUpdates()) {
+			updateUsageRecordsLocked(lockingUsageRepository, loader -> {
+				results.clear();
+				var batchUsages = toBatchUsages(operations, now);
+				loader.accept(batchUsages.values().stream().map(BatchUsage::context).toList());
+				return recordBatchUsages(operations, batchUsages, results);
+			});
+			return results;
+		}
+
+		retryOnConflict(attempt -> {
+			results.clear();
+			var batchUsages = loadBatchUsages(operations, now);
+			List<LimitTrackingContext> updatedContexts = recordBatchUsages(operations, batchUsages, results);
+			if (!updatedContexts.isEmpty()) {
+				usageRepository.updateAllUsageRecords(updatedContexts);
+				refreshNearCache(updatedContexts);
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * Records the operations in the usage of the batch, adding their results to the given list.
+	 * @return the contexts holding the records to update
+	 */
+	private static List<LimitTrackingContext> recordBatchUsages(List<LimitOperation> operations,
+			Map<BatchKey, BatchUsage> batchUsages, List<LimitOperationResult> results) {
+		for (LimitOperation operation : operations) {
+			try {
+				batchUsages.get(BatchKey.of(operation)).recordFeatureUsage(operation.units());
+				results.add(LimitOperationResult.success(operation));
+			}
+			catch (LimitExceededException ex) {
+				results.add(LimitOperationResult.failure(operation, ex));
+			}
+		}
+		return toUpdatedContexts(batchUsages.values());
+	}
+
+	@Override
+	public List<Map<String, Long>> getLimitsRemainingUnits(List<LimitOperation> operations) {
+		if (containsHierarchy(operations)) {
+			return LimitVerifier.super.getLimitsRemainingUnits(operations);
+		}
+		var batchUsages = toBatchUsages(operations, ZonedDateTime.now(clock));
+		loadCachedUsageData(batchUsages.values().stream().map(BatchUsage::context).toList());
+
+		return operations.stream()
+				.map(operation -> batchUsages.get(BatchKey.of(operation)).getRemainingUnits())
+				.toList();
+	}
+
+	private Map<BatchKey, BatchUsage> loadBatchUsages(List<LimitOperation> operations, ZonedDateTime now) {
+		var batchUsages = toBatchUsages(operations, now);
+		usageRepository.loadAllUsageData(batchUsages.values().stream().map(BatchUsage::context).toList());
+		return batchUsages;
+	}
+
+	private Map<BatchKey, BatchUsage> toBatchUsages(List<LimitOperation> operations, ZonedDateTime now) {
+		Map<LimitPlanKey, LimitPlan> batchLimitPlans = new HashMap<>();
+		Map<BatchKey, BatchUsage> batchUsages = new LinkedHashMap<>();
+		for (LimitOperation operation : operations) {
+			batchUsages.computeIfAbsent(BatchKey.of(operation), key -> {
+				var limitVerificationStrategiesMap = findVerificationStrategiesByLimit(operation.featureRef(),
+						operation.userGrouping(), batchLimitPlans);
+				var limitSearchCriteriaList = gatherSearchCriteria(limitVerificationStrategiesMap, now);
+				return new BatchUsage(limitVerificationStrategiesMap, new LimitTrackingContext(operation.featureRef(),
+						operation.userGrouping(), limitSearchCriteriaList, now));
+			});
+		}
+		return batchUsages;
+	}
+
+	private static List<LimitTrackingContext> toUpdatedContexts(Collection<BatchUsage> batchUsages) {
+		return batchUsages.stream()
+				.filter(BatchUsage::hasUpdatedRecords)
+				.map(BatchUsage::toUpdatedContext)
+				.toList();
+	}
+
+	private static boolean containsHierarchy(List<LimitOperation> operations) {
+		return operations.stream().anyMatch(operation -> operation.userGrouping() instanceof UserGroupingHierarchy);
+	}
+
+	private List<BatchUsage> loadHierarchyUsages(FeatureRef featureRef, UserGroupingHierarchy hierarchy, ZonedDateTime now) {
+		List<BatchUsage> levelUsages = toLevelUsages(featureRef, hierarchy, now);
+		usageRepository.loadAllUsageData(levelUsages.stream().map(BatchUsage::context).toList());
+		return levelUsages;
+	}
+
+	private List<BatchUsage> toLevelUsages(FeatureRef featureRef, UserGroupingHierarchy hierarchy, ZonedDateTime now) {
+		List<BatchUsage> levelUsages = new ArrayList<>();
+		for (UserGrouping level : hierarchy.getLevels()) {
+			var limitVerificationStrategiesMap = findVerificationStrategiesByLimit(featureRef, level);
+			var limitSearchCriteriaList = gatherSearchCriteria(limitVerificationStrategiesMap, now);
+			levelUsages.add(new BatchUsage(limitVerificationStrategiesMap,
+					new LimitTrackingContext(featureRef, level, limitSearchCriteriaList, now)));
+		}
+		return levelUsages;
+	}
+
 	private Feature resolveFeature(FeatureRef featureRef) {
 		return productRepository.getProductById(featureRef.productId())
 				.flatMap(product -> productRepository.getFeature(product, featureRef.featureId()))
@@ -106,33 +311,244 @@ public class LimitVerifierImpl implements LimitVerifier {
 	}
 
 	private void recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units, boolean isRecord) {
+		if (userGrouping instanceof UserGroupingHierarchy hierarchy) {
+			recordOrReduce(featureRef, hierarchy, units, isRecord);
+			return;
+		}
 		var limitVerificationStrategiesMap = findVerificationStrategiesByLimit(featureRef, userGrouping);
 
-		var limitSearchCriteriaList = gatherSearchCriteria(limitVerificationStrategiesMap);
+		var now = ZonedDateTime.now(clock);
+		if (applyAtomically(featureRef, userGrouping, units, isRecord, Map.of(userGrouping, limitVerificationStrategiesMap), now)) {
+			return;
+		}
 
-		var context = new LimitTrackingContext(featureRef, userGrouping, limitSearchCriteriaList);
+		var limitSearchCriteriaList = gatherSearchCriteria(limitVerificationStrategiesMap, now);
 
-		usageRepository.loadUsageData(context);
+		if (usageRepository instanceof LockingUsageRepository lockingUsageRepository
+				&& lockingUsageRepository.supportsLockingUpdates()) {
+			updateUsageRecordsLocked(lockingUsageRepository, loader -> {
+				var context = new LimitTrackingContext(featureRef, userGrouping, limitSearchCriteriaList, now);
+				loader.accept(List.of(context));
+				updateUsage(context, limitVerificationStrategiesMap, units, isRecord);
+				return List.of(context);
+			});
+			return;
+		}
+
+		retryOnConflict(attempt -> {
+			var context = new LimitTrackingContext(featureRef, userGrouping, limitSearchCriteriaList, now);
 
-		if (isRecord) {
-			limitVerificationStrategiesMap
-					.forEach((limitRule, verifStrategy) -> verifStrategy.recordFeatureUsage(context, limitRule, units.get(limitRule.getId())));
+			usageRepository.loadUsageData(context);
+
+			updateUsage(context, limitVerificationStrategiesMap, units, isRecord);
+
+			usageRepository.updateUsageRecords(context);
+			refreshNearCache(List.of(context));
+		});
+	}
+
+	/**
+	 * Updates the usage of the limits the units are given for, the other limits of the feature
+	 * are left unchanged.
+	 */
+	private static void updateUsage(LimitTrackingContext context,
+			Map<LimitRule, LimitVerificationStrategy> limitVerificationStrategiesMap, Map<String, Long> units,
+			boolean isRecord) {
+		limitVerificationStrategiesMap.forEach((limitRule, verifStrategy) -> {
+			Long limitUnits = units.get(limitRule.getId());
+			if (limitUnits == null) {
+				return;
+			}
+			if (isRecord) {
+				verifStrategy.recordFeatureUsage(context, limitRule, limitUnits);
+			}
+			else {
+				verifStrategy.reduceFeatureUsage(context, limitRule, limitUnits);
+			}
+		});
+	}
+
+	/**
+	 * Records or reduces the usage of every level of the hierarchy. The levels are loaded
+	 * together and updated together, nothing is written if any level would exceed a limit.
+	 */
+	private void recordOrReduce(FeatureRef featureRef, UserGroupingHierarchy hierarchy, Map<String, Long> units, boolean isRecord) {
+		var now = ZonedDateTime.now(clock);
+		List<BatchUsage> levelUsages = toLevelUsages(featureRef, hierarchy, now);
+
+		Map<UserGrouping, Map<LimitRule, LimitVerificationStrategy>> verificationStrategyMaps = new LinkedHashMap<>();
+		levelUsages.forEach(levelUsage -> verificationStrategyMaps.put(levelUsage.context().getUserGrouping(), levelUsage.strategiesByRule()));
+		if (applyAtomically(featureRef, hierarchy, units, isRecord, verificationStrategyMaps, now)) {
+			return;
 		}
-		else {
-			limitVerificationStrategiesMap
-					.forEach((limitRule, verifStrategy) -> verifStrategy.reduceFeatureUsage(context, limitRule, units.get(limitRule.getId())));
+
+		if (usageRepository instanceof LockingUsageRepository lockingUsageRepository
+				&& lockingUsageRepository.supportsLockingUpdates()) {
+			updateUsageRecordsLocked(lockingUsageRepository, loader -> {
+				List<BatchUsage> attemptUsages = toLevelUsages(featureRef, hierarchy, now);
+				loader.accept(attemptUsages.stream().map(BatchUsage::context).toList());
+				return updateLevelUsages(attemptUsages, units, isRecord);
+			});
+			return;
+		}
+
+		retryOnConflict(attempt -> {
+			List<BatchUsage> attemptUsages = (attempt == 1) ? levelUsages : toLevelUsages(featureRef, hierarchy, now);
+			usageRepository.loadAllUsageData(attemptUsages.stream().map(BatchUsage::context).toList());
+			List<LimitTrackingContext> updatedContexts = updateLevelUsages(attemptUsages, units, isRecord);
+			if (!updatedContexts.isEmpty()) {
+				usageRepository.updateAllUsageRecords(updatedContexts);
+				refreshNearCache(updatedContexts);
+			}
+		});
+	}
+
+	/**
+	 * Runs the update, then runs it again after a random pause while the usage repository
+	 * rejects its write because the usage records changed since they were loaded. The pause
+	 * is drawn up to a bound doubling after each conflict, so that the updates conflicting
+	 * together do not retry together.
+	 * @param update the update, which loads the usage records and writes them, given the
+	 * number of the attempt starting at 1
+	 */
+	private void retryOnConflict(IntConsumer update) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				update.accept(attempt);
+				return;
+			}
+			catch (UsageUpdateConflictException ex) {
+				updateConflicts.increment();
+				if (attempt > MAX_CONFLICT_RETRIES) {
+					throw ex;
+				}
+				conflictRetries.increment();
+				long maxBackoffNanos = Math.min(CONFLICT_BACKOFF_NANOS << (attempt - 1), MAX_CONFLICT_BACKOFF_NANOS);
+				LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(maxBackoffNanos + 1));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of writes rejected by the usage repository because of a concurrent
+	 * update, and the number of them that were retried.
+	 */
+	public ConflictStatistics getConflictStatistics() {
+		return new ConflictStatistics(updateConflicts.sum(), conflictRetries.sum());
+	}
+
+	private void loadCachedUsageData(LimitTrackingContext context) {
+		if (usageNearCache == null) {
+			usageRepository.loadUsageData(context);
+		}
+		else if (!usageNearCache.load(context)) {
+			long generation = usageNearCache.generation();
+			usageRepository.loadUsageData(context);
+			usageNearCache.put(context, generation);
+		}
+	}
+
+	private void loadCachedUsageData(List<LimitTrackingContext> contexts) {
+		if (usageNearCache == null) {
+			usageRepository.loadAllUsageData(contexts);
+			return;
+		}
+		List<LimitTrackingContext> missedContexts = contexts.stream()
+				.filter(context -> !usageNearCache.load(context))
+				.toList();
+		if (!missedContexts.isEmpty()) {
+			long generation = usageNearCache.generation();
+			usageRepository.loadAllUsageData(missedContexts);
+			missedContexts.forEach(context -> usageNearCache.put(context, generation));
+		}
+	}
+
+	private void updateUsageRecordsLocked(LockingUsageRepository lockingUsageRepository, LockedUpdate update) {
+		List<LimitTrackingContext> updatedContexts = new ArrayList<>();
+		lockingUsageRepository.updateUsageRecordsLocked(loader -> {
+			List<LimitTrackingContext> attemptContexts = update.apply(loader);
+			updatedContexts.clear();
+			updatedContexts.addAll(attemptContexts);
+			return attemptContexts;
+		});
+		refreshNearCache(updatedContexts);
+	}
+
+	private void refreshNearCache(List<LimitTrackingContext> updatedContexts) {
+		if (usageNearCache != null) {
+			updatedContexts.forEach(usageNearCache::refresh);
+		}
+	}
+
+	/**
+	 * Records or reduces the usage of every level of the hierarchy.
+	 * @return the contexts holding the records to update
+	 */
+	private static List<LimitTrackingContext> updateLevelUsages(List<BatchUsage> levelUsages, Map<String, Long> units,
+			boolean isRecord) {
+		for (BatchUsage levelUsage : levelUsages) {
+			if (isRecord) {
+				levelUsage.recordFeatureUsage(units);
+			}
+			else {
+				levelUsage.reduceFeatureUsage(units);
+			}
+		}
+		return toUpdatedContexts(levelUsages);
+	}
+
+	private boolean applyAtomically(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units,
+			boolean isRecord, Map<UserGrouping, Map<LimitRule, LimitVerificationStrategy>> verificationStrategyMaps,
+			ZonedDateTime now) {
+		if (!(usageRepository instanceof AtomicUsageRepository atomicUsageRepository)
+				|| !atomicUsageRepository.supportsAtomicUpdates()) {
+			return false;
 		}
 
-		usageRepository.updateUsageRecords(context);
+		List<UsageDelta> deltas = new ArrayList<>();
+		for (var levelEntry : verificationStrategyMaps.entrySet()) {
+			for (var entry : levelEntry.getValue().entrySet()) {
+				Long limitUnits = units.get(entry.getKey().getId());
+				if (limitUnits == null) {
+					continue;
+				}
+				Optional<UsageDelta> delta = entry.getValue().toUsageDelta(featureRef, levelEntry.getKey(), entry.getKey(),
+						isRecord ? limitUnits : -limitUnits, now);
+				if (delta.isEmpty()) {
+					return false;
+				}
+				deltas.add(delta.get());
+			}
+		}
+
+		if (!isRecord) {
+			atomicUsageRepository.applyDeltas(deltas);
+		}
+		else if (atomicUsageRepository.applyDeltasWithinLimits(deltas).isEmpty()) {
+			throw new LimitExceededException("Limit will be exceeded if additional units are used.", featureRef, userGrouping);
+		}
+		if (usageNearCache != null) {
+			verificationStrategyMaps.keySet().forEach(level -> usageNearCache.invalidate(featureRef, level));
+		}
+		return true;
 	}
 
-	private List<RecordSearchCriteria> gatherSearchCriteria(Map<LimitRule, LimitVerificationStrategy> verificationStrategyMap) {
+	private List<RecordSearchCriteria> gatherSearchCriteria(Map<LimitRule, LimitVerificationStrategy> verificationStrategyMap,
+			ZonedDateTime now) {
 		return verificationStrategyMap.entrySet().stream()
-				.map(entry -> getLimitSearchCriteria(entry.getValue(), entry.getKey()))
+				.flatMap(entry -> getLimitSearchCriteria(entry.getValue(), entry.getKey(), now).stream())
 				.toList();
 	}
 
 	private Map<LimitRule, LimitVerificationStrategy> findVerificationStrategiesByLimit(FeatureRef featureRef, UserGrouping userGrouping) {
+		return findVerificationStrategiesByLimit(featureRef, userGrouping, null);
+	}
+
+	private Map<LimitRule, LimitVerificationStrategy> findVerificationStrategiesByLimit(FeatureRef featureRef,
+			UserGrouping userGrouping, Map<LimitPlanKey, LimitPlan> batchLimitPlans) {
+		if (limitRuleResolver instanceof PlanLimitRuleResolver planLimitRuleResolver) {
+			return findVerificationStrategiesByLimit(featureRef, userGrouping, planLimitRuleResolver, batchLimitPlans);
+		}
 		Feature feature = resolveFeature(featureRef);
 		return feature.getLimitsIds().stream()
 				.map(limitId -> limitRuleResolver.resolveLimitRule(featureRef, limitId, userGrouping))
@@ -141,10 +557,184 @@ public class LimitVerifierImpl implements LimitVerifier {
 				.collect(Collectors.toMap(Function.identity(), limitVerifierStrategyResolver::resolveLimitVerificationStrategy));
 	}
 
-	private RecordSearchCriteria getLimitSearchCriteria(LimitVerificationStrategy strategy, LimitRule limit) {
-		Optional<ZonedDateTime> windowStart = strategy.getWindowStart(limit, ZonedDateTime.now());
-		Optional<ZonedDateTime> windowEnd = strategy.getWindowEnd(limit, ZonedDateTime.now());
-		return new RecordSearchCriteria(limit.getId(), windowStart.orElse(null),
-				windowEnd.orElse(null));
+	private Map<LimitRule, LimitVerificationStrategy> findVerificationStrategiesByLimit(FeatureRef featureRef,
+			UserGrouping userGrouping, PlanLimitRuleResolver planLimitRuleResolver,
+			Map<LimitPlanKey, LimitPlan> batchLimitPlans) {
+		String planId = userGrouping.getPlan(featureRef.productId()).orElse(null);
+		LimitPlan limitPlan;
+		if (limitPlanCacheEnabled) {
+			limitPlan = getLimitPlan(featureRef, planId, planLimitRuleResolver);
+		}
+		else if (batchLimitPlans != null) {
+			limitPlan = batchLimitPlans.computeIfAbsent(new LimitPlanKey(featureRef, planId),
+					key -> compileLimitPlan(featureRef, planId, planLimitRuleResolver, productVersion.get()));
+		}
+		else {
+			limitPlan = compileLimitPlan(featureRef, planId, planLimitRuleResolver, productVersion.get());
+		}
+		if (!planLimitRuleResolver.hasUserLimitRules()) {
+			return limitPlan.strategiesByRule();
+		}
+		Map<String, LimitRule> userLimitRules = planLimitRuleResolver.resolveUserLimitRules(featureRef,
+				limitPlan.limitIds(), userGrouping);
+		if (userLimitRules.isEmpty()) {
+			return limitPlan.strategiesByRule();
+		}
+		Map<LimitRule, LimitVerificationStrategy> strategiesByRule = new HashMap<>();
+		for (String limitId : limitPlan.limitIds()) {
+			LimitRule userLimitRule = userLimitRules.get(limitId);
+			if (userLimitRule != null) {
+				strategiesByRule.put(userLimitRule,
+						limitVerifierStrategyResolver.resolveLimitVerificationStrategy(userLimitRule));
+			}
+			else {
+				LimitRule planLimitRule = limitPlan.rulesById().get(limitId);
+				if (planLimitRule != null) {
+					strategiesByRule.put(planLimitRule, limitPlan.strategiesByRule().get(planLimitRule));
+				}
+			}
+		}
+		return strategiesByRule;
+	}
+
+	private LimitPlan getLimitPlan(FeatureRef featureRef, String planId, PlanLimitRuleResolver planLimitRuleResolver) {
+		long version = productVersion.get();
+		LimitPlanKey key = new LimitPlanKey(featureRef, planId);
+		LimitPlan limitPlan = limitPlans.get(key);
+		if (limitPlan == null || limitPlan.productVersion() != version) {
+			limitPlan = compileLimitPlan(featureRef, planId, planLimitRuleResolver, version);
+			limitPlans.put(key, limitPlan);
+		}
+		return limitPlan;
+	}
+
+	private LimitPlan compileLimitPlan(FeatureRef featureRef, String planId, PlanLimitRuleResolver planLimitRuleResolver,
+			long version) {
+		Feature feature = resolveFeature(featureRef);
+		Map<String, LimitRule> rulesById = new HashMap<>();
+		Map<LimitRule, LimitVerificationStrategy> strategiesByRule = new HashMap<>();
+		for (String limitId : feature.getLimitsIds()) {
+			planLimitRuleResolver.resolvePlanLimitRule(featureRef, limitId, planId).ifPresent(limitRule -> {
+				rulesById.put(limitId, limitRule);
+				strategiesByRule.put(limitRule, limitVerifierStrategyResolver.resolveLimitVerificationStrategy(limitRule));
+			});
+		}
+		return new LimitPlan(version, feature.getLimitsIds(), rulesById, strategiesByRule);
+	}
+
+	private void invalidateLimitPlans() {
+		productVersion.incrementAndGet();
+		limitPlans.clear();
+	}
+
+	private List<RecordSearchCriteria> getLimitSearchCriteria(LimitVerificationStrategy strategy, LimitRule limit,
+			ZonedDateTime now) {
+		if (strategy instanceof MultiWindowLimitVerificationStrategy multiWindowStrategy) {
+			return multiWindowStrategy.getSearchCriteria(limit, now);
+		}
+		Optional<ZonedDateTime> windowStart = strategy.getWindowStart(limit, now);
+		Optional<ZonedDateTime> windowEnd = strategy.getWindowEnd(limit, now);
+		return List.of(new RecordSearchCriteria(limit.getId(), windowStart.orElse(null),
+				windowEnd.orElse(null)));
+	}
+
+	/**
+	 * @param conflicts the writes rejected because of a concurrent update
+	 * @param retries the rejected writes that were retried, the others failed the operation
+	 */
+	public record ConflictStatistics(long conflicts, long retries) {
+	}
+
+	private record LimitPlanKey(FeatureRef featureRef, String planId) {
+	}
+
+	private record BatchKey(FeatureRef featureRef, String userGroupingId) {
+
+		static BatchKey of(LimitOperation operation) {
+			return new BatchKey(operation.featureRef(), operation.userGrouping().getId());
+		}
+	}
+
+	private record UsageRecordKey(String limitId, Instant startTime) {
+
+		static UsageRecordKey of(UsageRecord usageRecord) {
+			return new UsageRecordKey(usageRecord.limitId(),
+					(usageRecord.startTime() != null) ? usageRecord.startTime().toInstant() : null);
+		}
+	}
+
+	/**
+	 * Usage of one feature and user grouping within a batch or a hierarchy. Usage recorded
+	 * by an operation is visible to the following operations of the batch.
+	 */
+	private static final class BatchUsage {
+
+		private final Map<LimitRule, LimitVerificationStrategy> strategiesByRule;
+		private final LimitTrackingContext context;
+		private final Map<UsageRecordKey, UsageRecord> updatedRecords = new LinkedHashMap<>();
+		private List<UsageRecord> usageRecords;
+
+		BatchUsage(Map<LimitRule, LimitVerificationStrategy> strategiesByRule, LimitTrackingContext context) {
+			this.strategiesByRule = strategiesByRule;
+			this.context = context;
+		}
+
+		LimitTrackingContext context() {
+			return context;
+		}
+
+		Map<LimitRule, LimitVerificationStrategy> strategiesByRule() {
+			return strategiesByRule;
+		}
+
+		boolean isWithinLimits(Map<String, Long> additionalUnits) {
+			return strategiesByRule.entrySet().stream()
+					.allMatch(entry -> entry.getValue().isWithinLimits(context, entry.getKey(), additionalUnits.get(entry.getKey().getId())));
+		}
+
+		Map<String, Long> getRemainingUnits() {
+			return strategiesByRule.entrySet().stream()
+					.collect(Collectors.toMap(entry -> entry.getKey().getId(), entry -> entry.getValue().getRemainingUnits(context, entry.getKey())));
+		}
+
+		void recordFeatureUsage(Map<String, Long> additionalUnits) {
+			updateUsage(additionalUnits, true);
+		}
+
+		void reduceFeatureUsage(Map<String, Long> reducedUnits) {
+			updateUsage(reducedUnits, false);
+		}
+
+		private void updateUsage(Map<String, Long> units, boolean isRecord) {
+			if (usageRecords == null) {
+				usageRecords = new ArrayList<>(context.getCurrentUsageRecords());
+			}
+			var operationContext = newContext();
+			operationContext.addCurrentUsageRecords(usageRecords);
+			LimitVerifierImpl.updateUsage(operationContext, strategiesByRule, units, isRecord);
+
+			for (UsageRecord updatedRecord : operationContext.getUpdatedUsageRecords()) {
+				UsageRecordKey key = UsageRecordKey.of(updatedRecord);
+				usageRecords.removeIf(usageRecord -> key.equals(UsageRecordKey.of(usageRecord)));
+				usageRecords.add(updatedRecord);
+				updatedRecords.put(key, updatedRecord);
+			}
+		}
+
+		boolean hasUpdatedRecords() {
+			return !updatedRecords.isEmpty();
+		}
+
+		LimitTrackingContext toUpdatedContext() {
+			var updatedContext = newContext();
+			updatedContext.addCurrentUsageRecords(context.getCurrentUsageRecords());
+			updatedContext.addUpdatedUsageRecords(new ArrayList<>(updatedRecords.values()));
+			return updatedContext;
+		}
+
+		private LimitTrackingContext newContext() {
+			return new LimitTrackingContext(context.getFeatureRef(), context.getUserGrouping(),
+					context.getSearchCriteria(), context.getReferenceDate());
+		}
 	}
 }
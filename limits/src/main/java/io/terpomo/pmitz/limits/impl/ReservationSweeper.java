@@ -0,0 +1,195 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.reservation.Reservation;
+import io.terpomo.pmitz.limits.reservation.ReservationRepository;
+
+public final class ReservationSweeper implements AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(ReservationSweeper.class.getName());
+
+	private final ReservationRepository reservationRepository;
+	private final LimitVerifier limitVerifier;
+	private final int batchSize;
+	private final Clock clock;
+	private final ReentrantLock sweepLock = new ReentrantLock();
+	private final ScheduledExecutorService scheduler;
+
+	private final LongAdder runs = new LongAdder();
+	private final LongAdder failedRuns = new LongAdder();
+	private final LongAdder releasedReservations = new LongAdder();
+	private final LongAdder failedReleases = new LongAdder();
+
+	private ReservationSweeper(Builder builder) {
+		this.reservationRepository = builder.reservationRepository;
+		this.limitVerifier = builder.limitVerifier;
+		this.batchSize = builder.batchSize;
+		this.clock = builder.clock;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pmitz-reservation-sweep");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = builder.tickInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::sweepQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param reservationRepository the repository of the reservations
+	 * @param limitVerifier the verifier reducing the units of the expired reservations, usually
+	 * the verifier the reservations were made with
+	 */
+	public static Builder builder(ReservationRepository reservationRepository, LimitVerifier limitVerifier) {
+		return new Builder(reservationRepository, limitVerifier);
+	}
+
+	/**
+	 * Removes the reservations expired at the current time and reduces their units, in batches
+	 * until no expired reservation is left. A sweep started while another one is in progress
+	 * returns right away.
+	 * @return the number of reservations released
+	 */
+	public int sweep() {
+		if (!sweepLock.tryLock()) {
+			return 0;
+		}
+		try {
+			runs.increment();
+			Instant now = clock.instant();
+			int released = 0;
+			List<Reservation> expired;
+			do {
+				try {
+					expired = reservationRepository.removeExpired(now, batchSize);
+				}
+				catch (RuntimeException ex) {
+					failedRuns.increment();
+					throw ex;
+				}
+				for (Reservation reservation : expired) {
+					release(reservation);
+				}
+				released += expired.size();
+			}
+			while (expired.size() >= batchSize);
+			return released;
+		}
+		finally {
+			sweepLock.unlock();
+		}
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(runs.sum(), failedRuns.sum(), releasedReservations.sum(), failedReleases.sum());
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Reduces the units of the expired reservation. The reservation is already removed, units
+	 * that fail to be reduced stay recorded.
+	 */
+	private void release(Reservation reservation) {
+		try {
+			ReservingLimitVerifierImpl.release(limitVerifier, reservation);
+			releasedReservations.increment();
+		}
+		catch (RuntimeException ex) {
+			failedReleases.increment();
+			LOGGER.log(Level.WARNING, ex, () -> "Failed to release the units of expired reservation "
+					+ reservation.reservationId());
+		}
+	}
+
+	private void sweepQuietly() {
+		try {
+			sweep();
+		}
+		catch (RuntimeException ex) {
+			LOGGER.log(Level.WARNING, "Failed to sweep expired reservations, they will be swept by the next run", ex);
+		}
+	}
+
+	/**
+	 * @param runs the sweeps started
+	 * @param failedRuns the sweeps that failed to remove expired reservations
+	 * @param releasedReservations the expired reservations whose units were reduced
+	 * @param failedReleases the expired reservations whose units failed to be reduced
+	 */
+	public record Statistics(long runs, long failedRuns, long releasedReservations, long failedReleases) {
+	}
+
+	public static final class Builder {
+
+		private final ReservationRepository reservationRepository;
+		private final LimitVerifier limitVerifier;
+		private Duration tickInterval = Duration.ofSeconds(1);
+		private int batchSize = 1_000;
+		private Clock clock = Clock.systemUTC();
+
+		private Builder(ReservationRepository reservationRepository, LimitVerifier limitVerifier) {
+			this.reservationRepository = reservationRepository;
+			this.limitVerifier = limitVerifier;
+		}
+
+		/**
+		 * Sets the interval between sweeps, which should be the tick duration of an
+		 * {@link io.terpomo.pmitz.limits.reservation.InMemoryReservationRepository}.
+		 */
+		public Builder tickInterval(Duration tickInterval) {
+			if (tickInterval.toMillis() <= 0) {
+				throw new IllegalArgumentException("tickInterval must be at least 1 millisecond");
+			}
+			this.tickInterval = tickInterval;
+			return this;
+		}
+
+		public Builder batchSize(int batchSize) {
+			if (batchSize <= 0) {
+				throw new IllegalArgumentException("batchSize must be positive");
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder clock(Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		public ReservationSweeper build() {
+			return new ReservationSweeper(this);
+		}
+	}
+}
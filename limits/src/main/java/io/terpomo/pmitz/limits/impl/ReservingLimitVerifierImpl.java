@@ -0,0 +1,201 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.exception.ReservationNotFoundException;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitOperation;
+import io.terpomo.pmitz.limits.LimitOperationResult;
+import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.ReservingLimitVerifier;
+import io.terpomo.pmitz.limits.reservation.Reservation;
+import io.terpomo.pmitz.limits.reservation.ReservationRepository;
+
+public class ReservingLimitVerifierImpl implements ReservingLimitVerifier {
+
+	private static final Logger LOGGER = Logger.getLogger(ReservingLimitVerifierImpl.class.getName());
+
+	private final LimitVerifier delegate;
+	private final ReservationRepository reservationRepository;
+	private final Clock clock;
+
+	public ReservingLimitVerifierImpl(LimitVerifier delegate, ReservationRepository reservationRepository) {
+		this(delegate, reservationRepository, Clock.systemUTC());
+	}
+
+	/**
+	 * Creates a verifier recording reserved units through the delegate as soon as they are
+	 * reserved, and reducing them when they are released. Units are reduced in the current
+	 * window of the limits, a reservation is therefore expected to end in the window it was
+	 * made in.
+	 * @param delegate the verifier recording and reducing the units
+	 * @param reservationRepository the repository storing the reservations
+	 * @param clock the clock used to expire the reservations
+	 */
+	public ReservingLimitVerifierImpl(LimitVerifier delegate, ReservationRepository reservationRepository, Clock clock) {
+		this.delegate = delegate;
+		this.reservationRepository = reservationRepository;
+		this.clock = clock;
+	}
+
+	public LimitVerifier getDelegate() {
+		return delegate;
+	}
+
+	public ReservationRepository getReservationRepository() {
+		return reservationRepository;
+	}
+
+	@Override
+	public boolean isWithinLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		return delegate.isWithinLimits(featureRef, userGrouping, additionalUnits);
+	}
+
+	@Override
+	public void recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		delegate.recordFeatureUsage(featureRef, userGrouping, additionalUnits);
+	}
+
+	@Override
+	public void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits) {
+		delegate.reduceFeatureUsage(featureRef, userGrouping, reducedUnits);
+	}
+
+	@Override
+	public Map<String, Long> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping) {
+		return delegate.getLimitsRemainingUnits(featureRef, userGrouping);
+	}
+
+	@Override
+	public String reserveFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units,
+			Duration timeToLive) {
+		LimitsValidationUtil.validateAdditionalUnits(units);
+		if (timeToLive.isNegative() || timeToLive.isZero()) {
+			throw new IllegalArgumentException("timeToLive must be positive");
+		}
+		Reservation reservation = new Reservation(UUID.randomUUID().toString(), featureRef, userGrouping, units,
+				clock.instant().plus(timeToLive));
+
+		delegate.recordFeatureUsage(featureRef, userGrouping, units);
+		try {
+			reservationRepository.save(reservation);
+		}
+		catch (RuntimeException ex) {
+			delegate.reduceFeatureUsage(featureRef, userGrouping, units);
+			throw ex;
+		}
+		return reservation.reservationId();
+	}
+
+	@Override
+	public void commitReservation(String reservationId, Map<String, Long> actualUnits) {
+		if (actualUnits == null || actualUnits.values().stream().anyMatch(v -> v == null || v < 0)) {
+			throw new IllegalArgumentException("Actual units must be zero or positive numbers");
+		}
+		Reservation reservation = removeUnexpired(reservationId);
+
+		Map<String, Long> additionalUnits = new HashMap<>();
+		Map<String, Long> unusedUnits = new HashMap<>();
+		actualUnits.forEach((limitId, units) -> {
+			long difference = units - reservation.units().getOrDefault(limitId, 0L);
+			if (difference > 0) {
+				additionalUnits.put(limitId, difference);
+			}
+		});
+		reservation.units().forEach((limitId, units) -> {
+			long difference = units - actualUnits.getOrDefault(limitId, 0L);
+			if (difference > 0) {
+				unusedUnits.put(limitId, difference);
+			}
+		});
+
+		if (!additionalUnits.isEmpty()) {
+			try {
+				delegate.recordFeatureUsage(reservation.featureRef(), reservation.userGrouping(), additionalUnits);
+			}
+			catch (LimitExceededException ex) {
+				reservationRepository.save(reservation);
+				throw ex;
+			}
+		}
+		if (!unusedUnits.isEmpty()) {
+			delegate.reduceFeatureUsage(reservation.featureRef(), reservation.userGrouping(), unusedUnits);
+		}
+	}
+
+	@Override
+	public void releaseReservation(String reservationId) {
+		release(delegate, removeUnexpired(reservationId));
+	}
+
+	@Override
+	public List<Boolean> isWithinLimits(List<LimitOperation> operations) {
+		return delegate.isWithinLimits(operations);
+	}
+
+	@Override
+	public List<LimitOperationResult> recordFeatureUsage(List<LimitOperation> operations) {
+		return delegate.recordFeatureUsage(operations);
+	}
+
+	@Override
+	public List<Map<String, Long>> getLimitsRemainingUnits(List<LimitOperation> operations) {
+		return delegate.getLimitsRemainingUnits(operations);
+	}
+
+	/**
+	 * Reduces the reserved units of a removed reservation, such as an expired one.
+	 */
+	static void release(LimitVerifier limitVerifier, Reservation reservation) {
+		limitVerifier.reduceFeatureUsage(reservation.featureRef(), reservation.userGrouping(), reservation.units());
+	}
+
+	private void releaseQuietly(Reservation reservation) {
+		try {
+			release(delegate, reservation);
+		}
+		catch (RuntimeException ex) {
+			LOGGER.log(Level.WARNING, ex, () -> "Failed to release the units of expired reservation "
+					+ reservation.reservationId());
+		}
+	}
+
+	/**
+	 * Removes the reservation. An expired reservation not released yet is released, and
+	 * reported as not found like the reservations already released.
+	 */
+	private Reservation removeUnexpired(String reservationId) {
+		Reservation reservation = reservationRepository.remove(reservationId)
+				.orElseThrow(() -> new ReservationNotFoundException("Reservation not found", reservationId));
+		if (reservation.isExpired(clock.instant())) {
+			releaseQuietly(reservation);
+			throw new ReservationNotFoundException("Reservation expired", reservationId);
+		}
+		return reservation;
+	}
+}
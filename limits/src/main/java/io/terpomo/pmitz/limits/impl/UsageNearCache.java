@@ -0,0 +1,220 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+
+public final class UsageNearCache {
+
+	private final Duration maxStaleness;
+	private final int maxEntries;
+	private final Clock clock;
+
+	private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong writeGeneration = new AtomicLong();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	private UsageNearCache(Builder builder) {
+		this.maxStaleness = builder.maxStaleness;
+		this.maxEntries = builder.maxEntries;
+		this.clock = builder.clock;
+	}
+
+	/**
+	 * @param maxStaleness the time after which usage loaded from the repository is loaded again.
+	 * Usage recorded by other verifiers, or by other nodes, is not seen before.
+	 */
+	public static Builder builder(Duration maxStaleness) {
+		return new Builder(maxStaleness);
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(hits.sum(), misses.sum(), refreshes.sum(), invalidations.sum(), entries.size());
+	}
+
+	/**
+	 * Adds the cached usage records to the context, if the usage of its feature and user
+	 * grouping was cached for the same search criteria and has not gone stale.
+	 * @return whether the records were found in the cache
+	 */
+	boolean load(LimitTrackingContext context) {
+		CacheKey key = CacheKey.of(context);
+		Entry entry = entries.get(key);
+		if (entry != null && entry.isExpired(clock.instant())) {
+			entries.remove(key, entry);
+			entry = null;
+		}
+		if (entry == null || !entry.searchCriteria().equals(context.getSearchCriteria())) {
+			misses.increment();
+			return false;
+		}
+		hits.increment();
+		context.addCurrentUsageRecords(entry.usageRecords());
+		return true;
+	}
+
+	/**
+	 * Returns the generation to pass to {@link #put} for usage about to be loaded.
+	 */
+	long generation() {
+		return writeGeneration.get();
+	}
+
+	/**
+	 * Caches the usage loaded in the context, unless usage was written through the cache since
+	 * the given generation: the loaded usage may then be older than the written one.
+	 */
+	void put(LimitTrackingContext context, long generation) {
+		if (writeGeneration.get() == generation) {
+			store(context, context.getCurrentUsageRecords());
+		}
+	}
+
+	/**
+	 * Caches the usage written from the context, which is its current records replaced by its
+	 * updated records, so that reads following a write see it.
+	 */
+	void refresh(LimitTrackingContext context) {
+		writeGeneration.incrementAndGet();
+		Map<RecordKey, UsageRecord> usageRecords = new LinkedHashMap<>();
+		context.getCurrentUsageRecords().forEach(usageRecord -> usageRecords.put(RecordKey.of(usageRecord), usageRecord));
+		context.getUpdatedUsageRecords().forEach(usageRecord -> usageRecords.put(RecordKey.of(usageRecord), usageRecord));
+		store(context, new ArrayList<>(usageRecords.values()));
+		refreshes.increment();
+	}
+
+	/**
+	 * Removes the usage of the feature and user grouping, written without being loaded.
+	 */
+	void invalidate(FeatureRef featureRef, UserGrouping userGrouping) {
+		writeGeneration.incrementAndGet();
+		if (entries.remove(new CacheKey(featureRef, userGrouping.getId())) != null) {
+			invalidations.increment();
+		}
+	}
+
+	private void store(LimitTrackingContext context, List<UsageRecord> usageRecords) {
+		Instant now = clock.instant();
+		Instant expiration = now.plus(maxStaleness);
+		for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
+			// windows that already ended, such as the previous window of a sliding window, do not bound it
+			Instant windowEnd = (criteria.windowEnd() != null) ? criteria.windowEnd().toInstant() : null;
+			if (windowEnd != null && windowEnd.isAfter(now) && windowEnd.isBefore(expiration)) {
+				expiration = windowEnd;
+			}
+		}
+		CacheKey key = CacheKey.of(context);
+		if (!entries.containsKey(key) && entries.size() >= maxEntries) {
+			entries.values().removeIf(entry -> entry.isExpired(now));
+			if (entries.size() >= maxEntries) {
+				return;
+			}
+		}
+		entries.put(key, new Entry(List.copyOf(context.getSearchCriteria()), List.copyOf(usageRecords), expiration));
+	}
+
+	/**
+	 * @param hits the reads served from the cache
+	 * @param misses the reads loading usage from the repository
+	 * @param refreshes the writes whose usage replaced the cached one
+	 * @param invalidations the writes removing cached usage
+	 * @param size the number of cached feature and user grouping pairs
+	 */
+	public record Statistics(long hits, long misses, long refreshes, long invalidations, int size) {
+	}
+
+	private record CacheKey(FeatureRef featureRef, String userGroupingId) {
+
+		static CacheKey of(LimitTrackingContext context) {
+			return new CacheKey(context.getFeatureRef(), context.getUserGrouping().getId());
+		}
+	}
+
+	private record RecordKey(String limitId, Instant startTime) {
+
+		static RecordKey of(UsageRecord usageRecord) {
+			return new RecordKey(usageRecord.limitId(),
+					(usageRecord.startTime() != null) ? usageRecord.startTime().toInstant() : null);
+		}
+	}
+
+	/**
+	 * Usage is cached until it goes stale or until the end of the first current window it was
+	 * loaded for, after which the search criteria change.
+	 */
+	private record Entry(List<RecordSearchCriteria> searchCriteria, List<UsageRecord> usageRecords,
+			Instant expiration) {
+
+		boolean isExpired(Instant now) {
+			return !expiration.isAfter(now);
+		}
+	}
+
+	public static final class Builder {
+
+		private final Duration maxStaleness;
+		private int maxEntries = 10_000;
+		private Clock clock = Clock.systemUTC();
+
+		private Builder(Duration maxStaleness) {
+			if (maxStaleness.isNegative() || maxStaleness.isZero()) {
+				throw new IllegalArgumentException("maxStaleness must be positive");
+			}
+			this.maxStaleness = maxStaleness;
+		}
+
+		/**
+		 * Sets the number of feature and user grouping pairs above which usage is no longer
+		 * cached until entries expire.
+		 */
+		public Builder maxEntries(int maxEntries) {
+			if (maxEntries < 1) {
+				throw new IllegalArgumentException("maxEntries must be at least 1");
+			}
+			this.maxEntries = maxEntries;
+			return this;
+		}
+
+		public Builder clock(Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		public UsageNearCache build() {
+			return new UsageNearCache(this);
+		}
+	}
+}
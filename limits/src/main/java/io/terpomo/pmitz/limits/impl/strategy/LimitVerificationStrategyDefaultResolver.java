@@ -17,6 +17,8 @@
 package io.terpomo.pmitz.limits.impl.strategy;
 
 import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
 import io.terpomo.pmitz.limits.LimitVerificationStrategy;
 import io.terpomo.pmitz.limits.LimitVerificationStrategyResolver;
 
@@ -24,6 +26,10 @@ public class LimitVerificationStrategyDefaultResolver implements LimitVerificati
 
 	private final LimitVerificationStrategy defaultVerificationStrategy;
 
+	private final LimitVerificationStrategy slidingWindowVerificationStrategy = new SlidingWindowLimitVerificationStrategy();
+
+	private final LimitVerificationStrategy tokenBucketVerificationStrategy = new TokenBucketLimitVerificationStrategy();
+
 	public LimitVerificationStrategyDefaultResolver() {
 		defaultVerificationStrategy = new SimpleLimitVerificationStrategy();
 	}
@@ -32,8 +38,18 @@ public class LimitVerificationStrategyDefaultResolver implements LimitVerificati
 		this.defaultVerificationStrategy = defaultVerificationStrategy;
 	}
 
+	/**
+	 * Sliding window and token bucket rate limits are always verified with their own
+	 * strategy, other limits with the default strategy.
+	 */
 	@Override
 	public LimitVerificationStrategy resolveLimitVerificationStrategy(LimitRule limitRule) {
+		if (limitRule instanceof SlidingWindowRateLimit) {
+			return slidingWindowVerificationStrategy;
+		}
+		if (limitRule instanceof TokenBucketRateLimit) {
+			return tokenBucketVerificationStrategy;
+		}
 		return defaultVerificationStrategy;
 	}
 }
@@ -22,15 +22,18 @@ import java.util.Optional;
 
 import io.terpomo.pmitz.core.exception.LimitExceededException;
 import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.limits.LimitVerificationStrategy;
 import io.terpomo.pmitz.limits.UsageRecord;
 import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
 
 public class SimpleLimitVerificationStrategy implements LimitVerificationStrategy {
 
 	@Override
 	public void recordFeatureUsage(LimitTrackingContext context, LimitRule limitRule, long additionalUnits) {
-		var now = ZonedDateTime.now();
+		var now = referenceDate(context);
 		var optExistingUsageRecord = findCurrentUsage(context, limitRule, now);
 		long alreadyUsedUnits = optExistingUsageRecord.isEmpty() ? 0 : optExistingUsageRecord.get().units();
 		long newUnits = alreadyUsedUnits + additionalUnits;
@@ -49,7 +52,7 @@ public class SimpleLimitVerificationStrategy implements LimitVerificationStrateg
 
 	@Override
 	public void reduceFeatureUsage(LimitTrackingContext context, LimitRule limitRule, long reducedUnits) {
-		var now = ZonedDateTime.now();
+		var now = referenceDate(context);
 		var optExistingUsageRecord = findCurrentUsage(context, limitRule, now);
 
 		var alreadyUsedUnits = optExistingUsageRecord.isEmpty() ? 0 : optExistingUsageRecord.get().units();
@@ -69,7 +72,7 @@ public class SimpleLimitVerificationStrategy implements LimitVerificationStrateg
 
 	@Override
 	public long getRemainingUnits(LimitTrackingContext context, LimitRule limitRule) {
-		var now = ZonedDateTime.now();
+		var now = referenceDate(context);
 		var optUsageRecord = findCurrentUsage(context, limitRule, now);
 		long currentUsage = optUsageRecord.isEmpty() ? 0 : optUsageRecord.get().units();
 		return limitRule.getValue() - currentUsage;
@@ -85,6 +88,21 @@ public class SimpleLimitVerificationStrategy implements LimitVerificationStrateg
 		return limitRule.getWindowEnd(referenceDate);
 	}
 
+	@Override
+	public Optional<UsageDelta> toUsageDelta(FeatureRef featureRef, UserGrouping userGrouping, LimitRule limitRule,
+			long units, ZonedDateTime referenceDate) {
+		var windowEnd = getWindowEnd(limitRule, referenceDate).orElse(null);
+		long maxUnits = (units > 0) ? limitRule.getValue() : UsageDelta.UNBOUNDED;
+		return Optional.of(new UsageDelta(featureRef, userGrouping.getId(), limitRule.getId(),
+				getWindowStart(limitRule, referenceDate).orElse(null), windowEnd, calculateExpirationDate(windowEnd),
+				units, maxUnits));
+	}
+
+	private ZonedDateTime referenceDate(LimitTrackingContext context) {
+		ZonedDateTime referenceDate = context.getReferenceDate();
+		return (referenceDate != null) ? referenceDate : ZonedDateTime.now();
+	}
+
 	private ZonedDateTime calculateExpirationDate(ZonedDateTime windowEnd) {
 		return (windowEnd != null) ? windowEnd.plusMonths(3) : null;
 	}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl.strategy;
+
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.limits.MultiWindowLimitVerificationStrategy;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+
+public class SlidingWindowLimitVerificationStrategy implements MultiWindowLimitVerificationStrategy {
+
+	@Override
+	public void recordFeatureUsage(LimitTrackingContext context, LimitRule limitRule, long additionalUnits) {
+		var now = referenceDate(context);
+		var slidingWindowRateLimit = toSlidingWindowRateLimit(limitRule);
+		var usage = findUsage(context, slidingWindowRateLimit, now);
+		long estimatedUnits = usage.estimatedUnits(slidingWindowRateLimit, now);
+
+		if (estimatedUnits + additionalUnits > limitRule.getValue()) {
+			throw new LimitExceededException("Limit will be exceeded if additional units are used. " + estimatedUnits + " are currently used, out of " + limitRule.getValue() + ".",
+					context.getFeatureRef(), context.getUserGrouping());
+		}
+
+		context.addUpdatedUsageRecords(Collections.singletonList(
+				updateCurrentUsage(usage, slidingWindowRateLimit, now, usage.currentUnits() + additionalUnits)));
+	}
+
+	@Override
+	public void reduceFeatureUsage(LimitTrackingContext context, LimitRule limitRule, long reducedUnits) {
+		var now = referenceDate(context);
+		var slidingWindowRateLimit = toSlidingWindowRateLimit(limitRule);
+		var usage = findUsage(context, slidingWindowRateLimit, now);
+
+		long newUnits = (usage.currentUnits() > reducedUnits) ? usage.currentUnits() - reducedUnits : 0;
+
+		context.addUpdatedUsageRecords(Collections.singletonList(
+				updateCurrentUsage(usage, slidingWindowRateLimit, now, newUnits)));
+	}
+
+	@Override
+	public boolean isWithinLimits(LimitTrackingContext context, LimitRule limitRule, long additionalUnits) {
+		return getRemainingUnits(context, limitRule) >= additionalUnits;
+	}
+
+	@Override
+	public long getRemainingUnits(LimitTrackingContext context, LimitRule limitRule) {
+		var now = referenceDate(context);
+		var slidingWindowRateLimit = toSlidingWindowRateLimit(limitRule);
+		return limitRule.getValue() - findUsage(context, slidingWindowRateLimit, now).estimatedUnits(slidingWindowRateLimit, now);
+	}
+
+	@Override
+	public Optional<ZonedDateTime> getWindowStart(LimitRule limitRule, ZonedDateTime referenceDate) {
+		return limitRule.getWindowStart(referenceDate);
+	}
+
+	@Override
+	public Optional<ZonedDateTime> getWindowEnd(LimitRule limitRule, ZonedDateTime referenceDate) {
+		return limitRule.getWindowEnd(referenceDate);
+	}
+
+	@Override
+	public List<RecordSearchCriteria> getSearchCriteria(LimitRule limitRule, ZonedDateTime referenceDate) {
+		var previousReferenceDate = previousReferenceDate(toSlidingWindowRateLimit(limitRule), referenceDate);
+		return List.of(
+				new RecordSearchCriteria(limitRule.getId(), getWindowStart(limitRule, previousReferenceDate).orElse(null),
+						getWindowEnd(limitRule, previousReferenceDate).orElse(null)),
+				new RecordSearchCriteria(limitRule.getId(), getWindowStart(limitRule, referenceDate).orElse(null),
+						getWindowEnd(limitRule, referenceDate).orElse(null)));
+	}
+
+	private UsageRecord updateCurrentUsage(SlidingWindowUsage usage, SlidingWindowRateLimit limitRule, ZonedDateTime now,
+			long newUnits) {
+		if (usage.current() != null) {
+			return UsageRecord.updage(usage.current(), newUnits, usage.current().expirationDate());
+		}
+		var windowEnd = getWindowEnd(limitRule, now).orElse(null);
+		return new UsageRecord(limitRule.getId(), getWindowStart(limitRule, now).orElse(null), windowEnd, newUnits,
+				calculateExpirationDate(limitRule, windowEnd));
+	}
+
+	private SlidingWindowUsage findUsage(LimitTrackingContext context, SlidingWindowRateLimit limitRule, ZonedDateTime now) {
+		var previousReferenceDate = previousReferenceDate(limitRule, now);
+		return new SlidingWindowUsage(findBucket(context, limitRule, previousReferenceDate), findBucket(context, limitRule, now));
+	}
+
+	private UsageRecord findBucket(LimitTrackingContext context, SlidingWindowRateLimit limitRule, ZonedDateTime referenceDate) {
+		var windowStart = getWindowStart(limitRule, referenceDate).orElse(null);
+		var usageRecordList = context.findUsageRecords(limitRule.getId(), windowStart, getWindowEnd(limitRule, referenceDate).orElse(null));
+
+		if (usageRecordList.size() > 1) {
+			throw new IllegalStateException("Inconsistent data found in usage repository. Should find 1 record atmost per window for this type of limit");
+		}
+
+		return (usageRecordList.isEmpty() ? null : usageRecordList.get(0));
+	}
+
+	private ZonedDateTime previousReferenceDate(SlidingWindowRateLimit limitRule, ZonedDateTime referenceDate) {
+		return referenceDate.minus(limitRule.getWindowLength());
+	}
+
+	private ZonedDateTime referenceDate(LimitTrackingContext context) {
+		ZonedDateTime referenceDate = context.getReferenceDate();
+		return (referenceDate != null) ? referenceDate : ZonedDateTime.now();
+	}
+
+	/**
+	 * The usage of a window is needed until the end of the next one, where it is weighted in.
+	 */
+	private ZonedDateTime calculateExpirationDate(SlidingWindowRateLimit limitRule, ZonedDateTime windowEnd) {
+		return (windowEnd != null) ? windowEnd.plus(limitRule.getWindowLength()) : null;
+	}
+
+	private SlidingWindowRateLimit toSlidingWindowRateLimit(LimitRule limitRule) {
+		if (limitRule instanceof SlidingWindowRateLimit slidingWindowRateLimit) {
+			return slidingWindowRateLimit;
+		}
+		throw new IllegalArgumentException("Limit " + limitRule.getId() + " is not a sliding window rate limit");
+	}
+
+	private record SlidingWindowUsage(UsageRecord previous, UsageRecord current) {
+
+		long currentUnits() {
+			return (current != null) ? current.units() : 0;
+		}
+
+		/**
+		 * Estimates the units used over the sliding window, assuming the usage of the previous
+		 * window was evenly distributed.
+		 */
+		long estimatedUnits(SlidingWindowRateLimit limitRule, ZonedDateTime referenceDate) {
+			long previousUnits = (previous != null) ? previous.units() : 0;
+			return currentUnits() + (long) (previousUnits * limitRule.getPreviousWindowWeight(referenceDate));
+		}
+	}
+}
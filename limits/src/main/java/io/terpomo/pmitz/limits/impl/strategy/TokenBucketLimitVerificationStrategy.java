@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl.strategy;
+
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitVerificationStrategy;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class TokenBucketLimitVerificationStrategy implements LimitVerificationStrategy {
+
+	/**
+	 * The units of the usage record of a token bucket hold its theoretical arrival time, in
+	 * nanoseconds since the epoch.
+	 */
+	@Override
+	public void recordFeatureUsage(LimitTrackingContext context, LimitRule limitRule, long additionalUnits) {
+		long now = toEpochNanos(referenceDate(context));
+		var tokenBucketRateLimit = toTokenBucketRateLimit(limitRule);
+		var usageRecord = findUsage(context, limitRule);
+		long arrivalTime = arrivalTime(usageRecord);
+
+		long nextArrivalTime = tokenBucketRateLimit.nextArrivalTime(arrivalTime, now, additionalUnits);
+		if (nextArrivalTime < 0) {
+			throw new LimitExceededException("Limit will be exceeded if additional units are used. " + tokenBucketRateLimit.getRemainingUnits(arrivalTime, now) + " are currently available, out of " + limitRule.getValue() + ".",
+					context.getFeatureRef(), context.getUserGrouping());
+		}
+
+		context.addUpdatedUsageRecords(Collections.singletonList(updateUsage(usageRecord, limitRule, nextArrivalTime)));
+	}
+
+	@Override
+	public void reduceFeatureUsage(LimitTrackingContext context, LimitRule limitRule, long reducedUnits) {
+		long now = toEpochNanos(referenceDate(context));
+		var tokenBucketRateLimit = toTokenBucketRateLimit(limitRule);
+		var usageRecord = findUsage(context, limitRule);
+
+		long refund = Math.min(reducedUnits, limitRule.getValue()) * tokenBucketRateLimit.getEmissionIntervalNanos();
+		long arrivalTime = Math.max(arrivalTime(usageRecord) - refund, now);
+
+		context.addUpdatedUsageRecords(Collections.singletonList(updateUsage(usageRecord, limitRule, arrivalTime)));
+	}
+
+	@Override
+	public boolean isWithinLimits(LimitTrackingContext context, LimitRule limitRule, long additionalUnits) {
+		return getRemainingUnits(context, limitRule) >= additionalUnits;
+	}
+
+	@Override
+	public long getRemainingUnits(LimitTrackingContext context, LimitRule limitRule) {
+		long now = toEpochNanos(referenceDate(context));
+		return toTokenBucketRateLimit(limitRule).getRemainingUnits(arrivalTime(findUsage(context, limitRule)), now);
+	}
+
+	@Override
+	public Optional<ZonedDateTime> getWindowStart(LimitRule limitRule, ZonedDateTime referenceDate) {
+		return limitRule.getWindowStart(referenceDate);
+	}
+
+	@Override
+	public Optional<ZonedDateTime> getWindowEnd(LimitRule limitRule, ZonedDateTime referenceDate) {
+		return limitRule.getWindowEnd(referenceDate);
+	}
+
+	/**
+	 * Describes the new arrival time {@code max(arrivalTime, now) + units * emissionInterval}
+	 * as an increment with a floor, so that it is applied with a single conditional update.
+	 */
+	@Override
+	public Optional<UsageDelta> toUsageDelta(FeatureRef featureRef, UserGrouping userGrouping, LimitRule limitRule,
+			long units, ZonedDateTime referenceDate) {
+		var tokenBucketRateLimit = toTokenBucketRateLimit(limitRule);
+		long now = toEpochNanos(referenceDate);
+		// Beyond the quota, the increment is rejected anyway: capping it avoids an overflow
+		long cappedUnits = Math.max(Math.min(units, limitRule.getValue() + 1), -limitRule.getValue());
+		long increment = cappedUnits * tokenBucketRateLimit.getEmissionIntervalNanos();
+		if (increment > 0) {
+			return Optional.of(new UsageDelta(featureRef, userGrouping.getId(), limitRule.getId(), null, null, null,
+					increment, tokenBucketRateLimit.getMaxArrivalTime(now), now + increment));
+		}
+		return Optional.of(new UsageDelta(featureRef, userGrouping.getId(), limitRule.getId(), null, null, null,
+				increment, UsageDelta.UNBOUNDED, now));
+	}
+
+	private UsageRecord updateUsage(UsageRecord usageRecord, LimitRule limitRule, long arrivalTime) {
+		if (usageRecord != null) {
+			return UsageRecord.updage(usageRecord, arrivalTime, usageRecord.expirationDate());
+		}
+		return new UsageRecord(limitRule.getId(), null, null, arrivalTime, null);
+	}
+
+	private UsageRecord findUsage(LimitTrackingContext context, LimitRule limitRule) {
+		List<UsageRecord> usageRecordList = context.findUsageRecords(limitRule.getId(), null, null);
+
+		if (usageRecordList.size() > 1) {
+			throw new IllegalStateException("Inconsistent data found in usage repository. Should find 1 record atmost for this type of limit");
+		}
+
+		return (usageRecordList.isEmpty() ? null : usageRecordList.get(0));
+	}
+
+	private static long arrivalTime(UsageRecord usageRecord) {
+		return (usageRecord != null && usageRecord.units() != null) ? usageRecord.units() : 0;
+	}
+
+	private static long toEpochNanos(ZonedDateTime dateTime) {
+		return dateTime.toEpochSecond() * 1_000_000_000L + dateTime.getNano();
+	}
+
+	private ZonedDateTime referenceDate(LimitTrackingContext context) {
+		ZonedDateTime referenceDate = context.getReferenceDate();
+		return (referenceDate != null) ? referenceDate : ZonedDateTime.now();
+	}
+
+	private TokenBucketRateLimit toTokenBucketRateLimit(LimitRule limitRule) {
+		if (limitRule instanceof TokenBucketRateLimit tokenBucketRateLimit) {
+			return tokenBucketRateLimit;
+		}
+		throw new IllegalArgumentException("Limit " + limitRule.getId() + " is not a token bucket rate limit");
+	}
+}
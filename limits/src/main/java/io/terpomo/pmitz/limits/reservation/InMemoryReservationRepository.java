@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.reservation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class InMemoryReservationRepository implements ReservationRepository {
+
+	private static final Duration DEFAULT_TICK_DURATION = Duration.ofSeconds(1);
+
+	private static final int DEFAULT_WHEEL_SIZE = 512;
+
+	private static final long NOT_SWEPT = Long.MIN_VALUE;
+
+	private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+	private final long tickMillis;
+
+	private final List<Set<String>> wheel;
+
+	private final ReentrantLock sweepLock = new ReentrantLock();
+
+	private long nextTick = NOT_SWEPT;
+
+	public InMemoryReservationRepository() {
+		this(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	 * Creates a repository finding the expired reservations with a timing wheel: each
+	 * reservation is kept in the bucket of the tick it expires in, and removing the expired
+	 * reservations only visits the buckets of the ticks elapsed since the previous call. A
+	 * bucket also holds the reservations expiring a multiple of {@code wheelSize} ticks later,
+	 * which are skipped until they expire.
+	 * @param tickDuration the time covered by a bucket, usually the interval between sweeps
+	 * @param wheelSize the number of buckets
+	 */
+	public InMemoryReservationRepository(Duration tickDuration, int wheelSize) {
+		if (tickDuration.toMillis() <= 0) {
+			throw new IllegalArgumentException("tickDuration must be at least 1 millisecond");
+		}
+		if (wheelSize <= 0) {
+			throw new IllegalArgumentException("wheelSize must be positive");
+		}
+		this.tickMillis = tickDuration.toMillis();
+		this.wheel = new ArrayList<>(wheelSize);
+		for (int i = 0; i < wheelSize; i++) {
+			wheel.add(ConcurrentHashMap.newKeySet());
+		}
+	}
+
+	@Override
+	public void save(Reservation reservation) {
+		if (reservations.putIfAbsent(reservation.reservationId(), reservation) != null) {
+			throw new IllegalArgumentException("Reservation '" + reservation.reservationId() + "' already exists");
+		}
+		// added to its bucket after the map, so that a sweep finding the id also finds the reservation
+		bucket(tick(reservation.expirationDate())).add(reservation.reservationId());
+	}
+
+	@Override
+	public Optional<Reservation> remove(String reservationId) {
+		Reservation reservation = reservations.remove(reservationId);
+		if (reservation == null) {
+			return Optional.empty();
+		}
+		bucket(tick(reservation.expirationDate())).remove(reservationId);
+		return Optional.of(reservation);
+	}
+
+	@Override
+	public List<Reservation> removeExpired(Instant now, int maxCount) {
+		List<Reservation> expired = new ArrayList<>();
+		long nowTick = tick(now);
+		sweepLock.lock();
+		try {
+			// a full turn of the wheel visits every bucket, such as on the first call
+			long tick = Math.max(nextTick, nowTick - wheel.size() + 1);
+			for (; tick <= nowTick; tick++) {
+				if (!removeExpired(bucket(tick), now, maxCount, expired)) {
+					nextTick = tick;
+					return expired;
+				}
+			}
+			// the current tick is visited again, its reservations expiring later in the tick are left
+			nextTick = nowTick;
+			return expired;
+		}
+		finally {
+			sweepLock.unlock();
+		}
+	}
+
+	public int size() {
+		return reservations.size();
+	}
+
+	/**
+	 * Moves the reservations of the bucket expired at the given time to the list.
+	 * @return whether the bucket was fully visited before reaching the maximum count
+	 */
+	private boolean removeExpired(Set<String> bucket, Instant now, int maxCount, List<Reservation> expired) {
+		for (String reservationId : bucket) {
+			if (expired.size() >= maxCount) {
+				return false;
+			}
+			Reservation reservation = reservations.get(reservationId);
+			if (reservation == null) {
+				bucket.remove(reservationId);
+			}
+			else if (reservation.isExpired(now) && reservations.remove(reservationId, reservation)) {
+				bucket.remove(reservationId);
+				expired.add(reservation);
+			}
+		}
+		return true;
+	}
+
+	private long tick(Instant instant) {
+		return Math.floorDiv(instant.toEpochMilli(), tickMillis);
+	}
+
+	private Set<String> bucket(long tick) {
+		return wheel.get((int) Math.floorMod(tick, (long) wheel.size()));
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.reservation;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservationRepository {
+
+	/**
+	 * Stores a new reservation.
+	 */
+	void save(Reservation reservation);
+
+	/**
+	 * Removes the reservation, expired or not. When the reservation is removed concurrently,
+	 * only one caller gets it, so that its units are committed or released once.
+	 * @return the removed reservation, empty if it was not found
+	 */
+	Optional<Reservation> remove(String reservationId);
+
+	/**
+	 * Removes reservations expired at the given time.
+	 * @param maxCount the maximum number of reservations removed
+	 * @return the removed reservations, whose units must be released
+	 */
+	List<Reservation> removeExpired(Instant now, int maxCount);
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.reservation.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.core.subjects.DirectoryGroup;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.core.subscriptions.Subscription;
+import io.terpomo.pmitz.limits.reservation.Reservation;
+import io.terpomo.pmitz.limits.reservation.ReservationRepository;
+
+public class JDBCReservationRepository implements ReservationRepository {
+
+	private static final String INDIVIDUAL_USER = "INDIVIDUAL_USER";
+	private static final String SUBSCRIPTION = "SUBSCRIPTION";
+	private static final String DIRECTORY_GROUP = "DIRECTORY_GROUP";
+
+	private final DataSource dataSource;
+	private final String schemaName;
+	private final String tableName;
+
+	/**
+	 * Creates a repository storing one row per reserved limit. Only reservations of individual
+	 * users, subscriptions and directory groups can be stored, as they are found again by the
+	 * type and id of their user grouping. The plan of a subscription for the product of the
+	 * reservation is stored with it, so that the units are released against the limits of
+	 * that plan.
+	 */
+	public JDBCReservationRepository(DataSource dataSource, String schemaName, String tableName) {
+		this.dataSource = dataSource;
+		this.schemaName = schemaName;
+		this.tableName = tableName;
+	}
+
+	@Override
+	public void save(Reservation reservation) {
+		String userGroupingType = userGroupingType(reservation.userGrouping());
+		String planId = reservation.userGrouping().getPlan(reservation.featureRef().productId()).orElse(null);
+		String query = "INSERT INTO " + getFullTableName()
+				+ " (reservation_id, limit_id, product_id, feature_id, user_grouping_type, user_grouping, plan_id, units,"
+				+ " expiration_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement statement = connection.prepareStatement(query)) {
+				for (Map.Entry<String, Long> entry : reservation.units().entrySet()) {
+					statement.setString(1, reservation.reservationId());
+					statement.setString(2, entry.getKey());
+					statement.setString(3, reservation.featureRef().productId());
+					statement.setString(4, reservation.featureRef().featureId());
+					statement.setString(5, userGroupingType);
+					statement.setString(6, reservation.userGrouping().getId());
+					statement.setString(7, planId);
+					statement.setLong(8, entry.getValue());
+					statement.setTimestamp(9, Timestamp.from(reservation.expirationDate()));
+					statement.addBatch();
+				}
+				statement.executeBatch();
+				connection.commit();
+			}
+			catch (SQLException ex) {
+				connection.rollback();
+				throw ex;
+			}
+			finally {
+				connection.setAutoCommit(true);
+			}
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error saving reservation", ex);
+		}
+	}
+
+	@Override
+	public Optional<Reservation> remove(String reservationId) {
+		try (Connection connection = dataSource.getConnection()) {
+			return remove(connection, reservationId);
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error removing reservation", ex);
+		}
+	}
+
+	@Override
+	public List<Reservation> removeExpired(Instant now, int maxCount) {
+		String query = "SELECT DISTINCT reservation_id FROM " + getFullTableName() + " WHERE expiration_date <= ?";
+		try (Connection connection = dataSource.getConnection()) {
+			List<String> reservationIds = new ArrayList<>();
+			try (PreparedStatement statement = connection.prepareStatement(query)) {
+				statement.setMaxRows(maxCount);
+				statement.setTimestamp(1, Timestamp.from(now));
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						reservationIds.add(resultSet.getString("reservation_id"));
+					}
+				}
+			}
+			List<Reservation> expired = new ArrayList<>(reservationIds.size());
+			for (String reservationId : reservationIds) {
+				remove(connection, reservationId).ifPresent(expired::add);
+			}
+			return expired;
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error removing expired reservations", ex);
+		}
+	}
+
+	/**
+	 * Reads the rows of the reservation and deletes them in one transaction. A concurrent
+	 * removal deleting the rows first makes the delete count zero, the reservation is then
+	 * left to it.
+	 */
+	private Optional<Reservation> remove(Connection connection, String reservationId) throws SQLException {
+		connection.setAutoCommit(false);
+		try {
+			Optional<Reservation> reservation = find(connection, reservationId);
+			if (reservation.isPresent() && delete(connection, reservationId) == 0) {
+				reservation = Optional.empty();
+			}
+			connection.commit();
+			return reservation;
+		}
+		catch (SQLException ex) {
+			connection.rollback();
+			throw ex;
+		}
+		finally {
+			connection.setAutoCommit(true);
+		}
+	}
+
+	private Optional<Reservation> find(Connection connection, String reservationId) throws SQLException {
+		String query = "SELECT limit_id, product_id, feature_id, user_grouping_type, user_grouping, plan_id, units,"
+				+ " expiration_date FROM " + getFullTableName() + " WHERE reservation_id = ?";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, reservationId);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (!resultSet.next()) {
+					return Optional.empty();
+				}
+				FeatureRef featureRef = new FeatureRef(resultSet.getString("product_id"), resultSet.getString("feature_id"));
+				UserGrouping userGrouping = toUserGrouping(resultSet.getString("user_grouping_type"),
+						resultSet.getString("user_grouping"), featureRef, resultSet.getString("plan_id"));
+				Instant expirationDate = resultSet.getTimestamp("expiration_date").toInstant();
+				Map<String, Long> units = new HashMap<>();
+				do {
+					units.put(resultSet.getString("limit_id"), resultSet.getLong("units"));
+				}
+				while (resultSet.next());
+				return Optional.of(new Reservation(reservationId, featureRef, userGrouping, units, expirationDate));
+			}
+		}
+	}
+
+	private int delete(Connection connection, String reservationId) throws SQLException {
+		String query = "DELETE FROM " + getFullTableName() + " WHERE reservation_id = ?";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, reservationId);
+			return statement.executeUpdate();
+		}
+	}
+
+	private static String userGroupingType(UserGrouping userGrouping) {
+		if (userGrouping instanceof IndividualUser) {
+			return INDIVIDUAL_USER;
+		}
+		if (userGrouping instanceof Subscription) {
+			return SUBSCRIPTION;
+		}
+		if (userGrouping instanceof DirectoryGroup) {
+			return DIRECTORY_GROUP;
+		}
+		throw new IllegalArgumentException("Reservations are not supported for user grouping "
+				+ userGrouping.getClass().getSimpleName());
+	}
+
+	private static UserGrouping toUserGrouping(String userGroupingType, String userGroupingId, FeatureRef featureRef,
+			String planId) {
+		return switch (userGroupingType) {
+			case INDIVIDUAL_USER -> new IndividualUser(userGroupingId);
+			case SUBSCRIPTION -> toSubscription(userGroupingId, featureRef, planId);
+			case DIRECTORY_GROUP -> new DirectoryGroup(userGroupingId);
+			default -> throw new RepositoryException("Unknown user grouping type: " + userGroupingType);
+		};
+	}
+
+	private static Subscription toSubscription(String subscriptionId, FeatureRef featureRef, String planId) {
+		Subscription subscription = new Subscription(subscriptionId);
+		if (planId != null) {
+			subscription.setPlans(Map.of(featureRef.productId(), planId));
+		}
+		return subscription;
+	}
+
+	private String getFullTableName() {
+		return schemaName + "." + tableName;
+	}
+}
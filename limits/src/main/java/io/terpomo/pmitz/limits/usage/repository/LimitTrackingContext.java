@@ -36,10 +36,18 @@ public class LimitTrackingContext {
 
 	private final List<UsageRecord> updatedUsageRecords;
 
+	private final ZonedDateTime referenceDate;
+
 	public LimitTrackingContext(FeatureRef featureRef, UserGrouping userGrouping, List<RecordSearchCriteria> searchCriteria) {
+		this(featureRef, userGrouping, searchCriteria, ZonedDateTime.now());
+	}
+
+	public LimitTrackingContext(FeatureRef featureRef, UserGrouping userGrouping, List<RecordSearchCriteria> searchCriteria,
+			ZonedDateTime referenceDate) {
 		this.featureRef = featureRef;
 		this.userGrouping = userGrouping;
 		this.searchCriteria = searchCriteria;
+		this.referenceDate = referenceDate;
 		this.currentUsageRecords = new ArrayList<>();
 		this.updatedUsageRecords = new ArrayList<>();
 	}
@@ -56,6 +64,14 @@ public class LimitTrackingContext {
 		return searchCriteria;
 	}
 
+	/**
+	 * Returns the date the search criteria were computed for, which is also the date usage
+	 * is recorded at.
+	 */
+	public ZonedDateTime getReferenceDate() {
+		return referenceDate;
+	}
+
 	public List<UsageRecord> getCurrentUsageRecords() {
 		return currentUsageRecords;
 	}
@@ -72,12 +88,25 @@ public class LimitTrackingContext {
 		updatedUsageRecords.addAll(additionalUsageRecords);
 	}
 
+	/**
+	 * Returns the current records of the limit whose window is within the given bounds. The
+	 * bounds are compared as epoch seconds and nanoseconds, regardless of their time zone.
+	 */
 	public List<UsageRecord> findUsageRecords(String limitId, ZonedDateTime startTime, ZonedDateTime endTime) {
+		long startSecond = (startTime != null) ? startTime.toEpochSecond() : 0;
+		int startNano = (startTime != null) ? startTime.getNano() : 0;
+		long endSecond = (endTime != null) ? endTime.toEpochSecond() : 0;
+		int endNano = (endTime != null) ? endTime.getNano() : 0;
 
 		Predicate<UsageRecord> filterCondition = usageRecord -> limitId.equals(usageRecord.limitId())
-				&& (startTime == null || usageRecord.startTime() == null || usageRecord.startTime().isAfter(startTime) || usageRecord.startTime().isEqual(startTime))
-				&& (endTime == null || usageRecord.endTime() == null || usageRecord.endTime().isBefore(endTime) || usageRecord.endTime().isEqual(endTime));
+				&& (startTime == null || usageRecord.startTime() == null || compareInstant(usageRecord.startTime(), startSecond, startNano) >= 0)
+				&& (endTime == null || usageRecord.endTime() == null || compareInstant(usageRecord.endTime(), endSecond, endNano) <= 0);
 
 		return getCurrentUsageRecords().stream().filter(filterCondition).toList();
 	}
+
+	private static int compareInstant(ZonedDateTime dateTime, long epochSecond, int nano) {
+		int comparison = Long.compare(dateTime.toEpochSecond(), epochSecond);
+		return (comparison != 0) ? comparison : Integer.compare(dateTime.getNano(), nano);
+	}
 }
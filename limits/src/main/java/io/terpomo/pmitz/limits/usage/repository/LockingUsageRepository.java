@@ -0,0 +1,41 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface LockingUsageRepository extends UsageRepository {
+
+	boolean supportsLockingUpdates();
+
+	/**
+	 * Runs the update in a single transaction, which holds a lock on the usage records loaded by
+	 * the update until its updated records are written. The update can be run again when the
+	 * transaction conflicts with a concurrent one, so it must create new contexts on each run.
+	 * A runtime exception thrown by the update rolls the transaction back and is rethrown.
+	 * @param update the update, which loads its contexts with the given loader, updates their
+	 * usage records and returns the contexts to write
+	 */
+	void updateUsageRecordsLocked(LockedUpdate update);
+
+	@FunctionalInterface
+	interface LockedUpdate {
+
+		List<LimitTrackingContext> apply(Consumer<List<LimitTrackingContext>> loader);
+	}
+}
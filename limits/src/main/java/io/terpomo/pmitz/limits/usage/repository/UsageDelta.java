@@ -0,0 +1,51 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository;
+
+import java.time.ZonedDateTime;
+
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public record UsageDelta(FeatureRef featureRef, String userGroupingId, String limitId, ZonedDateTime windowStart,
+		ZonedDateTime windowEnd, ZonedDateTime expirationDate, long units, long maxUnits, long minUnits) {
+
+	public static final long UNBOUNDED = Long.MAX_VALUE;
+
+	public UsageDelta(FeatureRef featureRef, String userGroupingId, String limitId, ZonedDateTime windowStart,
+			ZonedDateTime windowEnd, ZonedDateTime expirationDate, long units, long maxUnits) {
+		this(featureRef, userGroupingId, limitId, windowStart, windowEnd, expirationDate, units, maxUnits, 0);
+	}
+
+	public boolean isIncrement() {
+		return units > 0;
+	}
+
+	/**
+	 * Returns the units of a counter after this delta is applied. Increments are only
+	 * applied when the result does not exceed {@code maxUnits}.
+	 */
+	public long applyTo(long currentUnits) {
+		return Math.max(currentUnits + units, minUnits);
+	}
+
+	/**
+	 * Returns the units of a counter created by this delta.
+	 */
+	public long initialUnits() {
+		return applyTo(0);
+	}
+}
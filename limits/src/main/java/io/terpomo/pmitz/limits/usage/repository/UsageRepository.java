@@ -16,10 +16,24 @@
 
 package io.terpomo.pmitz.limits.usage.repository;
 
+import java.util.List;
+
 public interface UsageRepository {
 
 	void loadUsageData(LimitTrackingContext limitTrackingContext);
 
 	void updateUsageRecords(LimitTrackingContext limitTrackingContext);
 
+	default void loadAllUsageData(List<LimitTrackingContext> limitTrackingContexts) {
+		limitTrackingContexts.forEach(this::loadUsageData);
+	}
+
+	/**
+	 * Writes the updated records of all the contexts. Implementations backed by a
+	 * transactional store should write them in a single transaction.
+	 */
+	default void updateAllUsageRecords(List<LimitTrackingContext> limitTrackingContexts) {
+		limitTrackingContexts.forEach(this::updateUsageRecords);
+	}
+
 }
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+public final class ExpiredUsagePurger implements AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(ExpiredUsagePurger.class.getName());
+
+	private final DataSource dataSource;
+	private final String fullTableName;
+	private final WindowStorage windowStorage;
+	private final int batchSize;
+	private final Duration pauseBetweenBatches;
+	private final Duration maxRunTime;
+	private final Clock clock;
+	private final ReentrantLock purgeLock = new ReentrantLock();
+	private final ScheduledExecutorService scheduler;
+
+	private final LongAdder runs = new LongAdder();
+	private final LongAdder completedRuns = new LongAdder();
+	private final LongAdder failedRuns = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder purgedRecords = new LongAdder();
+
+	private ExpiredUsagePurger(Builder builder) {
+		this.dataSource = builder.usageRepository.getDataSource();
+		this.fullTableName = builder.usageRepository.getFullTableName();
+		this.windowStorage = builder.usageRepository.getWindowStorage();
+		this.batchSize = builder.batchSize;
+		this.pauseBetweenBatches = builder.pauseBetweenBatches;
+		this.maxRunTime = builder.maxRunTime;
+		this.clock = builder.clock;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pmitz-usage-purge");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = builder.purgeInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::purgeQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public static Builder builder(JDBCUsageRepository usageRepository) {
+		return new Builder(usageRepository);
+	}
+
+	/**
+	 * Deletes the records expired at the current time, in batches of consecutive
+	 * {@code usage_id}s each deleted in its own transaction, until no expired record is left or
+	 * the maximum run time is reached. A run started while another one is in progress returns
+	 * right away.
+	 * @return the number of records deleted
+	 */
+	public int purgeExpiredRecords() {
+		if (!purgeLock.tryLock()) {
+			return 0;
+		}
+		try {
+			runs.increment();
+			Instant expirationDate = clock.instant();
+			long deadline = System.nanoTime() + maxRunTime.toNanos();
+			long lastUsageId = Long.MIN_VALUE;
+			int purged = 0;
+			try (Connection connection = dataSource.getConnection()) {
+				while (true) {
+					BatchRange range = findNextBatch(connection, lastUsageId, expirationDate);
+					if (range == null) {
+						completedRuns.increment();
+						break;
+					}
+					int deleted = deleteBatch(connection, range, expirationDate);
+					purged += deleted;
+					batches.increment();
+					purgedRecords.add(deleted);
+					lastUsageId = range.lastUsageId();
+					if (range.size() < batchSize) {
+						completedRuns.increment();
+						break;
+					}
+					if (System.nanoTime() - deadline >= 0 || !pause()) {
+						LOGGER.fine("Usage purge stopped before the end, it resumes with the next run");
+						break;
+					}
+				}
+			}
+			catch (SQLException ex) {
+				failedRuns.increment();
+				throw new UsageRepositoryException("Failed to purge expired usage records", ex);
+			}
+			int purgedInRun = purged;
+			LOGGER.fine(() -> "Purged " + purgedInRun + " expired usage records");
+			return purged;
+		}
+		finally {
+			purgeLock.unlock();
+		}
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(runs.sum(), completedRuns.sum(), failedRuns.sum(), batches.sum(), purgedRecords.sum());
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private BatchRange findNextBatch(Connection connection, long afterUsageId, Instant expirationDate)
+			throws SQLException {
+		String query = "SELECT usage_id FROM " + fullTableName
+				+ " WHERE usage_id > ? AND expiration_date <= ? ORDER BY usage_id";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setMaxRows(batchSize);
+			statement.setLong(1, afterUsageId);
+			windowStorage.bind(statement, 2, expirationDate);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (!resultSet.next()) {
+					return null;
+				}
+				long firstUsageId = resultSet.getLong(1);
+				long lastUsageId = firstUsageId;
+				int size = 1;
+				while (resultSet.next()) {
+					lastUsageId = resultSet.getLong(1);
+					size++;
+				}
+				return new BatchRange(firstUsageId, lastUsageId, size);
+			}
+		}
+	}
+
+	/**
+	 * Deletes the expired records of the range. Records of the range that have not expired,
+	 * such as counters updated since the range was read, are kept.
+	 */
+	private int deleteBatch(Connection connection, BatchRange range, Instant expirationDate) throws SQLException {
+		String query = "DELETE FROM " + fullTableName
+				+ " WHERE usage_id >= ? AND usage_id <= ? AND expiration_date <= ?";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setLong(1, range.firstUsageId());
+			statement.setLong(2, range.lastUsageId());
+			windowStorage.bind(statement, 3, expirationDate);
+			return statement.executeUpdate();
+		}
+	}
+
+	private boolean pause() {
+		if (pauseBetweenBatches.isZero()) {
+			return true;
+		}
+		try {
+			Thread.sleep(pauseBetweenBatches.toMillis());
+			return true;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void purgeQuietly() {
+		try {
+			purgeExpiredRecords();
+		}
+		catch (RuntimeException ex) {
+			LOGGER.log(Level.WARNING, "Failed to purge expired usage records, they will be purged by the next run", ex);
+		}
+	}
+
+	public record Statistics(long runs, long completedRuns, long failedRuns, long batches, long purgedRecords) {
+	}
+
+	public static final class Builder {
+
+		private final JDBCUsageRepository usageRepository;
+		private Duration purgeInterval = Duration.ofMinutes(10);
+		private int batchSize = 1_000;
+		private Duration pauseBetweenBatches = Duration.ofMillis(100);
+		private Duration maxRunTime = Duration.ofMinutes(1);
+		private Clock clock = Clock.systemUTC();
+
+		private Builder(JDBCUsageRepository usageRepository) {
+			this.usageRepository = usageRepository;
+		}
+
+		public Builder purgeInterval(Duration purgeInterval) {
+			if (purgeInterval.isNegative() || purgeInterval.isZero()) {
+				throw new IllegalArgumentException("purgeInterval must be positive");
+			}
+			this.purgeInterval = purgeInterval;
+			return this;
+		}
+
+		public Builder batchSize(int batchSize) {
+			if (batchSize <= 0) {
+				throw new IllegalArgumentException("batchSize must be positive");
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder pauseBetweenBatches(Duration pauseBetweenBatches) {
+			if (pauseBetweenBatches.isNegative()) {
+				throw new IllegalArgumentException("pauseBetweenBatches must not be negative");
+			}
+			this.pauseBetweenBatches = pauseBetweenBatches;
+			return this;
+		}
+
+		public Builder maxRunTime(Duration maxRunTime) {
+			if (maxRunTime.isNegative() || maxRunTime.isZero()) {
+				throw new IllegalArgumentException("maxRunTime must be positive");
+			}
+			this.maxRunTime = maxRunTime;
+			return this;
+		}
+
+		public Builder clock(Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		/**
+		 * Creates the purger, whose runs are scheduled every purge interval until it is closed.
+		 */
+		public ExpiredUsagePurger build() {
+			return new ExpiredUsagePurger(this);
+		}
+	}
+
+	private record BatchRange(long firstUsageId, long lastUsageId, int size) {
+	}
+}
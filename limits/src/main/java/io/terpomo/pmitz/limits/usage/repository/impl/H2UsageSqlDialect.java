@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class H2UsageSqlDialect extends UsageSqlDialect {
+
+	public H2UsageSqlDialect() {
+	}
+
+	public H2UsageSqlDialect(WindowStorage windowStorage) {
+		super(windowStorage);
+	}
+
+	@Override
+	protected String conditionalUpsertSql(String tableName) {
+		return "SELECT units FROM FINAL TABLE (" + mergeSql(tableName, " AND u.shard_count <= 1 AND GREATEST(u.units + CAST(? AS BIGINT), CAST(? AS BIGINT)) <= CAST(? AS BIGINT)") + ")";
+	}
+
+	@Override
+	protected void bindConditionalUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException {
+		int index = setKey(statement, 1, delta, shard);
+		statement.setLong(index++, delta.units());
+		statement.setLong(index++, delta.minUnits());
+		statement.setLong(index++, delta.maxUnits());
+		statement.setLong(index++, delta.units());
+		statement.setLong(index++, delta.minUnits());
+		setInsertValues(statement, index, delta, shard);
+	}
+
+	@Override
+	protected String upsertSql(String tableName) {
+		return mergeSql(tableName, "");
+	}
+
+	@Override
+	protected void bindUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException {
+		int index = setKey(statement, 1, delta, shard);
+		statement.setLong(index++, delta.units());
+		statement.setLong(index++, delta.minUnits());
+		setInsertValues(statement, index, delta, shard);
+	}
+
+	private String mergeSql(String tableName, String matchedCondition) {
+		return "MERGE INTO " + tableName + " u USING (VALUES (1)) s(x)"
+				+ " ON u.product_id = ? AND u.feature_id = ? AND u.user_grouping = ? AND u.limit_id = ?"
+				+ " AND u.window_start IS NOT DISTINCT FROM CAST(? AS " + getWindowStorage().sqlType() + ") AND u.shard = ?"
+				+ " WHEN MATCHED" + matchedCondition
+				+ " THEN UPDATE SET units = GREATEST(u.units + CAST(? AS BIGINT), CAST(? AS BIGINT)), updated_at = CURRENT_TIMESTAMP"
+				+ " WHEN NOT MATCHED THEN INSERT (" + INSERT_COLUMNS + ") VALUES (" + INSERT_PARAMETERS + ")";
+	}
+}
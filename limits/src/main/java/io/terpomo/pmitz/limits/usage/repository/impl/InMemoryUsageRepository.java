@@ -0,0 +1,324 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class InMemoryUsageRepository implements AtomicUsageRepository {
+
+	private static final Logger LOGGER = Logger.getLogger(InMemoryUsageRepository.class.getName());
+
+	private static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+	private final Map<GroupingKey, Map<CounterKey, Counter>> counters = new ConcurrentHashMap<>();
+
+	private final Clock clock;
+
+	private final long sweepIntervalMillis;
+
+	private final AtomicLong nextSweepMillis;
+
+	public InMemoryUsageRepository() {
+		this(Clock.systemUTC(), DEFAULT_SWEEP_INTERVAL);
+	}
+
+	public InMemoryUsageRepository(Clock clock, Duration sweepInterval) {
+		this.clock = clock;
+		this.sweepIntervalMillis = sweepInterval.toMillis();
+		this.nextSweepMillis = new AtomicLong(clock.millis() + sweepIntervalMillis);
+	}
+
+	@Override
+	public void loadUsageData(LimitTrackingContext context) {
+		Map<CounterKey, Counter> groupingCounters = counters.get(
+				new GroupingKey(context.getFeatureRef(), context.getUserGrouping().getId()));
+		if (groupingCounters == null || context.getSearchCriteria().isEmpty()) {
+			return;
+		}
+		long now = clock.millis();
+		List<UsageRecord> records = new ArrayList<>();
+		groupingCounters.forEach((key, counter) -> {
+			long units = counter.units.get();
+			if (units != Counter.RETIRED && !counter.isExpired(now)
+					&& context.getSearchCriteria().stream().anyMatch(criteria -> matches(key, counter, criteria))) {
+				records.add(new UsageRecord(key.limitId(), counter.windowStart, counter.windowEnd, units,
+						counter.expirationDate));
+			}
+		});
+		context.addCurrentUsageRecords(records);
+	}
+
+	@Override
+	public void updateUsageRecords(LimitTrackingContext context) {
+		long now = clock.millis();
+		GroupingKey groupingKey = new GroupingKey(context.getFeatureRef(), context.getUserGrouping().getId());
+		for (UsageRecord usageRecord : context.getUpdatedUsageRecords()) {
+			if (usageRecord.limitId() == null) {
+				LOGGER.warning("UsageRecord with null limitId encountered. Skipping.");
+				continue;
+			}
+			if (usageRecord.startTime() != null && usageRecord.endTime() != null
+					&& usageRecord.endTime().isBefore(usageRecord.startTime())) {
+				throw new IllegalArgumentException("endTime cannot be before startTime in UsageRecord");
+			}
+			long units = Math.max(usageRecord.units(), 0);
+			CounterKey counterKey = new CounterKey(usageRecord.limitId(), toInstant(usageRecord.startTime()));
+			while (true) {
+				Counter counter = getOrCreateCounter(groupingKey, counterKey, usageRecord.startTime(),
+						usageRecord.endTime(), usageRecord.expirationDate(), now);
+				long current = counter.units.get();
+				if (current != Counter.RETIRED && counter.units.compareAndSet(current, units)) {
+					counter.setExpirationDate(usageRecord.expirationDate());
+					break;
+				}
+			}
+		}
+		sweepIfDue(now);
+	}
+
+	@Override
+	public boolean supportsAtomicUpdates() {
+		return true;
+	}
+
+	@Override
+	public Optional<List<Long>> applyDeltasWithinLimits(List<UsageDelta> deltas) {
+		long now = clock.millis();
+		List<Long> results = new ArrayList<>(deltas.size());
+		List<Counter> applied = new ArrayList<>(deltas.size());
+		long[] appliedUnits = new long[deltas.size()];
+		for (UsageDelta delta : deltas) {
+			Counter counter;
+			long previous;
+			do {
+				counter = getOrCreateCounter(delta, now);
+				previous = counter.addWithinLimit(delta);
+			}
+			while (previous == Counter.RETIRED);
+
+			if (previous == Counter.REJECTED) {
+				// the units actually applied are reverted, as a delta may have been clamped at its minimum
+				for (int i = applied.size() - 1; i >= 0; i--) {
+					applied.get(i).revert(appliedUnits[i]);
+				}
+				return Optional.empty();
+			}
+			long result = delta.applyTo(previous);
+			counter.setExpirationDate(delta.expirationDate());
+			appliedUnits[applied.size()] = result - previous;
+			applied.add(counter);
+			results.add(result);
+		}
+		sweepIfDue(now);
+		return Optional.of(results);
+	}
+
+	@Override
+	public void applyDeltas(List<UsageDelta> deltas) {
+		long now = clock.millis();
+		for (UsageDelta delta : deltas) {
+			Counter counter;
+			do {
+				counter = getOrCreateCounter(delta, now);
+			}
+			while (counter.add(delta) == Counter.RETIRED);
+			counter.setExpirationDate(delta.expirationDate());
+		}
+		sweepIfDue(now);
+	}
+
+	/**
+	 * Removes the counters whose expiration date is before the current time.
+	 */
+	public void evictExpired() {
+		long now = clock.millis();
+		counters.forEach((groupingKey, groupingCounters) -> {
+			groupingCounters.forEach((counterKey, counter) -> {
+				if (counter.isExpired(now) && counter.retire()) {
+					groupingCounters.remove(counterKey, counter);
+				}
+			});
+			if (groupingCounters.isEmpty()) {
+				// removed while holding the entry, so that a counter being added keeps its grouping
+				counters.computeIfPresent(groupingKey, (key, current) -> current.isEmpty() ? null : current);
+			}
+		});
+	}
+
+	int size() {
+		return counters.values().stream().mapToInt(Map::size).sum();
+	}
+
+	private void sweepIfDue(long now) {
+		long next = nextSweepMillis.get();
+		if (now >= next && nextSweepMillis.compareAndSet(next, now + sweepIntervalMillis)) {
+			evictExpired();
+		}
+	}
+
+	private Counter getOrCreateCounter(UsageDelta delta, long now) {
+		return getOrCreateCounter(new GroupingKey(delta.featureRef(), delta.userGroupingId()),
+				new CounterKey(delta.limitId(), toInstant(delta.windowStart())),
+				delta.windowStart(), delta.windowEnd(), delta.expirationDate(), now);
+	}
+
+	private Counter getOrCreateCounter(GroupingKey groupingKey, CounterKey counterKey, ZonedDateTime windowStart,
+			ZonedDateTime windowEnd, ZonedDateTime expirationDate, long now) {
+		Map<CounterKey, Counter> groupingCounters = counters.get(groupingKey);
+		Counter existing = (groupingCounters != null) ? groupingCounters.get(counterKey) : null;
+		if (existing != null && !existing.isExpired(now)) {
+			return existing;
+		}
+		// a counter is added while holding the entry of its grouping, which cannot be evicted meanwhile
+		Counter[] counter = new Counter[1];
+		counters.compute(groupingKey, (key, current) -> {
+			Map<CounterKey, Counter> target = (current != null) ? current : new ConcurrentHashMap<>();
+			Counter previous = target.get(counterKey);
+			if (previous != null && previous.isExpired(now)) {
+				previous.retire();
+				target.remove(counterKey, previous);
+			}
+			counter[0] = target.computeIfAbsent(counterKey, k -> new Counter(windowStart, windowEnd, expirationDate));
+			return target;
+		});
+		return counter[0];
+	}
+
+	private static boolean matches(CounterKey key, Counter counter, RecordSearchCriteria criteria) {
+		return (criteria.limitId() == null || criteria.limitId().equals(key.limitId()))
+				&& (criteria.windowStart() == null || counter.windowEnd == null
+						|| !counter.windowEnd.isBefore(criteria.windowStart()))
+				&& (criteria.windowEnd() == null || counter.windowStart == null
+						|| !counter.windowStart.isAfter(criteria.windowEnd()));
+	}
+
+	private static Instant toInstant(ZonedDateTime dateTime) {
+		return (dateTime != null) ? dateTime.toInstant() : null;
+	}
+
+	private record GroupingKey(FeatureRef featureRef, String userGroupingId) {
+	}
+
+	private record CounterKey(String limitId, Instant windowStart) {
+	}
+
+	private static final class Counter {
+
+		static final long RETIRED = Long.MIN_VALUE;
+
+		static final long REJECTED = Long.MIN_VALUE + 1;
+
+		final ZonedDateTime windowStart;
+
+		final ZonedDateTime windowEnd;
+
+		final AtomicLong units = new AtomicLong();
+
+		volatile ZonedDateTime expirationDate;
+
+		volatile long expirationMillis;
+
+		Counter(ZonedDateTime windowStart, ZonedDateTime windowEnd, ZonedDateTime expirationDate) {
+			this.windowStart = windowStart;
+			this.windowEnd = windowEnd;
+			setExpirationDate(expirationDate);
+		}
+
+		void setExpirationDate(ZonedDateTime expirationDate) {
+			this.expirationDate = expirationDate;
+			this.expirationMillis = (expirationDate != null) ? expirationDate.toInstant().toEpochMilli() : Long.MAX_VALUE;
+		}
+
+		boolean isExpired(long now) {
+			return expirationMillis <= now;
+		}
+
+		boolean retire() {
+			long current;
+			do {
+				current = units.get();
+				if (current == RETIRED) {
+					return false;
+				}
+			}
+			while (!units.compareAndSet(current, RETIRED));
+			return true;
+		}
+
+		/**
+		 * @return the units before the delta was applied
+		 */
+		long addWithinLimit(UsageDelta delta) {
+			long current;
+			long updated;
+			do {
+				current = units.get();
+				if (current == RETIRED) {
+					return RETIRED;
+				}
+				updated = delta.applyTo(current);
+				if (delta.isIncrement() && updated > delta.maxUnits()) {
+					return REJECTED;
+				}
+			}
+			while (!units.compareAndSet(current, updated));
+			return current;
+		}
+
+		long add(UsageDelta delta) {
+			long current;
+			long updated;
+			do {
+				current = units.get();
+				if (current == RETIRED) {
+					return RETIRED;
+				}
+				updated = delta.applyTo(current);
+			}
+			while (!units.compareAndSet(current, updated));
+			return updated;
+		}
+
+		void revert(long appliedUnits) {
+			long current;
+			do {
+				current = units.get();
+				if (current == RETIRED) {
+					return;
+				}
+			}
+			while (!units.compareAndSet(current, current - appliedUnits));
+		}
+	}
+}
@@ -21,6 +21,15 @@ import java.time.ZonedDateTime;
 
 import io.terpomo.pmitz.limits.usage.repository.UsageRecordRepoMetadata;
 
-public record JDBCUsageRecordRepoMetadata(long usageId, ZonedDateTime updatedAt) implements UsageRecordRepoMetadata {
+public record JDBCUsageRecordRepoMetadata(long usageId, ZonedDateTime updatedAt, long version)
+		implements UsageRecordRepoMetadata {
 
+	/**
+	 * Version of the records loaded without their version, outside of the optimistic update mode.
+	 */
+	public static final long UNVERSIONED = -1;
+
+	public JDBCUsageRecordRepoMetadata(long usageId, ZonedDateTime updatedAt) {
+		this(usageId, updatedAt, UNVERSIONED);
+	}
 }
@@ -21,152 +21,218 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Timestamp;
-import java.time.ZoneOffset;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
 import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
 import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
-import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
-import io.terpomo.pmitz.limits.usage.repository.UsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.LockingUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+import io.terpomo.pmitz.limits.usage.repository.UsageUpdateConflictException;
+import io.terpomo.pmitz.limits.usage.series.jdbc.JDBCUsageSeriesRepository;
 
-public class JDBCUsageRepository implements UsageRepository {
+public class JDBCUsageRepository implements AtomicUsageRepository, LockingUsageRepository {
 
 	private static final Logger LOGGER = Logger.getLogger(JDBCUsageRepository.class.getName());
 
+	private static final int MAX_UPSERT_ATTEMPTS = 2;
+
+	private static final int LOOKUP_BATCH_SIZE = 100;
+
+	private static final Comparator<UsageDelta> LOCK_ORDER = Comparator
+			.comparing((UsageDelta delta) -> delta.featureRef().productId())
+			.thenComparing(delta -> delta.featureRef().featureId())
+			.thenComparing(UsageDelta::userGroupingId)
+			.thenComparing(UsageDelta::limitId);
+
+	private static final Comparator<LimitTrackingContext> CONTEXT_LOCK_ORDER = Comparator
+			.comparing((LimitTrackingContext context) -> context.getFeatureRef().productId())
+			.thenComparing(context -> context.getFeatureRef().featureId())
+			.thenComparing(context -> context.getUserGrouping().getId());
+
 	private final DataSource dataSource;
 	private final String schemaName;
 	private final String tableName;
+	private final UpdateMode updateMode;
+	private final UsageSharding usageSharding;
+	private final JDBCUsageSeriesRepository usageSeriesRepository;
+	private volatile UsageSqlDialect sqlDialect;
 
 	public JDBCUsageRepository(DataSource dataSource, String schemaName, String tableName) {
-		this.dataSource = dataSource;
-		this.schemaName = schemaName;
-		this.tableName = tableName;
+		this(dataSource, schemaName, tableName, UpdateMode.READ_MODIFY_WRITE);
 	}
 
-	public DataSource getDataSource() {
-		return dataSource;
+	public JDBCUsageRepository(DataSource dataSource, String schemaName, String tableName, UpdateMode updateMode) {
+		this(dataSource, schemaName, tableName, updateMode, null);
 	}
 
-	public String getFullTableName() {
-		return schemaName + "." + tableName;
+	public JDBCUsageRepository(DataSource dataSource, String schemaName, String tableName, UpdateMode updateMode,
+			UsageSqlDialect sqlDialect) {
+		this(dataSource, schemaName, tableName, updateMode, sqlDialect, UsageSharding.none());
 	}
 
-	private List<UsageRecord> loadUsageRecords(Connection connection, LimitTrackingContext context)
-			throws SQLException {
-		StringBuilder query = new StringBuilder("SELECT usage_id, limit_id, window_start, window_end, expiration_date, units ")
-				.append("FROM ").append(getFullTableName())
-				.append(" WHERE feature_id = ? AND product_id = ? AND user_grouping = ?");
-
-		List<Object> parameters = buildLoadParameters(context);
-		List<String> criteriaConditions = buildCriteriaConditions(context, parameters);
+	public JDBCUsageRepository(DataSource dataSource, String schemaName, String tableName, UpdateMode updateMode,
+			UsageSqlDialect sqlDialect, UsageSharding usageSharding) {
+		this(dataSource, schemaName, tableName, updateMode, sqlDialect, usageSharding, null);
+	}
 
-		if (!criteriaConditions.isEmpty()) {
-			query.append(" AND (").append(String.join(" OR ", criteriaConditions)).append(")");
-		}
-		else {
-			return new ArrayList<>();
+	/**
+	 * Creates a repository that also adds the recorded units to the time buckets of the given
+	 * series repository, in the transaction updating the counters.
+	 * @param usageSeriesRepository the repository of the time buckets, {@code null} to only
+	 * update the counters
+	 */
+	public JDBCUsageRepository(DataSource dataSource, String schemaName, String tableName, UpdateMode updateMode,
+			UsageSqlDialect sqlDialect, UsageSharding usageSharding, JDBCUsageSeriesRepository usageSeriesRepository) {
+		if (usageSharding.isEnabled() && updateMode != UpdateMode.ATOMIC_UPSERT) {
+			throw new IllegalArgumentException("Sharded counters require the " + UpdateMode.ATOMIC_UPSERT + " update mode");
 		}
+		this.dataSource = dataSource;
+		this.schemaName = schemaName;
+		this.tableName = tableName;
+		this.updateMode = updateMode;
+		this.sqlDialect = sqlDialect;
+		this.usageSharding = usageSharding;
+		this.usageSeriesRepository = usageSeriesRepository;
+	}
 
-		try (PreparedStatement statement = connection.prepareStatement(query.toString())) {
-			setParameters(statement, parameters);
-			try (ResultSet resultSet = statement.executeQuery()) {
-				return extractUsageRecords(resultSet);
-			}
-		}
+	public UpdateMode getUpdateMode() {
+		return updateMode;
 	}
 
-	private List<UsageRecord> extractUsageRecords(ResultSet resultSet) throws SQLException {
-		List<UsageRecord> records = new ArrayList<>();
-		while (resultSet.next()) {
-			Timestamp windowStartTs = resultSet.getTimestamp("window_start");
-			Timestamp windowEndTs = resultSet.getTimestamp("window_end");
-			Timestamp expirationDateTs = resultSet.getTimestamp("expiration_date");
+	public UsageSharding getUsageSharding() {
+		return usageSharding;
+	}
 
-			ZonedDateTime windowStart = (windowStartTs != null)
-					? windowStartTs.toInstant().atZone(ZoneOffset.UTC)
-					: null;
-			ZonedDateTime windowEnd = (windowEndTs != null)
-					? windowEndTs.toInstant().atZone(ZoneOffset.UTC)
-					: null;
-			ZonedDateTime expirationDate = (expirationDateTs != null)
-					? expirationDateTs.toInstant().atZone(ZoneOffset.UTC)
-					: null;
+	public Optional<JDBCUsageSeriesRepository> getUsageSeriesRepository() {
+		return Optional.ofNullable(usageSeriesRepository);
+	}
 
-			JDBCUsageRecordRepoMetadata metadata = new JDBCUsageRecordRepoMetadata(
-					resultSet.getLong("usage_id"), windowStart
-			);
+	public DataSource getDataSource() {
+		return dataSource;
+	}
 
-			UsageRecord usageRecord = new UsageRecord(
-					metadata,
-					resultSet.getString("limit_id"),
-					windowStart,
-					windowEnd,
-					resultSet.getLong("units"),
-					expirationDate
-			);
+	public String getSchemaName() {
+		return schemaName;
+	}
 
-			records.add(usageRecord);
-		}
-		return records;
+	public String getTableName() {
+		return tableName;
 	}
 
-	private List<Object> buildLoadParameters(LimitTrackingContext context) {
-		List<Object> parameters = new ArrayList<>();
-		parameters.add(context.getFeatureRef().featureId());
-		parameters.add(context.getFeatureRef().productId());
-		parameters.add(context.getUserGrouping().getId());
-		return parameters;
+	public String getFullTableName() {
+		return schemaName + "." + tableName;
 	}
 
-	private List<String> buildCriteriaConditions(LimitTrackingContext context, List<Object> parameters) {
-		List<String> conditionsList = new ArrayList<>();
-		for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
-			List<String> conditions = new ArrayList<>();
-			if (criteria.limitId() != null) {
-				conditions.add("limit_id = ?");
-				parameters.add(criteria.limitId());
-			}
-			if (criteria.windowStart() != null) {
-				conditions.add("(window_end >= ? OR window_end IS NULL)");
-				parameters.add(Timestamp.from(criteria.windowStart().toInstant()));
-			}
-			if (criteria.windowEnd() != null) {
-				conditions.add("(window_start <= ? OR window_start IS NULL)");
-				parameters.add(Timestamp.from(criteria.windowEnd().toInstant()));
-			}
-			if (!conditions.isEmpty()) {
-				conditionsList.add("(" + String.join(" AND ", conditions) + ")");
-			}
-		}
-		return conditionsList;
+	/**
+	 * Returns how the time columns of the usage table are stored, as set on the SQL dialect the
+	 * repository was created with. A dialect detected from the database stores them as
+	 * {@link WindowStorage#TIMESTAMP timestamps}.
+	 */
+	public WindowStorage getWindowStorage() {
+		UsageSqlDialect dialect = sqlDialect;
+		return (dialect != null) ? dialect.getWindowStorage() : WindowStorage.TIMESTAMP;
 	}
 
-	private void setParameters(PreparedStatement statement, List<Object> parameters) throws SQLException {
-		for (int i = 0; i < parameters.size(); i++) {
-			statement.setObject(i + 1, parameters.get(i));
+	/**
+	 * Loads the usage records matching the search criteria of the contexts in a single query.
+	 * @return the records of each context, in the order of the contexts
+	 */
+	private List<List<UsageRecord>> loadUsageRecords(Connection connection, List<LimitTrackingContext> contexts)
+			throws SQLException {
+		List<Map<Long, UsageRecord>> recordsByContext = new ArrayList<>();
+		contexts.forEach(context -> recordsByContext.add(new LinkedHashMap<>()));
+		UsageSqlDialect dialect = getSqlDialect(connection);
+		boolean versioned = isOptimistic();
+		String query = dialect.loadUsageRecordsSql(getFullTableName(), contexts, versioned);
+		if (query != null) {
+			try (PreparedStatement statement = connection.prepareStatement(query)) {
+				dialect.bindLoadUsageRecords(statement, contexts);
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						// a record matching several criteria of a context is returned once per criterion
+						recordsByContext.get(resultSet.getInt("context_index"))
+								.putIfAbsent(resultSet.getLong("usage_id"), toUsageRecord(resultSet, versioned));
+					}
+				}
+			}
 		}
+		return recordsByContext.stream()
+				.map(records -> mergeShards(new ArrayList<>(records.values())))
+				.toList();
 	}
 
 	@Override
 	public void loadUsageData(LimitTrackingContext context) {
+		loadAllUsageData(List.of(context));
+	}
+
+	@Override
+	public void loadAllUsageData(List<LimitTrackingContext> contexts) {
 		try (Connection connection = dataSource.getConnection()) {
-			List<UsageRecord> records = loadUsageRecords(connection, context);
-			context.addCurrentUsageRecords(records);
+			List<List<UsageRecord>> records = loadUsageRecords(connection, contexts);
+			for (int i = 0; i < contexts.size(); i++) {
+				contexts.get(i).addCurrentUsageRecords(records.get(i));
+			}
 		}
 		catch (SQLException ex) {
 			throw new UsageRepositoryException("Failed to load usage data", ex);
 		}
 	}
 
-	private void updateUsageRecord(PreparedStatement updateStatement, UsageRecord usageRecord,
-			LimitTrackingContext context, long usageId) throws SQLException {
+	/**
+	 * Sums the shards of sharded counters into a single record, which keeps the metadata of
+	 * one of the shards.
+	 */
+	private static List<UsageRecord> mergeShards(List<UsageRecord> records) {
+		Map<CounterKey, UsageRecord> recordsByCounter = new LinkedHashMap<>();
+		for (UsageRecord usageRecord : records) {
+			recordsByCounter.merge(CounterKey.of(usageRecord), usageRecord, (merged, shard) -> new UsageRecord(
+					merged.repoMetadata(), merged.limitId(), merged.startTime(), merged.endTime(),
+					merged.units() + shard.units(), merged.expirationDate()));
+		}
+		return (recordsByCounter.size() == records.size()) ? records : new ArrayList<>(recordsByCounter.values());
+	}
+
+	private UsageRecord toUsageRecord(ResultSet resultSet, boolean versioned) throws SQLException {
+		WindowStorage windowStorage = getWindowStorage();
+		ZonedDateTime windowStart = windowStorage.read(resultSet, "window_start");
+		ZonedDateTime windowEnd = windowStorage.read(resultSet, "window_end");
+		ZonedDateTime expirationDate = windowStorage.read(resultSet, "expiration_date");
+
+		JDBCUsageRecordRepoMetadata metadata = new JDBCUsageRecordRepoMetadata(
+				resultSet.getLong("usage_id"), windowStart,
+				versioned ? resultSet.getLong("version") : JDBCUsageRecordRepoMetadata.UNVERSIONED
+		);
+
+		return new UsageRecord(
+				metadata,
+				resultSet.getString("limit_id"),
+				windowStart,
+				windowEnd,
+				resultSet.getLong("units"),
+				expirationDate
+		);
+	}
+
+	private void updateUsageRecord(PreparedStatement updateStatement, RecordWrite write) throws SQLException {
+		UsageRecord usageRecord = write.usageRecord();
+		LimitTrackingContext context = write.context();
+		WindowStorage windowStorage = getWindowStorage();
 		updateStatement.clearParameters();
 		int index = 1;
 		updateStatement.setString(index++, context.getFeatureRef().featureId());
@@ -174,30 +240,22 @@ public class JDBCUsageRepository implements UsageRepository {
 		updateStatement.setString(index++, context.getUserGrouping().getId());
 		updateStatement.setString(index++, usageRecord.limitId());
 
-		ZonedDateTime startTime = usageRecord.startTime();
-		updateStatement.setTimestamp(index++, (startTime != null)
-				? Timestamp.from(startTime.toInstant())
-				: null);
-
-		ZonedDateTime endTime = usageRecord.endTime();
-		updateStatement.setTimestamp(index++, (endTime != null)
-				? Timestamp.from(endTime.toInstant())
-				: null);
-
+		windowStorage.bind(updateStatement, index++, usageRecord.startTime());
+		windowStorage.bind(updateStatement, index++, usageRecord.endTime());
 		updateStatement.setLong(index++, usageRecord.units());
+		windowStorage.bind(updateStatement, index++, usageRecord.expirationDate());
 
-		ZonedDateTime expirationDate = usageRecord.expirationDate();
-		updateStatement.setTimestamp(index++, (expirationDate != null)
-				? Timestamp.from(expirationDate.toInstant())
-				: null);
-
-		updateStatement.setLong(index, usageId);
+		updateStatement.setLong(index++, write.usageId());
+		if (isOptimistic()) {
+			updateStatement.setLong(index, write.version());
+		}
 
 		updateStatement.addBatch();
 	}
 
 	private void insertUsageRecord(PreparedStatement insertStatement, UsageRecord usageRecord,
 			LimitTrackingContext context) throws SQLException {
+		WindowStorage windowStorage = getWindowStorage();
 		insertStatement.clearParameters();
 		int index = 1;
 		insertStatement.setString(index++, context.getFeatureRef().featureId());
@@ -205,63 +263,49 @@ public class JDBCUsageRepository implements UsageRepository {
 		insertStatement.setString(index++, context.getUserGrouping().getId());
 		insertStatement.setString(index++, usageRecord.limitId());
 
-		ZonedDateTime startTime = usageRecord.startTime();
-		insertStatement.setTimestamp(index++, (startTime != null)
-				? Timestamp.from(startTime.toInstant())
-				: null);
-
-		ZonedDateTime endTime = usageRecord.endTime();
-		insertStatement.setTimestamp(index++, (endTime != null)
-				? Timestamp.from(endTime.toInstant())
-				: null);
-
+		windowStorage.bind(insertStatement, index++, usageRecord.startTime());
+		windowStorage.bind(insertStatement, index++, usageRecord.endTime());
 		insertStatement.setLong(index++, usageRecord.units());
-
-		ZonedDateTime expirationDate = usageRecord.expirationDate();
-		insertStatement.setTimestamp(index, (expirationDate != null)
-				? Timestamp.from(expirationDate.toInstant())
-				: null);
+		windowStorage.bind(insertStatement, index, usageRecord.expirationDate());
 
 		insertStatement.addBatch();
 	}
 
-	private long findRecordId(Connection connection, UsageRecord usageRecord,
-			LimitTrackingContext context) throws SQLException {
-		StringBuilder query = new StringBuilder("SELECT usage_id FROM ").append(getFullTableName())
-				.append(" WHERE limit_id = ?");
-
-		List<Object> params = new ArrayList<>();
-		params.add(usageRecord.limitId());
-
-		ZonedDateTime startTime = usageRecord.startTime();
-		if (startTime != null) {
-			query.append(" AND window_start = ?");
-			params.add(Timestamp.from(startTime.toInstant()));
-		}
-		else {
-			query.append(" AND window_start IS NULL");
-		}
-		query.append(" AND feature_id = ? AND product_id = ? AND user_grouping = ?");
-		params.add(context.getFeatureRef().featureId());
-		params.add(context.getFeatureRef().productId());
-		params.add(context.getUserGrouping().getId());
-
-		try (PreparedStatement statement = connection.prepareStatement(query.toString())) {
-			setParameters(statement, params);
-			try (ResultSet resultSet = statement.executeQuery()) {
-				if (resultSet.next()) {
-					return resultSet.getLong("usage_id");
+	/**
+	 * Finds the {@code usage_id} of the existing counters of the given records, in one query per
+	 * {@value #LOOKUP_BATCH_SIZE} records.
+	 * @return the records with the {@code usage_id} of their counter, or -1 when it does not exist
+	 */
+	private List<RecordWrite> findUsageIds(Connection connection, List<RecordWrite> writes) throws SQLException {
+		UsageSqlDialect dialect = getSqlDialect(connection);
+		List<RecordWrite> resolvedWrites = new ArrayList<>(writes);
+		for (int start = 0; start < writes.size(); start += LOOKUP_BATCH_SIZE) {
+			List<RecordWrite> batch = writes.subList(start, Math.min(start + LOOKUP_BATCH_SIZE, writes.size()));
+			List<UsageSqlDialect.CounterLookup> lookups = batch.stream()
+					.map(write -> new UsageSqlDialect.CounterLookup(write.context().getFeatureRef(),
+							write.context().getUserGrouping().getId(), write.usageRecord().limitId(),
+							write.usageRecord().startTime()))
+					.toList();
+			try (PreparedStatement statement = connection.prepareStatement(
+					dialect.findUsageIdsSql(getFullTableName(), lookups))) {
+				dialect.bindFindUsageIds(statement, lookups);
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						int index = start + resultSet.getInt("lookup_index");
+						resolvedWrites.set(index, writes.get(index).withUsageId(resultSet.getLong("usage_id")));
+					}
 				}
 			}
 		}
-		return -1;
+		return resolvedWrites;
 	}
 
-	private void processUsageRecordUpdates(Connection connection, List<UsageRecord> usageRecords,
-			LimitTrackingContext context) throws SQLException {
+	private void processUsageRecordUpdates(Connection connection, List<LimitTrackingContext> contexts)
+			throws SQLException {
 		String updateQuery = "UPDATE " + getFullTableName()
 				+ " SET feature_id = ?, product_id = ?, user_grouping = ?, limit_id = ?, "
-				+ "window_start = ?, window_end = ?, units = ?, expiration_date = ? WHERE usage_id = ?";
+				+ "window_start = ?, window_end = ?, units = ?, expiration_date = ?"
+				+ (isOptimistic() ? ", version = version + 1 WHERE usage_id = ? AND version = ?" : " WHERE usage_id = ?");
 
 		String insertQuery = "INSERT INTO " + getFullTableName()
 				+ " (feature_id, product_id, user_grouping, limit_id, window_start, window_end, units, expiration_date) "
@@ -271,70 +315,144 @@ public class JDBCUsageRepository implements UsageRepository {
 				PreparedStatement insertStatement = connection.prepareStatement(insertQuery,
 						Statement.RETURN_GENERATED_KEYS)) {
 
-			for (UsageRecord usageRecord : usageRecords) {
-				if (usageRecord.limitId() == null) {
-					LOGGER.warning("UsageRecord with null limitId encountered. Skipping.");
-					continue;
-				}
-
-				if (usageRecord.startTime() != null && usageRecord.endTime() != null
-						&& usageRecord.endTime().isBefore(usageRecord.startTime())) {
-					throw new IllegalArgumentException("endTime cannot be before startTime in UsageRecord");
+			List<RecordWrite> writes = new ArrayList<>();
+			List<RecordWrite> unresolvedWrites = new ArrayList<>();
+			for (LimitTrackingContext context : contexts) {
+				collectRecordWrites(context, writes, unresolvedWrites);
+			}
+			if (!unresolvedWrites.isEmpty()) {
+				// a counter missing when the records were loaded is inserted, the unique key
+				// rejecting it if it was created since
+				writes.addAll(isOptimistic() ? unresolvedWrites : findUsageIds(connection, unresolvedWrites));
+			}
+			for (RecordWrite write : writes) {
+				if (write.usageId() != -1) {
+					updateUsageRecord(updateStatement, write);
 				}
-				if (usageRecord.expirationDate() != null) {
-					if (usageRecord.startTime() != null
-							&& usageRecord.expirationDate().isBefore(usageRecord.startTime())) {
-						throw new IllegalArgumentException("expirationDate cannot be before startTime in UsageRecord");
-					}
-					if (usageRecord.endTime() != null
-							&& usageRecord.expirationDate().isBefore(usageRecord.endTime())) {
-						throw new IllegalArgumentException("expirationDate cannot be before endTime in UsageRecord");
-					}
+				else {
+					insertUsageRecord(insertStatement, write.usageRecord(), write.context());
 				}
+			}
 
-				JDBCUsageRecordRepoMetadata metadata = (JDBCUsageRecordRepoMetadata) usageRecord.repoMetadata();
-				long usageId = (metadata != null) ? metadata.usageId() : -1;
+			int[] updateCounts = updateStatement.executeBatch();
+			if (isOptimistic() && Arrays.stream(updateCounts).anyMatch(count -> count == 0)) {
+				throw new UsageUpdateConflictException("Usage record updated since it was loaded");
+			}
+			insertStatement.executeBatch();
+		}
+		if (usageSeriesRepository != null) {
+			usageSeriesRepository.addUsage(connection, toUsageDeltas(contexts));
+		}
+	}
 
-				if (usageId != -1) {
-					updateUsageRecord(updateStatement, usageRecord, context, usageId);
-				}
-				else {
-					usageId = findRecordId(connection, usageRecord, context);
-					if (usageId != -1) {
-						updateUsageRecord(updateStatement, usageRecord, context, usageId);
-					}
-					else {
-						insertUsageRecord(insertStatement, usageRecord, context);
-					}
+	/**
+	 * Returns the difference between the updated records and the current records they replace.
+	 * Only windowed counters are compared, as the other counters are not added to time buckets.
+	 */
+	private static List<UsageDelta> toUsageDeltas(List<LimitTrackingContext> contexts) {
+		List<UsageDelta> deltas = new ArrayList<>();
+		for (LimitTrackingContext context : contexts) {
+			Map<CounterKey, Long> currentUnits = new HashMap<>();
+			context.getCurrentUsageRecords().forEach(usageRecord ->
+					currentUnits.put(CounterKey.of(usageRecord), usageRecord.units()));
+			for (UsageRecord usageRecord : context.getUpdatedUsageRecords()) {
+				if (usageRecord.limitId() != null && usageRecord.startTime() != null) {
+					long units = usageRecord.units() - currentUnits.getOrDefault(CounterKey.of(usageRecord), 0L);
+					deltas.add(new UsageDelta(context.getFeatureRef(), context.getUserGrouping().getId(),
+							usageRecord.limitId(), usageRecord.startTime(), usageRecord.endTime(),
+							usageRecord.expirationDate(), units, UsageDelta.UNBOUNDED));
 				}
 			}
+		}
+		return deltas;
+	}
 
-			updateStatement.executeBatch();
-			insertStatement.executeBatch();
+	/**
+	 * Adds the updated records of the context to the writes, with the {@code usage_id} of their
+	 * counter when their metadata or the current records of the context hold it. The other records
+	 * are added to the unresolved writes, whose counters are looked up in the database.
+	 */
+	private void collectRecordWrites(LimitTrackingContext context, List<RecordWrite> writes,
+			List<RecordWrite> unresolvedWrites) {
+		Map<CounterKey, JDBCUsageRecordRepoMetadata> currentMetadata = new HashMap<>();
+		for (UsageRecord usageRecord : context.getCurrentUsageRecords()) {
+			if (usageRecord.repoMetadata() instanceof JDBCUsageRecordRepoMetadata metadata) {
+				currentMetadata.put(CounterKey.of(usageRecord), metadata);
+			}
+		}
+		for (UsageRecord usageRecord : context.getUpdatedUsageRecords()) {
+			if (usageRecord.limitId() == null) {
+				LOGGER.warning("UsageRecord with null limitId encountered. Skipping.");
+				continue;
+			}
+			validateUsageRecord(usageRecord);
+
+			JDBCUsageRecordRepoMetadata metadata = (usageRecord.repoMetadata() != null)
+					? (JDBCUsageRecordRepoMetadata) usageRecord.repoMetadata()
+					: currentMetadata.get(CounterKey.of(usageRecord));
+			if (metadata == null) {
+				unresolvedWrites.add(new RecordWrite(context, usageRecord, -1, JDBCUsageRecordRepoMetadata.UNVERSIONED));
+			}
+			else if (isOptimistic() && metadata.version() == JDBCUsageRecordRepoMetadata.UNVERSIONED) {
+				throw new IllegalArgumentException("Usage records must be loaded with their version in the "
+						+ UpdateMode.OPTIMISTIC_READ_MODIFY_WRITE + " update mode");
+			}
+			else {
+				writes.add(new RecordWrite(context, usageRecord, metadata.usageId(), metadata.version()));
+			}
+		}
+	}
+
+	private static void validateUsageRecord(UsageRecord usageRecord) {
+		if (usageRecord.startTime() != null && usageRecord.endTime() != null
+				&& usageRecord.endTime().isBefore(usageRecord.startTime())) {
+			throw new IllegalArgumentException("endTime cannot be before startTime in UsageRecord");
+		}
+		if (usageRecord.expirationDate() != null) {
+			if (usageRecord.startTime() != null
+					&& usageRecord.expirationDate().isBefore(usageRecord.startTime())) {
+				throw new IllegalArgumentException("expirationDate cannot be before startTime in UsageRecord");
+			}
+			if (usageRecord.endTime() != null
+					&& usageRecord.expirationDate().isBefore(usageRecord.endTime())) {
+				throw new IllegalArgumentException("expirationDate cannot be before endTime in UsageRecord");
+			}
 		}
 	}
 
 	@Override
 	public void updateUsageRecords(LimitTrackingContext context) {
+		updateAllUsageRecords(List.of(context));
+	}
+
+	@Override
+	public void updateAllUsageRecords(List<LimitTrackingContext> contexts) {
 		try (Connection connection = dataSource.getConnection()) {
-			performUpdatesInTransaction(connection, context);
+			performUpdatesInTransaction(connection, contexts);
 		}
 		catch (SQLException ex) {
 			throw new UsageRepositoryException("Error updating usage records", ex);
 		}
 	}
 
-	private void performUpdatesInTransaction(Connection connection, LimitTrackingContext context)
+	private void performUpdatesInTransaction(Connection connection, List<LimitTrackingContext> contexts)
 			throws SQLException {
 		connection.setAutoCommit(false);
 		try {
-			processUsageRecordUpdates(connection, context.getUpdatedUsageRecords(), context);
+			processUsageRecordUpdates(connection, contexts);
 			connection.commit();
 		}
 		catch (SQLException ex) {
 			connection.rollback();
+			if (isOptimistic() && isUniqueKeyViolation(ex)) {
+				throw new UsageUpdateConflictException("Usage record created since the records were loaded", ex);
+			}
 			throw new UsageRepositoryException("Failed to update/insert usage records", ex);
 		}
+		catch (RuntimeException ex) {
+			connection.rollback();
+			throw ex;
+		}
 		finally {
 			try {
 				connection.setAutoCommit(true);
@@ -348,11 +466,15 @@ public class JDBCUsageRepository implements UsageRepository {
 	private void deleteRecords(Connection connection, ZonedDateTime expirationDate) throws SQLException {
 		String deleteQuery = "DELETE FROM " + getFullTableName() + " WHERE expiration_date <= ?";
 		try (PreparedStatement statement = connection.prepareStatement(deleteQuery)) {
-			statement.setTimestamp(1, Timestamp.from(expirationDate.toInstant()));
+			getWindowStorage().bind(statement, 1, expirationDate);
 			statement.executeUpdate();
 		}
 	}
 
+	/**
+	 * Deletes the records expired at the given date with a single statement. On large tables,
+	 * {@link ExpiredUsagePurger} deletes them in short transactions instead.
+	 */
 	public void deleteOldRecords(ZonedDateTime expirationDate) {
 		try (Connection connection = dataSource.getConnection()) {
 			deleteRecordsInTransaction(connection, expirationDate);
@@ -382,4 +504,347 @@ public class JDBCUsageRepository implements UsageRepository {
 			}
 		}
 	}
+
+	@Override
+	public boolean supportsAtomicUpdates() {
+		return updateMode == UpdateMode.ATOMIC_UPSERT;
+	}
+
+	@Override
+	public Optional<List<Long>> applyDeltasWithinLimits(List<UsageDelta> deltas) {
+		checkAtomicUpdatesEnabled();
+		try (Connection connection = dataSource.getConnection()) {
+			UsageSqlDialect dialect = getSqlDialect(connection);
+			for (int attempt = 1; ; attempt++) {
+				try {
+					return incrementInTransaction(connection, dialect, deltas);
+				}
+				catch (SQLException ex) {
+					if (attempt >= MAX_UPSERT_ATTEMPTS || !isUniqueKeyViolation(ex)) {
+						throw ex;
+					}
+					LOGGER.fine("Concurrent creation of a usage record, retrying the update");
+				}
+			}
+		}
+		catch (SQLException ex) {
+			throw new UsageRepositoryException("Failed to apply usage deltas", ex);
+		}
+	}
+
+	@Override
+	public void applyDeltas(List<UsageDelta> deltas) {
+		checkAtomicUpdatesEnabled();
+		List<UsageDelta> orderedDeltas = deltas.stream().sorted(LOCK_ORDER).toList();
+		try (Connection connection = dataSource.getConnection()) {
+			UsageSqlDialect dialect = getSqlDialect(connection);
+			for (int attempt = 1; ; attempt++) {
+				try {
+					applyInTransaction(connection, dialect, orderedDeltas);
+					return;
+				}
+				catch (SQLException ex) {
+					if (attempt >= MAX_UPSERT_ATTEMPTS || !isUniqueKeyViolation(ex)) {
+						throw ex;
+					}
+					LOGGER.fine("Concurrent creation of a usage record, retrying the update");
+				}
+			}
+		}
+		catch (SQLException ex) {
+			throw new UsageRepositoryException("Failed to apply usage deltas", ex);
+		}
+	}
+
+	private Optional<List<Long>> incrementInTransaction(Connection connection, UsageSqlDialect dialect,
+			List<UsageDelta> deltas) throws SQLException {
+		Integer[] lockOrder = new Integer[deltas.size()];
+		Arrays.setAll(lockOrder, i -> i);
+		Arrays.sort(lockOrder, Comparator.comparing(deltas::get, LOCK_ORDER));
+
+		Long[] results = new Long[deltas.size()];
+		List<UsageDelta> storedShardCounts = new ArrayList<>();
+		connection.setAutoCommit(false);
+		try {
+			for (int i : lockOrder) {
+				OptionalLong units = incrementWithinLimit(connection, dialect, deltas.get(i), storedShardCounts);
+				if (units.isEmpty()) {
+					connection.rollback();
+					return Optional.empty();
+				}
+				results[i] = units.getAsLong();
+			}
+			if (usageSeriesRepository != null) {
+				usageSeriesRepository.addUsage(connection, deltas);
+			}
+			connection.commit();
+			storedShardCounts.forEach(usageSharding::shardCountStored);
+			return Optional.of(Arrays.asList(results));
+		}
+		catch (SQLException ex) {
+			connection.rollback();
+			throw ex;
+		}
+		finally {
+			restoreAutoCommit(connection);
+		}
+	}
+
+	/**
+	 * Applies the delta with the conditional upsert, or to one of the shards of a sharded
+	 * counter. The conditional upsert is rejected on a counter sharded by another repository,
+	 * in which case the shard count stored with the counter is registered and the delta is
+	 * applied to one of its shards.
+	 */
+	private OptionalLong incrementWithinLimit(Connection connection, UsageSqlDialect dialect, UsageDelta delta,
+			List<UsageDelta> storedShardCounts) throws SQLException {
+		if (usageSharding.getShardCount(delta) > 1) {
+			if (delta.initialUnits() > delta.maxUnits()) {
+				return OptionalLong.empty();
+			}
+			long units = applyToShard(connection, dialect, delta, storedShardCounts);
+			return (units <= delta.maxUnits() || !delta.isIncrement()) ? OptionalLong.of(units) : OptionalLong.empty();
+		}
+		long startTime = System.nanoTime();
+		OptionalLong units = dialect.incrementWithinLimit(connection, getFullTableName(), delta);
+		usageSharding.recordUpdateTime(delta, System.nanoTime() - startTime);
+		if (units.isEmpty()) {
+			int storedShardCount = dialect.findShardCount(connection, getFullTableName(), delta);
+			if (storedShardCount > 1) {
+				usageSharding.registerStoredShardCount(delta, storedShardCount);
+			}
+			if (usageSharding.getShardCount(delta) > 1) {
+				return incrementWithinLimit(connection, dialect, delta, storedShardCounts);
+			}
+		}
+		return units;
+	}
+
+	private long applyToShard(Connection connection, UsageSqlDialect dialect, UsageDelta delta,
+			List<UsageDelta> storedShardCounts) throws SQLException {
+		if (!usageSharding.isShardCountStored(delta)) {
+			dialect.storeShardCount(connection, getFullTableName(), delta, usageSharding.getShardCount(delta));
+			storedShardCounts.add(delta);
+		}
+		return dialect.applyToShard(connection, getFullTableName(), delta, usageSharding.selectShard(delta));
+	}
+
+	private void applyInTransaction(Connection connection, UsageSqlDialect dialect, List<UsageDelta> deltas)
+			throws SQLException {
+		List<UsageDelta> unshardedDeltas = new ArrayList<>(deltas.size());
+		List<UsageDelta> storedShardCounts = new ArrayList<>();
+		connection.setAutoCommit(false);
+		try {
+			for (UsageDelta delta : deltas) {
+				if (usageSharding.getShardCount(delta) > 1) {
+					applyToShard(connection, dialect, delta, storedShardCounts);
+				}
+				else {
+					unshardedDeltas.add(delta);
+				}
+			}
+			if (!unshardedDeltas.isEmpty()) {
+				dialect.applyDeltas(connection, getFullTableName(), unshardedDeltas);
+			}
+			if (usageSeriesRepository != null) {
+				usageSeriesRepository.addUsage(connection, deltas);
+			}
+			connection.commit();
+			storedShardCounts.forEach(usageSharding::shardCountStored);
+		}
+		catch (SQLException ex) {
+			connection.rollback();
+			throw ex;
+		}
+		finally {
+			restoreAutoCommit(connection);
+		}
+	}
+
+	@Override
+	public boolean supportsLockingUpdates() {
+		return updateMode == UpdateMode.LOCKING_READ_MODIFY_WRITE;
+	}
+
+	@Override
+	public void updateUsageRecordsLocked(LockedUpdate update) {
+		checkLockingUpdatesEnabled();
+		try (Connection connection = dataSource.getConnection()) {
+			for (int attempt = 1; ; attempt++) {
+				try {
+					updateLockedInTransaction(connection, update);
+					return;
+				}
+				catch (SQLException ex) {
+					if (attempt >= MAX_UPSERT_ATTEMPTS || !isTransactionConflict(ex)) {
+						throw ex;
+					}
+					LOGGER.fine("Usage update conflicting with a concurrent transaction, retrying the update");
+				}
+			}
+		}
+		catch (SQLException ex) {
+			throw new UsageRepositoryException("Failed to update usage records", ex);
+		}
+	}
+
+	private void updateLockedInTransaction(Connection connection, LockedUpdate update) throws SQLException {
+		connection.setAutoCommit(false);
+		try {
+			List<LimitTrackingContext> updatedContexts = update.apply(contexts -> lockUsageData(connection, contexts));
+			if (!updatedContexts.isEmpty()) {
+				processUsageRecordUpdates(connection, updatedContexts);
+			}
+			connection.commit();
+		}
+		catch (LockingLoadException ex) {
+			connection.rollback();
+			throw ex.getCause();
+		}
+		catch (SQLException | RuntimeException ex) {
+			connection.rollback();
+			throw ex;
+		}
+		finally {
+			restoreAutoCommit(connection);
+		}
+	}
+
+	/**
+	 * Loads and locks the usage records of the contexts, one context after the other in the
+	 * order of their product, feature and user grouping.
+	 */
+	private void lockUsageData(Connection connection, List<LimitTrackingContext> contexts) {
+		try {
+			UsageSqlDialect dialect = getSqlDialect(connection);
+			for (LimitTrackingContext context : contexts.stream().sorted(CONTEXT_LOCK_ORDER).toList()) {
+				String query = dialect.lockUsageRecordsSql(getFullTableName(), context);
+				if (query == null) {
+					continue;
+				}
+				List<UsageRecord> records = new ArrayList<>();
+				try (PreparedStatement statement = connection.prepareStatement(query)) {
+					dialect.bindLockUsageRecords(statement, context);
+					try (ResultSet resultSet = statement.executeQuery()) {
+						while (resultSet.next()) {
+							records.add(toUsageRecord(resultSet, false));
+						}
+					}
+				}
+				context.addCurrentUsageRecords(records);
+			}
+		}
+		catch (SQLException ex) {
+			throw new LockingLoadException(ex);
+		}
+	}
+
+	private UsageSqlDialect getSqlDialect(Connection connection) throws SQLException {
+		UsageSqlDialect dialect = sqlDialect;
+		if (dialect == null) {
+			dialect = UsageSqlDialect.forDatabase(connection.getMetaData().getDatabaseProductName());
+			sqlDialect = dialect;
+		}
+		return dialect;
+	}
+
+	private void checkAtomicUpdatesEnabled() {
+		if (!supportsAtomicUpdates()) {
+			throw new IllegalStateException("Atomic updates require the " + UpdateMode.ATOMIC_UPSERT + " update mode");
+		}
+	}
+
+	private boolean isOptimistic() {
+		return updateMode == UpdateMode.OPTIMISTIC_READ_MODIFY_WRITE;
+	}
+
+	private void checkLockingUpdatesEnabled() {
+		if (!supportsLockingUpdates()) {
+			throw new IllegalStateException("Locking updates require the " + UpdateMode.LOCKING_READ_MODIFY_WRITE + " update mode");
+		}
+	}
+
+	private static boolean isUniqueKeyViolation(SQLException ex) {
+		return ex.getSQLState() != null && ex.getSQLState().startsWith("23");
+	}
+
+	/**
+	 * Returns whether the transaction failed because of a concurrent one: a counter created by
+	 * both transactions, as missing rows cannot be locked, or a deadlock or serialization failure.
+	 */
+	private static boolean isTransactionConflict(SQLException ex) {
+		return isUniqueKeyViolation(ex) || (ex.getSQLState() != null && ex.getSQLState().startsWith("40"));
+	}
+
+	private static void restoreAutoCommit(Connection connection) {
+		try {
+			connection.setAutoCommit(true);
+		}
+		catch (SQLException ex) {
+			LOGGER.log(Level.SEVERE, "Failed to restore auto-commit after transaction: ", ex);
+		}
+	}
+
+	private record CounterKey(String limitId, Instant startTime) {
+
+		static CounterKey of(UsageRecord usageRecord) {
+			return new CounterKey(usageRecord.limitId(),
+					(usageRecord.startTime() != null) ? usageRecord.startTime().toInstant() : null);
+		}
+	}
+
+	/**
+	 * Carries a failure to lock usage records through the update, to be rethrown by the transaction.
+	 */
+	private static final class LockingLoadException extends RuntimeException {
+
+		LockingLoadException(SQLException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized SQLException getCause() {
+			return (SQLException) super.getCause();
+		}
+	}
+
+	private record RecordWrite(LimitTrackingContext context, UsageRecord usageRecord, long usageId, long version) {
+
+		RecordWrite withUsageId(long usageId) {
+			return new RecordWrite(context, usageRecord, usageId, version);
+		}
+	}
+
+	public enum UpdateMode {
+
+		/**
+		 * Usage records are loaded, updated in memory by the verification strategies and
+		 * written back. Concurrent updates of the same record can be lost.
+		 */
+		READ_MODIFY_WRITE,
+
+		/**
+		 * Counters are incremented in the database with a single conditional upsert per limit.
+		 * Requires the unique key on {@code (product_id, feature_id, user_grouping, limit_id, window_start, shard)}.
+		 */
+		ATOMIC_UPSERT,
+
+		/**
+		 * Usage records are loaded with a row lock, updated in memory by the verification
+		 * strategies and written back in the same transaction, on a single connection, so
+		 * concurrent updates of the same record are serialized instead of lost. With the unique
+		 * key of {@link #ATOMIC_UPSERT}, a counter created concurrently makes the update retry
+		 * once instead of creating a duplicate.
+		 */
+		LOCKING_READ_MODIFY_WRITE,
+
+		/**
+		 * Usage records are loaded with their version, updated in memory by the verification
+		 * strategies and written back only if their version has not changed, without holding
+		 * locks. A record updated or created concurrently fails the whole write with a
+		 * {@link UsageUpdateConflictException}, after which the limit verifier loads the records
+		 * again. Requires the {@code version} column and the unique key of {@link #ATOMIC_UPSERT}.
+		 */
+		OPTIMISTIC_READ_MODIFY_WRITE
+	}
 }
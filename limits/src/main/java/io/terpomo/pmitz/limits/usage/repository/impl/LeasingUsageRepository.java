@@ -0,0 +1,438 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class LeasingUsageRepository implements AtomicUsageRepository, AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(LeasingUsageRepository.class.getName());
+
+	private final AtomicUsageRepository delegate;
+	private final double leaseFraction;
+	private final long maxLeaseUnits;
+	private final long idleTimeoutMillis;
+	private final Clock clock;
+
+	private final Map<LeaseKey, Lease> leases = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	private final LongAdder localConsumptions = new LongAdder();
+	private final LongAdder leaseRequests = new LongAdder();
+	private final LongAdder rejectedLeaseRequests = new LongAdder();
+	private final LongAdder returnedUnits = new LongAdder();
+
+	private LeasingUsageRepository(Builder builder) {
+		this.delegate = builder.delegate;
+		this.leaseFraction = builder.leaseFraction;
+		this.maxLeaseUnits = builder.maxLeaseUnits;
+		this.idleTimeoutMillis = builder.idleTimeout.toMillis();
+		this.clock = builder.clock;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pmitz-usage-leases");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long checkMillis = builder.returnCheckInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::returnExpiredLeasesQuietly, checkMillis, checkMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	public static Builder builder(AtomicUsageRepository delegate) {
+		return new Builder(delegate);
+	}
+
+	public AtomicUsageRepository getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public void loadUsageData(LimitTrackingContext context) {
+		var delegateContext = new LimitTrackingContext(context.getFeatureRef(), context.getUserGrouping(),
+				context.getSearchCriteria());
+		delegate.loadUsageData(delegateContext);
+		List<UsageRecord> records = new ArrayList<>();
+		for (UsageRecord usageRecord : delegateContext.getCurrentUsageRecords()) {
+			Lease lease = leases.get(new LeaseKey(context.getFeatureRef(), context.getUserGrouping().getId(),
+					usageRecord.limitId(), toInstant(usageRecord.startTime())));
+			long available = (lease != null) ? Math.max(lease.available.get(), 0) : 0;
+			records.add((available > 0)
+					? UsageRecord.updage(usageRecord, Math.max(usageRecord.units() - available, 0), usageRecord.expirationDate())
+					: usageRecord);
+		}
+		context.addCurrentUsageRecords(records);
+	}
+
+	@Override
+	public void updateUsageRecords(LimitTrackingContext context) {
+		for (UsageRecord usageRecord : context.getUpdatedUsageRecords()) {
+			Lease lease = leases.get(new LeaseKey(context.getFeatureRef(), context.getUserGrouping().getId(),
+					usageRecord.limitId(), toInstant(usageRecord.startTime())));
+			if (lease != null) {
+				returnLease(lease);
+			}
+		}
+		delegate.updateUsageRecords(context);
+	}
+
+	@Override
+	public boolean supportsAtomicUpdates() {
+		return true;
+	}
+
+	@Override
+	public Optional<List<Long>> applyDeltasWithinLimits(List<UsageDelta> deltas) {
+		if (!deltas.stream().allMatch(LeasingUsageRepository::isLeasable)) {
+			return delegate.applyDeltasWithinLimits(deltas);
+		}
+		List<Lease> consumed = new ArrayList<>(deltas.size());
+		List<Long> results = new ArrayList<>(deltas.size());
+		for (UsageDelta delta : deltas) {
+			Lease lease = consume(delta);
+			if (lease == null) {
+				for (int i = consumed.size() - 1; i >= 0; i--) {
+					giveBack(consumed.get(i), deltas.get(i));
+				}
+				return Optional.empty();
+			}
+			consumed.add(lease);
+			results.add(lease.reservedUnits - Math.max(lease.available.get(), 0));
+		}
+		return Optional.of(results);
+	}
+
+	@Override
+	public void applyDeltas(List<UsageDelta> deltas) {
+		List<UsageDelta> delegated = new ArrayList<>();
+		for (UsageDelta delta : deltas) {
+			Lease lease = (delta.units() < 0) ? leases.get(keyOf(delta)) : null;
+			if (lease == null || !lease.add(-delta.units())) {
+				delegated.add(delta);
+			}
+			else {
+				lease.touch(clock.millis());
+			}
+		}
+		if (!delegated.isEmpty()) {
+			delegate.applyDeltas(delegated);
+		}
+	}
+
+	/**
+	 * Returns to the delegate the unused units of the leases whose window has ended or which
+	 * have not been used for the idle timeout.
+	 */
+	public void returnExpiredLeases() {
+		long now = clock.millis();
+		for (Lease lease : leases.values()) {
+			if ((lease.windowEndMillis != Long.MAX_VALUE && lease.windowEndMillis < now)
+					|| lease.lastUsedMillis + idleTimeoutMillis < now) {
+				returnLease(lease);
+			}
+		}
+	}
+
+	public Statistics getStatistics() {
+		long leasedUnits = 0;
+		for (Lease lease : leases.values()) {
+			leasedUnits += Math.max(lease.available.get(), 0);
+		}
+		return new Statistics(localConsumptions.sum(), leaseRequests.sum(), rejectedLeaseRequests.sum(),
+				returnedUnits.sum(), leasedUnits);
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		for (Lease lease : leases.values()) {
+			returnLease(lease);
+		}
+	}
+
+	private Lease consume(UsageDelta delta) {
+		LeaseKey key = keyOf(delta);
+		while (true) {
+			Lease lease = leases.computeIfAbsent(key, k -> new Lease(k, delta));
+			long result = lease.tryConsume(delta.units());
+			if (result == Lease.CONSUMED) {
+				lease.touch(clock.millis());
+				localConsumptions.increment();
+				return lease;
+			}
+			if (result == Lease.RETIRED) {
+				leases.remove(key, lease);
+				continue;
+			}
+			Boolean refilled = refill(lease, delta);
+			if (refilled == null) {
+				continue;
+			}
+			if (!refilled) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Reserves a new lease in the delegate.
+	 * @return {@code true} if units were reserved, {@code false} if the limit does not leave
+	 * enough units, {@code null} if the lease was retired in the meantime
+	 */
+	private Boolean refill(Lease lease, UsageDelta delta) {
+		lease.lock.lock();
+		try {
+			long available = lease.available.get();
+			if (available == Lease.RETIRED) {
+				return null;
+			}
+			if (available >= delta.units()) {
+				return Boolean.TRUE;
+			}
+			long needed = delta.units() - available;
+			long headroom = (lease.headroom >= 0) ? lease.headroom : delta.maxUnits();
+			long size = Math.max(needed, Math.min(maxLeaseUnits, (long) (headroom * leaseFraction)));
+
+			leaseRequests.increment();
+			Optional<List<Long>> result = delegate.applyDeltasWithinLimits(List.of(withUnits(delta, size)));
+			if (result.isEmpty() && size > needed) {
+				size = needed;
+				leaseRequests.increment();
+				result = delegate.applyDeltasWithinLimits(List.of(withUnits(delta, size)));
+			}
+			if (result.isEmpty()) {
+				rejectedLeaseRequests.increment();
+				lease.headroom = 0;
+				return Boolean.FALSE;
+			}
+			long reservedUnits = result.get().get(0);
+			lease.reservedUnits = reservedUnits;
+			lease.headroom = Math.max(delta.maxUnits() - reservedUnits, 0);
+			lease.add(size);
+			lease.touch(clock.millis());
+			return Boolean.TRUE;
+		}
+		finally {
+			lease.lock.unlock();
+		}
+	}
+
+	private void giveBack(Lease lease, UsageDelta delta) {
+		if (!lease.add(delta.units())) {
+			delegate.applyDeltas(List.of(withUnits(delta, -delta.units())));
+		}
+	}
+
+	private void returnLease(Lease lease) {
+		long unused;
+		lease.lock.lock();
+		try {
+			unused = lease.available.getAndSet(Lease.RETIRED);
+		}
+		finally {
+			lease.lock.unlock();
+		}
+		leases.remove(lease.key, lease);
+		if (unused > 0) {
+			try {
+				delegate.applyDeltas(List.of(withUnits(lease.template, -unused)));
+				returnedUnits.add(unused);
+			}
+			catch (RuntimeException ex) {
+				LOGGER.log(Level.WARNING, ex, () -> "Failed to return " + unused + " leased units for limit "
+						+ lease.key.limitId() + " of " + lease.key.userGroupingId());
+			}
+		}
+	}
+
+	private void returnExpiredLeasesQuietly() {
+		try {
+			returnExpiredLeases();
+		}
+		catch (RuntimeException ex) {
+			LOGGER.log(Level.WARNING, "Failed to return expired leases", ex);
+		}
+	}
+
+	private static boolean isLeasable(UsageDelta delta) {
+		return delta.units() > 0 && delta.maxUnits() != UsageDelta.UNBOUNDED && delta.minUnits() == 0;
+	}
+
+	private static UsageDelta withUnits(UsageDelta delta, long units) {
+		return new UsageDelta(delta.featureRef(), delta.userGroupingId(), delta.limitId(), delta.windowStart(),
+				delta.windowEnd(), delta.expirationDate(), units, (units > 0) ? delta.maxUnits() : UsageDelta.UNBOUNDED);
+	}
+
+	private static LeaseKey keyOf(UsageDelta delta) {
+		return new LeaseKey(delta.featureRef(), delta.userGroupingId(), delta.limitId(), toInstant(delta.windowStart()));
+	}
+
+	private static Instant toInstant(ZonedDateTime dateTime) {
+		return (dateTime != null) ? dateTime.toInstant() : null;
+	}
+
+	/**
+	 * Counters of the leasing decorator.
+	 * @param localConsumptions number of usage increments served from a local lease
+	 * @param leaseRequests number of conditional increments sent to the delegate to take a lease
+	 * @param rejectedLeaseRequests number of leases refused because the limit was reached
+	 * @param returnedUnits number of unused units returned to the delegate
+	 * @param leasedUnits number of units currently leased and not consumed
+	 */
+	public record Statistics(long localConsumptions, long leaseRequests, long rejectedLeaseRequests,
+			long returnedUnits, long leasedUnits) {
+	}
+
+	public static final class Builder {
+
+		private final AtomicUsageRepository delegate;
+		private double leaseFraction = 0.1;
+		private long maxLeaseUnits = 1000;
+		private Duration idleTimeout = Duration.ofMinutes(1);
+		private Duration returnCheckInterval = Duration.ofSeconds(1);
+		private Clock clock = Clock.systemUTC();
+
+		private Builder(AtomicUsageRepository delegate) {
+			if (!delegate.supportsAtomicUpdates()) {
+				throw new IllegalArgumentException("The delegate repository must support atomic updates");
+			}
+			this.delegate = delegate;
+		}
+
+		/**
+		 * Fraction of the remaining units reserved by each lease.
+		 */
+		public Builder leaseFraction(double leaseFraction) {
+			if (leaseFraction <= 0 || leaseFraction > 1) {
+				throw new IllegalArgumentException("leaseFraction must be greater than 0 and at most 1");
+			}
+			this.leaseFraction = leaseFraction;
+			return this;
+		}
+
+		public Builder maxLeaseUnits(long maxLeaseUnits) {
+			this.maxLeaseUnits = maxLeaseUnits;
+			return this;
+		}
+
+		public Builder idleTimeout(Duration idleTimeout) {
+			this.idleTimeout = idleTimeout;
+			return this;
+		}
+
+		public Builder returnCheckInterval(Duration returnCheckInterval) {
+			this.returnCheckInterval = returnCheckInterval;
+			return this;
+		}
+
+		public Builder clock(Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		public LeasingUsageRepository build() {
+			return new LeasingUsageRepository(this);
+		}
+	}
+
+	private record LeaseKey(FeatureRef featureRef, String userGroupingId, String limitId, Instant windowStart) {
+	}
+
+	private static final class Lease {
+
+		static final long RETIRED = Long.MIN_VALUE;
+		static final long CONSUMED = 0;
+		static final long INSUFFICIENT = 1;
+
+		final LeaseKey key;
+
+		final UsageDelta template;
+
+		final long windowEndMillis;
+
+		final ReentrantLock lock = new ReentrantLock();
+
+		final AtomicLong available = new AtomicLong();
+
+		volatile long lastUsedMillis;
+
+		volatile long reservedUnits;
+
+		volatile long headroom = -1;
+
+		Lease(LeaseKey key, UsageDelta template) {
+			this.key = key;
+			this.template = template;
+			this.windowEndMillis = (template.windowEnd() != null)
+					? template.windowEnd().toInstant().toEpochMilli() : Long.MAX_VALUE;
+		}
+
+		long tryConsume(long units) {
+			long current;
+			do {
+				current = available.get();
+				if (current == RETIRED) {
+					return RETIRED;
+				}
+				if (current < units) {
+					return INSUFFICIENT;
+				}
+			}
+			while (!available.compareAndSet(current, current - units));
+			return CONSUMED;
+		}
+
+		boolean add(long units) {
+			long current;
+			do {
+				current = available.get();
+				if (current == RETIRED) {
+					return false;
+				}
+			}
+			while (!available.compareAndSet(current, current + units));
+			return true;
+		}
+
+		void touch(long now) {
+			if (lastUsedMillis != now) {
+				lastUsedMillis = now;
+			}
+		}
+	}
+}
@@ -0,0 +1,748 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class MappedFileUsageRepository implements AtomicUsageRepository, AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(MappedFileUsageRepository.class.getName());
+
+	static final long MAGIC = 0x504D49545A555347L;
+	static final long VERSION = 2;
+
+	static final int HEADER_SIZE = 64;
+	static final int SLOT_SIZE = 64;
+
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 8;
+	static final int FLAGS_OFFSET = 16;
+	static final int CAPACITY_OFFSET = 24;
+	static final int USED_OFFSET = 32;
+
+	static final long FLAG_RETIRED = 1;
+
+	static final int STATE_OFFSET = 0;
+	static final int HASH1_OFFSET = 8;
+	static final int HASH2_OFFSET = 16;
+	static final int WINDOW_START_OFFSET = 24;
+	static final int WINDOW_END_OFFSET = 32;
+	static final int EXPIRATION_OFFSET = 40;
+	static final int UNITS_OFFSET = 48;
+
+	static final long EMPTY = 0;
+	static final long CLAIMING = 1;
+	static final long ACTIVE = 2;
+	static final long TOMBSTONE = 3;
+
+	static final int DEFAULT_INITIAL_CAPACITY = 1 << 12;
+	static final int MAX_CAPACITY = 1 << 24;
+
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	private static final long NO_TIME = Long.MIN_VALUE;
+	private static final long NOT_FOUND = -1;
+	private static final long TABLE_FULL = -2;
+	private static final long REJECTED = -1;
+
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final long CLAIM_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long GROWTH_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final Path path;
+	private final int initialCapacity;
+	private final Clock clock;
+	private final StampedLock tableLock = new StampedLock();
+
+	private volatile Table table;
+	private volatile long nextGrowthAttemptNanos;
+
+	public MappedFileUsageRepository(Path path) {
+		this(path, DEFAULT_INITIAL_CAPACITY, Clock.systemUTC());
+	}
+
+	/**
+	 * @param path the file storing the counters, created if missing
+	 * @param initialCapacity the number of counters the file holds at least once opened; the
+	 * process running recovery grows a smaller file, a process opening a smaller file while
+	 * others have it open fails, since the file cannot grow while it is shared
+	 * @param clock the clock used to expire counters
+	 */
+	public MappedFileUsageRepository(Path path, int initialCapacity, Clock clock) {
+		if (initialCapacity < 2 || initialCapacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("initialCapacity must be between 2 and " + MAX_CAPACITY);
+		}
+		this.path = path;
+		this.initialCapacity = Integer.highestOneBit(initialCapacity - 1) << 1;
+		this.clock = clock;
+		try {
+			this.table = openTable();
+		}
+		catch (IOException ex) {
+			throw new UsageRepositoryException("Failed to open usage store " + path, ex);
+		}
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	@Override
+	public void loadUsageData(LimitTrackingContext context) {
+		FeatureRef featureRef = context.getFeatureRef();
+		String userGroupingId = context.getUserGrouping().getId();
+		long now = nowNanos();
+		List<UsageRecord> records = new ArrayList<>();
+		long stamp = tableLock.readLock();
+		try {
+			Table current = table;
+			for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
+				if (criteria.limitId() == null) {
+					continue;
+				}
+				long windowStart = toEpochNanos(criteria.windowStart());
+				long slot = findSlot(current, featureRef, userGroupingId, criteria.limitId(), windowStart);
+				if (slot >= 0 && !isExpired(current.buffer, (int) slot, now)) {
+					ByteBuffer buffer = current.buffer;
+					records.add(new UsageRecord(criteria.limitId(), fromEpochNanos(windowStart),
+							fromEpochNanos(getLong(buffer, (int) slot + WINDOW_END_OFFSET)),
+							getLong(buffer, (int) slot + UNITS_OFFSET),
+							fromEpochNanos(getLong(buffer, (int) slot + EXPIRATION_OFFSET))));
+				}
+			}
+		}
+		finally {
+			tableLock.unlockRead(stamp);
+		}
+		context.addCurrentUsageRecords(records);
+	}
+
+	@Override
+	public void updateUsageRecords(LimitTrackingContext context) {
+		FeatureRef featureRef = context.getFeatureRef();
+		String userGroupingId = context.getUserGrouping().getId();
+		for (UsageRecord usageRecord : context.getUpdatedUsageRecords()) {
+			if (usageRecord.limitId() == null) {
+				LOGGER.warning("UsageRecord with null limitId encountered. Skipping.");
+				continue;
+			}
+			if (usageRecord.startTime() != null && usageRecord.endTime() != null
+					&& usageRecord.endTime().isBefore(usageRecord.startTime())) {
+				throw new IllegalArgumentException("endTime cannot be before startTime in UsageRecord");
+			}
+			long windowStart = toEpochNanos(usageRecord.startTime());
+			long windowEnd = toEpochNanos(usageRecord.endTime());
+			long expiration = toEpochNanos(usageRecord.expirationDate());
+			long units = Math.max(usageRecord.units(), 0);
+			while (true) {
+				long stamp = tableLock.readLock();
+				Table current = table;
+				long slot;
+				try {
+					slot = claimSlot(current, featureRef, userGroupingId, usageRecord.limitId(), windowStart,
+							windowEnd, expiration);
+					if (slot >= 0) {
+						setLong(current.buffer, (int) slot + UNITS_OFFSET, units);
+						setLong(current.buffer, (int) slot + EXPIRATION_OFFSET, expiration);
+					}
+				}
+				finally {
+					tableLock.unlockRead(stamp);
+				}
+				if (slot >= 0) {
+					break;
+				}
+				growOrFail(current);
+			}
+		}
+		growIfNeeded();
+	}
+
+	@Override
+	public boolean supportsAtomicUpdates() {
+		return true;
+	}
+
+	@Override
+	public Optional<List<Long>> applyDeltasWithinLimits(List<UsageDelta> deltas) {
+		long[] results = new long[deltas.size()];
+		long[] appliedUnits = new long[deltas.size()];
+		while (true) {
+			long stamp = tableLock.readLock();
+			Table current = table;
+			int outcome;
+			try {
+				outcome = incrementWithinLimits(current, deltas, results, appliedUnits);
+			}
+			finally {
+				tableLock.unlockRead(stamp);
+			}
+			if (outcome == deltas.size()) {
+				growIfNeeded();
+				List<Long> units = new ArrayList<>(results.length);
+				for (long result : results) {
+					units.add(result);
+				}
+				return Optional.of(units);
+			}
+			if (outcome == (int) REJECTED) {
+				return Optional.empty();
+			}
+			growOrFail(current);
+		}
+	}
+
+	@Override
+	public void applyDeltas(List<UsageDelta> deltas) {
+		int applied = 0;
+		while (applied < deltas.size()) {
+			long stamp = tableLock.readLock();
+			Table current = table;
+			try {
+				while (applied < deltas.size() && add(current, deltas.get(applied), false) != TABLE_FULL) {
+					applied++;
+				}
+			}
+			finally {
+				tableLock.unlockRead(stamp);
+			}
+			if (applied < deltas.size()) {
+				growOrFail(current);
+			}
+		}
+		growIfNeeded();
+	}
+
+	/**
+	 * Marks the counters whose expiration date is before the current time as deleted. Their
+	 * slots are reclaimed the next time the table is rewritten.
+	 */
+	public void evictExpired() {
+		long now = nowNanos();
+		long stamp = tableLock.readLock();
+		try {
+			Table current = table;
+			for (int i = 0; i < current.capacity; i++) {
+				int slot = slotOffset(i);
+				if (getLong(current.buffer, slot + STATE_OFFSET) == ACTIVE && isExpired(current.buffer, slot, now)) {
+					compareAndSetLong(current.buffer, slot + STATE_OFFSET, ACTIVE, TOMBSTONE);
+				}
+			}
+		}
+		finally {
+			tableLock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public void close() {
+		long stamp = tableLock.writeLock();
+		try {
+			Table current = table;
+			if (current != null) {
+				current.buffer.force();
+				closeQuietly(current.channel);
+				table = null;
+			}
+		}
+		finally {
+			tableLock.unlockWrite(stamp);
+		}
+	}
+
+	int capacity() {
+		return table.capacity;
+	}
+
+	private int incrementWithinLimits(Table current, List<UsageDelta> deltas, long[] results, long[] appliedUnits) {
+		for (int i = 0; i < deltas.size(); i++) {
+			long previous = add(current, deltas.get(i), true);
+			if (previous < 0) {
+				// the units actually applied are reverted, as a delta may have been clamped at its minimum
+				for (int j = i - 1; j >= 0; j--) {
+					revert(current, deltas.get(j), appliedUnits[j]);
+				}
+				return (int) ((previous == TABLE_FULL) ? TABLE_FULL : REJECTED);
+			}
+			results[i] = deltas.get(i).applyTo(previous);
+			appliedUnits[i] = results[i] - previous;
+		}
+		return deltas.size();
+	}
+
+	private void revert(Table current, UsageDelta delta, long appliedUnits) {
+		long slot = findSlot(current, delta.featureRef(), delta.userGroupingId(), delta.limitId(),
+				toEpochNanos(delta.windowStart()));
+		if (slot >= 0) {
+			getAndAddLong(current.buffer, (int) slot + UNITS_OFFSET, -appliedUnits);
+		}
+	}
+
+	/**
+	 * @return the units of the counter before the delta was applied
+	 */
+	private long add(Table current, UsageDelta delta, boolean withinLimit) {
+		long windowStart = toEpochNanos(delta.windowStart());
+		long slot = (withinLimit && delta.initialUnits() > delta.maxUnits())
+				? findSlot(current, delta.featureRef(), delta.userGroupingId(), delta.limitId(), windowStart)
+				: claimSlot(current, delta.featureRef(), delta.userGroupingId(), delta.limitId(), windowStart,
+						toEpochNanos(delta.windowEnd()), toEpochNanos(delta.expirationDate()));
+		if (slot == NOT_FOUND) {
+			return REJECTED;
+		}
+		if (slot == TABLE_FULL) {
+			return TABLE_FULL;
+		}
+		ByteBuffer buffer = current.buffer;
+		int unitsOffset = (int) slot + UNITS_OFFSET;
+		long units;
+		long updated;
+		do {
+			units = getLong(buffer, unitsOffset);
+			updated = delta.applyTo(units);
+			if (withinLimit && delta.isIncrement() && updated > delta.maxUnits()) {
+				return REJECTED;
+			}
+		}
+		while (!compareAndSetLong(buffer, unitsOffset, units, updated));
+		if (delta.expirationDate() != null) {
+			setLong(buffer, (int) slot + EXPIRATION_OFFSET, toEpochNanos(delta.expirationDate()));
+		}
+		return units;
+	}
+
+	private long findSlot(Table current, FeatureRef featureRef, String userGroupingId, String limitId,
+			long windowStart) {
+		return probe(current, featureRef, userGroupingId, limitId, windowStart, NO_TIME, NO_TIME, false);
+	}
+
+	private long claimSlot(Table current, FeatureRef featureRef, String userGroupingId, String limitId,
+			long windowStart, long windowEnd, long expiration) {
+		return probe(current, featureRef, userGroupingId, limitId, windowStart, windowEnd, expiration, true);
+	}
+
+	private long probe(Table current, FeatureRef featureRef, String userGroupingId, String limitId,
+			long windowStart, long windowEnd, long expiration, boolean claim) {
+		long hash1 = hash(featureRef, userGroupingId, limitId, windowStart);
+		long hash2 = fingerprint(featureRef, userGroupingId, limitId, windowStart);
+		ByteBuffer buffer = current.buffer;
+		int mask = current.capacity - 1;
+		int index = (int) hash1 & mask;
+		for (int probes = 0; probes < current.capacity; probes++) {
+			int slot = slotOffset(index);
+			long state = getLong(buffer, slot + STATE_OFFSET);
+			if (state == EMPTY) {
+				if (!claim) {
+					return NOT_FOUND;
+				}
+				if (compareAndSetLong(buffer, slot + STATE_OFFSET, EMPTY, CLAIMING)) {
+					setLong(buffer, slot + HASH1_OFFSET, hash1);
+					setLong(buffer, slot + HASH2_OFFSET, hash2);
+					setLong(buffer, slot + WINDOW_START_OFFSET, windowStart);
+					setLong(buffer, slot + WINDOW_END_OFFSET, windowEnd);
+					setLong(buffer, slot + EXPIRATION_OFFSET, expiration);
+					setLong(buffer, slot + UNITS_OFFSET, 0);
+					if (compareAndSetLong(buffer, slot + STATE_OFFSET, CLAIMING, ACTIVE)) {
+						getAndAddLong(buffer, USED_OFFSET, 1);
+						return slot;
+					}
+					// the claim took too long and was abandoned by a caller waiting for it
+					index = (index + 1) & mask;
+					continue;
+				}
+				state = getLong(buffer, slot + STATE_OFFSET);
+			}
+			if (state == CLAIMING) {
+				state = awaitClaim(buffer, slot);
+			}
+			if (state == ACTIVE && getLong(buffer, slot + HASH1_OFFSET) == hash1
+					&& getLong(buffer, slot + HASH2_OFFSET) == hash2
+					&& getLong(buffer, slot + WINDOW_START_OFFSET) == windowStart) {
+				return slot;
+			}
+			index = (index + 1) & mask;
+		}
+		return claim ? TABLE_FULL : NOT_FOUND;
+	}
+
+	/**
+	 * Waits for a slot being claimed to become active. A claim still incomplete after the
+	 * claim timeout most likely belongs to a process that died, the slot is then abandoned
+	 * and left to recovery. A claimer that was only slow finds its claim abandoned and
+	 * claims another slot.
+	 */
+	private long awaitClaim(ByteBuffer buffer, int slot) {
+		long deadline = System.nanoTime() + CLAIM_TIMEOUT_NANOS;
+		long state;
+		while ((state = getLong(buffer, slot + STATE_OFFSET)) == CLAIMING) {
+			if (System.nanoTime() > deadline) {
+				if (compareAndSetLong(buffer, slot + STATE_OFFSET, CLAIMING, TOMBSTONE)) {
+					getAndAddLong(buffer, USED_OFFSET, 1);
+					LOGGER.log(Level.WARNING, "Abandoned a slot claim that did not complete in usage store {0}", path);
+				}
+				return getLong(buffer, slot + STATE_OFFSET);
+			}
+			Thread.onSpinWait();
+		}
+		return state;
+	}
+
+	private void growIfNeeded() {
+		Table current = table;
+		if (getLong(current.buffer, USED_OFFSET) > current.capacity * MAX_LOAD_FACTOR
+				&& current.capacity < MAX_CAPACITY && System.nanoTime() >= nextGrowthAttemptNanos) {
+			grow(current);
+		}
+	}
+
+	private void growOrFail(Table observed) {
+		if (!grow(observed)) {
+			throw new UsageRepositoryException("Usage store " + path + " is full with " + observed.capacity
+					+ " counters and cannot grow while another process has it open; open it with a larger "
+					+ "initial capacity while no other process has it open");
+		}
+	}
+
+	private boolean grow(Table observed) {
+		long stamp = tableLock.writeLock();
+		try {
+			Table current = table;
+			if (current != observed) {
+				return true;
+			}
+			if (current.capacity >= MAX_CAPACITY) {
+				return false;
+			}
+			current.lock.release();
+			FileLock exclusive = current.channel.tryLock();
+			if (exclusive == null) {
+				current.lock = current.channel.lock(0, Long.MAX_VALUE, true);
+				if (isRetired(current)) {
+					closeQuietly(current.channel);
+					table = openTable();
+					return true;
+				}
+				nextGrowthAttemptNanos = System.nanoTime() + GROWTH_RETRY_NANOS;
+				return false;
+			}
+			rewrite(current, current.capacity * 2);
+			closeQuietly(current.channel);
+			table = openTable();
+			return true;
+		}
+		catch (IOException ex) {
+			throw new UsageRepositoryException("Failed to grow usage store " + path, ex);
+		}
+		finally {
+			tableLock.unlockWrite(stamp);
+		}
+	}
+
+	private Table openTable() throws IOException {
+		while (true) {
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			try {
+				FileLock exclusive = channel.tryLock();
+				if (exclusive != null) {
+					Table recovered = recover(channel, exclusive);
+					if (recovered != null) {
+						return recovered;
+					}
+				}
+				else {
+					Table shared = map(channel, channel.lock(0, Long.MAX_VALUE, true));
+					if (!isRetired(shared)) {
+						if (shared.capacity < initialCapacity) {
+							throw new UsageRepositoryException("Usage store " + path + " holds " + shared.capacity
+									+ " counters, less than the initial capacity of " + initialCapacity
+									+ ", and cannot grow while another process has it open");
+						}
+						return shared;
+					}
+				}
+				channel.close();
+			}
+			catch (OverlappingFileLockException ex) {
+				closeQuietly(channel);
+				throw new UsageRepositoryException("Usage store " + path + " is already open in this JVM", ex);
+			}
+			catch (IOException | RuntimeException ex) {
+				closeQuietly(channel);
+				throw ex;
+			}
+		}
+	}
+
+	private Table recover(FileChannel channel, FileLock exclusive) throws IOException {
+		if (channel.size() == 0) {
+			initialize(channel, initialCapacity);
+		}
+		Table recovered = map(channel, exclusive);
+		if (isRetired(recovered)) {
+			return null;
+		}
+		long now = nowNanos();
+		int live = 0;
+		int claiming = 0;
+		for (int i = 0; i < recovered.capacity; i++) {
+			int slot = slotOffset(i);
+			long state = getLong(recovered.buffer, slot + STATE_OFFSET);
+			if (state == CLAIMING) {
+				setLong(recovered.buffer, slot + STATE_OFFSET, TOMBSTONE);
+				claiming++;
+			}
+			else if (state == ACTIVE && !isExpired(recovered.buffer, slot, now)) {
+				live++;
+			}
+		}
+		if (claiming > 0) {
+			LOGGER.log(Level.WARNING, "Discarded {0} incomplete slot(s) in usage store {1}",
+					new Object[] {claiming, path});
+		}
+		int capacity = Math.max(recovered.capacity, initialCapacity);
+		while (live > capacity * MAX_LOAD_FACTOR / 2 && capacity < MAX_CAPACITY) {
+			capacity *= 2;
+		}
+		if (getLong(recovered.buffer, USED_OFFSET) > live || capacity != recovered.capacity) {
+			rewrite(recovered, capacity);
+			return null;
+		}
+		exclusive.release();
+		recovered.lock = channel.lock(0, Long.MAX_VALUE, true);
+		return isRetired(recovered) ? null : recovered;
+	}
+
+	private void initialize(FileChannel channel, int capacity) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+		writeHeader(buffer, capacity);
+		buffer.force();
+	}
+
+	private Table map(FileChannel channel, FileLock lock) throws IOException {
+		long size = channel.size();
+		if (size < HEADER_SIZE) {
+			throw new UsageRepositoryException("Invalid usage store file " + path);
+		}
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		long capacity = getLong(buffer, CAPACITY_OFFSET);
+		if (getLong(buffer, MAGIC_OFFSET) != MAGIC || getLong(buffer, VERSION_OFFSET) != VERSION
+				|| Long.bitCount(capacity) != 1 || capacity > MAX_CAPACITY || size != fileSize((int) capacity)) {
+			throw new UsageRepositoryException("Invalid usage store file " + path);
+		}
+		return new Table(channel, lock, buffer, (int) capacity);
+	}
+
+	private void rewrite(Table source, int capacity) throws IOException {
+		Path target = path.resolveSibling(path.getFileName() + ".resize");
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+			writeHeader(buffer, capacity);
+			long now = nowNanos();
+			long used = 0;
+			int mask = capacity - 1;
+			for (int i = 0; i < source.capacity; i++) {
+				int sourceSlot = slotOffset(i);
+				if (getLong(source.buffer, sourceSlot + STATE_OFFSET) != ACTIVE
+						|| isExpired(source.buffer, sourceSlot, now)) {
+					continue;
+				}
+				int index = (int) getLong(source.buffer, sourceSlot + HASH1_OFFSET) & mask;
+				while (getLong(buffer, slotOffset(index) + STATE_OFFSET) != EMPTY) {
+					index = (index + 1) & mask;
+				}
+				int targetSlot = slotOffset(index);
+				for (int offset = 0; offset < SLOT_SIZE; offset += Long.BYTES) {
+					setLong(buffer, targetSlot + offset, getLong(source.buffer, sourceSlot + offset));
+				}
+				used++;
+			}
+			setLong(buffer, USED_OFFSET, used);
+			buffer.force();
+		}
+		setLong(source.buffer, FLAGS_OFFSET, getLong(source.buffer, FLAGS_OFFSET) | FLAG_RETIRED);
+		source.buffer.force();
+		Files.move(target, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void writeHeader(ByteBuffer buffer, int capacity) {
+		setLong(buffer, MAGIC_OFFSET, MAGIC);
+		setLong(buffer, VERSION_OFFSET, VERSION);
+		setLong(buffer, FLAGS_OFFSET, 0);
+		setLong(buffer, CAPACITY_OFFSET, capacity);
+		setLong(buffer, USED_OFFSET, 0);
+	}
+
+	private static boolean isRetired(Table table) {
+		return (getLong(table.buffer, FLAGS_OFFSET) & FLAG_RETIRED) != 0;
+	}
+
+	private static boolean isExpired(ByteBuffer buffer, int slot, long now) {
+		long expiration = getLong(buffer, slot + EXPIRATION_OFFSET);
+		return expiration != NO_TIME && expiration <= now;
+	}
+
+	private long nowNanos() {
+		return clock.millis() * 1_000_000L;
+	}
+
+	static long fileSize(int capacity) {
+		return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+	}
+
+	static int slotOffset(int index) {
+		return HEADER_SIZE + index * SLOT_SIZE;
+	}
+
+	private static long hash(FeatureRef featureRef, String userGroupingId, String limitId, long windowStart) {
+		long hash = 0xCBF29CE484222325L;
+		hash = hash(hash, featureRef.productId());
+		hash = hash(hash, featureRef.featureId());
+		hash = hash(hash, userGroupingId);
+		hash = hash(hash, limitId);
+		return mix(hash ^ windowStart);
+	}
+
+	private static long hash(long hash, String value) {
+		if (value == null) {
+			return (hash ^ 0xFFFF) * 0x100000001B3L;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+		}
+		return mix(hash ^ value.length());
+	}
+
+	/**
+	 * Second hash of the counter key, stored with {@link #hash} to identify the counter of a
+	 * slot. It uses a different round function, so that keys colliding on one hash are not
+	 * more likely to collide on the other.
+	 */
+	private static long fingerprint(FeatureRef featureRef, String userGroupingId, String limitId, long windowStart) {
+		long hash = 0x9E3779B97F4A7C15L;
+		hash = fingerprint(hash, featureRef.productId());
+		hash = fingerprint(hash, featureRef.featureId());
+		hash = fingerprint(hash, userGroupingId);
+		hash = fingerprint(hash, limitId);
+		return mix(hash + Long.rotateLeft(windowStart, 32) * 0xBF58476D1CE4E5B9L);
+	}
+
+	private static long fingerprint(long hash, String value) {
+		if (value == null) {
+			return Long.rotateLeft(hash + 0x632BE59BD9B4E019L, 29) * 0x94D049BB133111EBL;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			hash = Long.rotateLeft(hash + value.charAt(i) * 0xBF58476D1CE4E5B9L, 29) * 0x94D049BB133111EBL;
+		}
+		return Long.rotateLeft(hash + value.length(), 29) * 0x94D049BB133111EBL;
+	}
+
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xFF51AFD7ED558CCDL;
+		value ^= value >>> 33;
+		value *= 0xC4CEB9FE1A85EC53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+	private static long toEpochNanos(ZonedDateTime dateTime) {
+		return (dateTime != null) ? dateTime.toEpochSecond() * 1_000_000_000L + dateTime.getNano() : NO_TIME;
+	}
+
+	private static ZonedDateTime fromEpochNanos(long epochNanos) {
+		if (epochNanos == NO_TIME) {
+			return null;
+		}
+		return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L))
+				.atZone(ZoneOffset.UTC);
+	}
+
+	static long getLong(ByteBuffer buffer, int offset) {
+		return (long) LONGS.getVolatile(buffer, offset);
+	}
+
+	static void setLong(ByteBuffer buffer, int offset, long value) {
+		LONGS.setVolatile(buffer, offset, value);
+	}
+
+	private static boolean compareAndSetLong(ByteBuffer buffer, int offset, long expected, long value) {
+		return LONGS.compareAndSet(buffer, offset, expected, value);
+	}
+
+	private static long getAndAddLong(ByteBuffer buffer, int offset, long delta) {
+		return (long) LONGS.getAndAdd(buffer, offset, delta);
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		try {
+			channel.close();
+		}
+		catch (IOException ex) {
+			LOGGER.log(Level.WARNING, "Failed to close usage store file", ex);
+		}
+	}
+
+	private static final class Table {
+
+		final FileChannel channel;
+
+		final MappedByteBuffer buffer;
+
+		final int capacity;
+
+		FileLock lock;
+
+		Table(FileChannel channel, FileLock lock, MappedByteBuffer buffer, int capacity) {
+			this.channel = channel;
+			this.lock = lock;
+			this.buffer = buffer;
+			this.capacity = capacity;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.OptionalLong;
+
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class MySQLUsageSqlDialect extends UsageSqlDialect {
+
+	public MySQLUsageSqlDialect() {
+	}
+
+	/**
+	 * The usage table scripts of MySQL only define {@code TIMESTAMP} window columns.
+	 */
+	public MySQLUsageSqlDialect(WindowStorage windowStorage) {
+		super(windowStorage);
+		if (windowStorage != WindowStorage.TIMESTAMP) {
+			throw new IllegalArgumentException("MySQL usage tables only store windows as " + WindowStorage.TIMESTAMP);
+		}
+	}
+
+	@Override
+	public OptionalLong incrementWithinLimit(Connection connection, String tableName, UsageDelta delta, int shard) throws SQLException {
+		if (delta.initialUnits() > delta.maxUnits()) {
+			return OptionalLong.empty();
+		}
+		// No RETURNING clause: create or lock the row, update it conditionally, then read it back
+		try (PreparedStatement lockStatement = connection.prepareStatement(lockRowSql(tableName));
+				PreparedStatement updateStatement = connection.prepareStatement(conditionalUpsertSql(tableName));
+				PreparedStatement selectStatement = connection.prepareStatement(
+						"SELECT units FROM " + tableName + " WHERE usage_id = LAST_INSERT_ID()")) {
+			setInsertValues(lockStatement, 1, delta, shard, 0);
+			lockStatement.executeUpdate();
+
+			bindConditionalUpsert(updateStatement, delta, shard);
+			if (updateStatement.executeUpdate() == 0) {
+				return OptionalLong.empty();
+			}
+			try (ResultSet resultSet = selectStatement.executeQuery()) {
+				return resultSet.next() ? OptionalLong.of(resultSet.getLong(1)) : OptionalLong.empty();
+			}
+		}
+	}
+
+	private String lockRowSql(String tableName) {
+		return "INSERT INTO " + tableName + " (" + INSERT_COLUMNS + ") VALUES (" + INSERT_PARAMETERS + ")"
+				+ " ON DUPLICATE KEY UPDATE usage_id = LAST_INSERT_ID(usage_id)";
+	}
+
+	@Override
+	protected String conditionalUpsertSql(String tableName) {
+		return "UPDATE " + tableName + " SET units = GREATEST(units + ?, ?), updated_at = CURRENT_TIMESTAMP"
+				+ " WHERE usage_id = LAST_INSERT_ID() AND shard_count <= 1 AND GREATEST(units + ?, ?) <= ?";
+	}
+
+	@Override
+	protected void bindConditionalUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException {
+		statement.setLong(1, delta.units());
+		statement.setLong(2, delta.minUnits());
+		statement.setLong(3, delta.units());
+		statement.setLong(4, delta.minUnits());
+		statement.setLong(5, delta.maxUnits());
+	}
+
+	@Override
+	protected String upsertSql(String tableName) {
+		return "INSERT INTO " + tableName + " (" + INSERT_COLUMNS + ") VALUES (" + INSERT_PARAMETERS + ")"
+				+ " ON DUPLICATE KEY UPDATE units = GREATEST(units + ?, ?), updated_at = CURRENT_TIMESTAMP";
+	}
+
+	@Override
+	protected void bindUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException {
+		int index = setInsertValues(statement, 1, delta, shard);
+		statement.setLong(index++, delta.units());
+		statement.setLong(index, delta.minUnits());
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class PostgreSQLUsageSqlDialect extends UsageSqlDialect {
+
+	private static final String CONFLICT_TARGET = "(product_id, feature_id, user_grouping, limit_id, window_start, shard)";
+
+	public PostgreSQLUsageSqlDialect() {
+	}
+
+	public PostgreSQLUsageSqlDialect(WindowStorage windowStorage) {
+		super(windowStorage);
+	}
+
+	@Override
+	protected String conditionalUpsertSql(String tableName) {
+		return "INSERT INTO " + tableName + " AS u (" + INSERT_COLUMNS + ") VALUES (" + INSERT_PARAMETERS + ")"
+				+ " ON CONFLICT " + CONFLICT_TARGET
+				+ " DO UPDATE SET units = GREATEST(u.units + ?, ?), updated_at = CURRENT_TIMESTAMP"
+				+ " WHERE u.shard_count <= 1 AND GREATEST(u.units + ?, ?) <= ?"
+				+ " RETURNING units";
+	}
+
+	@Override
+	protected void bindConditionalUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException {
+		int index = setInsertValues(statement, 1, delta, shard);
+		statement.setLong(index++, delta.units());
+		statement.setLong(index++, delta.minUnits());
+		statement.setLong(index++, delta.units());
+		statement.setLong(index++, delta.minUnits());
+		statement.setLong(index, delta.maxUnits());
+	}
+
+	@Override
+	protected String upsertSql(String tableName) {
+		return "INSERT INTO " + tableName + " AS u (" + INSERT_COLUMNS + ") VALUES (" + INSERT_PARAMETERS + ")"
+				+ " ON CONFLICT " + CONFLICT_TARGET
+				+ " DO UPDATE SET units = GREATEST(u.units + ?, ?), updated_at = CURRENT_TIMESTAMP";
+	}
+
+	@Override
+	protected void bindUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException {
+		int index = setInsertValues(statement, 1, delta, shard);
+		statement.setLong(index++, delta.units());
+		statement.setLong(index, delta.minUnits());
+	}
+}
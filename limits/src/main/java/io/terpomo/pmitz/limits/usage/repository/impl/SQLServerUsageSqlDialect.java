@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class SQLServerUsageSqlDialect extends UsageSqlDialect {
+
+	private static final String UPDATED_UNITS = "CASE WHEN u.units + ? < ? THEN ? ELSE u.units + ? END";
+
+	public SQLServerUsageSqlDialect() {
+	}
+
+	/**
+	 * The usage table scripts of SQL Server only define {@code TIMESTAMP} window columns.
+	 */
+	public SQLServerUsageSqlDialect(WindowStorage windowStorage) {
+		super(windowStorage);
+		if (windowStorage != WindowStorage.TIMESTAMP) {
+			throw new IllegalArgumentException("SQL Server usage tables only store windows as " + WindowStorage.TIMESTAMP);
+		}
+	}
+
+	/**
+	 * The plan of a cached statement is compiled for the first user grouping it runs with,
+	 * which can hold many more or far fewer records than the others.
+	 */
+	@Override
+	protected String queryHint() {
+		return " OPTION (OPTIMIZE FOR UNKNOWN)";
+	}
+
+	@Override
+	protected String lockingTableHint() {
+		return " WITH (UPDLOCK, HOLDLOCK)";
+	}
+
+	@Override
+	protected String lockingClause() {
+		return "";
+	}
+
+	@Override
+	protected String conditionalUpsertSql(String tableName) {
+		return mergeSql(tableName, " AND u.shard_count <= 1 AND " + UPDATED_UNITS + " <= ?") + " OUTPUT inserted.units;";
+	}
+
+	@Override
+	protected void bindConditionalUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException {
+		int index = setKey(statement, 1, delta, shard);
+		index = setUpdatedUnits(statement, index, delta);
+		statement.setLong(index++, delta.maxUnits());
+		setMergeValues(statement, index, delta);
+	}
+
+	@Override
+	protected String upsertSql(String tableName) {
+		return mergeSql(tableName, "") + ";";
+	}
+
+	@Override
+	protected void bindUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException {
+		int index = setKey(statement, 1, delta, shard);
+		setMergeValues(statement, index, delta);
+	}
+
+	private void setMergeValues(PreparedStatement statement, int startIndex, UsageDelta delta) throws SQLException {
+		int index = setUpdatedUnits(statement, startIndex, delta);
+		setTime(statement, index++, delta.windowEnd());
+		statement.setLong(index++, delta.initialUnits());
+		setTime(statement, index, delta.expirationDate());
+	}
+
+	private int setUpdatedUnits(PreparedStatement statement, int startIndex, UsageDelta delta) throws SQLException {
+		int index = startIndex;
+		statement.setLong(index++, delta.units());
+		statement.setLong(index++, delta.minUnits());
+		statement.setLong(index++, delta.minUnits());
+		statement.setLong(index++, delta.units());
+		return index;
+	}
+
+	private String mergeSql(String tableName, String matchedCondition) {
+		return "MERGE INTO " + tableName + " WITH (HOLDLOCK) AS u"
+				+ " USING (SELECT ? AS product_id, ? AS feature_id, ? AS user_grouping, ? AS limit_id, ? AS window_start,"
+				+ " ? AS shard) AS s"
+				+ " ON u.product_id = s.product_id AND u.feature_id = s.feature_id AND u.user_grouping = s.user_grouping"
+				+ " AND u.limit_id = s.limit_id AND u.shard = s.shard"
+				+ " AND (u.window_start = s.window_start OR (u.window_start IS NULL AND s.window_start IS NULL))"
+				+ " WHEN MATCHED" + matchedCondition
+				+ " THEN UPDATE SET units = " + UPDATED_UNITS + ", updated_at = SYSUTCDATETIME()"
+				+ " WHEN NOT MATCHED THEN INSERT (" + INSERT_COLUMNS + ")"
+				+ " VALUES (s.feature_id, s.product_id, s.user_grouping, s.limit_id, s.window_start, ?, ?, ?, s.shard)";
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+public final class UsagePartitionMaintainer implements AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(UsagePartitionMaintainer.class.getName());
+
+	private static final String PARTITION_INFIX = "_p";
+
+	private static final String DEFAULT_PARTITION_SUFFIX = "_default";
+
+	private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+	private final DataSource dataSource;
+	private final String schemaName;
+	private final String fullTableName;
+	private final WindowStorage windowStorage;
+	private final String baseTableName;
+	private final int partitionsAhead;
+	private final Period retention;
+	private final Clock clock;
+	private final ReentrantLock maintenanceLock = new ReentrantLock();
+	private final ScheduledExecutorService scheduler;
+
+	private final LongAdder runs = new LongAdder();
+	private final LongAdder failedRuns = new LongAdder();
+	private final LongAdder createdPartitions = new LongAdder();
+	private final LongAdder droppedPartitions = new LongAdder();
+	private final LongAdder purgedRecords = new LongAdder();
+
+	private UsagePartitionMaintainer(Builder builder) {
+		this.dataSource = builder.usageRepository.getDataSource();
+		this.schemaName = builder.usageRepository.getSchemaName();
+		this.fullTableName = builder.usageRepository.getFullTableName();
+		this.windowStorage = builder.usageRepository.getWindowStorage();
+		this.baseTableName = unquote(builder.usageRepository.getTableName());
+		this.partitionsAhead = builder.partitionsAhead;
+		this.retention = builder.retention;
+		this.clock = builder.clock;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pmitz-usage-partitions");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = builder.maintenanceInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::maintainQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public static Builder builder(JDBCUsageRepository usageRepository) {
+		return new Builder(usageRepository);
+	}
+
+	/**
+	 * Creates the monthly partitions missing from the current month to the configured number of
+	 * months ahead, then drops the partitions of the months that ended more than the retention
+	 * ago, and deletes the expired records of the default partition. The usage table must be
+	 * partitioned by range of {@code window_start}, with partitions named after the table and
+	 * their month, such as {@code usage_p2025_03}, and a default partition such as
+	 * {@code usage_default}. A run started while another one is in progress returns right away.
+	 */
+	public void maintainPartitions() {
+		if (!maintenanceLock.tryLock()) {
+			return;
+		}
+		try {
+			runs.increment();
+			try (Connection connection = dataSource.getConnection()) {
+				Set<String> partitions = findPartitions(connection);
+				createPartitions(connection, partitions);
+				dropExpiredPartitions(connection, partitions);
+				purgeDefaultPartition(connection, partitions);
+			}
+			catch (SQLException ex) {
+				failedRuns.increment();
+				throw new UsageRepositoryException("Failed to maintain usage partitions", ex);
+			}
+		}
+		finally {
+			maintenanceLock.unlock();
+		}
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(runs.sum(), failedRuns.sum(), createdPartitions.sum(), droppedPartitions.sum(),
+				purgedRecords.sum());
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private Set<String> findPartitions(Connection connection) throws SQLException {
+		String query = "SELECT c.relname FROM pg_catalog.pg_inherits i"
+				+ " JOIN pg_catalog.pg_class c ON c.oid = i.inhrelid"
+				+ " WHERE i.inhparent = CAST(? AS regclass)";
+		Set<String> partitions = new HashSet<>();
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, fullTableName);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					partitions.add(resultSet.getString(1));
+				}
+			}
+		}
+		return partitions;
+	}
+
+	/**
+	 * Partitions are created ahead of the windows they hold: a partition cannot be created once
+	 * records of its month have been written to the default partition.
+	 */
+	private void createPartitions(Connection connection, Set<String> partitions) throws SQLException {
+		YearMonth currentMonth = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+		for (int i = 0; i <= partitionsAhead; i++) {
+			YearMonth month = currentMonth.plusMonths(i);
+			String partitionName = partitionName(month);
+			if (!partitions.contains(partitionName)) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("CREATE TABLE IF NOT EXISTS " + qualify(partitionName) + " PARTITION OF "
+							+ fullTableName + " FOR VALUES FROM (" + windowStorage.literal(month.atDay(1)) + ") TO ("
+							+ windowStorage.literal(month.plusMonths(1).atDay(1)) + ")");
+				}
+				createdPartitions.increment();
+				LOGGER.fine(() -> "Created usage partition " + partitionName);
+			}
+		}
+	}
+
+	/**
+	 * Drops the partitions of the months that ended more than the retention ago. The records of
+	 * a month are not read: they have all expired once the longest window starting in the month
+	 * has ended and its records have been kept for their expiration delay.
+	 */
+	private void dropExpiredPartitions(Connection connection, Set<String> partitions) throws SQLException {
+		LocalDate today = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+		for (String partitionName : partitions) {
+			YearMonth month = partitionMonth(partitionName);
+			if (month != null && !month.plusMonths(1).atDay(1).plus(retention).isAfter(today)) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("DROP TABLE IF EXISTS " + qualify(partitionName));
+				}
+				droppedPartitions.increment();
+				LOGGER.fine(() -> "Dropped usage partition " + partitionName);
+			}
+		}
+	}
+
+	/**
+	 * Deletes the expired records of the default partition, which holds the counters without a
+	 * window and the ones written before the partition of their month was created.
+	 */
+	private void purgeDefaultPartition(Connection connection, Set<String> partitions) throws SQLException {
+		String partitionName = baseTableName + DEFAULT_PARTITION_SUFFIX;
+		if (!partitions.contains(partitionName)) {
+			return;
+		}
+		try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + qualify(partitionName)
+				+ " WHERE expiration_date <= ?")) {
+			windowStorage.bind(statement, 1, clock.instant());
+			purgedRecords.add(statement.executeUpdate());
+		}
+	}
+
+	private String partitionName(YearMonth month) {
+		return baseTableName + PARTITION_INFIX + month.format(PARTITION_MONTH);
+	}
+
+	private YearMonth partitionMonth(String partitionName) {
+		String prefix = baseTableName + PARTITION_INFIX;
+		if (!partitionName.startsWith(prefix)) {
+			return null;
+		}
+		try {
+			return YearMonth.parse(partitionName.substring(prefix.length()), PARTITION_MONTH);
+		}
+		catch (DateTimeParseException ex) {
+			return null;
+		}
+	}
+
+	private String qualify(String partitionName) {
+		return schemaName + ".\"" + partitionName + "\"";
+	}
+
+	/**
+	 * Returns the table name as stored in the catalog: unquoted identifiers are folded to lower case.
+	 */
+	private static String unquote(String tableName) {
+		if (tableName.startsWith("\"") && tableName.endsWith("\"")) {
+			return tableName.substring(1, tableName.length() - 1);
+		}
+		return tableName.toLowerCase();
+	}
+
+	private void maintainQuietly() {
+		try {
+			maintainPartitions();
+		}
+		catch (RuntimeException ex) {
+			LOGGER.log(Level.WARNING, "Failed to maintain usage partitions, they will be maintained by the next run", ex);
+		}
+	}
+
+	public record Statistics(long runs, long failedRuns, long createdPartitions, long droppedPartitions,
+			long purgedRecords) {
+	}
+
+	public static final class Builder {
+
+		private final JDBCUsageRepository usageRepository;
+		private Duration maintenanceInterval = Duration.ofHours(12);
+		private int partitionsAhead = 3;
+		private Period retention = Period.ofMonths(15);
+		private Clock clock = Clock.systemUTC();
+
+		private Builder(JDBCUsageRepository usageRepository) {
+			this.usageRepository = usageRepository;
+		}
+
+		public Builder maintenanceInterval(Duration maintenanceInterval) {
+			if (maintenanceInterval.isNegative() || maintenanceInterval.isZero()) {
+				throw new IllegalArgumentException("maintenanceInterval must be positive");
+			}
+			this.maintenanceInterval = maintenanceInterval;
+			return this;
+		}
+
+		/**
+		 * Sets the number of monthly partitions created after the one of the current month.
+		 */
+		public Builder partitionsAhead(int partitionsAhead) {
+			if (partitionsAhead < 1) {
+				throw new IllegalArgumentException("partitionsAhead must be at least 1");
+			}
+			this.partitionsAhead = partitionsAhead;
+			return this;
+		}
+
+		/**
+		 * Sets how long the partition of a month is kept once the month has ended: the longest
+		 * window of the limits, plus the three months records are kept after their window ends.
+		 * 15 months by default, for yearly windows.
+		 */
+		public Builder retention(Period retention) {
+			if (retention.isNegative() || retention.isZero()) {
+				throw new IllegalArgumentException("retention must be positive");
+			}
+			this.retention = retention;
+			return this;
+		}
+
+		public Builder clock(Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		/**
+		 * Creates the maintainer, whose runs are scheduled every maintenance interval until it is
+		 * closed.
+		 */
+		public UsagePartitionMaintainer build() {
+			return new UsagePartitionMaintainer(this);
+		}
+	}
+}
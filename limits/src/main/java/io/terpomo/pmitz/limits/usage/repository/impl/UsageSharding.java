@@ -0,0 +1,152 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public final class UsageSharding {
+
+	public static final int MAX_SHARDS = 256;
+
+	private static final Logger LOGGER = Logger.getLogger(UsageSharding.class.getName());
+
+	private final Map<String, Integer> shardCountsByLimitId;
+	private final long lockWaitThresholdNanos;
+	private final int automaticShardCount;
+	private final Map<CounterKey, Integer> hotCounters = new ConcurrentHashMap<>();
+	private final Map<CounterKey, Long> storedWindows = new ConcurrentHashMap<>();
+
+	private UsageSharding(Map<String, Integer> shardCountsByLimitId, long lockWaitThresholdNanos, int automaticShardCount) {
+		this.shardCountsByLimitId = shardCountsByLimitId;
+		this.lockWaitThresholdNanos = lockWaitThresholdNanos;
+		this.automaticShardCount = automaticShardCount;
+	}
+
+	public static UsageSharding none() {
+		return new UsageSharding(Map.of(), 0, 1);
+	}
+
+	/**
+	 * Spreads the counters of the given limits over a fixed number of shards.
+	 * @param shardCountsByLimitId <code>Map</code> of the number of shards by limit id
+	 * @return the sharding configuration
+	 */
+	public static UsageSharding ofLimits(Map<String, Integer> shardCountsByLimitId) {
+		shardCountsByLimitId.values().forEach(UsageSharding::validateShardCount);
+		return new UsageSharding(Map.copyOf(shardCountsByLimitId), 0, 1);
+	}
+
+	/**
+	 * Spreads a counter over <code>shardCount</code> shards once one of its updates waited
+	 * longer than <code>lockWaitThreshold</code>. The shard count is stored with the first
+	 * shard of the counter, so that the other repositories sharing the table also update the
+	 * counter as a sharded counter. A counter stays sharded until the repository is recreated.
+	 * @param lockWaitThreshold <code>Duration</code> of an update above which the counter is sharded
+	 * @param shardCount <code>int</code> the number of shards of the counters found to be hot
+	 * @return the sharding configuration
+	 */
+	public static UsageSharding automatic(Duration lockWaitThreshold, int shardCount) {
+		return none().withAutomaticSharding(lockWaitThreshold, shardCount);
+	}
+
+	public UsageSharding withAutomaticSharding(Duration lockWaitThreshold, int shardCount) {
+		Objects.requireNonNull(lockWaitThreshold, "Lock wait threshold cannot be null");
+		if (lockWaitThreshold.isNegative() || lockWaitThreshold.isZero()) {
+			throw new IllegalArgumentException("Lock wait threshold must be positive");
+		}
+		validateShardCount(shardCount);
+		return new UsageSharding(shardCountsByLimitId, lockWaitThreshold.toNanos(), shardCount);
+	}
+
+	public boolean isEnabled() {
+		return !shardCountsByLimitId.isEmpty() || lockWaitThresholdNanos > 0;
+	}
+
+	/**
+	 * Returns the number of shards of the counter updated by the delta. Deltas with a
+	 * minimum, such as the ones of token buckets, do not hold a count and are never sharded.
+	 */
+	public int getShardCount(UsageDelta delta) {
+		if (delta.minUnits() != 0) {
+			return 1;
+		}
+		int shardCount = shardCountsByLimitId.getOrDefault(delta.limitId(), 1);
+		return Math.max(shardCount, hotCounters.getOrDefault(CounterKey.of(delta), 1));
+	}
+
+	/**
+	 * Shards the counter updated by the delta after its shard count was found stored in
+	 * the usage table, by another repository or before a restart.
+	 */
+	void registerStoredShardCount(UsageDelta delta, int shardCount) {
+		CounterKey counterKey = CounterKey.of(delta);
+		if (shardCount > getShardCount(delta) && shardCount <= MAX_SHARDS) {
+			hotCounters.merge(counterKey, shardCount, Math::max);
+			storedWindows.remove(counterKey);
+		}
+	}
+
+	/**
+	 * Tells whether the shard count of the counter was already stored for the window of the delta.
+	 */
+	boolean isShardCountStored(UsageDelta delta) {
+		Long storedWindow = storedWindows.get(CounterKey.of(delta));
+		return storedWindow != null && storedWindow == windowKey(delta);
+	}
+
+	void shardCountStored(UsageDelta delta) {
+		storedWindows.put(CounterKey.of(delta), windowKey(delta));
+	}
+
+	int selectShard(UsageDelta delta) {
+		int shardCount = getShardCount(delta);
+		return (shardCount > 1) ? ThreadLocalRandom.current().nextInt(shardCount) : 0;
+	}
+
+	void recordUpdateTime(UsageDelta delta, long elapsedNanos) {
+		if (lockWaitThresholdNanos > 0 && elapsedNanos >= lockWaitThresholdNanos && getShardCount(delta) == 1
+				&& delta.minUnits() == 0 && hotCounters.putIfAbsent(CounterKey.of(delta), automaticShardCount) == null) {
+			LOGGER.info(() -> "Sharding counter of limit " + delta.limitId() + " for user grouping "
+					+ delta.userGroupingId() + " over " + automaticShardCount + " shards");
+		}
+	}
+
+	private static long windowKey(UsageDelta delta) {
+		return (delta.windowStart() != null) ? delta.windowStart().toInstant().toEpochMilli() : Long.MIN_VALUE;
+	}
+
+	private static void validateShardCount(int shardCount) {
+		if (shardCount < 1 || shardCount > MAX_SHARDS) {
+			throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS);
+		}
+	}
+
+	private record CounterKey(String productId, String featureId, String userGroupingId, String limitId) {
+
+		static CounterKey of(UsageDelta delta) {
+			return new CounterKey(delta.featureRef().productId(), delta.featureRef().featureId(),
+					delta.userGroupingId(), delta.limitId());
+		}
+	}
+}
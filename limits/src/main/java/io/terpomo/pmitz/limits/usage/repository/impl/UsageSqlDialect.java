@@ -0,0 +1,490 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public abstract class UsageSqlDialect {
+
+	protected static final String INSERT_COLUMNS = "feature_id, product_id, user_grouping, limit_id, window_start, window_end, units, expiration_date, shard";
+
+	protected static final String INSERT_PARAMETERS = "?, ?, ?, ?, ?, ?, ?, ?, ?";
+
+	protected static final String LOAD_COLUMNS = "usage_id, limit_id, window_start, window_end, expiration_date, units";
+
+	protected static final String VERSIONED_LOAD_COLUMNS = LOAD_COLUMNS + ", version";
+
+	private static final int MAX_CACHED_STATEMENTS = 256;
+
+	private final Map<String, String> statementCache = new ConcurrentHashMap<>();
+
+	private final WindowStorage windowStorage;
+
+	protected UsageSqlDialect() {
+		this(WindowStorage.TIMESTAMP);
+	}
+
+	protected UsageSqlDialect(WindowStorage windowStorage) {
+		this.windowStorage = windowStorage;
+	}
+
+	public static UsageSqlDialect forDatabase(String databaseProductName) {
+		return forDatabase(databaseProductName, WindowStorage.TIMESTAMP);
+	}
+
+	public static UsageSqlDialect forDatabase(String databaseProductName, WindowStorage windowStorage) {
+		String productName = databaseProductName.toLowerCase(Locale.ROOT);
+		if (productName.contains("postgresql")) {
+			return new PostgreSQLUsageSqlDialect(windowStorage);
+		}
+		if (productName.contains("h2")) {
+			return new H2UsageSqlDialect(windowStorage);
+		}
+		if (productName.contains("mysql") || productName.contains("mariadb")) {
+			return new MySQLUsageSqlDialect(windowStorage);
+		}
+		if (productName.contains("sql server")) {
+			return new SQLServerUsageSqlDialect(windowStorage);
+		}
+		throw new UsageRepositoryException("No usage SQL dialect available for database '" + databaseProductName + "'");
+	}
+
+	/**
+	 * Returns how the window boundaries and expiration dates are stored in the usage table.
+	 */
+	public WindowStorage getWindowStorage() {
+		return windowStorage;
+	}
+
+	/**
+	 * Applies the delta to the counter, or creates the counter, in a single statement.
+	 * @return the units of the counter after the update, or an empty optional if the update
+	 * would have exceeded the maximum units of the delta, or if the counter is stored with
+	 * more than one shard
+	 */
+	public OptionalLong incrementWithinLimit(Connection connection, String tableName, UsageDelta delta) throws SQLException {
+		return incrementWithinLimit(connection, tableName, delta, 0);
+	}
+
+	public OptionalLong incrementWithinLimit(Connection connection, String tableName, UsageDelta delta, int shard) throws SQLException {
+		if (delta.initialUnits() > delta.maxUnits()) {
+			return OptionalLong.empty();
+		}
+		try (PreparedStatement statement = connection.prepareStatement(conditionalUpsertSql(tableName))) {
+			bindConditionalUpsert(statement, delta, shard);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() ? OptionalLong.of(resultSet.getLong(1)) : OptionalLong.empty();
+			}
+		}
+	}
+
+	public void applyDeltas(Connection connection, String tableName, List<UsageDelta> deltas) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(upsertSql(tableName))) {
+			for (UsageDelta delta : deltas) {
+				statement.clearParameters();
+				bindUpsert(statement, delta, 0);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+	}
+
+	/**
+	 * Applies the delta to one shard of a counter and returns the units of all its shards.
+	 * A shard can go below the minimum units of the delta, only the total is kept above it.
+	 * The other shards are read without being locked, so concurrent updates of other shards
+	 * are not taken into account.
+	 * @return the units of all the shards of the counter after the update
+	 */
+	public long applyToShard(Connection connection, String tableName, UsageDelta delta, int shard) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(upsertSql(tableName))) {
+			bindUpsert(statement, withoutMinimum(delta, delta.units()), shard);
+			statement.executeUpdate();
+
+			long totalUnits = sumShards(connection, tableName, delta);
+			if (totalUnits < delta.minUnits()) {
+				statement.clearParameters();
+				bindUpsert(statement, withoutMinimum(delta, delta.minUnits() - totalUnits), shard);
+				statement.executeUpdate();
+				totalUnits = delta.minUnits();
+			}
+			return totalUnits;
+		}
+	}
+
+	/**
+	 * Returns the number of shards stored with the first shard of the counter, which is 1
+	 * as long as the counter has not been sharded.
+	 */
+	public int findShardCount(Connection connection, String tableName, UsageDelta delta) throws SQLException {
+		String query = "SELECT shard_count FROM " + tableName + " WHERE " + counterCondition(delta) + " AND shard = 0";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			bindCounter(statement, delta);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() ? resultSet.getInt(1) : 1;
+			}
+		}
+	}
+
+	/**
+	 * Stores the number of shards of the counter with its first shard, creating the shard when
+	 * needed. The conditional upsert of {@link #incrementWithinLimit} is rejected on a counter
+	 * stored with more than one shard, which tells the repositories that did not shard the
+	 * counter themselves to update it as a sharded counter.
+	 */
+	public void storeShardCount(Connection connection, String tableName, UsageDelta delta, int shardCount)
+			throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(upsertSql(tableName))) {
+			bindUpsert(statement, withoutMinimum(delta, 0), 0);
+			statement.executeUpdate();
+		}
+		String update = "UPDATE " + tableName + " SET shard_count = ? WHERE " + counterCondition(delta)
+				+ " AND shard = 0 AND shard_count < ?";
+		try (PreparedStatement statement = connection.prepareStatement(update)) {
+			statement.setInt(1, shardCount);
+			int index = bindCounter(statement, delta, 2);
+			statement.setInt(index, shardCount);
+			statement.executeUpdate();
+		}
+	}
+
+	private long sumShards(Connection connection, String tableName, UsageDelta delta) throws SQLException {
+		String query = "SELECT COALESCE(SUM(units), 0) FROM " + tableName + " WHERE " + counterCondition(delta);
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			bindCounter(statement, delta);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				resultSet.next();
+				return resultSet.getLong(1);
+			}
+		}
+	}
+
+	private static String counterCondition(UsageDelta delta) {
+		return "product_id = ? AND feature_id = ? AND user_grouping = ? AND limit_id = ?"
+				+ ((delta.windowStart() != null) ? " AND window_start = ?" : " AND window_start IS NULL");
+	}
+
+	private void bindCounter(PreparedStatement statement, UsageDelta delta) throws SQLException {
+		bindCounter(statement, delta, 1);
+	}
+
+	private int bindCounter(PreparedStatement statement, UsageDelta delta, int startIndex) throws SQLException {
+		int index = startIndex;
+		statement.setString(index++, delta.featureRef().productId());
+		statement.setString(index++, delta.featureRef().featureId());
+		statement.setString(index++, delta.userGroupingId());
+		statement.setString(index++, delta.limitId());
+		if (delta.windowStart() != null) {
+			setTime(statement, index++, delta.windowStart());
+		}
+		return index;
+	}
+
+	private static UsageDelta withoutMinimum(UsageDelta delta, long units) {
+		return new UsageDelta(delta.featureRef(), delta.userGroupingId(), delta.limitId(), delta.windowStart(),
+				delta.windowEnd(), delta.expirationDate(), units, UsageDelta.UNBOUNDED, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Returns the query loading the usage records matching the search criteria of the contexts,
+	 * with one {@code UNION ALL} branch per criterion. The branches select the index of their
+	 * context as {@code context_index}; a record matching several criteria of a context is
+	 * returned once per criterion. The query only depends on the number of criteria and on the
+	 * fields they set, so it is built once per shape and the statement can be reused by the
+	 * driver and the database. Criteria setting no field are ignored.
+	 * @return the query, or {@code null} if no context has a criterion to search for
+	 */
+	public String loadUsageRecordsSql(String tableName, List<LimitTrackingContext> contexts) {
+		return loadUsageRecordsSql(tableName, contexts, false);
+	}
+
+	/**
+	 * Returns the query of {@link #loadUsageRecordsSql(String, List)}, also selecting the
+	 * {@code version} of the records when {@code versioned} is set.
+	 */
+	public String loadUsageRecordsSql(String tableName, List<LimitTrackingContext> contexts, boolean versioned) {
+		StringBuilder shape = new StringBuilder(tableName).append(versioned ? 'V' : '|');
+		boolean searchable = false;
+		for (LimitTrackingContext context : contexts) {
+			shape.append('|');
+			for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
+				if (isSearchable(criteria)) {
+					shape.append((criteria.limitId() != null) ? 'L' : '-')
+							.append((criteria.windowStart() != null) ? 'S' : '-')
+							.append((criteria.windowEnd() != null) ? 'E' : '-');
+					searchable = true;
+				}
+			}
+		}
+		if (!searchable) {
+			return null;
+		}
+		return cachedStatement(shape.toString(), () -> {
+			List<String> branches = new ArrayList<>();
+			for (int i = 0; i < contexts.size(); i++) {
+				for (RecordSearchCriteria criteria : contexts.get(i).getSearchCriteria()) {
+					if (isSearchable(criteria)) {
+						branches.add(loadBranchSql(tableName, i, versioned ? VERSIONED_LOAD_COLUMNS : LOAD_COLUMNS,
+								criteria.limitId() != null, criteria.windowStart() != null, criteria.windowEnd() != null));
+					}
+				}
+			}
+			return String.join(" UNION ALL ", branches) + queryHint();
+		});
+	}
+
+	/**
+	 * Binds the parameters of the query returned by {@link #loadUsageRecordsSql} for the same contexts.
+	 */
+	public void bindLoadUsageRecords(PreparedStatement statement, List<LimitTrackingContext> contexts)
+			throws SQLException {
+		int index = 1;
+		for (LimitTrackingContext context : contexts) {
+			for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
+				if (isSearchable(criteria)) {
+					statement.setString(index++, context.getFeatureRef().featureId());
+					statement.setString(index++, context.getFeatureRef().productId());
+					statement.setString(index++, context.getUserGrouping().getId());
+					index = bindCriteria(statement, index, criteria);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the query loading the usage records matching the search criteria of one context
+	 * and locking them until the end of the transaction. The records are locked in the order of
+	 * their limit id and window, so that transactions locking records of the same contexts
+	 * cannot deadlock. The criteria are combined in a single condition, as a {@code UNION}
+	 * cannot be locked.
+	 * @return the query, or {@code null} if the context has no criterion to search for
+	 */
+	public String lockUsageRecordsSql(String tableName, LimitTrackingContext context) {
+		StringBuilder shape = new StringBuilder(tableName).append('!');
+		List<String> conditions = new ArrayList<>();
+		for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
+			if (isSearchable(criteria)) {
+				shape.append((criteria.limitId() != null) ? 'L' : '-')
+						.append((criteria.windowStart() != null) ? 'S' : '-')
+						.append((criteria.windowEnd() != null) ? 'E' : '-');
+				conditions.add("(" + criteriaConditions(criteria.limitId() != null, criteria.windowStart() != null,
+						criteria.windowEnd() != null) + ")");
+			}
+		}
+		if (conditions.isEmpty()) {
+			return null;
+		}
+		return cachedStatement(shape.toString(), () -> "SELECT " + LOAD_COLUMNS + " FROM " + tableName + lockingTableHint()
+				+ " WHERE feature_id = ? AND product_id = ? AND user_grouping = ? AND (" + String.join(" OR ", conditions)
+				+ ") ORDER BY limit_id, window_start" + lockingClause() + queryHint());
+	}
+
+	/**
+	 * Binds the parameters of the query returned by {@link #lockUsageRecordsSql} for the same context.
+	 */
+	public void bindLockUsageRecords(PreparedStatement statement, LimitTrackingContext context) throws SQLException {
+		int index = 1;
+		statement.setString(index++, context.getFeatureRef().featureId());
+		statement.setString(index++, context.getFeatureRef().productId());
+		statement.setString(index++, context.getUserGrouping().getId());
+		for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
+			if (isSearchable(criteria)) {
+				index = bindCriteria(statement, index, criteria);
+			}
+		}
+	}
+
+	/**
+	 * Returns the query finding the {@code usage_id} of existing counters, with one
+	 * {@code UNION ALL} branch per counter selecting the index of the counter as
+	 * {@code lookup_index}.
+	 */
+	public String findUsageIdsSql(String tableName, List<CounterLookup> lookups) {
+		StringBuilder shape = new StringBuilder(tableName).append('#');
+		lookups.forEach(lookup -> shape.append((lookup.windowStart() != null) ? 'S' : '-'));
+		return cachedStatement(shape.toString(), () -> {
+			List<String> branches = new ArrayList<>();
+			for (int i = 0; i < lookups.size(); i++) {
+				branches.add("SELECT " + i + " AS lookup_index, usage_id FROM " + tableName
+						+ " WHERE feature_id = ? AND product_id = ? AND user_grouping = ? AND limit_id = ?"
+						+ ((lookups.get(i).windowStart() != null) ? " AND window_start = ?" : " AND window_start IS NULL"));
+			}
+			return String.join(" UNION ALL ", branches) + queryHint();
+		});
+	}
+
+	public void bindFindUsageIds(PreparedStatement statement, List<CounterLookup> lookups) throws SQLException {
+		int index = 1;
+		for (CounterLookup lookup : lookups) {
+			statement.setString(index++, lookup.featureRef().featureId());
+			statement.setString(index++, lookup.featureRef().productId());
+			statement.setString(index++, lookup.userGroupingId());
+			statement.setString(index++, lookup.limitId());
+			if (lookup.windowStart() != null) {
+				setTime(statement, index++, lookup.windowStart());
+			}
+		}
+	}
+
+	/**
+	 * Returns a branch of the load query. The lower bound on {@code window_start} lets a table
+	 * partitioned by {@code window_start} skip the older partitions.
+	 */
+	protected String loadBranchSql(String tableName, int contextIndex, String columns, boolean hasLimitId,
+			boolean hasWindowStart, boolean hasWindowEnd) {
+		return "SELECT " + contextIndex + " AS context_index, " + columns + " FROM " + tableName
+				+ " WHERE feature_id = ? AND product_id = ? AND user_grouping = ? AND "
+				+ criteriaConditions(hasLimitId, hasWindowStart, hasWindowEnd);
+	}
+
+	/**
+	 * Returns the clause appended to the queries reading the usage table, such as a
+	 * vendor-specific query hint. Empty by default.
+	 */
+	protected String queryHint() {
+		return "";
+	}
+
+	/**
+	 * Returns the table hint locking the rows read by {@link #lockUsageRecordsSql}, for the
+	 * databases locking rows with a hint instead of a locking clause. Empty by default.
+	 */
+	protected String lockingTableHint() {
+		return "";
+	}
+
+	/**
+	 * Returns the clause locking the rows read by {@link #lockUsageRecordsSql}.
+	 */
+	protected String lockingClause() {
+		return " FOR UPDATE";
+	}
+
+	private static String criteriaConditions(boolean hasLimitId, boolean hasWindowStart, boolean hasWindowEnd) {
+		List<String> conditions = new ArrayList<>();
+		if (hasLimitId) {
+			conditions.add("limit_id = ?");
+		}
+		if (hasWindowStart) {
+			conditions.add("(window_start >= ? OR window_start IS NULL)");
+			conditions.add("(window_end >= ? OR window_end IS NULL)");
+		}
+		if (hasWindowEnd) {
+			conditions.add("(window_start <= ? OR window_start IS NULL)");
+		}
+		return String.join(" AND ", conditions);
+	}
+
+	private int bindCriteria(PreparedStatement statement, int startIndex, RecordSearchCriteria criteria)
+			throws SQLException {
+		int index = startIndex;
+		if (criteria.limitId() != null) {
+			statement.setString(index++, criteria.limitId());
+		}
+		if (criteria.windowStart() != null) {
+			setTime(statement, index++, criteria.windowStart());
+			setTime(statement, index++, criteria.windowStart());
+		}
+		if (criteria.windowEnd() != null) {
+			setTime(statement, index++, criteria.windowEnd());
+		}
+		return index;
+	}
+
+	private String cachedStatement(String shape, Supplier<String> statementBuilder) {
+		String statement = statementCache.get(shape);
+		if (statement == null) {
+			statement = statementBuilder.get();
+			if (statementCache.size() < MAX_CACHED_STATEMENTS) {
+				statementCache.putIfAbsent(shape, statement);
+			}
+		}
+		return statement;
+	}
+
+	private static boolean isSearchable(RecordSearchCriteria criteria) {
+		return criteria.limitId() != null || criteria.windowStart() != null || criteria.windowEnd() != null;
+	}
+
+	/**
+	 * Statement returning the updated {@code units} as a single row result set, or no row at
+	 * all when the maximum would be exceeded.
+	 */
+	protected abstract String conditionalUpsertSql(String tableName);
+
+	protected abstract void bindConditionalUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException;
+
+	protected abstract String upsertSql(String tableName);
+
+	protected abstract void bindUpsert(PreparedStatement statement, UsageDelta delta, int shard) throws SQLException;
+
+	protected int setInsertValues(PreparedStatement statement, int startIndex, UsageDelta delta, int shard) throws SQLException {
+		return setInsertValues(statement, startIndex, delta, shard, delta.initialUnits());
+	}
+
+	protected int setInsertValues(PreparedStatement statement, int startIndex, UsageDelta delta, int shard, long initialUnits) throws SQLException {
+		int index = startIndex;
+		statement.setString(index++, delta.featureRef().featureId());
+		statement.setString(index++, delta.featureRef().productId());
+		statement.setString(index++, delta.userGroupingId());
+		statement.setString(index++, delta.limitId());
+		setTime(statement, index++, delta.windowStart());
+		setTime(statement, index++, delta.windowEnd());
+		statement.setLong(index++, initialUnits);
+		setTime(statement, index++, delta.expirationDate());
+		statement.setInt(index++, shard);
+		return index;
+	}
+
+	protected int setKey(PreparedStatement statement, int startIndex, UsageDelta delta, int shard) throws SQLException {
+		int index = startIndex;
+		statement.setString(index++, delta.featureRef().productId());
+		statement.setString(index++, delta.featureRef().featureId());
+		statement.setString(index++, delta.userGroupingId());
+		statement.setString(index++, delta.limitId());
+		setTime(statement, index++, delta.windowStart());
+		statement.setInt(index++, shard);
+		return index;
+	}
+
+	protected void setTime(PreparedStatement statement, int index, ZonedDateTime dateTime) throws SQLException {
+		windowStorage.bind(statement, index, dateTime);
+	}
+
+	/**
+	 * Identifies a counter whose {@code usage_id} is looked up.
+	 */
+	public record CounterLookup(FeatureRef featureRef, String userGroupingId, String limitId,
+			ZonedDateTime windowStart) {
+	}
+}
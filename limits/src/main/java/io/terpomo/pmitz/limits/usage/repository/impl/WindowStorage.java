@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+public enum WindowStorage {
+
+	/**
+	 * The window boundaries and expiration date are stored in {@code TIMESTAMP} columns, read
+	 * and written as UTC instants.
+	 */
+	TIMESTAMP("TIMESTAMP", Types.TIMESTAMP) {
+		@Override
+		public void bind(PreparedStatement statement, int index, Instant instant) throws SQLException {
+			statement.setTimestamp(index, Timestamp.from(instant));
+		}
+
+		@Override
+		public ZonedDateTime read(ResultSet resultSet, String column) throws SQLException {
+			Timestamp timestamp = resultSet.getTimestamp(column);
+			return (timestamp != null) ? timestamp.toInstant().atZone(ZoneOffset.UTC) : null;
+		}
+
+		@Override
+		public String literal(LocalDate date) {
+			return "'" + date + "'";
+		}
+	},
+
+	/**
+	 * The window boundaries and expiration date are stored in {@code BIGINT} columns as
+	 * milliseconds since the epoch, so that neither the driver nor the database converts them
+	 * to a time zone. Instants are truncated to the millisecond.
+	 */
+	EPOCH_MILLIS("BIGINT", Types.BIGINT) {
+		@Override
+		public void bind(PreparedStatement statement, int index, Instant instant) throws SQLException {
+			statement.setLong(index, instant.toEpochMilli());
+		}
+
+		@Override
+		public ZonedDateTime read(ResultSet resultSet, String column) throws SQLException {
+			long epochMillis = resultSet.getLong(column);
+			return resultSet.wasNull() ? null : Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC);
+		}
+
+		@Override
+		public String literal(LocalDate date) {
+			return Long.toString(date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+		}
+	};
+
+	private final String sqlType;
+	private final int jdbcType;
+
+	WindowStorage(String sqlType, int jdbcType) {
+		this.sqlType = sqlType;
+		this.jdbcType = jdbcType;
+	}
+
+	/**
+	 * Returns the SQL type of the time columns, for the statements casting their parameters.
+	 */
+	public String sqlType() {
+		return sqlType;
+	}
+
+	public abstract void bind(PreparedStatement statement, int index, Instant instant) throws SQLException;
+
+	public void bind(PreparedStatement statement, int index, ZonedDateTime dateTime) throws SQLException {
+		if (dateTime != null) {
+			bind(statement, index, dateTime.toInstant());
+		}
+		else {
+			statement.setNull(index, jdbcType);
+		}
+	}
+
+	/**
+	 * Reads a time column as a UTC date time.
+	 * @return the date time, or {@code null} if the column is {@code NULL}
+	 */
+	public abstract ZonedDateTime read(ResultSet resultSet, String column) throws SQLException;
+
+	/**
+	 * Returns the SQL literal of the start of the given UTC date, such as a partition bound.
+	 */
+	public abstract String literal(LocalDate date);
+}
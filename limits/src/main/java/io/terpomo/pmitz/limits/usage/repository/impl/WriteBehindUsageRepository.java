@@ -0,0 +1,518 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+public class WriteBehindUsageRepository implements AtomicUsageRepository, AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(WriteBehindUsageRepository.class.getName());
+
+	private static final Comparator<CounterKey> LOCK_ORDER = Comparator
+			.comparing((CounterKey key) -> key.featureRef().productId())
+			.thenComparing(key -> key.featureRef().featureId())
+			.thenComparing(CounterKey::userGroupingId)
+			.thenComparing(CounterKey::limitId)
+			.thenComparing(CounterKey::windowStart, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final AtomicUsageRepository delegate;
+	private final long maxUnflushedUnits;
+	private final int maxBatchSize;
+	private final boolean drainOnClose;
+	private final Duration shutdownTimeout;
+
+	private final Map<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private final ScheduledExecutorService scheduler;
+
+	private final LongAdder recordedDeltas = new LongAdder();
+	private final LongAdder flushedDeltas = new LongAdder();
+	private final LongAdder flushes = new LongAdder();
+	private final LongAdder failedFlushes = new LongAdder();
+
+	private WriteBehindUsageRepository(Builder builder) {
+		this.delegate = builder.delegate;
+		this.maxUnflushedUnits = builder.maxUnflushedUnits;
+		this.maxBatchSize = builder.maxBatchSize;
+		this.drainOnClose = builder.drainOnClose;
+		this.shutdownTimeout = builder.shutdownTimeout;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pmitz-usage-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = builder.flushInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public static Builder builder(AtomicUsageRepository delegate) {
+		return new Builder(delegate);
+	}
+
+	public AtomicUsageRepository getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public void loadUsageData(LimitTrackingContext context) {
+		List<UsageRecord> records = new ArrayList<>();
+		for (RecordSearchCriteria criteria : context.getSearchCriteria()) {
+			if (criteria.limitId() == null) {
+				continue;
+			}
+			CounterKey key = new CounterKey(context.getFeatureRef(), context.getUserGrouping().getId(),
+					criteria.limitId(), toInstant(criteria.windowStart()));
+			Counter counter = lockCounter(key, criteria.windowStart(), criteria.windowEnd(), context.getUserGrouping());
+			try {
+				if (counter.exists) {
+					records.add(new UsageRecord(criteria.limitId(), counter.windowStart, counter.windowEnd,
+							counter.units, counter.expirationDate));
+				}
+			}
+			finally {
+				counter.lock.unlock();
+			}
+		}
+		context.addCurrentUsageRecords(records);
+	}
+
+	@Override
+	public void updateUsageRecords(LimitTrackingContext context) {
+		for (UsageRecord usageRecord : context.getUpdatedUsageRecords()) {
+			if (usageRecord.limitId() == null) {
+				LOGGER.warning("UsageRecord with null limitId encountered. Skipping.");
+				continue;
+			}
+			CounterKey key = new CounterKey(context.getFeatureRef(), context.getUserGrouping().getId(),
+					usageRecord.limitId(), toInstant(usageRecord.startTime()));
+			Counter counter = lockCounter(key, usageRecord.startTime(), usageRecord.endTime(), context.getUserGrouping());
+			try {
+				counter.set(Math.max(usageRecord.units(), 0), usageRecord.endTime(), usageRecord.expirationDate());
+				requestFlushIfNeeded(counter);
+			}
+			finally {
+				counter.lock.unlock();
+			}
+			recordedDeltas.increment();
+		}
+	}
+
+	@Override
+	public boolean supportsAtomicUpdates() {
+		return true;
+	}
+
+	@Override
+	public Optional<List<Long>> applyDeltasWithinLimits(List<UsageDelta> deltas) {
+		Counter[] locked = lockCounters(deltas);
+		try {
+			long[] previousUnits = new long[deltas.size()];
+			for (int i = 0; i < deltas.size(); i++) {
+				previousUnits[i] = locked[i].units;
+				if (deltas.get(i).isIncrement() && deltas.get(i).applyTo(locked[i].units) > deltas.get(i).maxUnits()) {
+					for (int j = i - 1; j >= 0; j--) {
+						locked[j].pending -= locked[j].units - previousUnits[j];
+						locked[j].units = previousUnits[j];
+					}
+					return Optional.empty();
+				}
+				locked[i].add(deltas.get(i));
+			}
+			List<Long> results = new ArrayList<>(deltas.size());
+			for (Counter counter : locked) {
+				results.add(counter.units);
+				requestFlushIfNeeded(counter);
+			}
+			recordedDeltas.add(deltas.size());
+			return Optional.of(results);
+		}
+		finally {
+			unlock(locked);
+		}
+	}
+
+	@Override
+	public void applyDeltas(List<UsageDelta> deltas) {
+		for (UsageDelta delta : deltas) {
+			Counter counter = lockCounter(keyOf(delta), delta.windowStart(), delta.windowEnd(),
+					new GroupingRef(delta.userGroupingId()));
+			try {
+				counter.add(delta);
+				requestFlushIfNeeded(counter);
+			}
+			finally {
+				counter.lock.unlock();
+			}
+		}
+		recordedDeltas.add(deltas.size());
+	}
+
+	/**
+	 * Writes the unflushed units of all the counters to the delegate.
+	 */
+	public void flush() {
+		flushLock.lock();
+		try {
+			flushRequested.set(false);
+			List<UsageDelta> pendingDeltas = collectPendingDeltas();
+			for (int start = 0; start < pendingDeltas.size(); start += maxBatchSize) {
+				List<UsageDelta> batch = pendingDeltas.subList(start, Math.min(start + maxBatchSize, pendingDeltas.size()));
+				try {
+					delegate.applyDeltas(batch);
+					flushedDeltas.add(batch.size());
+				}
+				catch (RuntimeException ex) {
+					failedFlushes.increment();
+					restorePendingDeltas(pendingDeltas.subList(start, pendingDeltas.size()));
+					throw ex;
+				}
+			}
+			flushes.increment();
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+
+	public Statistics getStatistics() {
+		int pendingCounters = 0;
+		for (Counter counter : counters.values()) {
+			if (counter.pending != 0) {
+				pendingCounters++;
+			}
+		}
+		return new Statistics(recordedDeltas.sum(), flushedDeltas.sum(), flushes.sum(), failedFlushes.sum(),
+				pendingCounters);
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdown();
+		try {
+			if (!scheduler.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				LOGGER.warning("Write-behind flush did not stop within the shutdown timeout");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		if (drainOnClose) {
+			flush();
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		}
+		catch (RuntimeException ex) {
+			LOGGER.log(Level.WARNING, "Failed to flush usage deltas, they will be retried", ex);
+		}
+	}
+
+	private void requestFlushIfNeeded(Counter counter) {
+		if (Math.abs(counter.pending) >= maxUnflushedUnits && flushRequested.compareAndSet(false, true)) {
+			try {
+				scheduler.execute(this::flushQuietly);
+			}
+			catch (RuntimeException ex) {
+				flushRequested.set(false);
+				LOGGER.log(Level.FINE, "Early flush not scheduled", ex);
+			}
+		}
+	}
+
+	private List<UsageDelta> collectPendingDeltas() {
+		List<UsageDelta> pendingDeltas = new ArrayList<>();
+		for (Counter counter : counters.values()) {
+			counter.lock.lock();
+			try {
+				if (counter.pending != 0) {
+					pendingDeltas.add(new UsageDelta(counter.key.featureRef(), counter.key.userGroupingId(),
+							counter.key.limitId(), counter.windowStart, counter.windowEnd, counter.expirationDate,
+							counter.pending, UsageDelta.UNBOUNDED));
+					counter.pending = 0;
+					counter.idle = false;
+				}
+				else if (counter.idle) {
+					counter.retired = true;
+					counters.remove(counter.key, counter);
+				}
+				else {
+					counter.idle = true;
+				}
+			}
+			finally {
+				counter.lock.unlock();
+			}
+		}
+		return pendingDeltas;
+	}
+
+	private void restorePendingDeltas(List<UsageDelta> deltas) {
+		for (UsageDelta delta : deltas) {
+			Counter counter = counters.get(keyOf(delta));
+			counter.lock.lock();
+			try {
+				counter.pending += delta.units();
+			}
+			finally {
+				counter.lock.unlock();
+			}
+		}
+	}
+
+	private Counter[] lockCounters(List<UsageDelta> deltas) {
+		CounterKey[] keys = new CounterKey[deltas.size()];
+		Integer[] lockOrder = new Integer[deltas.size()];
+		for (int i = 0; i < deltas.size(); i++) {
+			keys[i] = keyOf(deltas.get(i));
+			lockOrder[i] = i;
+		}
+		Arrays.sort(lockOrder, Comparator.comparing(i -> keys[i], LOCK_ORDER));
+		Counter[] locked = new Counter[deltas.size()];
+		try {
+			for (int i : lockOrder) {
+				UsageDelta delta = deltas.get(i);
+				locked[i] = lockCounter(keys[i], delta.windowStart(), delta.windowEnd(),
+						new GroupingRef(delta.userGroupingId()));
+			}
+		}
+		catch (RuntimeException ex) {
+			unlock(locked);
+			throw ex;
+		}
+		return locked;
+	}
+
+	private static void unlock(Counter[] locked) {
+		for (Counter counter : locked) {
+			if (counter != null) {
+				counter.lock.unlock();
+			}
+		}
+	}
+
+	private Counter lockCounter(CounterKey key, ZonedDateTime windowStart, ZonedDateTime windowEnd,
+			UserGrouping userGrouping) {
+		while (true) {
+			Counter counter = counters.computeIfAbsent(key, k -> new Counter(k, windowStart, windowEnd));
+			counter.lock.lock();
+			if (!counter.retired) {
+				try {
+					if (!counter.loaded) {
+						load(counter, userGrouping);
+					}
+					return counter;
+				}
+				catch (RuntimeException ex) {
+					counter.lock.unlock();
+					throw ex;
+				}
+			}
+			counter.lock.unlock();
+		}
+	}
+
+	private void load(Counter counter, UserGrouping userGrouping) {
+		CounterKey key = counter.key;
+		var context = new LimitTrackingContext(key.featureRef(), userGrouping,
+				List.of(new RecordSearchCriteria(key.limitId(), counter.windowStart, counter.windowEnd)));
+		delegate.loadUsageData(context);
+		List<UsageRecord> records = context.findUsageRecords(key.limitId(), counter.windowStart, counter.windowEnd);
+		for (UsageRecord usageRecord : records) {
+			counter.units += (usageRecord.units() != null) ? usageRecord.units() : 0;
+			if (counter.windowEnd == null) {
+				counter.windowEnd = usageRecord.endTime();
+			}
+			if (counter.expirationDate == null) {
+				counter.expirationDate = usageRecord.expirationDate();
+			}
+		}
+		counter.exists = !records.isEmpty();
+		counter.loaded = true;
+	}
+
+	private static CounterKey keyOf(UsageDelta delta) {
+		return new CounterKey(delta.featureRef(), delta.userGroupingId(), delta.limitId(), toInstant(delta.windowStart()));
+	}
+
+	private static Instant toInstant(ZonedDateTime dateTime) {
+		return (dateTime != null) ? dateTime.toInstant() : null;
+	}
+
+	/**
+	 * Counters of the write-behind decorator.
+	 * @param recordedDeltas number of changes applied to the view
+	 * @param flushedDeltas number of coalesced deltas written to the delegate
+	 * @param flushes number of completed flushes
+	 * @param failedFlushes number of flushes that failed and will be retried
+	 * @param pendingCounters number of counters with unflushed units
+	 */
+	public record Statistics(long recordedDeltas, long flushedDeltas, long flushes, long failedFlushes,
+			int pendingCounters) {
+
+		/**
+		 * Number of changes applied to the view for each delta written to the delegate.
+		 */
+		public double coalescingRatio() {
+			return (flushedDeltas == 0) ? 0 : (double) recordedDeltas / flushedDeltas;
+		}
+	}
+
+	public static final class Builder {
+
+		private final AtomicUsageRepository delegate;
+		private Duration flushInterval = Duration.ofSeconds(1);
+		private long maxUnflushedUnits = Long.MAX_VALUE;
+		private int maxBatchSize = 500;
+		private boolean drainOnClose = true;
+		private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+		private Builder(AtomicUsageRepository delegate) {
+			if (!delegate.supportsAtomicUpdates()) {
+				throw new IllegalArgumentException("The delegate repository must support atomic updates");
+			}
+			this.delegate = delegate;
+		}
+
+		public Builder flushInterval(Duration flushInterval) {
+			this.flushInterval = flushInterval;
+			return this;
+		}
+
+		public Builder maxUnflushedUnits(long maxUnflushedUnits) {
+			this.maxUnflushedUnits = maxUnflushedUnits;
+			return this;
+		}
+
+		public Builder maxBatchSize(int maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+			return this;
+		}
+
+		public Builder drainOnClose(boolean drainOnClose) {
+			this.drainOnClose = drainOnClose;
+			return this;
+		}
+
+		public Builder shutdownTimeout(Duration shutdownTimeout) {
+			this.shutdownTimeout = shutdownTimeout;
+			return this;
+		}
+
+		public WriteBehindUsageRepository build() {
+			return new WriteBehindUsageRepository(this);
+		}
+	}
+
+	private record CounterKey(FeatureRef featureRef, String userGroupingId, String limitId, Instant windowStart) {
+	}
+
+	private static final class GroupingRef extends UserGrouping {
+
+		private final String id;
+
+		GroupingRef(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+	}
+
+	private static final class Counter {
+
+		final CounterKey key;
+
+		final ReentrantLock lock = new ReentrantLock();
+
+		final ZonedDateTime windowStart;
+
+		ZonedDateTime windowEnd;
+
+		ZonedDateTime expirationDate;
+
+		long units;
+
+		long pending;
+
+		boolean loaded;
+
+		boolean exists;
+
+		boolean idle;
+
+		boolean retired;
+
+		Counter(CounterKey key, ZonedDateTime windowStart, ZonedDateTime windowEnd) {
+			this.key = key;
+			this.windowStart = windowStart;
+			this.windowEnd = windowEnd;
+		}
+
+		long add(UsageDelta delta) {
+			return set(delta.applyTo(units), delta.windowEnd(), delta.expirationDate());
+		}
+
+		/**
+		 * Pending units are the difference with the previous value, so that the coalesced
+		 * delta written to the delegate reproduces the floor applied here.
+		 */
+		long set(long updated, ZonedDateTime newWindowEnd, ZonedDateTime newExpirationDate) {
+			pending += updated - units;
+			units = updated;
+			exists = true;
+			idle = false;
+			if (newWindowEnd != null) {
+				windowEnd = newWindowEnd;
+			}
+			if (newExpirationDate != null) {
+				expirationDate = newExpirationDate;
+			}
+			return updated;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.series;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public enum SeriesGranularity {
+
+	MINUTE(Duration.ofMinutes(1)),
+
+	HOUR(Duration.ofHours(1)),
+
+	DAY(Duration.ofDays(1));
+
+	private final Duration duration;
+
+	SeriesGranularity(Duration duration) {
+		this.duration = duration;
+	}
+
+	public Duration getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns the start of the bucket of this granularity containing the given time. Buckets
+	 * are aligned on UTC.
+	 */
+	public Instant truncate(Instant time) {
+		long seconds = duration.getSeconds();
+		return Instant.ofEpochSecond(Math.floorDiv(time.getEpochSecond(), seconds) * seconds);
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.series;
+
+import java.time.Instant;
+import java.util.List;
+
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public interface UsageSeriesRepository {
+
+	/**
+	 * Returns the units recorded in each bucket of the given granularity between two dates,
+	 * ordered by limit and start. Usage already compacted into coarser buckets cannot be split
+	 * again, and is returned in buckets of that coarser granularity.
+	 * @param from the start of the range, inclusive
+	 * @param to the end of the range, exclusive
+	 */
+	List<UsageBucket> findUsageSeries(FeatureRef featureRef, UserGrouping userGrouping, Instant from, Instant to,
+			SeriesGranularity granularity);
+
+	/**
+	 * Compacts the buckets older than their retention into buckets of the next granularity,
+	 * minutes into hours and hours into days, and deletes the days older than their retention.
+	 * @param now the current time, the retentions are counted from
+	 * @return the number of buckets compacted or deleted
+	 */
+	int rollUp(Instant now);
+}
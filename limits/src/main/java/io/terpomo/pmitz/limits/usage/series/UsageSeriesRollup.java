@@ -0,0 +1,83 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.series;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public final class UsageSeriesRollup implements AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(UsageSeriesRollup.class.getName());
+
+	private final UsageSeriesRepository usageSeriesRepository;
+	private final Clock clock;
+	private final ScheduledExecutorService scheduler;
+
+	private UsageSeriesRollup(UsageSeriesRepository usageSeriesRepository, Duration interval, Clock clock) {
+		this.usageSeriesRepository = usageSeriesRepository;
+		this.clock = clock;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pmitz-usage-series-rollup");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = interval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::rollUpQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Starts rolling up the buckets of the repository in a background thread.
+	 * @param interval delay between the end of a roll-up and the start of the next one
+	 * @return the roll-up, to close once it is no longer used
+	 */
+	public static UsageSeriesRollup start(UsageSeriesRepository usageSeriesRepository, Duration interval) {
+		return start(usageSeriesRepository, interval, Clock.systemUTC());
+	}
+
+	public static UsageSeriesRollup start(UsageSeriesRepository usageSeriesRepository, Duration interval,
+			Clock clock) {
+		if (interval.isNegative() || interval.isZero()) {
+			throw new IllegalArgumentException("interval must be positive");
+		}
+		return new UsageSeriesRollup(usageSeriesRepository, interval, clock);
+	}
+
+	public UsageSeriesRepository getUsageSeriesRepository() {
+		return usageSeriesRepository;
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private void rollUpQuietly() {
+		try {
+			int buckets = usageSeriesRepository.rollUp(clock.instant());
+			LOGGER.fine(() -> "Rolled up " + buckets + " usage buckets");
+		}
+		catch (RuntimeException ex) {
+			// the buckets are left untouched and rolled up by the next run
+			LOGGER.log(Level.WARNING, "Failed to roll up usage buckets", ex);
+		}
+	}
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.series.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+import io.terpomo.pmitz.limits.usage.series.SeriesGranularity;
+import io.terpomo.pmitz.limits.usage.series.UsageBucket;
+import io.terpomo.pmitz.limits.usage.series.UsageSeriesRepository;
+
+public class JDBCUsageSeriesRepository implements UsageSeriesRepository {
+
+	public static final Duration DEFAULT_MINUTE_RETENTION = Duration.ofHours(2);
+
+	public static final Duration DEFAULT_HOUR_RETENTION = Duration.ofDays(7);
+
+	private static final String KEY_CONDITION =
+			"product_id = ? AND feature_id = ? AND user_grouping = ? AND limit_id = ? AND granularity = ? AND bucket_start = ?";
+
+	private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+	private static final int ROLLUP_BATCH_SIZE = 1000;
+
+	private static final Comparator<BucketKey> LOCK_ORDER = Comparator.comparing(BucketKey::productId)
+			.thenComparing(BucketKey::featureId)
+			.thenComparing(BucketKey::userGroupingId)
+			.thenComparing(BucketKey::limitId)
+			.thenComparing(BucketKey::start);
+
+	private final DataSource dataSource;
+	private final String schemaName;
+	private final String tableName;
+	private final Duration minuteRetention;
+	private final Duration hourRetention;
+	private final Duration dayRetention;
+	private final Clock clock;
+
+	public JDBCUsageSeriesRepository(DataSource dataSource, String schemaName, String tableName) {
+		this(dataSource, schemaName, tableName, DEFAULT_MINUTE_RETENTION, DEFAULT_HOUR_RETENTION, null);
+	}
+
+	/**
+	 * Creates a repository compacting minutes into hours, and hours into days, once they are older
+	 * than their retention.
+	 * @param dayRetention the time after which day buckets are deleted, {@code null} to keep them
+	 */
+	public JDBCUsageSeriesRepository(DataSource dataSource, String schemaName, String tableName,
+			Duration minuteRetention, Duration hourRetention, Duration dayRetention) {
+		this(dataSource, schemaName, tableName, minuteRetention, hourRetention, dayRetention, Clock.systemUTC());
+	}
+
+	public JDBCUsageSeriesRepository(DataSource dataSource, String schemaName, String tableName,
+			Duration minuteRetention, Duration hourRetention, Duration dayRetention, Clock clock) {
+		if (minuteRetention.isNegative()) {
+			throw new IllegalArgumentException("minuteRetention must not be negative");
+		}
+		if (hourRetention.compareTo(minuteRetention) < 0) {
+			throw new IllegalArgumentException("hourRetention must not be shorter than minuteRetention");
+		}
+		if (dayRetention != null && dayRetention.compareTo(hourRetention) < 0) {
+			throw new IllegalArgumentException("dayRetention must not be shorter than hourRetention");
+		}
+		this.dataSource = dataSource;
+		this.schemaName = schemaName;
+		this.tableName = tableName;
+		this.minuteRetention = minuteRetention;
+		this.hourRetention = hourRetention;
+		this.dayRetention = dayRetention;
+		this.clock = clock;
+	}
+
+	public String getFullTableName() {
+		return schemaName + "." + tableName;
+	}
+
+	/**
+	 * Adds the deltas of windowed counters to the minute bucket of the current time, within
+	 * the transaction of the given connection. Deltas of counters without a window, such as
+	 * token buckets, do not count units and are ignored.
+	 */
+	public void addUsage(Connection connection, List<UsageDelta> deltas) throws SQLException {
+		Instant start = SeriesGranularity.MINUTE.truncate(clock.instant());
+		Map<BucketKey, Long> unitsByBucket = new TreeMap<>(LOCK_ORDER);
+		for (UsageDelta delta : deltas) {
+			if (delta.windowStart() != null && delta.units() != 0) {
+				unitsByBucket.merge(new BucketKey(delta.featureRef().productId(), delta.featureRef().featureId(),
+						delta.userGroupingId(), delta.limitId(), start), delta.units(), Long::sum);
+			}
+		}
+		for (Map.Entry<BucketKey, Long> entry : unitsByBucket.entrySet()) {
+			addToBucket(connection, entry.getKey(), SeriesGranularity.MINUTE, entry.getValue());
+		}
+	}
+
+	@Override
+	public List<UsageBucket> findUsageSeries(FeatureRef featureRef, UserGrouping userGrouping, Instant from,
+			Instant to, SeriesGranularity granularity) {
+		List<String> conditions = new ArrayList<>();
+		List<Object> parameters = new ArrayList<>(List.of(featureRef.productId(), featureRef.featureId(),
+				userGrouping.getId(), Timestamp.from(to)));
+		for (SeriesGranularity bucketGranularity : SeriesGranularity.values()) {
+			conditions.add("(granularity = ? AND bucket_start >= ?)");
+			parameters.add(bucketGranularity.name());
+			parameters.add(Timestamp.from(coarsest(bucketGranularity, granularity).truncate(from)));
+		}
+		String query = "SELECT limit_id, granularity, bucket_start, units FROM " + getFullTableName()
+				+ " WHERE product_id = ? AND feature_id = ? AND user_grouping = ? AND bucket_start < ? AND ("
+				+ String.join(" OR ", conditions) + ")";
+
+		Map<UsageBucket, Long> unitsByBucket = new TreeMap<>(Comparator.comparing(UsageBucket::limitId)
+				.thenComparing(UsageBucket::start)
+				.thenComparing(UsageBucket::granularity));
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement(query)) {
+			for (int i = 0; i < parameters.size(); i++) {
+				statement.setObject(i + 1, parameters.get(i));
+			}
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					SeriesGranularity seriesGranularity = coarsest(
+							SeriesGranularity.valueOf(resultSet.getString("granularity")), granularity);
+					Instant start = seriesGranularity.truncate(resultSet.getTimestamp("bucket_start").toInstant());
+					unitsByBucket.merge(new UsageBucket(resultSet.getString("limit_id"), seriesGranularity, start, 0),
+							resultSet.getLong("units"), Long::sum);
+				}
+			}
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error loading usage series", ex);
+		}
+		return unitsByBucket.entrySet().stream()
+				.map(entry -> new UsageBucket(entry.getKey().limitId(), entry.getKey().granularity(),
+						entry.getKey().start(), entry.getValue()))
+				.toList();
+	}
+
+	@Override
+	public int rollUp(Instant now) {
+		try (Connection connection = dataSource.getConnection()) {
+			int buckets = compact(connection, SeriesGranularity.MINUTE, SeriesGranularity.HOUR, now.minus(minuteRetention));
+			buckets += compact(connection, SeriesGranularity.HOUR, SeriesGranularity.DAY, now.minus(hourRetention));
+			if (dayRetention != null) {
+				buckets += deleteBuckets(connection, SeriesGranularity.DAY, SeriesGranularity.DAY.truncate(now.minus(dayRetention)));
+			}
+			return buckets;
+		}
+		catch (SQLException ex) {
+			throw new RepositoryException("Error rolling up usage series", ex);
+		}
+	}
+
+	private int compact(Connection connection, SeriesGranularity granularity, SeriesGranularity coarserGranularity,
+			Instant before) throws SQLException {
+		Instant cutoff = coarserGranularity.truncate(before);
+		int compacted = 0;
+		while (true) {
+			List<Bucket> buckets = findBuckets(connection, granularity, cutoff);
+			int batchCompacted = compactInTransaction(connection, granularity, coarserGranularity, buckets);
+			compacted += batchCompacted;
+			if (buckets.size() < ROLLUP_BATCH_SIZE || batchCompacted == 0) {
+				return compacted;
+			}
+		}
+	}
+
+	private List<Bucket> findBuckets(Connection connection, SeriesGranularity granularity, Instant before)
+			throws SQLException {
+		String query = "SELECT product_id, feature_id, user_grouping, limit_id, bucket_start, units FROM "
+				+ getFullTableName() + " WHERE granularity = ? AND bucket_start < ? ORDER BY bucket_start";
+		List<Bucket> buckets = new ArrayList<>();
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setMaxRows(ROLLUP_BATCH_SIZE);
+			statement.setString(1, granularity.name());
+			statement.setTimestamp(2, Timestamp.from(before));
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					buckets.add(new Bucket(new BucketKey(resultSet.getString("product_id"),
+							resultSet.getString("feature_id"), resultSet.getString("user_grouping"),
+							resultSet.getString("limit_id"), resultSet.getTimestamp("bucket_start").toInstant()),
+							resultSet.getLong("units")));
+				}
+			}
+		}
+		return buckets;
+	}
+
+	/**
+	 * Moves the units of the buckets to the coarser buckets containing them. A bucket is only
+	 * deleted if it still holds the units read, so that usage recorded late or a concurrent
+	 * roll-up is never counted twice; the buckets left are compacted by the next run.
+	 */
+	private int compactInTransaction(Connection connection, SeriesGranularity granularity,
+			SeriesGranularity coarserGranularity, List<Bucket> buckets) throws SQLException {
+		String deleteQuery = "DELETE FROM " + getFullTableName() + " WHERE " + KEY_CONDITION + " AND units = ?";
+		Map<BucketKey, Long> unitsByCoarserBucket = new TreeMap<>(LOCK_ORDER);
+		int compacted = 0;
+		connection.setAutoCommit(false);
+		try (PreparedStatement statement = connection.prepareStatement(deleteQuery)) {
+			for (Bucket bucket : buckets) {
+				int index = setKey(statement, 1, bucket.key(), granularity);
+				statement.setLong(index, bucket.units());
+				if (statement.executeUpdate() == 1) {
+					compacted++;
+					if (bucket.units() != 0) {
+						BucketKey key = bucket.key();
+						unitsByCoarserBucket.merge(new BucketKey(key.productId(), key.featureId(), key.userGroupingId(),
+								key.limitId(), coarserGranularity.truncate(key.start())), bucket.units(), Long::sum);
+					}
+				}
+			}
+			for (Map.Entry<BucketKey, Long> entry : unitsByCoarserBucket.entrySet()) {
+				addToBucket(connection, entry.getKey(), coarserGranularity, entry.getValue());
+			}
+			connection.commit();
+			return compacted;
+		}
+		catch (SQLException ex) {
+			connection.rollback();
+			throw ex;
+		}
+		finally {
+			connection.setAutoCommit(true);
+		}
+	}
+
+	private int deleteBuckets(Connection connection, SeriesGranularity granularity, Instant before)
+			throws SQLException {
+		String query = "DELETE FROM " + getFullTableName() + " WHERE granularity = ? AND bucket_start < ?";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, granularity.name());
+			statement.setTimestamp(2, Timestamp.from(before));
+			return statement.executeUpdate();
+		}
+	}
+
+	/**
+	 * Adds units to a bucket, within a transaction. A bucket created concurrently makes the
+	 * insert fail, in which case the statement is rolled back to a savepoint and the bucket
+	 * updated instead.
+	 */
+	private void addToBucket(Connection connection, BucketKey key, SeriesGranularity granularity, long units)
+			throws SQLException {
+		if (updateBucket(connection, key, granularity, units)) {
+			return;
+		}
+		Savepoint savepoint = connection.setSavepoint();
+		try {
+			insertBucket(connection, key, granularity, units);
+		}
+		catch (SQLException ex) {
+			if (ex.getSQLState() == null || !ex.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+				throw ex;
+			}
+			connection.rollback(savepoint);
+			if (!updateBucket(connection, key, granularity, units)) {
+				throw ex;
+			}
+		}
+	}
+
+	private boolean updateBucket(Connection connection, BucketKey key, SeriesGranularity granularity, long units)
+			throws SQLException {
+		String query = "UPDATE " + getFullTableName() + " SET units = units + ? WHERE " + KEY_CONDITION;
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setLong(1, units);
+			setKey(statement, 2, key, granularity);
+			return statement.executeUpdate() > 0;
+		}
+	}
+
+	private void insertBucket(Connection connection, BucketKey key, SeriesGranularity granularity, long units)
+			throws SQLException {
+		String query = "INSERT INTO " + getFullTableName()
+				+ " (product_id, feature_id, user_grouping, limit_id, granularity, bucket_start, units)"
+				+ " VALUES (?, ?, ?, ?, ?, ?, ?)";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			int index = setKey(statement, 1, key, granularity);
+			statement.setLong(index, units);
+			statement.executeUpdate();
+		}
+	}
+
+	private static int setKey(PreparedStatement statement, int index, BucketKey key, SeriesGranularity granularity)
+			throws SQLException {
+		statement.setString(index++, key.productId());
+		statement.setString(index++, key.featureId());
+		statement.setString(index++, key.userGroupingId());
+		statement.setString(index++, key.limitId());
+		statement.setString(index++, granularity.name());
+		statement.setTimestamp(index++, Timestamp.from(key.start()));
+		return index;
+	}
+
+	private static SeriesGranularity coarsest(SeriesGranularity granularity, SeriesGranularity otherGranularity) {
+		return (granularity.compareTo(otherGranularity) >= 0) ? granularity : otherGranularity;
+	}
+
+	private record BucketKey(String productId, String featureId, String userGroupingId, String limitId,
+			Instant start) {
+	}
+
+	private record Bucket(BucketKey key, long units) {
+	}
+}
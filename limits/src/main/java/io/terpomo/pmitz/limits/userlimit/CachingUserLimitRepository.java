@@ -0,0 +1,322 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.userlimit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public class CachingUserLimitRepository implements UserLimitRepository {
+
+	private final UserLimitRepository delegate;
+	private final int maximumSize;
+	private final long timeToLiveMillis;
+	private final long negativeTimeToLiveMillis;
+	private final Clock clock;
+
+	private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+	private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queuedEntries = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder negativeHits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder loadFailures = new LongAdder();
+
+	private CachingUserLimitRepository(Builder builder) {
+		this.delegate = builder.delegate;
+		this.maximumSize = builder.maximumSize;
+		this.timeToLiveMillis = builder.timeToLive.toMillis();
+		this.negativeTimeToLiveMillis = builder.negativeTimeToLive.toMillis();
+		this.clock = builder.clock;
+	}
+
+	public static Builder builder(UserLimitRepository delegate) {
+		return new Builder(delegate);
+	}
+
+	public UserLimitRepository getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public Optional<LimitRule> findLimitRule(FeatureRef featureRef, String limitRuleId, UserGrouping userGrouping) {
+		CacheKey key = new CacheKey(featureRef, limitRuleId, userGrouping.getId());
+		Entry loadingEntry = new Entry(key);
+		Entry entry = getOrCreateEntry(key, loadingEntry, clock.millis());
+		if (entry == loadingEntry) {
+			return load(loadingEntry, featureRef, limitRuleId, userGrouping);
+		}
+		return awaitCached(entry);
+	}
+
+	@Override
+	public Map<String, LimitRule> findLimitRules(FeatureRef featureRef, Collection<String> limitRuleIds,
+			UserGrouping userGrouping) {
+		long now = clock.millis();
+		Map<String, Entry> loadingEntries = new HashMap<>();
+		Map<String, Entry> cachedEntries = new HashMap<>();
+		for (String limitRuleId : limitRuleIds) {
+			CacheKey key = new CacheKey(featureRef, limitRuleId, userGrouping.getId());
+			Entry loadingEntry = new Entry(key);
+			Entry entry = getOrCreateEntry(key, loadingEntry, now);
+			if (entry == loadingEntry) {
+				loadingEntries.put(limitRuleId, entry);
+			}
+			else {
+				cachedEntries.put(limitRuleId, entry);
+			}
+		}
+
+		Map<String, LimitRule> limitRules = new HashMap<>();
+		if (!loadingEntries.isEmpty()) {
+			limitRules.putAll(loadAll(loadingEntries, featureRef, userGrouping));
+		}
+		// entries loaded by other threads are awaited only once ours are complete, so that two
+		// bulk lookups sharing keys cannot wait on each other
+		cachedEntries.forEach((limitRuleId, entry) ->
+				awaitCached(entry).ifPresent(limitRule -> limitRules.put(limitRuleId, limitRule)));
+		return limitRules;
+	}
+
+	@Override
+	public void updateLimitRule(FeatureRef featureRef, LimitRule limitRule, UserGrouping userGrouping) {
+		try {
+			delegate.updateLimitRule(featureRef, limitRule, userGrouping);
+		}
+		finally {
+			invalidate(featureRef, limitRule.getId(), userGrouping);
+		}
+	}
+
+	@Override
+	public void deleteLimitRule(FeatureRef featureRef, String limitRuleId, UserGrouping userGrouping) {
+		try {
+			delegate.deleteLimitRule(featureRef, limitRuleId, userGrouping);
+		}
+		finally {
+			invalidate(featureRef, limitRuleId, userGrouping);
+		}
+	}
+
+	/**
+	 * Removes the cached limit rule, so that the next lookup reads it from the delegate.
+	 */
+	public void invalidate(FeatureRef featureRef, String limitRuleId, UserGrouping userGrouping) {
+		entries.remove(new CacheKey(featureRef, limitRuleId, userGrouping.getId()));
+	}
+
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(hits.sum(), negativeHits.sum(), misses.sum(), evictions.sum(), loadFailures.sum(),
+				entries.size());
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	private Entry getOrCreateEntry(CacheKey key, Entry loadingEntry, long now) {
+		Entry entry = entries.get(key);
+		if (entry != null && !entry.isExpired(now)) {
+			return entry;
+		}
+		return entries.compute(key, (k, existing) ->
+				(existing != null && !existing.isExpired(now)) ? existing : loadingEntry);
+	}
+
+	private Optional<LimitRule> load(Entry entry, FeatureRef featureRef, String limitRuleId,
+			UserGrouping userGrouping) {
+		misses.increment();
+		Optional<LimitRule> limitRule;
+		try {
+			limitRule = delegate.findLimitRule(featureRef, limitRuleId, userGrouping);
+		}
+		catch (RuntimeException ex) {
+			fail(entry, ex);
+			throw ex;
+		}
+		complete(entry, limitRule);
+		return limitRule;
+	}
+
+	private Map<String, LimitRule> loadAll(Map<String, Entry> loadingEntries, FeatureRef featureRef,
+			UserGrouping userGrouping) {
+		misses.add(loadingEntries.size());
+		Map<String, LimitRule> limitRules;
+		try {
+			limitRules = delegate.findLimitRules(featureRef, loadingEntries.keySet(), userGrouping);
+		}
+		catch (RuntimeException ex) {
+			loadingEntries.values().forEach(entry -> fail(entry, ex));
+			throw ex;
+		}
+		loadingEntries.forEach((limitRuleId, entry) ->
+				complete(entry, Optional.ofNullable(limitRules.get(limitRuleId))));
+		return limitRules;
+	}
+
+	private void complete(Entry entry, Optional<LimitRule> limitRule) {
+		entry.expiresAtMillis = clock.millis() + (limitRule.isPresent() ? timeToLiveMillis : negativeTimeToLiveMillis);
+		entry.value.complete(limitRule);
+		if (entries.get(entry.key) == entry) {
+			insertionOrder.add(entry);
+			if (queuedEntries.incrementAndGet() > maximumSize) {
+				evictOldest();
+			}
+		}
+	}
+
+	private void fail(Entry entry, RuntimeException ex) {
+		loadFailures.increment();
+		entries.remove(entry.key, entry);
+		entry.value.completeExceptionally(ex);
+	}
+
+	private Optional<LimitRule> awaitCached(Entry entry) {
+		Optional<LimitRule> limitRule = await(entry);
+		hits.increment();
+		if (limitRule.isEmpty()) {
+			negativeHits.increment();
+		}
+		return limitRule;
+	}
+
+	private void evictOldest() {
+		while (queuedEntries.get() > maximumSize) {
+			Entry oldest = insertionOrder.poll();
+			if (oldest == null) {
+				return;
+			}
+			queuedEntries.decrementAndGet();
+			if (entries.remove(oldest.key, oldest)) {
+				evictions.increment();
+			}
+		}
+	}
+
+	private static Optional<LimitRule> await(Entry entry) {
+		try {
+			return entry.value.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Counters of the user limit cache.
+	 * @param hits number of lookups answered by the cache, including absent limit rules
+	 * @param negativeHits number of lookups answered by the cache with an absent limit rule
+	 * @param misses number of lookups sent to the delegate
+	 * @param evictions number of entries evicted because the cache was full
+	 * @param loadFailures number of lookups for which the delegate failed
+	 * @param size number of cached entries
+	 */
+	public record Statistics(long hits, long negativeHits, long misses, long evictions, long loadFailures,
+			int size) {
+
+		public double hitRatio() {
+			long requests = hits + misses;
+			return (requests == 0) ? 0 : (double) hits / requests;
+		}
+	}
+
+	public static final class Builder {
+
+		private final UserLimitRepository delegate;
+		private int maximumSize = 10_000;
+		private Duration timeToLive = Duration.ofMinutes(5);
+		private Duration negativeTimeToLive = Duration.ofMinutes(1);
+		private Clock clock = Clock.systemUTC();
+
+		private Builder(UserLimitRepository delegate) {
+			this.delegate = delegate;
+		}
+
+		public Builder maximumSize(int maximumSize) {
+			if (maximumSize <= 0) {
+				throw new IllegalArgumentException("maximumSize must be greater than 0");
+			}
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		public Builder timeToLive(Duration timeToLive) {
+			this.timeToLive = timeToLive;
+			return this;
+		}
+
+		/**
+		 * Time to live of the entries for which the delegate has no limit rule.
+		 */
+		public Builder negativeTimeToLive(Duration negativeTimeToLive) {
+			this.negativeTimeToLive = negativeTimeToLive;
+			return this;
+		}
+
+		public Builder clock(Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		public CachingUserLimitRepository build() {
+			return new CachingUserLimitRepository(this);
+		}
+	}
+
+	private record CacheKey(FeatureRef featureRef, String limitRuleId, String userGroupingId) {
+	}
+
+	private static final class Entry {
+
+		final CacheKey key;
+
+		final CompletableFuture<Optional<LimitRule>> value = new CompletableFuture<>();
+
+		volatile long expiresAtMillis = Long.MAX_VALUE;
+
+		Entry(CacheKey key) {
+			this.key = key;
+		}
+
+		boolean isExpired(long now) {
+			return now >= expiresAtMillis;
+		}
+	}
+}
@@ -31,4 +31,9 @@ public class DefaultUserLimitRepositoryBuilder implements UserLimitRepository.Bu
 	public UserLimitRepository noOpRepository() {
 		return new LimitRuleResolverImpl.NoOpUserLimitRepository();
 	}
+
+	@Override
+	public CachingUserLimitRepository.Builder cachingRepository(UserLimitRepository delegate) {
+		return CachingUserLimitRepository.builder(delegate);
+	}
 }
@@ -16,6 +16,9 @@
 
 package io.terpomo.pmitz.limits.userlimit;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.sql.DataSource;
@@ -28,6 +31,25 @@ public interface UserLimitRepository {
 
 	Optional<LimitRule> findLimitRule(FeatureRef featureRef, String limitRuleId, UserGrouping userGrouping);
 
+	/**
+	 * Finds the rules defined for the user grouping among the given limit rules of a feature.
+	 * The default implementation looks up each limit rule separately; implementations backed
+	 * by a remote store should load them in a single round trip.
+	 * @param featureRef the feature
+	 * @param limitRuleIds the ids of the limit rules to look up
+	 * @param userGrouping the user grouping
+	 * @return the rules found, by limit rule id
+	 */
+	default Map<String, LimitRule> findLimitRules(FeatureRef featureRef, Collection<String> limitRuleIds,
+			UserGrouping userGrouping) {
+		Map<String, LimitRule> limitRules = new HashMap<>();
+		for (String limitRuleId : limitRuleIds) {
+			findLimitRule(featureRef, limitRuleId, userGrouping)
+					.ifPresent(limitRule -> limitRules.put(limitRuleId, limitRule));
+		}
+		return limitRules;
+	}
+
 	void updateLimitRule(FeatureRef featureRef, LimitRule limitRule, UserGrouping userGrouping);
 
 	void deleteLimitRule(FeatureRef featureRef, String limitRuleId, UserGrouping userGrouping);
@@ -40,5 +62,7 @@ public interface UserLimitRepository {
 		UserLimitRepository jdbcRepository(DataSource dataSource, String dbSchema, String tableName);
 
 		UserLimitRepository noOpRepository();
+
+		CachingUserLimitRepository.Builder cachingRepository(UserLimitRepository delegate);
 	}
 }
@@ -20,6 +20,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.sql.DataSource;
@@ -28,6 +31,9 @@ import io.terpomo.pmitz.core.exception.RepositoryException;
 import io.terpomo.pmitz.core.limits.LimitRule;
 import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
 import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
+import io.terpomo.pmitz.core.limits.types.WindowUnit;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.limits.userlimit.UserLimitRepository;
@@ -81,6 +87,48 @@ public class JDBCUserLimitRepository implements UserLimitRepository {
 		return Optional.ofNullable(limitRule);
 	}
 
+	@Override
+	public Map<String, LimitRule> findLimitRules(FeatureRef featureRef, Collection<String> limitRuleIds,
+			UserGrouping userGroup) {
+
+		this.validateFeatureRef(featureRef);
+		this.validateNotNull(limitRuleIds, "limitIds");
+		this.validateUserGrouping(userGroup);
+
+		Map<String, LimitRule> limitRules = new HashMap<>();
+		if (limitRuleIds.isEmpty()) {
+			return limitRules;
+		}
+
+		String query = String.format(
+				"""
+				SELECT * FROM %s.%s \
+					WHERE feature_id = ? AND user_group_id = ?
+				""",
+				this.schemaName, this.tableName);
+
+		try (Connection connection = this.dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement(query)) {
+
+			statement.setString(1, featureRef.featureId());
+			statement.setString(2, userGroup.getId());
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					if (limitRuleIds.contains(resultSet.getString("limit_id"))) {
+						LimitRule limitRule = mapResultSetToLimitRule(resultSet);
+						limitRules.put(limitRule.getId(), limitRule);
+					}
+				}
+			}
+		}
+		catch (SQLException | IllegalArgumentException ex) {
+			throw new RepositoryException("Error finding limits", ex);
+		}
+
+		return limitRules;
+	}
+
 	public void addLimitRule(FeatureRef featureRef, LimitRule limitRule, UserGrouping userGroup) {
 
 		this.validateFeatureRef(featureRef);
@@ -111,6 +159,14 @@ public class JDBCUserLimitRepository implements UserLimitRepository {
 					stmt.setString(7, calendarPeriodRateLimit.getPeriodicity().name());
 					stmt.setInt(8, calendarPeriodRateLimit.getDuration());
 				}
+				else if (limitRule instanceof SlidingWindowRateLimit slidingWindowRateLimit) {
+					stmt.setString(7, slidingWindowRateLimit.getWindowUnit().name());
+					stmt.setInt(8, slidingWindowRateLimit.getDuration());
+				}
+				else if (limitRule instanceof TokenBucketRateLimit tokenBucketRateLimit) {
+					stmt.setString(7, tokenBucketRateLimit.getWindowUnit().name());
+					stmt.setInt(8, tokenBucketRateLimit.getDuration());
+				}
 				else {
 					stmt.setString(7, null);
 					stmt.setInt(8, 0);
@@ -146,7 +202,7 @@ public class JDBCUserLimitRepository implements UserLimitRepository {
 			String query = String.format(
 					"""
 					UPDATE %s.%s \
-						SET limit_value = ?, limit_unit = ?, limit_interval = ?, limit_duration = ? \
+						SET limit_type = ?, limit_value = ?, limit_unit = ?, limit_interval = ?, limit_duration = ? \
 						WHERE limit_id = ? AND feature_id = ? AND user_group_id = ?
 					""",
 					this.schemaName, this.tableName);
@@ -155,6 +211,7 @@ public class JDBCUserLimitRepository implements UserLimitRepository {
 
 				PreparedStatement stmt = conn.prepareStatement(query)) {
 				int idx = 1;
+				stmt.setString(idx++, limitRule.getClass().getSimpleName());
 				stmt.setLong(idx++, limitRule.getValue());
 				stmt.setString(idx++, limitRule.getUnit());
 
@@ -162,6 +219,14 @@ public class JDBCUserLimitRepository implements UserLimitRepository {
 					stmt.setString(idx++, calendarPeriodRateLimit.getPeriodicity().name());
 					stmt.setInt(idx++, calendarPeriodRateLimit.getDuration());
 				}
+				else if (limitRule instanceof SlidingWindowRateLimit slidingWindowRateLimit) {
+					stmt.setString(idx++, slidingWindowRateLimit.getWindowUnit().name());
+					stmt.setInt(idx++, slidingWindowRateLimit.getDuration());
+				}
+				else if (limitRule instanceof TokenBucketRateLimit tokenBucketRateLimit) {
+					stmt.setString(idx++, tokenBucketRateLimit.getWindowUnit().name());
+					stmt.setInt(idx++, tokenBucketRateLimit.getDuration());
+				}
 				else {
 					stmt.setString(idx++, null);
 					stmt.setInt(idx++, 0);
@@ -228,6 +293,21 @@ public class JDBCUserLimitRepository implements UserLimitRepository {
 				limitRule = calendarPeriodRateLimit;
 				break;
 
+			case "SlidingWindowRateLimit":
+				WindowUnit windowUnit = WindowUnit.valueOf(resultSet.getString("limit_interval"));
+				SlidingWindowRateLimit slidingWindowRateLimit = new SlidingWindowRateLimit(limitId, limitValue, windowUnit,
+						resultSet.getInt("limit_duration"));
+				slidingWindowRateLimit.setUnit(limitUnit);
+				limitRule = slidingWindowRateLimit;
+				break;
+
+			case "TokenBucketRateLimit":
+				TokenBucketRateLimit tokenBucketRateLimit = new TokenBucketRateLimit(limitId, limitValue,
+						WindowUnit.valueOf(resultSet.getString("limit_interval")), resultSet.getInt("limit_duration"));
+				tokenBucketRateLimit.setUnit(limitUnit);
+				limitRule = tokenBucketRateLimit;
+				break;
+
 			case "CountLimit":
 				CountLimit countLimit = new CountLimit(limitId, limitValue);
 				countLimit.setUnit(limitUnit);
@@ -16,17 +16,29 @@
 
 package io.terpomo.pmitz.limits;
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
 import javax.sql.DataSource;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import io.terpomo.pmitz.limits.idempotency.InMemoryIdempotencyRepository;
+import io.terpomo.pmitz.limits.impl.CoarseClock;
 import io.terpomo.pmitz.limits.impl.LimitRuleResolverImpl;
 import io.terpomo.pmitz.limits.impl.LimitVerifierImpl;
 import io.terpomo.pmitz.limits.impl.strategy.LimitVerificationStrategyDefaultResolver;
+import io.terpomo.pmitz.limits.reservation.InMemoryReservationRepository;
 import io.terpomo.pmitz.limits.usage.repository.UsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.InMemoryUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.MappedFileUsageRepository;
 import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
 import io.terpomo.pmitz.limits.userlimit.UserLimitRepository;
 
@@ -147,4 +159,121 @@ class LimitVerifierBuilderTests {
 				.extracting("defaultVerificationStrategy").isSameAs(verificationStrategy);
 		assertThat(limitVerifierImpl).extracting("usageRepository").isInstanceOf(JDBCUsageRepository.class);
 	}
+
+	@Test
+	void builderShouldCreateLimitVerifierWithAtomicJdbcUsageRepository() {
+		var productRepo = LimitVerifierBuilder.inMemoryProductRepo();
+		var builder = LimitVerifierBuilder.of(productRepo)
+				.withDefaultLimitRuleResolver()
+				.withJdbcUsageRepository(dataSource, "schema", "table", JDBCUsageRepository.UpdateMode.ATOMIC_UPSERT);
+
+		var limitVerifierImpl = builder.build();
+
+		assertThat(limitVerifierImpl).extracting("usageRepository").isInstanceOf(JDBCUsageRepository.class)
+				.extracting("updateMode").isEqualTo(JDBCUsageRepository.UpdateMode.ATOMIC_UPSERT);
+	}
+
+	@Test
+	void builderShouldCreateLimitVerifierWithInMemoryUsageRepository() {
+		var productRepo = LimitVerifierBuilder.inMemoryProductRepo();
+		var builder = LimitVerifierBuilder.of(productRepo)
+				.withDefaultLimitRuleResolver()
+				.withInMemoryUsageRepository();
+
+		var limitVerifierImpl = builder.build();
+
+		assertThat(limitVerifierImpl).isNotNull().isInstanceOf(LimitVerifierImpl.class);
+		assertThat(limitVerifierImpl).extracting("usageRepository").isInstanceOf(InMemoryUsageRepository.class);
+	}
+
+	@Test
+	void builderShouldCreateLimitVerifierWithMappedFileUsageRepository(@TempDir Path tempDir) {
+		var productRepo = LimitVerifierBuilder.inMemoryProductRepo();
+		var builder = LimitVerifierBuilder.of(productRepo)
+				.withDefaultLimitRuleResolver()
+				.withMappedFileUsageRepository(tempDir.resolve("usage.dat"));
+
+		var limitVerifierImpl = builder.build();
+
+		assertThat(limitVerifierImpl).extracting("usageRepository")
+				.isInstanceOfSatisfying(MappedFileUsageRepository.class, usageRepository -> {
+					assertThat(usageRepository.getPath()).isEqualTo(tempDir.resolve("usage.dat"));
+					usageRepository.close();
+				});
+	}
+
+	@Test
+	void builderShouldCreateLimitVerifierWithClock() {
+		var clock = Clock.fixed(Instant.parse("2024-01-15T10:00:00Z"), ZoneOffset.UTC);
+		var builder = LimitVerifierBuilder.of(LimitVerifierBuilder.inMemoryProductRepo())
+				.withDefaultLimitRuleResolver()
+				.withInMemoryUsageRepository()
+				.withClock(clock);
+
+		var limitVerifierImpl = builder.build();
+
+		assertThat(limitVerifierImpl).extracting("clock").isSameAs(clock);
+	}
+
+	@Test
+	void builderShouldCreateLimitVerifierWithCoarseClock() {
+		try (CoarseClock clock = CoarseClock.of(Duration.ofMillis(10))) {
+			var builder = LimitVerifierBuilder.of(LimitVerifierBuilder.inMemoryProductRepo())
+					.withDefaultLimitRuleResolver()
+					.withInMemoryUsageRepository()
+					.withClock(clock);
+
+			var limitVerifierImpl = builder.build();
+
+			assertThat(limitVerifierImpl).extracting("clock").isSameAs(clock);
+		}
+	}
+
+	@Test
+	void asyncShouldWrapLimitVerifier() {
+		var asyncBuilder = LimitVerifierBuilder.of(LimitVerifierBuilder.inMemoryProductRepo())
+				.withDefaultLimitRuleResolver()
+				.withInMemoryUsageRepository()
+				.async();
+
+		try (var asyncLimitVerifier = asyncBuilder.timeout(Duration.ofSeconds(1)).build()) {
+			assertThat(asyncLimitVerifier.getDelegate()).isInstanceOf(LimitVerifierImpl.class);
+			assertThat(asyncLimitVerifier).extracting("timeout").isEqualTo(Duration.ofSeconds(1));
+		}
+	}
+
+	@Test
+	void buildShouldNotReturnCapabilitiesNotConfigured() {
+		var limitVerifier = LimitVerifierBuilder.of(LimitVerifierBuilder.inMemoryProductRepo())
+				.withDefaultLimitRuleResolver()
+				.withInMemoryUsageRepository()
+				.build();
+
+		assertThat(limitVerifier).isNotInstanceOf(IdempotentLimitVerifier.class)
+				.isNotInstanceOf(ReservingLimitVerifier.class);
+	}
+
+	@Test
+	void withReservationsShouldBuildReservingLimitVerifier() {
+		LimitVerifier limitVerifier = LimitVerifierBuilder.of(LimitVerifierBuilder.inMemoryProductRepo())
+				.withDefaultLimitRuleResolver()
+				.withInMemoryUsageRepository()
+				.withReservations(new InMemoryReservationRepository())
+				.build();
+
+		assertThat(limitVerifier).isInstanceOf(ReservingLimitVerifier.class)
+				.isNotInstanceOf(IdempotentLimitVerifier.class);
+	}
+
+	@Test
+	void withIdempotencyAndReservationsShouldBuildIdempotentReservingLimitVerifier() {
+		var limitVerifier = LimitVerifierBuilder.of(LimitVerifierBuilder.inMemoryProductRepo())
+				.withDefaultLimitRuleResolver()
+				.withInMemoryUsageRepository()
+				.withReservations(new InMemoryReservationRepository())
+				.withIdempotency(new InMemoryIdempotencyRepository(100), Duration.ofHours(1))
+				.build();
+
+		assertThat(limitVerifier).isInstanceOf(IdempotentReservingLimitVerifier.class);
+	}
 }
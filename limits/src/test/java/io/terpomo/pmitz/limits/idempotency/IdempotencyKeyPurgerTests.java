@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.idempotency;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class IdempotencyKeyPurgerTests {
+
+	private final FeatureRef featureRef = new FeatureRef("FILE_SHARING", "ADD_FILE");
+
+	private final Instant now = Instant.parse("2025-03-01T00:00:00Z");
+
+	private final InMemoryIdempotencyRepository repository = new InMemoryIdempotencyRepository(100);
+
+	private IdempotencyKeyPurger purger;
+
+	@AfterEach
+	void tearDown() {
+		if (purger != null) {
+			purger.close();
+		}
+	}
+
+	@Test
+	void purgeExpiredKeysShouldDeleteExpiredKeysInBatches() {
+		claimKeys(5, now.minus(Duration.ofHours(1)));
+		claimKeys(2, now.plus(Duration.ofHours(1)));
+		purger = purger(Duration.ofMinutes(1));
+
+		assertThat(purger.purgeExpiredKeys()).isEqualTo(5);
+
+		assertThat(repository.size()).isEqualTo(2);
+		assertThat(purger.getStatistics()).isEqualTo(new IdempotencyKeyPurger.Statistics(1, 1, 0, 3, 5));
+	}
+
+	@Test
+	void purgeExpiredKeysShouldStopAtMaximumRunTime() {
+		claimKeys(5, now.minus(Duration.ofHours(1)));
+		purger = purger(Duration.ofNanos(1));
+
+		assertThat(purger.purgeExpiredKeys()).isEqualTo(2);
+		assertThat(purger.purgeExpiredKeys()).isEqualTo(2);
+		assertThat(purger.purgeExpiredKeys()).isEqualTo(1);
+
+		assertThat(repository.size()).isZero();
+		assertThat(purger.getStatistics().completedRuns()).isEqualTo(1);
+	}
+
+	@Test
+	void builderShouldRejectNonPositiveBatchSize() {
+		assertThatIllegalArgumentException().isThrownBy(() -> IdempotencyKeyPurger.builder(repository).batchSize(0));
+	}
+
+	private IdempotencyKeyPurger purger(Duration maxRunTime) {
+		return IdempotencyKeyPurger.builder(repository)
+				.batchSize(2)
+				.pauseBetweenBatches(Duration.ZERO)
+				.maxRunTime(maxRunTime)
+				.clock(Clock.fixed(now, ZoneOffset.UTC))
+				.build();
+	}
+
+	private void claimKeys(int count, Instant expirationDate) {
+		int first = repository.size();
+		for (int i = first; i < first + count; i++) {
+			repository.claim(new RequestKey(featureRef, "user001", "request-" + i), "payload", "claim-" + i,
+					expirationDate.minus(Duration.ofHours(1)), expirationDate);
+		}
+	}
+}
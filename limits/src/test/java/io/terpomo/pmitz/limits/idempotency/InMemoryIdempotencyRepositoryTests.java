@@ -0,0 +1,188 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.idempotency;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
+import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryIdempotencyRepositoryTests {
+
+	FeatureRef featureRef = new FeatureRef("FILE_SHARING", "ADD_FILE");
+
+	RequestKey requestKey = new RequestKey(featureRef, "user001", "request-1");
+
+	String payloadHash = "payload";
+
+	String claimToken = "claim-1";
+
+	Instant now = Instant.parse("2024-01-15T10:00:00Z");
+
+	Instant expirationDate = now.plus(Duration.ofHours(1));
+
+	@Mock
+	IdempotencyRepository backingRepository;
+
+	@Test
+	void claimShouldReturnOutcomeOfKnownKey() {
+		var repository = new InMemoryIdempotencyRepository(10);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).isEmpty();
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.PENDING);
+
+		repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.COMPLETED);
+	}
+
+	@Test
+	void claimShouldRejectKeyReusedWithAnotherPayload() {
+		var repository = new InMemoryIdempotencyRepository(10);
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+
+		assertThatExceptionOfType(IdempotencyKeyReusedException.class)
+				.isThrownBy(() -> repository.claim(requestKey, "other payload", claimToken, now, expirationDate))
+				.satisfies(ex -> assertThat(ex.getIdempotencyKey()).isEqualTo("request-1"));
+		assertThat(repository.claim(requestKey, "other payload", claimToken, expirationDate, expirationDate.plus(Duration.ofHours(1))))
+				.isEmpty();
+	}
+
+	@Test
+	void claimShouldReclaimExpiredKey() {
+		var repository = new InMemoryIdempotencyRepository(10);
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, expirationDate, expirationDate.plus(Duration.ofHours(1)))).isEmpty();
+	}
+
+	@Test
+	void claimShouldEvictLeastRecentlyUsedKeys() {
+		var repository = new InMemoryIdempotencyRepository(2);
+		RequestKey secondKey = new RequestKey(featureRef, "user001", "request-2");
+		RequestKey thirdKey = new RequestKey(featureRef, "user001", "request-3");
+
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.claim(secondKey, payloadHash, claimToken, now, expirationDate);
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.claim(thirdKey, payloadHash, claimToken, now, expirationDate);
+
+		assertThat(repository.size()).isEqualTo(2);
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.PENDING);
+		assertThat(repository.claim(secondKey, payloadHash, claimToken, now, expirationDate)).isEmpty();
+	}
+
+	@Test
+	void releaseShouldAllowKeyToBeClaimedAgain() {
+		var repository = new InMemoryIdempotencyRepository(10);
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+
+		repository.release(requestKey, claimToken);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).isEmpty();
+	}
+
+	@Test
+	void completeShouldFailWhenKeyWasTakenOver() {
+		var repository = new InMemoryIdempotencyRepository(10);
+		Instant leaseExpiration = now.plusSeconds(30);
+		repository.claim(requestKey, payloadHash, claimToken, now, leaseExpiration);
+		repository.claim(requestKey, payloadHash, "claim-2", leaseExpiration, leaseExpiration.plusSeconds(30));
+
+		assertThat(repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate)).isFalse();
+		repository.release(requestKey, claimToken);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, leaseExpiration, expirationDate))
+				.contains(UsageOutcome.PENDING);
+		assertThat(repository.complete(requestKey, "claim-2", UsageOutcome.COMPLETED, expirationDate)).isTrue();
+	}
+
+	@Test
+	void completeShouldFailWhenBackingRepositoryLostClaim() {
+		var repository = new InMemoryIdempotencyRepository(10, backingRepository);
+		when(backingRepository.claim(requestKey, payloadHash, claimToken, now, expirationDate))
+				.thenReturn(Optional.empty(), Optional.of(UsageOutcome.PENDING));
+
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+
+		assertThat(repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate)).isFalse();
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate))
+				.contains(UsageOutcome.PENDING);
+	}
+
+	@Test
+	void claimShouldReturnOutcomeFoundInBackingRepository() {
+		var repository = new InMemoryIdempotencyRepository(10, backingRepository);
+		when(backingRepository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).thenReturn(Optional.of(UsageOutcome.LIMIT_EXCEEDED));
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.LIMIT_EXCEEDED);
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.LIMIT_EXCEEDED);
+
+		verify(backingRepository, times(1)).claim(requestKey, payloadHash, claimToken, now, expirationDate);
+	}
+
+	@Test
+	void claimShouldLookUpAgainKeyPendingInBackingRepository() {
+		var repository = new InMemoryIdempotencyRepository(10, backingRepository);
+		when(backingRepository.claim(requestKey, payloadHash, claimToken, now, expirationDate))
+				.thenReturn(Optional.of(UsageOutcome.PENDING), Optional.of(UsageOutcome.COMPLETED));
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.PENDING);
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.COMPLETED);
+	}
+
+	@Test
+	void completeShouldStoreOutcomeInBackingRepository() {
+		var repository = new InMemoryIdempotencyRepository(10, backingRepository);
+		when(backingRepository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).thenReturn(Optional.empty());
+		when(backingRepository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate)).thenReturn(true);
+
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+
+		verify(backingRepository).complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.COMPLETED);
+	}
+
+	@Test
+	void claimShouldForgetKeyWhenBackingRepositoryFails() {
+		var repository = new InMemoryIdempotencyRepository(10, backingRepository);
+		when(backingRepository.claim(requestKey, payloadHash, claimToken, now, expirationDate))
+				.thenThrow(new RepositoryException("Database unavailable"))
+				.thenReturn(Optional.empty());
+
+		assertThatExceptionOfType(RepositoryException.class)
+				.isThrownBy(() -> repository.claim(requestKey, payloadHash, claimToken, now, expirationDate));
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).isEmpty();
+	}
+}
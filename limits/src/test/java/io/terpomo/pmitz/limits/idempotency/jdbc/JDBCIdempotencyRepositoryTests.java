@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.idempotency.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.idempotency.RequestKey;
+import io.terpomo.pmitz.limits.idempotency.UsageOutcome;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class JDBCIdempotencyRepositoryTests {
+
+	private static final String SCHEMA_NAME = "public";
+	private static final String TABLE_NAME = "idempotency_key";
+
+	private final RequestKey requestKey = new RequestKey(new FeatureRef("Picture hosting service", "Uploading pictures"),
+			"User1", "request-1");
+	private final String payloadHash = "payload";
+	private final String claimToken = "claim-1";
+	private final Instant now = Instant.parse("2024-01-15T10:00:00Z");
+	private final Instant expirationDate = now.plus(Duration.ofHours(1));
+
+	private JdbcDataSource dataSource;
+	private JDBCIdempotencyRepository repository;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		dataSource.setPassword("");
+
+		executeUpdate(String.format("""
+				CREATE TABLE %s.%s (
+					product_id VARCHAR(255) NOT NULL,
+					feature_id VARCHAR(255) NOT NULL,
+					user_grouping VARCHAR(255) NOT NULL,
+					request_key VARCHAR(255) NOT NULL,
+					payload_hash VARCHAR(64) NOT NULL,
+					claim_token VARCHAR(36) NOT NULL,
+					outcome VARCHAR(20) NOT NULL,
+					expiration_date TIMESTAMP NOT NULL,
+					PRIMARY KEY (product_id, feature_id, user_grouping, request_key)
+				)
+				""", SCHEMA_NAME, TABLE_NAME));
+
+		repository = new JDBCIdempotencyRepository(dataSource, SCHEMA_NAME, TABLE_NAME);
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		executeUpdate(String.format("DROP TABLE IF EXISTS %s.%s", SCHEMA_NAME, TABLE_NAME));
+	}
+
+	@Test
+	void claimShouldStorePendingKey() {
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).isEmpty();
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.PENDING);
+	}
+
+	@Test
+	void claimShouldReturnOutcomeOfCompletedKey() {
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.complete(requestKey, claimToken, UsageOutcome.LIMIT_EXCEEDED, expirationDate);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.LIMIT_EXCEEDED);
+	}
+
+	@Test
+	void claimShouldReclaimExpiredKey() {
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, expirationDate, expirationDate.plus(Duration.ofHours(1)))).isEmpty();
+	}
+
+	@Test
+	void claimShouldTakeOverPendingKeyWhoseLeaseLapsed() {
+		Instant leaseExpiration = now.plusSeconds(30);
+		repository.claim(requestKey, payloadHash, claimToken, now, leaseExpiration);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, leaseExpiration, leaseExpiration.plusSeconds(30))).isEmpty();
+	}
+
+	@Test
+	void completeShouldFailWhenKeyWasTakenOver() {
+		Instant leaseExpiration = now.plusSeconds(30);
+		repository.claim(requestKey, payloadHash, claimToken, now, leaseExpiration);
+		repository.claim(requestKey, payloadHash, "claim-2", leaseExpiration, leaseExpiration.plusSeconds(30));
+
+		assertThat(repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate)).isFalse();
+		repository.release(requestKey, claimToken);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, leaseExpiration, expirationDate))
+				.contains(UsageOutcome.PENDING);
+		assertThat(repository.complete(requestKey, "claim-2", UsageOutcome.COMPLETED, expirationDate)).isTrue();
+	}
+
+	@Test
+	void completeShouldKeepOutcomeUntilExpirationDate() {
+		Instant leaseExpiration = now.plusSeconds(30);
+		repository.claim(requestKey, payloadHash, claimToken, now, leaseExpiration);
+		repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, leaseExpiration, leaseExpiration.plusSeconds(30)))
+				.contains(UsageOutcome.COMPLETED);
+	}
+
+	@Test
+	void claimShouldRejectKeyReusedWithAnotherPayload() {
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.complete(requestKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+
+		assertThatExceptionOfType(IdempotencyKeyReusedException.class)
+				.isThrownBy(() -> repository.claim(requestKey, "other-payload", claimToken, now, expirationDate));
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.COMPLETED);
+	}
+
+	@Test
+	void releaseShouldOnlyRemovePendingKey() {
+		RequestKey otherKey = new RequestKey(requestKey.featureRef(), "User1", "request-2");
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.claim(otherKey, payloadHash, claimToken, now, expirationDate);
+		repository.complete(otherKey, claimToken, UsageOutcome.COMPLETED, expirationDate);
+
+		repository.release(requestKey, claimToken);
+		repository.release(otherKey, claimToken);
+
+		assertThat(repository.claim(requestKey, payloadHash, claimToken, now, expirationDate)).isEmpty();
+		assertThat(repository.claim(otherKey, payloadHash, claimToken, now, expirationDate)).contains(UsageOutcome.COMPLETED);
+	}
+
+	@Test
+	void deleteExpiredShouldRemoveExpiredKeys() {
+		RequestKey otherKey = new RequestKey(requestKey.featureRef(), "User1", "request-2");
+		repository.claim(requestKey, payloadHash, claimToken, now, expirationDate);
+		repository.claim(otherKey, payloadHash, claimToken, now, expirationDate.plus(Duration.ofHours(1)));
+
+		assertThat(repository.deleteExpired(expirationDate, 10)).isEqualTo(1);
+		assertThat(repository.claim(otherKey, payloadHash, claimToken, expirationDate, expirationDate)).contains(UsageOutcome.PENDING);
+	}
+
+	@Test
+	void deleteExpiredShouldDeleteAtMostGivenNumberOfKeys() {
+		for (int i = 1; i <= 3; i++) {
+			repository.claim(new RequestKey(requestKey.featureRef(), "User1", "request-" + i), payloadHash, claimToken,
+					now, expirationDate);
+		}
+
+		assertThat(repository.deleteExpired(expirationDate, 2)).isEqualTo(2);
+		assertThat(repository.deleteExpired(expirationDate, 2)).isEqualTo(1);
+		assertThat(repository.deleteExpired(expirationDate, 2)).isZero();
+	}
+
+	private void executeUpdate(String query) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.executeUpdate(query);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class CoarseClockTests {
+
+	@Test
+	void instantShouldAdvanceAtPrecision() throws InterruptedException {
+		try (CoarseClock clock = CoarseClock.of(Duration.ofMillis(5))) {
+			Instant start = clock.instant();
+
+			Thread.sleep(100);
+
+			assertThat(clock.instant()).isAfter(start);
+			assertThat(clock.millis()).isEqualTo(clock.instant().toEpochMilli());
+			assertThat(Duration.between(clock.instant(), Instant.now())).isLessThan(Duration.ofSeconds(1));
+		}
+	}
+
+	@Test
+	void withZoneShouldShareTime() {
+		try (CoarseClock clock = CoarseClock.of(Duration.ofSeconds(10))) {
+			var utcClock = clock.withZone(ZoneOffset.UTC);
+
+			assertThat(utcClock.getZone()).isEqualTo(ZoneOffset.UTC);
+			assertThat(utcClock.instant()).isSameAs(clock.instant());
+		}
+	}
+
+	@Test
+	void ofShouldRejectNonPositivePrecision() {
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> CoarseClock.of(Duration.ZERO));
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExecutorAsyncLimitVerifierTests {
+
+	@Mock
+	LimitVerifier limitVerifier;
+
+	FeatureRef featureRef = new FeatureRef("FILE_SHARING", "ADD_FILE");
+
+	UserGrouping userGrouping = new IndividualUser("user001");
+
+	Map<String, Long> units = Map.of("MAX_FILES", 1L);
+
+	@Test
+	void isWithinLimitsShouldRunDelegateOnExecutor() throws Exception {
+		when(limitVerifier.isWithinLimits(featureRef, userGrouping, units)).thenAnswer(invocation ->
+				Thread.currentThread().getName().startsWith("pmitz-async-limits-"));
+
+		try (var asyncLimitVerifier = ExecutorAsyncLimitVerifier.builder(limitVerifier).build()) {
+			assertThat(asyncLimitVerifier.isWithinLimits(featureRef, userGrouping, units).get(5, TimeUnit.SECONDS)).isTrue();
+		}
+	}
+
+	@Test
+	void recordFeatureUsageShouldCompleteExceptionallyWhenLimitExceeded() {
+		doThrow(new LimitExceededException("Limit exceeded", featureRef, userGrouping))
+				.when(limitVerifier).recordFeatureUsage(featureRef, userGrouping, units);
+
+		try (var asyncLimitVerifier = ExecutorAsyncLimitVerifier.builder(limitVerifier).build()) {
+			var future = asyncLimitVerifier.recordFeatureUsage(featureRef, userGrouping, units);
+
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+					.withCauseInstanceOf(LimitExceededException.class);
+		}
+	}
+
+	@Test
+	void failedCallShouldNotInterruptThreadRunningIt() throws Exception {
+		doThrow(new LimitExceededException("Limit exceeded", featureRef, userGrouping))
+				.when(limitVerifier).recordFeatureUsage(featureRef, userGrouping, units);
+		CountDownLatch executed = new CountDownLatch(1);
+		AtomicBoolean cancelled = new AtomicBoolean();
+		ExecutorService executorService = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+			@Override
+			protected void afterExecute(Runnable runnable, Throwable throwable) {
+				cancelled.set(((Future<?>) runnable).isCancelled());
+				executed.countDown();
+			}
+		};
+		try {
+			var asyncLimitVerifier = ExecutorAsyncLimitVerifier.builder(limitVerifier)
+					.executorService(executorService)
+					.build();
+
+			var future = asyncLimitVerifier.recordFeatureUsage(featureRef, userGrouping, units);
+
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+					.withCauseInstanceOf(LimitExceededException.class);
+			assertThat(executed.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(cancelled).isFalse();
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	void timeoutShouldInterruptRunningCall() throws Exception {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).thenAnswer(invocation -> {
+			awaitInterruption(interrupted);
+			return Map.of();
+		});
+
+		try (var asyncLimitVerifier = ExecutorAsyncLimitVerifier.builder(limitVerifier)
+				.timeout(Duration.ofMillis(50))
+				.build()) {
+			var future = asyncLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+					.withCauseInstanceOf(TimeoutException.class);
+			assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+	}
+
+	@Test
+	void cancelShouldInterruptRunningCall() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).thenAnswer(invocation -> {
+			started.countDown();
+			awaitInterruption(interrupted);
+			return Map.of();
+		});
+
+		try (var asyncLimitVerifier = ExecutorAsyncLimitVerifier.builder(limitVerifier).build()) {
+			var future = asyncLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+			future.cancel(true);
+
+			assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(future).isCancelled();
+		}
+	}
+
+	@Test
+	void callsBeyondQueueCapacityShouldBeRejected() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).thenAnswer(invocation -> {
+			started.countDown();
+			release.await();
+			return Map.of();
+		});
+
+		try (var asyncLimitVerifier = ExecutorAsyncLimitVerifier.builder(limitVerifier)
+				.maximumConcurrency(1)
+				.queueCapacity(1)
+				.build()) {
+			var running = asyncLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+			var queued = asyncLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+			var rejected = asyncLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+			assertThat(rejected).isCompletedExceptionally();
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(rejected::get)
+					.withCauseInstanceOf(RejectedExecutionException.class);
+			release.countDown();
+			assertThat(running.get(5, TimeUnit.SECONDS)).isEmpty();
+			assertThat(queued.get(5, TimeUnit.SECONDS)).isEmpty();
+		}
+	}
+
+	@Test
+	void closeShouldNotShutDownSuppliedExecutor() {
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		try {
+			ExecutorAsyncLimitVerifier.builder(limitVerifier).executorService(executorService).build().close();
+
+			assertThat(executorService.isShutdown()).isFalse();
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	void builderShouldRejectNonPositiveConcurrency() {
+		var builder = ExecutorAsyncLimitVerifier.builder(limitVerifier);
+
+		assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> builder.maximumConcurrency(0));
+	}
+
+	private static void awaitInterruption(CountDownLatch interrupted) {
+		try {
+			Thread.sleep(10_000);
+		}
+		catch (InterruptedException ex) {
+			interrupted.countDown();
+			Thread.currentThread().interrupt();
+		}
+	}
+}
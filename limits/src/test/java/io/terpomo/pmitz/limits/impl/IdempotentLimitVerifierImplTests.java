@@ -0,0 +1,173 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.core.exception.RequestInProgressException;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.idempotency.InMemoryIdempotencyRepository;
+
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotentLimitVerifierImplTests {
+
+	FeatureRef featureRef = new FeatureRef("FILE_SHARING", "ADD_FILE");
+
+	UserGrouping userGrouping = new IndividualUser("user001");
+
+	Map<String, Long> units = Map.of("MAX_FILES", 1L);
+
+	@Mock
+	LimitVerifier delegate;
+
+	Clock clock = Clock.fixed(Instant.parse("2024-01-15T10:00:00Z"), ZoneOffset.UTC);
+
+	IdempotentLimitVerifierImpl limitVerifier;
+
+	@BeforeEach
+	void setUp() {
+		limitVerifier = new IdempotentLimitVerifierImpl(delegate, new InMemoryIdempotencyRepository(100),
+				Duration.ofHours(1), clock);
+	}
+
+	@Test
+	void recordFeatureUsageShouldRecordReplayOnce() {
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1");
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1");
+
+		verify(delegate, times(1)).recordFeatureUsage(featureRef, userGrouping, units);
+	}
+
+	@Test
+	void recordFeatureUsageShouldRecordEachKey() {
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1");
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-2");
+
+		verify(delegate, times(2)).recordFeatureUsage(featureRef, userGrouping, units);
+	}
+
+	@Test
+	void recordFeatureUsageShouldAlwaysRecordWithoutKey() {
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, null);
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, null);
+
+		verify(delegate, times(2)).recordFeatureUsage(featureRef, userGrouping, units);
+	}
+
+	@Test
+	void recordFeatureUsageShouldReplayLimitExceeded() {
+		doThrow(new LimitExceededException("Limit exceeded", featureRef, userGrouping))
+				.when(delegate).recordFeatureUsage(featureRef, userGrouping, units);
+
+		assertThatExceptionOfType(LimitExceededException.class)
+				.isThrownBy(() -> limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1"));
+		assertThatExceptionOfType(LimitExceededException.class)
+				.isThrownBy(() -> limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1"));
+
+		verify(delegate, times(1)).recordFeatureUsage(featureRef, userGrouping, units);
+	}
+
+	@Test
+	void recordFeatureUsageShouldAllowRetryAfterFailure() {
+		doThrow(new RepositoryException("Database unavailable")).doNothing()
+				.when(delegate).recordFeatureUsage(featureRef, userGrouping, units);
+
+		assertThatExceptionOfType(RepositoryException.class)
+				.isThrownBy(() -> limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1"));
+		assertThatNoException()
+				.isThrownBy(() -> limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1"));
+
+		verify(delegate, times(2)).recordFeatureUsage(featureRef, userGrouping, units);
+	}
+
+	@Test
+	void recordFeatureUsageShouldRejectReplayOfRequestInProgress() {
+		doAnswer(invocation -> {
+			limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1");
+			return null;
+		}).when(delegate).recordFeatureUsage(featureRef, userGrouping, units);
+
+		assertThatExceptionOfType(RequestInProgressException.class)
+				.isThrownBy(() -> limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1"));
+	}
+
+	@Test
+	void recordFeatureUsageShouldUndoRequestWhoseLeaseLapsedWhileRunning() {
+		var idempotencyRepository = new InMemoryIdempotencyRepository(100);
+		var startTime = Instant.parse("2024-01-15T10:00:00Z");
+		var replayingVerifier = new IdempotentLimitVerifierImpl(delegate, idempotencyRepository, Duration.ofHours(1),
+				Duration.ofSeconds(30), Clock.fixed(startTime.plusSeconds(30), ZoneOffset.UTC));
+		doAnswer(invocation -> {
+			// the lease of the first request ends while it is still running
+			replayingVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1");
+			return null;
+		}).doNothing().when(delegate).recordFeatureUsage(featureRef, userGrouping, units);
+
+		assertThatExceptionOfType(RequestInProgressException.class)
+				.isThrownBy(() -> new IdempotentLimitVerifierImpl(delegate, idempotencyRepository, Duration.ofHours(1),
+						Duration.ofSeconds(30), Clock.fixed(startTime, ZoneOffset.UTC))
+						.recordFeatureUsage(featureRef, userGrouping, units, "request-1"));
+
+		verify(delegate, times(2)).recordFeatureUsage(featureRef, userGrouping, units);
+		verify(delegate, times(1)).reduceFeatureUsage(featureRef, userGrouping, units);
+		assertThatNoException()
+				.isThrownBy(() -> replayingVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1"));
+		verifyNoMoreInteractions(delegate);
+	}
+
+	@Test
+	void reduceFeatureUsageShouldRejectKeyOfRecord() {
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, units, "request-1");
+
+		assertThatExceptionOfType(IdempotencyKeyReusedException.class)
+				.isThrownBy(() -> limitVerifier.reduceFeatureUsage(featureRef, userGrouping, units, "request-1"));
+		assertThatExceptionOfType(IdempotencyKeyReusedException.class)
+				.isThrownBy(() -> limitVerifier.recordFeatureUsage(featureRef, userGrouping, Map.of("MAX_FILES", 2L),
+						"request-1"));
+
+		verify(delegate, times(1)).recordFeatureUsage(featureRef, userGrouping, units);
+		verifyNoMoreInteractions(delegate);
+	}
+
+	@Test
+	void reduceFeatureUsageShouldReduceReplayOnce() {
+		limitVerifier.reduceFeatureUsage(featureRef, userGrouping, units, "request-1");
+		limitVerifier.reduceFeatureUsage(featureRef, userGrouping, units, "request-1");
+
+		verify(delegate, times(1)).reduceFeatureUsage(featureRef, userGrouping, units);
+	}
+}
@@ -16,8 +16,13 @@
 
 package io.terpomo.pmitz.limits.impl;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -30,22 +35,33 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import io.terpomo.pmitz.core.Feature;
+import io.terpomo.pmitz.core.exception.LimitExceededException;
 import io.terpomo.pmitz.core.Product;
 import io.terpomo.pmitz.core.limits.LimitRule;
 import io.terpomo.pmitz.core.limits.types.CountLimit;
 import io.terpomo.pmitz.core.repository.product.ProductRepository;
+import io.terpomo.pmitz.core.repository.product.inmemory.InMemoryProductRepository;
+import io.terpomo.pmitz.core.subjects.DirectoryGroup;
 import io.terpomo.pmitz.core.subjects.IndividualUser;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subjects.UserGroupingHierarchy;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitOperation;
+import io.terpomo.pmitz.limits.LimitOperationResult;
 import io.terpomo.pmitz.limits.LimitRuleResolver;
 import io.terpomo.pmitz.limits.LimitVerificationStrategy;
 import io.terpomo.pmitz.limits.LimitVerificationStrategyResolver;
+import io.terpomo.pmitz.limits.impl.strategy.SimpleLimitVerificationStrategy;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
 import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.LockingUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
 import io.terpomo.pmitz.limits.usage.repository.UsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.UsageUpdateConflictException;
+import io.terpomo.pmitz.limits.userlimit.UserLimitRepository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOfType;
@@ -60,6 +76,12 @@ class LimitVerifierImplTests {
 	@Mock
 	UsageRepository usageRepo;
 
+	@Mock
+	AtomicUsageRepository atomicUsageRepo;
+
+	@Mock
+	LockingUsageRepository lockingUsageRepo;
+
 	@Mock
 	LimitVerificationStrategy limitVerificationStrategy;
 
@@ -75,6 +97,9 @@ class LimitVerifierImplTests {
 	@Captor
 	ArgumentCaptor<LimitRule> limitRuleArgCaptor;
 
+	@Captor
+	ArgumentCaptor<List<LimitTrackingContext>> contextsArgCaptor;
+
 	Feature feature;
 	FeatureRef featureRef;
 	Product product;
@@ -83,6 +108,8 @@ class LimitVerifierImplTests {
 
 	LimitRule limitRule = new CountLimit("MAX_FILES", 10L);
 
+	Clock clock = Clock.fixed(Instant.parse("2022-03-14T09:33:52Z"), ZoneOffset.UTC);
+
 	ZonedDateTime zonedDateTime;
 
 	LimitVerifierImpl limitVerifier;
@@ -97,18 +124,16 @@ class LimitVerifierImplTests {
 		lenient().when(productRepository.getProductById("FILE_SHARING")).thenReturn(Optional.of(product));
 		lenient().when(productRepository.getFeature(product, "ADD_FILE")).thenReturn(Optional.of(feature));
 
-		limitVerifier = new LimitVerifierImpl(limitRuleResolver, limitVerificationStrategyResolver, usageRepo, productRepository);
+		zonedDateTime = ZonedDateTime.now(clock);
+		limitVerifier = new LimitVerifierImpl(limitRuleResolver, limitVerificationStrategyResolver, usageRepo, productRepository,
+				clock);
 	}
 
 	@Test
 	void recordUsageShouldCallLimitVerificationStrategyAndRepoUpdate() {
 		initMocks();
 
-		try (MockedStatic<ZonedDateTime> mockedLocalDateTime = mockStatic(ZonedDateTime.class)) {
-			mockedLocalDateTime.when(ZonedDateTime::now).thenReturn(zonedDateTime);
-
-			limitVerifier.recordFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
-		}
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
 
 		verify(limitVerificationStrategy).recordFeatureUsage(contextArgCaptor.capture(), limitRuleArgCaptor.capture(), eq(2L));
 
@@ -126,6 +151,7 @@ class LimitVerifierImplTests {
 
 		assertThat(capturedContext.getFeatureRef()).isEqualTo(featureRef);
 		assertThat(capturedContext.getUserGrouping()).isEqualTo(userGrouping);
+		assertThat(capturedContext.getReferenceDate()).isEqualTo(zonedDateTime);
 
 		verify(usageRepo).updateUsageRecords(capturedContext);
 	}
@@ -134,11 +160,7 @@ class LimitVerifierImplTests {
 	void reduceFeatureUsageShouldCallLimitVerificationStrategyAndRepo() {
 		initMocks();
 
-		try (MockedStatic<ZonedDateTime> mockedLocalDateTime = mockStatic(ZonedDateTime.class)) {
-			mockedLocalDateTime.when(ZonedDateTime::now).thenReturn(zonedDateTime);
-
-			limitVerifier.reduceFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
-		}
+		limitVerifier.reduceFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
 		verify(limitVerificationStrategy).reduceFeatureUsage(contextArgCaptor.capture(), limitRuleArgCaptor.capture(), eq(2L));
 
 		var capturedLimitRule = limitRuleArgCaptor.getValue();
@@ -164,13 +186,9 @@ class LimitVerifierImplTests {
 		initMocks();
 		when(limitVerificationStrategy.getRemainingUnits(any(), eq(limitRule))).thenReturn(2L);
 
-		try (MockedStatic<ZonedDateTime> mockedLocalDateTime = mockStatic(ZonedDateTime.class)) {
-			mockedLocalDateTime.when(ZonedDateTime::now).thenReturn(zonedDateTime);
-
-			var remainingUnitsMap = limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
-			assertThat(remainingUnitsMap).hasSize(1);
-			assertThat(remainingUnitsMap).containsEntry(limitRule.getId(), 2L);
-		}
+		var remainingUnitsMap = limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+		assertThat(remainingUnitsMap).hasSize(1);
+		assertThat(remainingUnitsMap).containsEntry(limitRule.getId(), 2L);
 		verify(usageRepo).loadUsageData(contextArgCaptor.capture());
 
 		var capturedContext = contextArgCaptor.getValue();
@@ -185,12 +203,8 @@ class LimitVerifierImplTests {
 		long requiredAdditionalUnits = 3L;
 		when(limitVerificationStrategy.isWithinLimits(any(), eq(limitRule), eq(requiredAdditionalUnits))).thenReturn(expectedResult);
 
-		try (MockedStatic<ZonedDateTime> mockedLocalDateTime = mockStatic(ZonedDateTime.class)) {
-			mockedLocalDateTime.when(ZonedDateTime::now).thenReturn(zonedDateTime);
-
-			var isWithinLimits = limitVerifier.isWithinLimits(featureRef, userGrouping, Collections.singletonMap(limitRule.getId(), requiredAdditionalUnits));
-			assertThat(isWithinLimits).isEqualTo(expectedResult);
-		}
+		var isWithinLimits = limitVerifier.isWithinLimits(featureRef, userGrouping, Collections.singletonMap(limitRule.getId(), requiredAdditionalUnits));
+		assertThat(isWithinLimits).isEqualTo(expectedResult);
 		verify(usageRepo).loadUsageData(contextArgCaptor.capture());
 
 		var capturedContext = contextArgCaptor.getValue();
@@ -230,15 +244,314 @@ class LimitVerifierImplTests {
 
 	}
 
-	private void initMocks() {
+	@Test
+	void recordUsageShouldApplyDeltasWhenRepositorySupportsAtomicUpdates() {
+		var atomicLimitVerifier = initAtomicMocks(2L);
+		var delta = usageDelta(2L);
+		when(atomicUsageRepo.applyDeltasWithinLimits(List.of(delta))).thenReturn(Optional.of(List.of(2L)));
+
+		atomicLimitVerifier.recordFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
+
+		verify(atomicUsageRepo).applyDeltasWithinLimits(List.of(delta));
+		verify(atomicUsageRepo, never()).loadUsageData(any());
+		verify(atomicUsageRepo, never()).updateUsageRecords(any());
+		verify(limitVerificationStrategy, never()).recordFeatureUsage(any(), any(), anyLong());
+	}
+
+	@Test
+	void recordUsageShouldThrowExceptionWhenAtomicUpdateIsRejected() {
+		var atomicLimitVerifier = initAtomicMocks(2L);
+		when(atomicUsageRepo.applyDeltasWithinLimits(List.of(usageDelta(2L)))).thenReturn(Optional.empty());
+
+		var additionalUnits = Collections.singletonMap("MAX_FILES", 2L);
+		assertThatExceptionOfType(LimitExceededException.class)
+				.isThrownBy(() -> atomicLimitVerifier.recordFeatureUsage(featureRef, userGrouping, additionalUnits));
+	}
+
+	@Test
+	void reduceUsageShouldApplyNegativeDeltasWhenRepositorySupportsAtomicUpdates() {
+		var atomicLimitVerifier = initAtomicMocks(-2L);
+
+		atomicLimitVerifier.reduceFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
+
+		verify(atomicUsageRepo).applyDeltas(List.of(usageDelta(-2L)));
+		verify(atomicUsageRepo, never()).updateUsageRecords(any());
+	}
+
+	@Test
+	void recordUsageShouldLoadAndUpdateInLockedTransactionWhenRepositorySupportsLockingUpdates() {
+		initMocks();
+		when(lockingUsageRepo.supportsLockingUpdates()).thenReturn(true);
+		List<LimitTrackingContext> loadedContexts = new ArrayList<>();
+		List<LimitTrackingContext> updatedContexts = new ArrayList<>();
+		doAnswer(invocation -> {
+			LockingUsageRepository.LockedUpdate update = invocation.getArgument(0);
+			updatedContexts.addAll(update.apply(loadedContexts::addAll));
+			return null;
+		}).when(lockingUsageRepo).updateUsageRecordsLocked(any());
+		var lockingLimitVerifier = new LimitVerifierImpl(limitRuleResolver, limitVerificationStrategyResolver,
+				lockingUsageRepo, productRepository, clock);
+
+		lockingLimitVerifier.recordFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
+
+		verify(limitVerificationStrategy).recordFeatureUsage(contextArgCaptor.capture(), eq(limitRule), eq(2L));
+		assertThat(loadedContexts).containsExactly(contextArgCaptor.getValue());
+		assertThat(updatedContexts).containsExactly(contextArgCaptor.getValue());
+		verify(lockingUsageRepo, never()).loadUsageData(any());
+		verify(lockingUsageRepo, never()).updateUsageRecords(any());
+	}
+
+	@Test
+	void recordUsageShouldLoadUsageAgainWhenUpdateConflicts() {
+		initMocks();
+		doThrow(new UsageUpdateConflictException("conflict")).doNothing().when(usageRepo).updateUsageRecords(any());
+
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
+
+		verify(usageRepo, times(2)).loadUsageData(any());
+		verify(limitVerificationStrategy, times(2)).recordFeatureUsage(any(), eq(limitRule), eq(2L));
+		assertThat(limitVerifier.getConflictStatistics()).isEqualTo(new LimitVerifierImpl.ConflictStatistics(1, 1));
+	}
+
+	@Test
+	void recordUsageShouldFailWhenUpdateKeepsConflicting() {
+		initMocks();
+		doThrow(new UsageUpdateConflictException("conflict")).when(usageRepo).updateUsageRecords(any());
+
+		var additionalUnits = Collections.singletonMap("MAX_FILES", 2L);
+		assertThatExceptionOfType(UsageUpdateConflictException.class)
+				.isThrownBy(() -> limitVerifier.recordFeatureUsage(featureRef, userGrouping, additionalUnits));
+
+		verify(usageRepo, times(6)).loadUsageData(any());
+		assertThat(limitVerifier.getConflictStatistics()).isEqualTo(new LimitVerifierImpl.ConflictStatistics(6, 5));
+	}
+
+	@Test
+	void recordUsageShouldLoadAndUpdateWhenStrategyHasNoUsageDelta() {
 		when(limitRuleResolver.resolveLimitRule(featureRef, "MAX_FILES", userGrouping))
 				.thenReturn(Optional.of(limitRule));
+		when(limitVerificationStrategyResolver.resolveLimitVerificationStrategy(limitRule))
+				.thenReturn(limitVerificationStrategy);
+		when(atomicUsageRepo.supportsAtomicUpdates()).thenReturn(true);
+		var atomicLimitVerifier = new LimitVerifierImpl(limitRuleResolver, limitVerificationStrategyResolver, atomicUsageRepo, productRepository);
+
+		atomicLimitVerifier.recordFeatureUsage(featureRef, userGrouping, Collections.singletonMap("MAX_FILES", 2L));
+
+		verify(atomicUsageRepo).loadUsageData(any());
+		verify(limitVerificationStrategy).recordFeatureUsage(any(), eq(limitRule), eq(2L));
+		verify(atomicUsageRepo).updateUsageRecords(any());
+		verify(atomicUsageRepo, never()).applyDeltasWithinLimits(any());
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldReuseLimitPlanUntilProductChanges() {
+		var inMemoryProductRepository = new InMemoryProductRepository();
+		inMemoryProductRepository.addProduct(product);
+		inMemoryProductRepository.addFeature(feature);
+		when(limitVerificationStrategyResolver.resolveLimitVerificationStrategy(any())).thenReturn(limitVerificationStrategy);
+		var cachingLimitVerifier = new LimitVerifierImpl(new LimitRuleResolverImpl(inMemoryProductRepository),
+				limitVerificationStrategyResolver, usageRepo, inMemoryProductRepository);
+
+		cachingLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+		cachingLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+		verify(limitVerificationStrategyResolver, times(1)).resolveLimitVerificationStrategy(limitRule);
+
+		LimitRule updatedLimitRule = new CountLimit("MAX_FILES", 20L);
+		Feature updatedFeature = new Feature(product, "ADD_FILE");
+		updatedFeature.getLimits().add(updatedLimitRule);
+		inMemoryProductRepository.updateFeature(updatedFeature);
+
+		cachingLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+		verify(limitVerificationStrategyResolver).resolveLimitVerificationStrategy(updatedLimitRule);
+		verify(limitVerificationStrategy).getRemainingUnits(any(), eq(updatedLimitRule));
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldLoadUserLimitRulesInOneLookup() {
+		LimitRule dailyLimitRule = new CountLimit("MAX_FILES_PER_DAY", 5L);
+		feature.getLimits().add(dailyLimitRule);
+		var inMemoryProductRepository = new InMemoryProductRepository();
+		inMemoryProductRepository.addProduct(product);
+		inMemoryProductRepository.addFeature(feature);
+		LimitRule userLimitRule = new CountLimit("MAX_FILES", 100L);
+		UserLimitRepository userLimitRepository = mock(UserLimitRepository.class);
+		when(userLimitRepository.findLimitRules(featureRef, List.of("MAX_FILES", "MAX_FILES_PER_DAY"), userGrouping))
+				.thenReturn(Map.of("MAX_FILES", userLimitRule));
+		when(limitVerificationStrategyResolver.resolveLimitVerificationStrategy(any())).thenReturn(limitVerificationStrategy);
+		var userLimitVerifier = new LimitVerifierImpl(new LimitRuleResolverImpl(inMemoryProductRepository, userLimitRepository),
+				limitVerificationStrategyResolver, usageRepo, inMemoryProductRepository);
+
+		var remainingUnitsMap = userLimitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+		assertThat(remainingUnitsMap).containsOnlyKeys("MAX_FILES", "MAX_FILES_PER_DAY");
+		verify(limitVerificationStrategy).getRemainingUnits(any(), eq(userLimitRule));
+		verify(limitVerificationStrategy).getRemainingUnits(any(), eq(dailyLimitRule));
+		verify(userLimitRepository, never()).findLimitRule(any(), any(), any());
+	}
 
+	@Test
+	void recordFeatureUsageInBatchShouldLoadAndUpdateAllOperationsAtOnce() {
+		UserGrouping otherUserGrouping = new IndividualUser("user002");
+		when(limitRuleResolver.resolveLimitRule(eq(featureRef), eq("MAX_FILES"), any())).thenReturn(Optional.of(limitRule));
+		when(limitVerificationStrategyResolver.resolveLimitVerificationStrategy(limitRule))
+				.thenReturn(new SimpleLimitVerificationStrategy());
+
+		List<LimitOperationResult> results = limitVerifier.recordFeatureUsage(List.of(
+				new LimitOperation(featureRef, userGrouping, Map.of("MAX_FILES", 4L)),
+				new LimitOperation(featureRef, userGrouping, Map.of("MAX_FILES", 5L)),
+				new LimitOperation(featureRef, userGrouping, Map.of("MAX_FILES", 3L)),
+				new LimitOperation(featureRef, otherUserGrouping, Map.of("MAX_FILES", 2L))));
+
+		assertThat(results).extracting(LimitOperationResult::isSuccessful).containsExactly(true, true, false, true);
+		assertThat(results.get(2).failure()).isInstanceOf(LimitExceededException.class);
+		verify(limitRuleResolver, times(1)).resolveLimitRule(featureRef, "MAX_FILES", userGrouping);
+		verify(usageRepo).loadAllUsageData(argThat(contexts -> contexts.size() == 2));
+
+		verify(usageRepo).updateAllUsageRecords(contextsArgCaptor.capture());
+		var updatedContexts = contextsArgCaptor.getValue();
+		assertThat(updatedContexts).hasSize(2);
+		assertThat(updatedContexts.get(0).getUserGrouping()).isEqualTo(userGrouping);
+		assertThat(updatedContexts.get(0).getUpdatedUsageRecords()).singleElement()
+				.satisfies(usageRecord -> assertThat(usageRecord.units()).isEqualTo(9L));
+		assertThat(updatedContexts.get(1).getUpdatedUsageRecords()).singleElement()
+				.satisfies(usageRecord -> assertThat(usageRecord.units()).isEqualTo(2L));
+		verify(usageRepo, never()).updateUsageRecords(any());
+	}
+
+	@Test
+	void isWithinLimitsInBatchShouldReturnResultPerOperation() {
+		initMocks();
+		when(limitVerificationStrategy.isWithinLimits(any(), eq(limitRule), eq(2L))).thenReturn(true);
+		when(limitVerificationStrategy.isWithinLimits(any(), eq(limitRule), eq(20L))).thenReturn(false);
+
+		var results = limitVerifier.isWithinLimits(List.of(
+				new LimitOperation(featureRef, userGrouping, Map.of("MAX_FILES", 2L)),
+				new LimitOperation(featureRef, userGrouping, Map.of("MAX_FILES", 20L))));
+
+		assertThat(results).containsExactly(true, false);
+		verify(limitRuleResolver, times(1)).resolveLimitRule(featureRef, "MAX_FILES", userGrouping);
+		verify(usageRepo).loadAllUsageData(argThat(contexts -> contexts.size() == 1));
+	}
+
+	@Test
+	void getLimitsRemainingUnitsInBatchShouldReturnRemainingUnitsPerOperation() {
+		initMocks();
+		when(limitVerificationStrategy.getRemainingUnits(any(), eq(limitRule))).thenReturn(7L);
+
+		var results = limitVerifier.getLimitsRemainingUnits(List.of(new LimitOperation(featureRef, userGrouping)));
+
+		assertThat(results).containsExactly(Map.of("MAX_FILES", 7L));
+		verify(usageRepo, never()).loadUsageData(any());
+	}
+
+	@Test
+	void recordFeatureUsageInBatchShouldApplyDeltasPerOperationWhenRepositorySupportsAtomicUpdates() {
+		var atomicLimitVerifier = initAtomicMocks(2L);
+		when(atomicUsageRepo.applyDeltasWithinLimits(List.of(usageDelta(2L))))
+				.thenReturn(Optional.of(List.of(2L)), Optional.empty());
+
+		var results = atomicLimitVerifier.recordFeatureUsage(List.of(
+				new LimitOperation(featureRef, userGrouping, Map.of("MAX_FILES", 2L)),
+				new LimitOperation(featureRef, userGrouping, Map.of("MAX_FILES", 2L))));
+
+		assertThat(results).extracting(LimitOperationResult::isSuccessful).containsExactly(true, false);
+		verify(atomicUsageRepo, never()).updateAllUsageRecords(any());
+	}
+
+	@Test
+	void recordUsageForHierarchyShouldLoadAndUpdateAllLevelsAtOnce() {
+		UserGrouping directoryGroup = new DirectoryGroup("group001");
+		initHierarchyMocks(directoryGroup, new CountLimit("MAX_FILES", 50L));
+
+		limitVerifier.recordFeatureUsage(featureRef, new UserGroupingHierarchy(userGrouping, directoryGroup), Map.of("MAX_FILES", 4L));
+
+		verify(usageRepo).loadAllUsageData(argThat(contexts -> contexts.size() == 2));
+		verify(usageRepo).updateAllUsageRecords(contextsArgCaptor.capture());
+		var updatedContexts = contextsArgCaptor.getValue();
+		assertThat(updatedContexts).extracting(LimitTrackingContext::getUserGrouping).containsExactly(userGrouping, directoryGroup);
+		assertThat(updatedContexts).allSatisfy(context -> assertThat(context.getUpdatedUsageRecords()).singleElement()
+				.satisfies(usageRecord -> assertThat(usageRecord.units()).isEqualTo(4L)));
+		verify(usageRepo, never()).loadUsageData(any());
+		verify(usageRepo, never()).updateUsageRecords(any());
+	}
+
+	@Test
+	void recordUsageForHierarchyShouldNotUpdateAnyLevelWhenOneLevelExceedsLimit() {
+		UserGrouping directoryGroup = new DirectoryGroup("group001");
+		initHierarchyMocks(directoryGroup, new CountLimit("MAX_FILES", 3L));
+		var hierarchy = new UserGroupingHierarchy(userGrouping, directoryGroup);
+		var additionalUnits = Map.of("MAX_FILES", 4L);
+
+		assertThatExceptionOfType(LimitExceededException.class)
+				.isThrownBy(() -> limitVerifier.recordFeatureUsage(featureRef, hierarchy, additionalUnits));
+
+		verify(usageRepo, never()).updateAllUsageRecords(any());
+		verify(usageRepo, never()).updateUsageRecords(any());
+	}
+
+	@Test
+	void getLimitsRemainingUnitsForHierarchyShouldReturnLowestRemainingUnitsOfAllLevels() {
+		UserGrouping directoryGroup = new DirectoryGroup("group001");
+		initHierarchyMocks(directoryGroup, new CountLimit("MAX_FILES", 3L));
+
+		var remainingUnits = limitVerifier.getLimitsRemainingUnits(featureRef, new UserGroupingHierarchy(userGrouping, directoryGroup));
+
+		assertThat(remainingUnits).containsExactly(Map.entry("MAX_FILES", 3L));
+		verify(usageRepo).loadAllUsageData(argThat(contexts -> contexts.size() == 2));
+	}
+
+	@Test
+	void recordUsageForHierarchyShouldApplyDeltasOfAllLevelsAtOnceWhenRepositorySupportsAtomicUpdates() {
+		UserGrouping directoryGroup = new DirectoryGroup("group001");
+		LimitRule groupLimitRule = new CountLimit("MAX_FILES", 50L);
+		var atomicLimitVerifier = initAtomicMocks(2L);
+		when(limitRuleResolver.resolveLimitRule(featureRef, "MAX_FILES", directoryGroup)).thenReturn(Optional.of(groupLimitRule));
+		when(limitVerificationStrategyResolver.resolveLimitVerificationStrategy(groupLimitRule)).thenReturn(limitVerificationStrategy);
+		var groupDelta = new UsageDelta(featureRef, directoryGroup.getId(), "MAX_FILES", null, null, null, 2L, 50L);
+		when(limitVerificationStrategy.toUsageDelta(eq(featureRef), eq(directoryGroup), eq(groupLimitRule), eq(2L), any()))
+				.thenReturn(Optional.of(groupDelta));
+		when(atomicUsageRepo.applyDeltasWithinLimits(List.of(usageDelta(2L), groupDelta))).thenReturn(Optional.empty());
+		var hierarchy = new UserGroupingHierarchy(userGrouping, directoryGroup);
+		var additionalUnits = Map.of("MAX_FILES", 2L);
+
+		assertThatExceptionOfType(LimitExceededException.class)
+				.isThrownBy(() -> atomicLimitVerifier.recordFeatureUsage(featureRef, hierarchy, additionalUnits));
+
+		verify(atomicUsageRepo).applyDeltasWithinLimits(List.of(usageDelta(2L), groupDelta));
+		verify(atomicUsageRepo, never()).loadAllUsageData(any());
+	}
+
+	private void initHierarchyMocks(UserGrouping directoryGroup, LimitRule groupLimitRule) {
+		when(limitRuleResolver.resolveLimitRule(featureRef, "MAX_FILES", userGrouping)).thenReturn(Optional.of(limitRule));
+		when(limitRuleResolver.resolveLimitRule(featureRef, "MAX_FILES", directoryGroup)).thenReturn(Optional.of(groupLimitRule));
+		when(limitVerificationStrategyResolver.resolveLimitVerificationStrategy(any())).thenReturn(new SimpleLimitVerificationStrategy());
+	}
+
+	private LimitVerifierImpl initAtomicMocks(long units) {
+		when(limitRuleResolver.resolveLimitRule(featureRef, "MAX_FILES", userGrouping))
+				.thenReturn(Optional.of(limitRule));
 		when(limitVerificationStrategyResolver.resolveLimitVerificationStrategy(limitRule))
 				.thenReturn(limitVerificationStrategy);
+		when(atomicUsageRepo.supportsAtomicUpdates()).thenReturn(true);
+		when(limitVerificationStrategy.toUsageDelta(eq(featureRef), eq(userGrouping), eq(limitRule), eq(units), any()))
+				.thenReturn(Optional.of(usageDelta(units)));
+
+		return new LimitVerifierImpl(limitRuleResolver, limitVerificationStrategyResolver, atomicUsageRepo, productRepository);
+	}
+
+	private UsageDelta usageDelta(long units) {
+		return new UsageDelta(featureRef, userGrouping.getId(), "MAX_FILES", null, null, null, units,
+				(units > 0) ? 10L : UsageDelta.UNBOUNDED);
+	}
 
-		String instantExpected = "2022-03-14T09:33:52Z";
-		zonedDateTime = ZonedDateTime.parse(instantExpected);
+	private void initMocks() {
+		when(limitRuleResolver.resolveLimitRule(featureRef, "MAX_FILES", userGrouping))
+				.thenReturn(Optional.of(limitRule));
+
+		when(limitVerificationStrategyResolver.resolveLimitVerificationStrategy(limitRule))
+				.thenReturn(limitVerificationStrategy);
 
 		when(limitVerificationStrategy.getWindowStart(limitRule, zonedDateTime)).thenReturn(Optional.empty());
 	}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.terpomo.pmitz.core.Feature;
+import io.terpomo.pmitz.core.Product;
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.core.exception.ReservationNotFoundException;
+import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
+import io.terpomo.pmitz.core.repository.product.inmemory.InMemoryProductRepository;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.impl.strategy.LimitVerificationStrategyDefaultResolver;
+import io.terpomo.pmitz.limits.reservation.InMemoryReservationRepository;
+import io.terpomo.pmitz.limits.reservation.Reservation;
+import io.terpomo.pmitz.limits.usage.repository.impl.InMemoryUsageRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservingLimitVerifierImplTests {
+
+	static final String LIMIT_ID = "MAX_FILES";
+
+	FeatureRef featureRef = new FeatureRef("FILE_SHARING", "ADD_FILE");
+
+	UserGrouping userGrouping = new IndividualUser("user001");
+
+	@Mock
+	LimitVerifier delegate;
+
+	UsageNearCacheTests.MutableClock clock = new UsageNearCacheTests.MutableClock(Instant.parse("2024-01-15T10:00:00Z"));
+
+	InMemoryReservationRepository reservationRepository;
+
+	ReservingLimitVerifierImpl limitVerifier;
+
+	@BeforeEach
+	void setUp() {
+		reservationRepository = new InMemoryReservationRepository();
+		limitVerifier = new ReservingLimitVerifierImpl(delegate, reservationRepository, clock);
+	}
+
+	@Test
+	void reserveFeatureUsageShouldRecordReservedUnits() {
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L),
+				Duration.ofMinutes(1));
+
+		assertThat(reservationId).isNotBlank();
+		assertThat(reservationRepository.size()).isOne();
+		verify(delegate).recordFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L));
+	}
+
+	@Test
+	void reserveFeatureUsageShouldNotSaveReservationWhenLimitExceeded() {
+		doThrow(new LimitExceededException("Limit exceeded", featureRef, userGrouping))
+				.when(delegate).recordFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L));
+
+		assertThatExceptionOfType(LimitExceededException.class).isThrownBy(() -> limitVerifier
+				.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L), Duration.ofMinutes(1)));
+		assertThat(reservationRepository.size()).isZero();
+	}
+
+	@Test
+	void reserveFeatureUsageShouldReduceUnitsWhenReservationNotSaved() {
+		InMemoryReservationRepository failingRepository = spy(reservationRepository);
+		doThrow(new RepositoryException("Error saving reservation")).when(failingRepository).save(any());
+		limitVerifier = new ReservingLimitVerifierImpl(delegate, failingRepository, clock);
+
+		assertThatExceptionOfType(RepositoryException.class).isThrownBy(() -> limitVerifier
+				.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L), Duration.ofMinutes(1)));
+		verify(delegate).reduceFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L));
+	}
+
+	@Test
+	void reserveFeatureUsageShouldRejectNonPositiveTimeToLive() {
+		assertThatIllegalArgumentException().isThrownBy(() -> limitVerifier
+				.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L), Duration.ZERO));
+		verifyNoInteractions(delegate);
+	}
+
+	@Test
+	void commitReservationShouldReduceUnusedUnits() {
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L),
+				Duration.ofMinutes(1));
+
+		limitVerifier.commitReservation(reservationId, Map.of(LIMIT_ID, 1L));
+
+		verify(delegate).reduceFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 2L));
+		assertThat(reservationRepository.size()).isZero();
+	}
+
+	@Test
+	void commitReservationShouldUpdateOnlyChangedLimitsOfFeature() {
+		Product product = new Product("FILE_SHARING");
+		Feature feature = new Feature(product, "ADD_FILE");
+		feature.getLimits().add(new CalendarPeriodRateLimit(LIMIT_ID, 10, CalendarPeriodRateLimit.Periodicity.MONTH));
+		feature.getLimits().add(new CalendarPeriodRateLimit("MAX_SIZE", 100, CalendarPeriodRateLimit.Periodicity.MONTH));
+		InMemoryProductRepository productRepository = new InMemoryProductRepository();
+		productRepository.addProduct(product);
+		productRepository.addFeature(feature);
+		LimitVerifierImpl limitVerifierImpl = new LimitVerifierImpl(new LimitRuleResolverImpl(productRepository),
+				new LimitVerificationStrategyDefaultResolver(), new InMemoryUsageRepository(clock, Duration.ofMinutes(1)),
+				productRepository, clock);
+		limitVerifier = new ReservingLimitVerifierImpl(limitVerifierImpl, reservationRepository, clock);
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, userGrouping,
+				Map.of(LIMIT_ID, 3L, "MAX_SIZE", 50L), Duration.ofMinutes(1));
+
+		limitVerifier.commitReservation(reservationId, Map.of(LIMIT_ID, 5L, "MAX_SIZE", 20L));
+
+		assertThat(limitVerifierImpl.getLimitsRemainingUnits(featureRef, userGrouping))
+				.isEqualTo(Map.of(LIMIT_ID, 5L, "MAX_SIZE", 80L));
+	}
+
+	@Test
+	void commitReservationShouldRecordUnitsBeyondReservation() {
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L),
+				Duration.ofMinutes(1));
+
+		limitVerifier.commitReservation(reservationId, Map.of(LIMIT_ID, 5L));
+
+		verify(delegate).recordFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 2L));
+		verify(delegate, never()).reduceFeatureUsage(any(), any(), any());
+	}
+
+	@Test
+	void commitReservationShouldKeepReservationWhenLimitExceeded() {
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L),
+				Duration.ofMinutes(1));
+		doThrow(new LimitExceededException("Limit exceeded", featureRef, userGrouping))
+				.when(delegate).recordFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 2L));
+
+		assertThatExceptionOfType(LimitExceededException.class)
+				.isThrownBy(() -> limitVerifier.commitReservation(reservationId, Map.of(LIMIT_ID, 5L)));
+		assertThat(reservationRepository.size()).isOne();
+	}
+
+	@Test
+	void commitReservationShouldThrowForUnknownReservation() {
+		assertThatExceptionOfType(ReservationNotFoundException.class)
+				.isThrownBy(() -> limitVerifier.commitReservation("unknown", Map.of(LIMIT_ID, 1L)))
+				.satisfies(ex -> assertThat(ex.getReservationId()).isEqualTo("unknown"));
+	}
+
+	@Test
+	void releaseReservationShouldReduceReservedUnitsOnce() {
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L),
+				Duration.ofMinutes(1));
+
+		limitVerifier.releaseReservation(reservationId);
+
+		verify(delegate).reduceFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L));
+		assertThatExceptionOfType(ReservationNotFoundException.class)
+				.isThrownBy(() -> limitVerifier.releaseReservation(reservationId));
+	}
+
+	@Test
+	void commitReservationShouldReleaseExpiredReservation() {
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L),
+				Duration.ofMinutes(1));
+		clock.advance(Duration.ofMinutes(1));
+
+		assertThatExceptionOfType(ReservationNotFoundException.class)
+				.isThrownBy(() -> limitVerifier.commitReservation(reservationId, Map.of(LIMIT_ID, 3L)));
+		verify(delegate).reduceFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L));
+	}
+
+	@Test
+	void sweepShouldReleaseExpiredReservations() {
+		limitVerifier.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L), Duration.ofSeconds(10));
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 1L),
+				Duration.ofMinutes(1));
+
+		try (ReservationSweeper sweeper = ReservationSweeper.builder(reservationRepository, limitVerifier)
+				.tickInterval(Duration.ofHours(1))
+				.clock(clock)
+				.build()) {
+			clock.advance(Duration.ofSeconds(10));
+
+			assertThat(sweeper.sweep()).isOne();
+			assertThat(sweeper.getStatistics()).isEqualTo(new ReservationSweeper.Statistics(1, 0, 1, 0));
+		}
+		verify(delegate).reduceFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L));
+		assertThat(reservationRepository.remove(reservationId)).map(Reservation::units).contains(Map.of(LIMIT_ID, 1L));
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.Feature;
+import io.terpomo.pmitz.core.Product;
+import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
+import io.terpomo.pmitz.core.repository.product.inmemory.InMemoryProductRepository;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.impl.strategy.LimitVerificationStrategyDefaultResolver;
+import io.terpomo.pmitz.limits.usage.repository.impl.InMemoryUsageRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class UsageNearCacheTests {
+
+	static final String LIMIT_ID = "MAX_FILES";
+
+	FeatureRef featureRef = new FeatureRef("FILE_SHARING", "ADD_FILE");
+
+	UserGrouping userGrouping = new IndividualUser("user001");
+
+	InMemoryProductRepository productRepository;
+
+	InMemoryUsageRepository usageRepository;
+
+	MutableClock clock;
+
+	UsageNearCache usageNearCache;
+
+	LimitVerifierImpl limitVerifier;
+
+	@BeforeEach
+	void setUp() {
+		Product product = new Product("FILE_SHARING");
+		Feature feature = new Feature(product, "ADD_FILE");
+		feature.getLimits().add(new CalendarPeriodRateLimit(LIMIT_ID, 10, CalendarPeriodRateLimit.Periodicity.MONTH));
+		productRepository = new InMemoryProductRepository();
+		productRepository.addProduct(product);
+		productRepository.addFeature(feature);
+
+		clock = new MutableClock(Instant.parse("2024-01-15T10:00:00Z"));
+		usageRepository = spy(new InMemoryUsageRepository(clock, Duration.ofMinutes(1)));
+		usageNearCache = UsageNearCache.builder(Duration.ofSeconds(1)).clock(clock).build();
+		limitVerifier = newLimitVerifier(usageNearCache);
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldBeServedFromCacheUntilStale() {
+		assertThat(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).containsEntry(LIMIT_ID, 10L);
+		assertThat(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).containsEntry(LIMIT_ID, 10L);
+
+		verify(usageRepository, times(1)).loadUsageData(any());
+
+		clock.advance(Duration.ofSeconds(1));
+		limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+		verify(usageRepository, times(2)).loadUsageData(any());
+		assertThat(usageNearCache.getStatistics()).isEqualTo(new UsageNearCache.Statistics(1, 2, 0, 0, 1));
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldSeeUsageRecordedThroughVerifier() {
+		doReturn(false).when(usageRepository).supportsAtomicUpdates();
+		limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L));
+		limitVerifier.reduceFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 1L));
+
+		assertThat(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).containsEntry(LIMIT_ID, 8L);
+		verify(usageRepository, times(3)).loadUsageData(any());
+		assertThat(usageNearCache.getStatistics().refreshes()).isEqualTo(2);
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldSeeUsageRecordedAtomicallyThroughVerifier() {
+		limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 3L));
+
+		assertThat(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).containsEntry(LIMIT_ID, 7L);
+		verify(usageRepository, times(2)).loadUsageData(any());
+		assertThat(usageNearCache.getStatistics().invalidations()).isEqualTo(1);
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldSeeUsageRecordedElsewhereOnceStale() {
+		limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping);
+
+		newLimitVerifier(null).recordFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 4L));
+
+		assertThat(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).containsEntry(LIMIT_ID, 10L);
+
+		clock.advance(Duration.ofSeconds(1));
+
+		assertThat(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).containsEntry(LIMIT_ID, 6L);
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldLoadUsageOfNextWindowOnceWindowEnds() {
+		usageNearCache = UsageNearCache.builder(Duration.ofHours(1)).clock(clock).build();
+		limitVerifier = newLimitVerifier(usageNearCache);
+		clock.advance(Duration.between(clock.instant(), Instant.parse("2024-01-31T23:59:59Z")));
+		limitVerifier.recordFeatureUsage(featureRef, userGrouping, Map.of(LIMIT_ID, 4L));
+
+		assertThat(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).containsEntry(LIMIT_ID, 6L);
+
+		clock.advance(Duration.ofSeconds(1));
+
+		assertThat(limitVerifier.getLimitsRemainingUnits(featureRef, userGrouping)).containsEntry(LIMIT_ID, 10L);
+		verify(usageRepository, times(2)).loadUsageData(any());
+	}
+
+	@Test
+	void builderShouldRejectNonPositiveMaxStaleness() {
+		assertThatIllegalArgumentException().isThrownBy(() -> UsageNearCache.builder(Duration.ZERO));
+	}
+
+	private LimitVerifierImpl newLimitVerifier(UsageNearCache nearCache) {
+		return new LimitVerifierImpl(new LimitRuleResolverImpl(productRepository),
+				new LimitVerificationStrategyDefaultResolver(), usageRepository, productRepository, clock, nearCache);
+	}
+
+	static final class MutableClock extends Clock {
+
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -20,6 +20,9 @@ import org.junit.jupiter.api.Test;
 
 import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
 import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
+import io.terpomo.pmitz.core.limits.types.WindowUnit;
 import io.terpomo.pmitz.limits.LimitVerificationStrategy;
 import io.terpomo.pmitz.limits.LimitVerificationStrategyResolver;
 
@@ -43,4 +46,19 @@ class LimitVerificationStrategyDefaultResolverTests {
 		LimitVerificationStrategy verifStrategy = strategyResolver.resolveLimitVerificationStrategy(rateLimit);
 		assertThat(verifStrategy).isNotNull();
 	}
+
+	@Test
+	void resolveLimitVerificationStrategyShouldReturnSlidingWindowStrategyWhenSlidingWindowRateLimit() {
+		SlidingWindowRateLimit rateLimit = new SlidingWindowRateLimit(limitId, 10, WindowUnit.MINUTE, 1);
+		LimitVerificationStrategy verifStrategy = new LimitVerificationStrategyDefaultResolver(new SimpleLimitVerificationStrategy())
+				.resolveLimitVerificationStrategy(rateLimit);
+		assertThat(verifStrategy).isInstanceOf(SlidingWindowLimitVerificationStrategy.class);
+	}
+
+	@Test
+	void resolveLimitVerificationStrategyShouldReturnTokenBucketStrategyWhenTokenBucketRateLimit() {
+		TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(limitId, 10, WindowUnit.SECOND, 1);
+		LimitVerificationStrategy verifStrategy = strategyResolver.resolveLimitVerificationStrategy(rateLimit);
+		assertThat(verifStrategy).isInstanceOf(TokenBucketLimitVerificationStrategy.class);
+	}
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl.strategy;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.core.limits.types.WindowUnit;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class SlidingWindowLimitVerificationStrategyTests {
+
+	static String limitId = "api-calls-per-minute";
+
+	SlidingWindowLimitVerificationStrategy verificationStrategy = new SlidingWindowLimitVerificationStrategy();
+
+	SlidingWindowRateLimit limitRule = new SlidingWindowRateLimit(limitId, 10, WindowUnit.MINUTE, 1);
+
+	// A quarter of the current window has elapsed, so the previous window weighs 0.75
+	ZonedDateTime referenceDate = ZonedDateTime.of(2024, 1, 1, 10, 1, 15, 0, ZoneOffset.UTC);
+
+	ZonedDateTime previousWindowStart = ZonedDateTime.of(2024, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+
+	ZonedDateTime currentWindowStart = ZonedDateTime.of(2024, 1, 1, 10, 1, 0, 0, ZoneOffset.UTC);
+
+	@Test
+	void getSearchCriteriaShouldReturnPreviousAndCurrentWindows() {
+		List<RecordSearchCriteria> searchCriteria = verificationStrategy.getSearchCriteria(limitRule, referenceDate);
+
+		assertThat(searchCriteria).containsExactly(
+				new RecordSearchCriteria(limitId, previousWindowStart, currentWindowStart.minusNanos(1)),
+				new RecordSearchCriteria(limitId, currentWindowStart, currentWindowStart.plusMinutes(1).minusNanos(1)));
+	}
+
+	@Test
+	void getRemainingUnitsShouldWeightPreviousWindow() {
+		LimitTrackingContext context = initContext(8L, 1L);
+
+		// 1 + floor(8 * 0.75)
+		assertThat(verificationStrategy.getRemainingUnits(context, limitRule)).isEqualTo(10 - 7);
+		assertThat(verificationStrategy.isWithinLimits(context, limitRule, 3)).isTrue();
+		assertThat(verificationStrategy.isWithinLimits(context, limitRule, 4)).isFalse();
+	}
+
+	@Test
+	void getRemainingUnitsShouldReturnQuotaWhenNoUsage() {
+		LimitTrackingContext context = initContext(null, null);
+
+		assertThat(verificationStrategy.getRemainingUnits(context, limitRule)).isEqualTo(10);
+	}
+
+	@Test
+	void recordFeatureUsageShouldUpdateCurrentWindowOnly() {
+		LimitTrackingContext context = initContext(8L, 1L);
+
+		verificationStrategy.recordFeatureUsage(context, limitRule, 3);
+
+		assertThat(context.getUpdatedUsageRecords()).hasSize(1);
+		UsageRecord updatedRecord = context.getUpdatedUsageRecords().get(0);
+		assertThat(updatedRecord.startTime()).isEqualTo(currentWindowStart);
+		assertThat(updatedRecord.units()).isEqualTo(4L);
+	}
+
+	@Test
+	void recordFeatureUsageShouldCreateCurrentWindowRecordExpiringAfterNextWindow() {
+		LimitTrackingContext context = initContext(2L, null);
+
+		verificationStrategy.recordFeatureUsage(context, limitRule, 5);
+
+		UsageRecord createdRecord = context.getUpdatedUsageRecords().get(0);
+		assertThat(createdRecord.limitId()).isEqualTo(limitId);
+		assertThat(createdRecord.startTime()).isEqualTo(currentWindowStart);
+		assertThat(createdRecord.endTime()).isEqualTo(currentWindowStart.plusMinutes(1).minusNanos(1));
+		assertThat(createdRecord.units()).isEqualTo(5L);
+		assertThat(createdRecord.expirationDate()).isEqualTo(currentWindowStart.plusMinutes(2).minusNanos(1));
+	}
+
+	@Test
+	void recordFeatureUsageShouldThrowExceptionWhenWeightedUsageExceedsLimit() {
+		LimitTrackingContext context = initContext(8L, 1L);
+
+		assertThatExceptionOfType(LimitExceededException.class)
+				.isThrownBy(() -> verificationStrategy.recordFeatureUsage(context, limitRule, 4));
+		assertThat(context.getUpdatedUsageRecords()).isEmpty();
+	}
+
+	@Test
+	void reduceFeatureUsageShouldNotGoBelowZero() {
+		LimitTrackingContext context = initContext(8L, 1L);
+
+		verificationStrategy.reduceFeatureUsage(context, limitRule, 3);
+
+		assertThat(context.getUpdatedUsageRecords().get(0).units()).isZero();
+	}
+
+	@Test
+	void recordFeatureUsageShouldRejectOtherLimitTypes() {
+		LimitTrackingContext context = initContext(null, null);
+		CountLimit countLimit = new CountLimit(limitId, 10);
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> verificationStrategy.recordFeatureUsage(context, countLimit, 1));
+	}
+
+	private LimitTrackingContext initContext(Long previousUnits, Long currentUnits) {
+		LimitTrackingContext context = new LimitTrackingContext(new FeatureRef("API", "Calls"), new IndividualUser("user1"),
+				verificationStrategy.getSearchCriteria(limitRule, referenceDate), referenceDate);
+		if (previousUnits != null) {
+			context.addCurrentUsageRecords(List.of(new UsageRecord(limitId, previousWindowStart,
+					currentWindowStart.minusNanos(1), previousUnits, currentWindowStart.plusMinutes(1))));
+		}
+		if (currentUnits != null) {
+			context.addCurrentUsageRecords(List.of(new UsageRecord(limitId, currentWindowStart,
+					currentWindowStart.plusMinutes(1).minusNanos(1), currentUnits, currentWindowStart.plusMinutes(2))));
+		}
+		return context;
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.impl.strategy;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
+import io.terpomo.pmitz.core.limits.types.WindowUnit;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+import io.terpomo.pmitz.limits.usage.repository.impl.InMemoryUsageRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class TokenBucketLimitVerificationStrategyTests {
+
+	static String limitId = "api-calls-per-second";
+
+	static final long EMISSION_INTERVAL = 100_000_000L;
+
+	FeatureRef featureRef = new FeatureRef("API", "Calls");
+
+	IndividualUser user = new IndividualUser("user1");
+
+	TokenBucketLimitVerificationStrategy verificationStrategy = new TokenBucketLimitVerificationStrategy();
+
+	TokenBucketRateLimit limitRule = new TokenBucketRateLimit(limitId, 10, WindowUnit.SECOND, 1);
+
+	ZonedDateTime referenceDate = ZonedDateTime.of(2024, 1, 1, 10, 1, 15, 0, ZoneOffset.UTC);
+
+	long now = referenceDate.toEpochSecond() * 1_000_000_000L;
+
+	@Test
+	void recordFeatureUsageShouldStartFromReferenceDateWhenNoUsage() {
+		LimitTrackingContext context = initContext(null);
+
+		verificationStrategy.recordFeatureUsage(context, limitRule, 3);
+
+		assertThat(context.getUpdatedUsageRecords()).singleElement().satisfies(usageRecord -> {
+			assertThat(usageRecord.units()).isEqualTo(now + 3 * EMISSION_INTERVAL);
+			assertThat(usageRecord.startTime()).isNull();
+			assertThat(usageRecord.expirationDate()).isNull();
+		});
+	}
+
+	@Test
+	void recordFeatureUsageShouldThrowExceptionWhenBucketIsEmpty() {
+		LimitTrackingContext context = initContext(now + 9 * EMISSION_INTERVAL);
+
+		assertThatExceptionOfType(LimitExceededException.class)
+				.isThrownBy(() -> verificationStrategy.recordFeatureUsage(context, limitRule, 2));
+		assertThat(context.getUpdatedUsageRecords()).isEmpty();
+	}
+
+	@Test
+	void getRemainingUnitsShouldCountRefilledUnits() {
+		LimitTrackingContext context = initContext(now + 6 * EMISSION_INTERVAL);
+
+		assertThat(verificationStrategy.getRemainingUnits(context, limitRule)).isEqualTo(4);
+		assertThat(verificationStrategy.isWithinLimits(context, limitRule, 4)).isTrue();
+		assertThat(verificationStrategy.isWithinLimits(context, limitRule, 5)).isFalse();
+	}
+
+	@Test
+	void reduceFeatureUsageShouldGiveBackUnitsWithoutGoingBeforeReferenceDate() {
+		LimitTrackingContext context = initContext(now + 2 * EMISSION_INTERVAL);
+
+		verificationStrategy.reduceFeatureUsage(context, limitRule, 5);
+
+		assertThat(context.getUpdatedUsageRecords().get(0).units()).isEqualTo(now);
+	}
+
+	@Test
+	void usageDeltasShouldBeAppliedWithSingleCompareAndSet() {
+		InMemoryUsageRepository repository = new InMemoryUsageRepository();
+
+		var delta = verificationStrategy.toUsageDelta(featureRef, user, limitRule, 4, referenceDate).orElseThrow();
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta))).contains(List.of(now + 4 * EMISSION_INTERVAL));
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta))).contains(List.of(now + 8 * EMISSION_INTERVAL));
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta))).isEmpty();
+
+		var later = verificationStrategy.toUsageDelta(featureRef, user, limitRule, 4, referenceDate.plusSeconds(1)).orElseThrow();
+		assertThat(repository.applyDeltasWithinLimits(List.of(later))).contains(List.of(now + 14 * EMISSION_INTERVAL));
+	}
+
+	@Test
+	void usageDeltaShouldBeRejectedWhenUnitsExceedQuota() {
+		UsageDelta delta = verificationStrategy.toUsageDelta(featureRef, user, limitRule, Long.MAX_VALUE, referenceDate).orElseThrow();
+
+		assertThat(delta.initialUnits()).isGreaterThan(delta.maxUnits());
+	}
+
+	@Test
+	void recordFeatureUsageShouldRejectOtherLimitTypes() {
+		LimitTrackingContext context = initContext(null);
+		CountLimit countLimit = new CountLimit(limitId, 10);
+
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> verificationStrategy.recordFeatureUsage(context, countLimit, 1));
+	}
+
+	private LimitTrackingContext initContext(Long arrivalTime) {
+		LimitTrackingContext context = new LimitTrackingContext(featureRef, user,
+				List.of(new RecordSearchCriteria(limitId, null, null)), referenceDate);
+		if (arrivalTime != null) {
+			context.addCurrentUsageRecords(List.of(new UsageRecord(limitId, null, null, arrivalTime, null)));
+		}
+		return context;
+	}
+}
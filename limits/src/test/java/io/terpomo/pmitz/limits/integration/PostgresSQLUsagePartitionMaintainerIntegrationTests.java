@@ -0,0 +1,176 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.integration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.UsagePartitionMaintainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+class PostgresSQLUsagePartitionMaintainerIntegrationTests {
+
+	private static final String CUSTOM_SCHEMA = "pmitz";
+
+	@Container
+	private static final PostgreSQLContainer postgresqlContainer =
+			new PostgreSQLContainer("postgres:latest");
+
+	private final Instant now = Instant.parse("2025-03-15T00:00:00Z");
+
+	private BasicDataSource dataSource;
+	private JDBCUsageRepository repository;
+	private UsagePartitionMaintainer maintainer;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		dataSource = new BasicDataSource();
+		dataSource.setUrl(postgresqlContainer.getJdbcUrl());
+		dataSource.setUsername(postgresqlContainer.getUsername());
+		dataSource.setPassword(postgresqlContainer.getPassword());
+
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("CREATE SCHEMA IF NOT EXISTS " + CUSTOM_SCHEMA);
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage\" (" +
+					"usage_id serial, " +
+					"feature_id varchar, " +
+					"product_id varchar, " +
+					"user_grouping varchar, " +
+					"limit_id varchar, " +
+					"window_start TIMESTAMP, " +
+					"window_end TIMESTAMP, " +
+					"units bigint, " +
+					"expiration_date TIMESTAMP, " +
+					"updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+					") PARTITION BY RANGE (window_start)");
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage_default\" PARTITION OF "
+					+ CUSTOM_SCHEMA + ".\"Usage\" DEFAULT");
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage_p2024_11\" PARTITION OF "
+					+ CUSTOM_SCHEMA + ".\"Usage\" FOR VALUES FROM ('2024-11-01') TO ('2024-12-01')");
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage_p2024_12\" PARTITION OF "
+					+ CUSTOM_SCHEMA + ".\"Usage\" FOR VALUES FROM ('2024-12-01') TO ('2025-01-01')");
+		}
+
+		repository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"");
+		maintainer = UsagePartitionMaintainer.builder(repository)
+				.partitionsAhead(3)
+				.retention(Period.ofMonths(3))
+				.clock(Clock.fixed(now, ZoneOffset.UTC))
+				.build();
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		maintainer.close();
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".\"Usage\"");
+		}
+	}
+
+	@Test
+	void maintainPartitionsShouldCreateFuturePartitionsAndDropExpiredOnes() throws SQLException {
+		insertRecord(Instant.parse("2024-11-15T00:00:00Z"), Instant.parse("2025-02-01T00:00:00Z"));
+		insertRecord(Instant.parse("2024-12-15T00:00:00Z"), Instant.parse("2025-06-01T00:00:00Z"));
+		insertRecord(null, Instant.parse("2025-01-01T00:00:00Z"));
+		insertRecord(null, Instant.parse("2025-06-01T00:00:00Z"));
+
+		maintainer.maintainPartitions();
+
+		assertThat(findPartitions()).containsExactlyInAnyOrder("Usage_default", "Usage_p2024_12", "Usage_p2025_03",
+				"Usage_p2025_04", "Usage_p2025_05", "Usage_p2025_06");
+		assertThat(maintainer.getStatistics()).isEqualTo(new UsagePartitionMaintainer.Statistics(1, 0, 4, 1, 1));
+
+		maintainer.maintainPartitions();
+
+		assertThat(maintainer.getStatistics().createdPartitions()).isEqualTo(4);
+	}
+
+	@Test
+	void loadUsageDataShouldFindRecordsOfPartitionedTable() throws SQLException {
+		maintainer.maintainPartitions();
+		ZonedDateTime windowStart = now.atZone(ZoneOffset.UTC).withDayOfMonth(1);
+		FeatureRef featureRef = new FeatureRef("product1", "feature1");
+		IndividualUser user = new IndividualUser("user1");
+		RecordSearchCriteria criteria = new RecordSearchCriteria("limit1", windowStart, windowStart.plusMonths(1));
+
+		LimitTrackingContext context = new LimitTrackingContext(featureRef, user, List.of(criteria));
+		context.addUpdatedUsageRecords(List.of(new UsageRecord("limit1", windowStart, windowStart.plusMonths(1), 10L,
+				windowStart.plusMonths(4)), new UsageRecord("limit2", null, null, 5L, null)));
+		repository.updateUsageRecords(context);
+
+		context = new LimitTrackingContext(featureRef, user, List.of(criteria));
+		repository.loadUsageData(context);
+
+		assertThat(context.getCurrentUsageRecords()).extracting(UsageRecord::units).containsExactly(10L);
+	}
+
+	private void insertRecord(Instant windowStart, Instant expirationDate) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("INSERT INTO " + repository.getFullTableName()
+						+ " (feature_id, product_id, user_grouping, limit_id, window_start, units, expiration_date) "
+						+ "VALUES ('feature1', 'product1', 'user1', 'limit1', ?, 1, ?)")) {
+			statement.setTimestamp(1, (windowStart != null) ? Timestamp.from(windowStart) : null);
+			statement.setTimestamp(2, Timestamp.from(expirationDate));
+			statement.executeUpdate();
+		}
+	}
+
+	private List<String> findPartitions() throws SQLException {
+		List<String> partitions = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT c.relname FROM pg_catalog.pg_inherits i "
+						+ "JOIN pg_catalog.pg_class c ON c.oid = i.inhrelid "
+						+ "WHERE i.inhparent = CAST('" + repository.getFullTableName() + "' AS regclass)")) {
+			while (resultSet.next()) {
+				partitions.add(resultSet.getString(1));
+			}
+		}
+		return partitions;
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.reservation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class InMemoryReservationRepositoryTests {
+
+	FeatureRef featureRef = new FeatureRef("FILE_SHARING", "ADD_FILE");
+
+	Instant now = Instant.parse("2024-01-15T10:00:00Z");
+
+	InMemoryReservationRepository repository = new InMemoryReservationRepository(Duration.ofSeconds(1), 8);
+
+	@Test
+	void removeShouldReturnSavedReservationOnce() {
+		Reservation reservation = reservation("reservation-1", now.plusSeconds(5));
+		repository.save(reservation);
+
+		assertThat(repository.remove("reservation-1")).contains(reservation);
+		assertThat(repository.remove("reservation-1")).isEmpty();
+		assertThat(repository.size()).isZero();
+	}
+
+	@Test
+	void saveShouldRejectExistingReservation() {
+		repository.save(reservation("reservation-1", now.plusSeconds(5)));
+
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> repository.save(reservation("reservation-1", now.plusSeconds(10))));
+	}
+
+	@Test
+	void removeExpiredShouldRemoveReservationsOnceExpired() {
+		repository.save(reservation("reservation-1", now.plusSeconds(2)));
+		repository.save(reservation("reservation-2", now.plusMillis(2_500)));
+		repository.save(reservation("reservation-3", now.plusSeconds(5)));
+
+		assertThat(repository.removeExpired(now, 10)).isEmpty();
+		assertThat(repository.removeExpired(now.plusSeconds(2), 10))
+				.extracting(Reservation::reservationId).containsExactly("reservation-1");
+		assertThat(repository.removeExpired(now.plusSeconds(3), 10))
+				.extracting(Reservation::reservationId).containsExactly("reservation-2");
+		assertThat(repository.removeExpired(now.plusSeconds(5), 10))
+				.extracting(Reservation::reservationId).containsExactly("reservation-3");
+		assertThat(repository.size()).isZero();
+	}
+
+	@Test
+	void removeExpiredShouldKeepReservationsExpiringAFullTurnLater() {
+		repository.save(reservation("reservation-1", now.plusSeconds(1)));
+		repository.save(reservation("reservation-2", now.plusSeconds(9)));
+
+		assertThat(repository.removeExpired(now.plusSeconds(1), 10))
+				.extracting(Reservation::reservationId).containsExactly("reservation-1");
+		assertThat(repository.removeExpired(now.plusSeconds(8), 10)).isEmpty();
+		assertThat(repository.removeExpired(now.plusSeconds(9), 10))
+				.extracting(Reservation::reservationId).containsExactly("reservation-2");
+	}
+
+	@Test
+	void removeExpiredShouldRemoveAtMostMaxCountReservations() {
+		for (int i = 0; i < 5; i++) {
+			repository.save(reservation("reservation-" + i, now.plusSeconds(i % 2 + 1)));
+		}
+
+		assertThat(repository.removeExpired(now.plusSeconds(3), 2)).hasSize(2);
+		assertThat(repository.removeExpired(now.plusSeconds(3), 2)).hasSize(2);
+		assertThat(repository.removeExpired(now.plusSeconds(3), 2)).hasSize(1);
+		assertThat(repository.size()).isZero();
+	}
+
+	@Test
+	void removeExpiredShouldVisitWholeWheelAfterLongPause() {
+		repository.save(reservation("reservation-1", now.plusSeconds(3)));
+		repository.removeExpired(now, 10);
+
+		assertThat(repository.removeExpired(now.plusSeconds(60), 10))
+				.extracting(Reservation::reservationId).containsExactly("reservation-1");
+	}
+
+	@Test
+	void constructorShouldRejectInvalidArguments() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new InMemoryReservationRepository(Duration.ZERO, 8));
+		assertThatIllegalArgumentException().isThrownBy(() -> new InMemoryReservationRepository(Duration.ofSeconds(1), 0));
+	}
+
+	private Reservation reservation(String reservationId, Instant expirationDate) {
+		return new Reservation(reservationId, featureRef, new IndividualUser("user001"), Map.of("MAX_FILES", 1L),
+				expirationDate);
+	}
+}
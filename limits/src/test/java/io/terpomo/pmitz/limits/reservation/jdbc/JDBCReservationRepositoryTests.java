@@ -0,0 +1,161 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.reservation.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subjects.UserGroupingHierarchy;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.core.subscriptions.Subscription;
+import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.impl.ReservingLimitVerifierImpl;
+import io.terpomo.pmitz.limits.reservation.Reservation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class JDBCReservationRepositoryTests {
+
+	private static final String SCHEMA_NAME = "public";
+	private static final String TABLE_NAME = "usage_reservation";
+
+	private final FeatureRef featureRef = new FeatureRef("Picture hosting service", "Uploading pictures");
+	private final Instant now = Instant.parse("2024-01-15T10:00:00Z");
+	private final Instant expirationDate = now.plus(Duration.ofMinutes(5));
+
+	private JdbcDataSource dataSource;
+	private JDBCReservationRepository repository;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		dataSource.setPassword("");
+
+		executeUpdate(String.format("""
+				CREATE TABLE %s.%s (
+					reservation_id VARCHAR(36) NOT NULL,
+					limit_id VARCHAR(255) NOT NULL,
+					product_id VARCHAR(255) NOT NULL,
+					feature_id VARCHAR(255) NOT NULL,
+					user_grouping_type VARCHAR(20) NOT NULL,
+					user_grouping VARCHAR(255) NOT NULL,
+					plan_id VARCHAR(255),
+					units BIGINT NOT NULL,
+					expiration_date TIMESTAMP NOT NULL,
+					PRIMARY KEY (reservation_id, limit_id)
+				)
+				""", SCHEMA_NAME, TABLE_NAME));
+
+		repository = new JDBCReservationRepository(dataSource, SCHEMA_NAME, TABLE_NAME);
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		executeUpdate(String.format("DROP TABLE IF EXISTS %s.%s", SCHEMA_NAME, TABLE_NAME));
+	}
+
+	@Test
+	void removeShouldReturnSavedReservationOnce() {
+		Reservation reservation = new Reservation("reservation-1", featureRef, new Subscription("subscription1"),
+				Map.of("Maximum pictures", 3L, "Maximum storage", 200L), expirationDate);
+		repository.save(reservation);
+
+		assertThat(repository.remove("reservation-1")).hasValueSatisfying(removed -> {
+			assertThat(removed.featureRef()).isEqualTo(featureRef);
+			assertThat(removed.userGrouping()).isInstanceOf(Subscription.class);
+			assertThat(removed.userGrouping().getId()).isEqualTo("subscription1");
+			assertThat(removed.userGrouping().getPlan(featureRef.productId())).isEmpty();
+			assertThat(removed.units()).isEqualTo(reservation.units());
+			assertThat(removed.expirationDate()).isEqualTo(expirationDate);
+		});
+		assertThat(repository.remove("reservation-1")).isEmpty();
+	}
+
+	@Test
+	void releaseReservationShouldReduceUnitsForPlanOfSubscription() {
+		Subscription subscription = new Subscription("subscription1");
+		subscription.setPlans(Map.of(featureRef.productId(), "Premium"));
+		LimitVerifier delegate = mock(LimitVerifier.class);
+		ReservingLimitVerifierImpl limitVerifier = new ReservingLimitVerifierImpl(delegate, repository);
+		String reservationId = limitVerifier.reserveFeatureUsage(featureRef, subscription,
+				Map.of("Maximum pictures", 3L), Duration.ofMinutes(5));
+
+		limitVerifier.releaseReservation(reservationId);
+
+		ArgumentCaptor<UserGrouping> userGrouping = ArgumentCaptor.forClass(UserGrouping.class);
+		verify(delegate).reduceFeatureUsage(eq(featureRef), userGrouping.capture(), eq(Map.of("Maximum pictures", 3L)));
+		assertThat(userGrouping.getValue().getId()).isEqualTo("subscription1");
+		assertThat(userGrouping.getValue().getPlan(featureRef.productId())).contains("Premium");
+	}
+
+	@Test
+	void removeExpiredShouldOnlyRemoveExpiredReservations() {
+		repository.save(new Reservation("reservation-1", featureRef, new Subscription("subscription1"),
+				Map.of("Maximum pictures", 3L, "Maximum storage", 200L), expirationDate));
+		repository.save(new Reservation("reservation-2", featureRef, new Subscription("subscription1"),
+				Map.of("Maximum pictures", 1L), expirationDate.plus(Duration.ofMinutes(1))));
+
+		assertThat(repository.removeExpired(expirationDate, 10))
+				.singleElement()
+				.satisfies(reservation -> assertThat(reservation.reservationId()).isEqualTo("reservation-1"));
+		assertThat(repository.remove("reservation-2")).isPresent();
+	}
+
+	@Test
+	void removeExpiredShouldRemoveAtMostMaxCountReservations() {
+		for (int i = 0; i < 3; i++) {
+			repository.save(new Reservation("reservation-" + i, featureRef, new Subscription("subscription1"),
+					Map.of("Maximum pictures", 1L, "Maximum storage", 200L), expirationDate));
+		}
+
+		assertThat(repository.removeExpired(expirationDate, 2)).hasSize(2);
+		assertThat(repository.removeExpired(expirationDate, 2)).hasSize(1);
+	}
+
+	@Test
+	void saveShouldRejectUnsupportedUserGrouping() {
+		Reservation reservation = new Reservation("reservation-1", featureRef,
+				new UserGroupingHierarchy(new IndividualUser("user1"), new Subscription("subscription1")), Map.of("Maximum pictures", 1L), expirationDate);
+
+		assertThatIllegalArgumentException().isThrownBy(() -> repository.save(reservation));
+	}
+
+	private void executeUpdate(String query) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.executeUpdate(query);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.limits.usage.repository.impl.ExpiredUsagePurger;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ExpiredUsagePurgerTests {
+
+	private static final String CUSTOM_SCHEMA = "pmitz";
+
+	private final Instant now = Instant.parse("2025-03-01T00:00:00Z");
+
+	private JdbcDataSource dataSource;
+	private JDBCUsageRepository repository;
+	private ExpiredUsagePurger purger;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:purgedb;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		dataSource.setPassword("");
+
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("CREATE SCHEMA IF NOT EXISTS " + CUSTOM_SCHEMA);
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage\" (" +
+					"usage_id serial PRIMARY KEY, " +
+					"feature_id varchar, " +
+					"product_id varchar, " +
+					"user_grouping varchar, " +
+					"limit_id varchar, " +
+					"window_start TIMESTAMP, " +
+					"window_end TIMESTAMP, " +
+					"units bigint, " +
+					"expiration_date TIMESTAMP" +
+					");");
+		}
+
+		repository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (purger != null) {
+			purger.close();
+		}
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".\"Usage\";");
+		}
+	}
+
+	@Test
+	void purgeExpiredRecordsShouldDeleteExpiredRecordsInBatches() throws Exception {
+		insertRecords(5, now.minus(Duration.ofDays(1)));
+		insertRecords(2, now.plus(Duration.ofDays(1)));
+		insertRecords(1, null);
+		purger = purger(Duration.ofMinutes(1));
+
+		assertThat(purger.purgeExpiredRecords()).isEqualTo(5);
+
+		assertThat(countRows()).isEqualTo(3);
+		assertThat(purger.getStatistics()).isEqualTo(new ExpiredUsagePurger.Statistics(1, 1, 0, 3, 5));
+	}
+
+	@Test
+	void purgeExpiredRecordsShouldStopAtMaximumRunTime() throws Exception {
+		insertRecords(5, now.minus(Duration.ofDays(1)));
+		purger = purger(Duration.ofNanos(1));
+
+		assertThat(purger.purgeExpiredRecords()).isEqualTo(2);
+		assertThat(purger.purgeExpiredRecords()).isEqualTo(2);
+		assertThat(purger.purgeExpiredRecords()).isEqualTo(1);
+
+		assertThat(countRows()).isZero();
+		assertThat(purger.getStatistics().completedRuns()).isEqualTo(1);
+	}
+
+	@Test
+	void builderShouldRejectNonPositiveBatchSize() {
+		assertThatIllegalArgumentException().isThrownBy(() -> ExpiredUsagePurger.builder(repository).batchSize(0));
+	}
+
+	private ExpiredUsagePurger purger(Duration maxRunTime) {
+		return ExpiredUsagePurger.builder(repository)
+				.batchSize(2)
+				.pauseBetweenBatches(Duration.ZERO)
+				.maxRunTime(maxRunTime)
+				.clock(Clock.fixed(now, ZoneOffset.UTC))
+				.build();
+	}
+
+	private void insertRecords(int count, Instant expirationDate) throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("INSERT INTO " + repository.getFullTableName()
+						+ " (feature_id, product_id, user_grouping, limit_id, units, expiration_date) "
+						+ "VALUES ('feature1', 'product1', 'user1', ?, 1, ?)")) {
+			for (int i = 0; i < count; i++) {
+				statement.setString(1, "limit" + i);
+				statement.setTimestamp(2, (expirationDate != null) ? Timestamp.from(expirationDate) : null);
+				statement.executeUpdate();
+			}
+		}
+	}
+
+	private int countRows() throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + repository.getFullTableName())) {
+			resultSet.next();
+			return resultSet.getInt(1);
+		}
+	}
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.usage.repository.impl.H2UsageSqlDialect;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository.UpdateMode;
+import io.terpomo.pmitz.limits.usage.repository.impl.UsageSharding;
+import io.terpomo.pmitz.limits.usage.series.SeriesGranularity;
+import io.terpomo.pmitz.limits.usage.series.UsageBucket;
+import io.terpomo.pmitz.limits.usage.series.jdbc.JDBCUsageSeriesRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class JDBCUsageRepositoryAtomicUpdateTests {
+
+	private static final String CUSTOM_SCHEMA = "pmitz";
+
+	private final FeatureRef featureRef = new FeatureRef("product1", "feature1");
+	private final ZonedDateTime windowStart = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	private final ZonedDateTime windowEnd = windowStart.plusMonths(1).minus(1, ChronoUnit.MICROS);
+
+	private JdbcDataSource dataSource;
+	private JDBCUsageRepository repository;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:atomicdb;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		dataSource.setPassword("");
+
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("CREATE SCHEMA IF NOT EXISTS " + CUSTOM_SCHEMA);
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage\" (" +
+					"usage_id serial PRIMARY KEY, " +
+					"feature_id varchar, " +
+					"product_id varchar, " +
+					"user_grouping varchar, " +
+					"limit_id varchar, " +
+					"window_start TIMESTAMP, " +
+					"window_end TIMESTAMP, " +
+					"units bigint, " +
+					"expiration_date TIMESTAMP, " +
+					"updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+					"shard smallint DEFAULT 0 NOT NULL, " +
+					"shard_count smallint DEFAULT 1 NOT NULL, " +
+					"CONSTRAINT uk_usage_natural_key UNIQUE NULLS NOT DISTINCT " +
+					"(product_id, feature_id, user_grouping, limit_id, window_start, shard)" +
+					");");
+		}
+
+		repository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"", UpdateMode.ATOMIC_UPSERT);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".\"Usage\";");
+			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".usage_series;");
+		}
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldCreateCounter() throws Exception {
+		var result = repository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 3, 10)));
+
+		assertThat(result).contains(List.of(3L));
+		assertThat(countRows()).isEqualTo(1);
+		assertThat(unitsOf("limit1")).isEqualTo(3L);
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldAddToExistingCounter() throws Exception {
+		repository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 3, 10)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 7, 10)));
+
+		assertThat(result).contains(List.of(10L));
+		assertThat(countRows()).isEqualTo(1);
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldReturnUnitsInDeltaOrder() {
+		repository.applyDeltasWithinLimits(List.of(windowDelta("limitB", 5, 10)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(windowDelta("limitB", 1, 10), windowDelta("limitA", 2, 10)));
+
+		assertThat(result).contains(List.of(6L, 2L));
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRejectAllDeltasWhenOneExceedsItsLimit() throws Exception {
+		repository.applyDeltasWithinLimits(List.of(windowDelta("limitA", 2, 10), windowDelta("limitB", 2, 3)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(windowDelta("limitA", 5, 10), windowDelta("limitB", 2, 3)));
+
+		assertThat(result).isEmpty();
+		assertThat(unitsOf("limitA")).isEqualTo(2L);
+		assertThat(unitsOf("limitB")).isEqualTo(2L);
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRejectNewCounterGreaterThanLimit() throws Exception {
+		var result = repository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 11, 10)));
+
+		assertThat(result).isEmpty();
+		assertThat(countRows()).isZero();
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldShareCounterWhenNoWindow() throws Exception {
+		var delta = new UsageDelta(featureRef, "user1", "count", null, null, null, 4, 10);
+
+		repository.applyDeltasWithinLimits(List.of(delta));
+		var result = repository.applyDeltasWithinLimits(List.of(delta));
+
+		assertThat(result).contains(List.of(8L));
+		assertThat(countRows()).isEqualTo(1);
+	}
+
+	@Test
+	void applyDeltasShouldNotGoBelowZero() throws Exception {
+		repository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 3, 10)));
+
+		repository.applyDeltas(List.of(windowDelta("limit1", -5, UsageDelta.UNBOUNDED)));
+
+		assertThat(unitsOf("limit1")).isZero();
+	}
+
+	@Test
+	void applyDeltasShouldCreateMissingCounters() throws Exception {
+		repository.applyDeltas(List.of(windowDelta("limit1", 4, UsageDelta.UNBOUNDED), windowDelta("limit2", -4, UsageDelta.UNBOUNDED)));
+
+		assertThat(unitsOf("limit1")).isEqualTo(4L);
+		assertThat(unitsOf("limit2")).isZero();
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRaiseCounterToMinUnits() throws Exception {
+		var delta = new UsageDelta(featureRef, "user1", "tokens", null, null, null, 10, 2_000_000_000_100L, 2_000_000_000_010L);
+
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta))).contains(List.of(2_000_000_000_010L));
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta))).contains(List.of(2_000_000_000_020L));
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRejectDeltaExceedingLimitWithMinUnits() throws Exception {
+		repository.applyDeltasWithinLimits(List.of(new UsageDelta(featureRef, "user1", "tokens", null, null, null,
+				95, UsageDelta.UNBOUNDED, 0)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(new UsageDelta(featureRef, "user1", "tokens", null, null,
+				null, 10, 100, 50)));
+
+		assertThat(result).isEmpty();
+		assertThat(unitsOf("tokens")).isEqualTo(95L);
+	}
+
+	@Test
+	void loadUsageDataShouldReturnCountersWrittenAtomically() {
+		repository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 3, 10)));
+
+		var context = new LimitTrackingContext(featureRef, new IndividualUser("user1"),
+				List.of(new RecordSearchCriteria("limit1", windowStart, windowEnd)));
+		repository.loadUsageData(context);
+
+		assertThat(context.getCurrentUsageRecords()).hasSize(1);
+		assertThat(context.getCurrentUsageRecords().get(0).units()).isEqualTo(3L);
+		assertThat(context.getCurrentUsageRecords().get(0).startTime()).isEqualTo(windowStart);
+	}
+
+	@Test
+	void concurrentIncrementsShouldNeitherBeLostNorExceedLimit() throws Exception {
+		int threads = 4;
+		int incrementsPerThread = 25;
+		long limit = 80;
+		AtomicInteger accepted = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			executor.submit(() -> {
+				for (int j = 0; j < incrementsPerThread; j++) {
+					try {
+						if (repository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, limit))).isPresent()) {
+							accepted.incrementAndGet();
+						}
+					}
+					catch (RuntimeException ex) {
+						// counted as not accepted
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(unitsOf("limit1")).isEqualTo(accepted.get()).isLessThanOrEqualTo(limit);
+	}
+
+	@Test
+	void explicitDialectShouldBehaveLikeDetectedDialect() {
+		var repositoryWithDialect = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"",
+				UpdateMode.ATOMIC_UPSERT, new H2UsageSqlDialect());
+
+		assertThat(repositoryWithDialect.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 10)))).contains(List.of(1L));
+		assertThat(repository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 10)))).contains(List.of(2L));
+	}
+
+	@Test
+	void atomicUpdatesShouldBeRejectedInReadModifyWriteMode() {
+		var readModifyWriteRepository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"");
+		var deltas = List.of(windowDelta("limit1", 1, 10));
+
+		assertThat(readModifyWriteRepository.supportsAtomicUpdates()).isFalse();
+		assertThatIllegalStateException().isThrownBy(() -> readModifyWriteRepository.applyDeltasWithinLimits(deltas));
+		assertThatIllegalStateException().isThrownBy(() -> readModifyWriteRepository.applyDeltas(deltas));
+	}
+
+	@Test
+	void shardedCounterShouldSpreadIncrementsOverShards() throws Exception {
+		var shardedRepository = shardedRepository(UsageSharding.ofLimits(Map.of("limit1", 4)));
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(shardedRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 100)))).contains(List.of(i + 1L));
+		}
+
+		assertThat(countRows()).isBetween(2, 4);
+		var context = new LimitTrackingContext(featureRef, new IndividualUser("user1"),
+				List.of(new RecordSearchCriteria("limit1", windowStart, windowEnd)));
+		shardedRepository.loadUsageData(context);
+		assertThat(context.getCurrentUsageRecords()).singleElement()
+				.satisfies(usageRecord -> assertThat(usageRecord.units()).isEqualTo(20L));
+	}
+
+	@Test
+	void shardedCounterShouldRejectIncrementExceedingLimitOfAllShards() throws Exception {
+		var shardedRepository = shardedRepository(UsageSharding.ofLimits(Map.of("limit1", 4)));
+		for (int i = 0; i < 5; i++) {
+			shardedRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 5)));
+		}
+
+		var result = shardedRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 5)));
+
+		assertThat(result).isEmpty();
+		assertThat(totalUnitsOf("limit1")).isEqualTo(5L);
+	}
+
+	@Test
+	void shardedCounterShouldNotGoBelowZero() throws Exception {
+		var shardedRepository = shardedRepository(UsageSharding.ofLimits(Map.of("limit1", 4)));
+		for (int i = 0; i < 3; i++) {
+			shardedRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 10)));
+		}
+
+		shardedRepository.applyDeltas(List.of(windowDelta("limit1", -5, UsageDelta.UNBOUNDED)));
+
+		assertThat(totalUnitsOf("limit1")).isZero();
+	}
+
+	@Test
+	void counterShardedByAnotherRepositoryShouldBeUpdatedAsSharded() throws Exception {
+		var shardedRepository = shardedRepository(UsageSharding.ofLimits(Map.of("limit1", 4)));
+		for (int i = 0; i < 4; i++) {
+			shardedRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 5)));
+		}
+		var otherRepository = shardedRepository(UsageSharding.none());
+
+		assertThat(otherRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 5)))).contains(List.of(5L));
+		assertThat(otherRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 1, 5)))).isEmpty();
+
+		assertThat(otherRepository.getUsageSharding().getShardCount(windowDelta("limit1", 1, 5))).isEqualTo(4);
+		assertThat(totalUnitsOf("limit1")).isEqualTo(5L);
+	}
+
+	@Test
+	void automaticShardingShouldShardCounterWhoseUpdateWaitedTooLong() {
+		var sharding = UsageSharding.automatic(Duration.ofNanos(1), 8);
+		var shardedRepository = shardedRepository(sharding);
+		var delta = windowDelta("limit1", 1, 10);
+
+		assertThat(sharding.getShardCount(delta)).isEqualTo(1);
+		shardedRepository.applyDeltasWithinLimits(List.of(delta));
+
+		assertThat(sharding.getShardCount(delta)).isEqualTo(8);
+		assertThat(sharding.getShardCount(windowDelta("limit2", 1, 10))).isEqualTo(1);
+	}
+
+	@Test
+	void shardingShouldBeRejectedInReadModifyWriteMode() {
+		var sharding = UsageSharding.ofLimits(Map.of("limit1", 4));
+
+		assertThatIllegalArgumentException().isThrownBy(() -> new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA,
+				"\"Usage\"", UpdateMode.READ_MODIFY_WRITE, null, sharding));
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldAddAppliedUnitsToUsageSeries() throws Exception {
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".usage_series (" +
+					"product_id varchar, feature_id varchar, user_grouping varchar, limit_id varchar, " +
+					"granularity varchar, bucket_start TIMESTAMP, units bigint, " +
+					"PRIMARY KEY (product_id, feature_id, user_grouping, limit_id, granularity, bucket_start));");
+		}
+		var now = windowStart.plusDays(1).toInstant();
+		var seriesRepository = new JDBCUsageSeriesRepository(dataSource, CUSTOM_SCHEMA, "usage_series",
+				Duration.ofHours(2), Duration.ofDays(7), null, Clock.fixed(now, ZoneOffset.UTC));
+		var seriesEnabledRepository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"",
+				UpdateMode.ATOMIC_UPSERT, null, UsageSharding.none(), seriesRepository);
+
+		seriesEnabledRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 3, 10)));
+		seriesEnabledRepository.applyDeltasWithinLimits(List.of(windowDelta("limit1", 8, 10)));
+		seriesEnabledRepository.applyDeltas(List.of(windowDelta("limit1", -1, 10)));
+
+		assertThat(seriesRepository.findUsageSeries(featureRef, new IndividualUser("user1"), now, now.plusSeconds(60),
+				SeriesGranularity.MINUTE))
+				.containsExactly(new UsageBucket("limit1", SeriesGranularity.MINUTE, now, 2));
+	}
+
+	private JDBCUsageRepository shardedRepository(UsageSharding sharding) {
+		return new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"", UpdateMode.ATOMIC_UPSERT, null, sharding);
+	}
+
+	private UsageDelta windowDelta(String limitId, long units, long maxUnits) {
+		return new UsageDelta(featureRef, "user1", limitId, windowStart, windowEnd, windowEnd.plusMonths(3), units, maxUnits);
+	}
+
+	private int countRows() throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + repository.getFullTableName())) {
+			resultSet.next();
+			return resultSet.getInt(1);
+		}
+	}
+
+	private long totalUnitsOf(String limitId) throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT SUM(units) FROM " + repository.getFullTableName()
+						+ " WHERE limit_id = '" + limitId + "'")) {
+			assertThat(resultSet.next()).isTrue();
+			return resultSet.getLong(1);
+		}
+	}
+
+	private long unitsOf(String limitId) throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT units FROM " + repository.getFullTableName()
+						+ " WHERE limit_id = '" + limitId + "'")) {
+			assertThat(resultSet.next()).isTrue();
+			return resultSet.getLong(1);
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.impl.ExpiredUsagePurger;
+import io.terpomo.pmitz.limits.usage.repository.impl.H2UsageSqlDialect;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository.UpdateMode;
+import io.terpomo.pmitz.limits.usage.repository.impl.UsageSqlDialect;
+import io.terpomo.pmitz.limits.usage.repository.impl.WindowStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class JDBCUsageRepositoryEpochWindowTests {
+
+	private static final String CUSTOM_SCHEMA = "pmitz";
+
+	private final FeatureRef featureRef = new FeatureRef("product1", "feature1");
+	private final IndividualUser user = new IndividualUser("user1");
+	private final ZonedDateTime windowStart = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	private final ZonedDateTime windowEnd = windowStart.plusMonths(1).minus(1, ChronoUnit.MILLIS);
+
+	private JdbcDataSource dataSource;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:epochdb;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		dataSource.setPassword("");
+
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("CREATE SCHEMA IF NOT EXISTS " + CUSTOM_SCHEMA);
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage\" (" +
+					"usage_id serial PRIMARY KEY, " +
+					"feature_id varchar, " +
+					"product_id varchar, " +
+					"user_grouping varchar, " +
+					"limit_id varchar, " +
+					"window_start bigint, " +
+					"window_end bigint, " +
+					"units bigint, " +
+					"expiration_date bigint, " +
+					"updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+					"shard smallint DEFAULT 0 NOT NULL, " +
+					"shard_count smallint DEFAULT 1 NOT NULL, " +
+					"CONSTRAINT uk_usage_natural_key UNIQUE NULLS NOT DISTINCT " +
+					"(product_id, feature_id, user_grouping, limit_id, window_start, shard)" +
+					");");
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".\"Usage\";");
+		}
+	}
+
+	@Test
+	void updateUsageRecordsShouldStoreWindowAsEpochMillis() throws Exception {
+		JDBCUsageRepository repository = repository(UpdateMode.READ_MODIFY_WRITE);
+		LimitTrackingContext context = newContext();
+		context.addUpdatedUsageRecords(List.of(new UsageRecord("limit1", windowStart, windowEnd, 3L, windowEnd.plusMonths(3))));
+
+		repository.updateUsageRecords(context);
+
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT window_start, window_end FROM "
+						+ repository.getFullTableName())) {
+			assertThat(resultSet.next()).isTrue();
+			assertThat(resultSet.getLong(1)).isEqualTo(windowStart.toInstant().toEpochMilli());
+			assertThat(resultSet.getLong(2)).isEqualTo(windowEnd.toInstant().toEpochMilli());
+		}
+	}
+
+	@Test
+	void loadUsageDataShouldReadRecordsUpdatedInOtherTimeZone() {
+		JDBCUsageRepository repository = repository(UpdateMode.READ_MODIFY_WRITE);
+		ZoneId zone = ZoneId.of("America/Montreal");
+		LimitTrackingContext context = newContext();
+		context.addUpdatedUsageRecords(List.of(new UsageRecord("limit1", windowStart.withZoneSameInstant(zone),
+				windowEnd.withZoneSameInstant(zone), 3L, null), new UsageRecord("limit2", null, null, 5L, null)));
+		repository.updateUsageRecords(context);
+
+		context = newContext();
+		repository.loadUsageData(context);
+
+		assertThat(context.getCurrentUsageRecords()).singleElement().satisfies(usageRecord -> {
+			assertThat(usageRecord.startTime()).isEqualTo(windowStart);
+			assertThat(usageRecord.endTime()).isEqualTo(windowEnd);
+			assertThat(usageRecord.expirationDate()).isNull();
+			assertThat(usageRecord.units()).isEqualTo(3L);
+		});
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldMatchCounterByEpochWindowStart() {
+		JDBCUsageRepository repository = repository(UpdateMode.ATOMIC_UPSERT);
+		UsageDelta delta = new UsageDelta(featureRef, "user1", "limit1", windowStart, windowEnd, windowEnd.plusMonths(3), 4, 10);
+
+		repository.applyDeltasWithinLimits(List.of(delta));
+
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta))).contains(List.of(8L));
+	}
+
+	@Test
+	void forDatabaseShouldRejectEpochWindowsWithoutEpochSchema() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> UsageSqlDialect.forDatabase("MySQL", WindowStorage.EPOCH_MILLIS));
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> UsageSqlDialect.forDatabase("Microsoft SQL Server", WindowStorage.EPOCH_MILLIS));
+	}
+
+	@Test
+	void purgeExpiredRecordsShouldCompareEpochExpirationDates() {
+		JDBCUsageRepository repository = repository(UpdateMode.READ_MODIFY_WRITE);
+		LimitTrackingContext context = newContext();
+		context.addUpdatedUsageRecords(List.of(new UsageRecord("limit1", windowStart, windowEnd, 3L, windowEnd),
+				new UsageRecord("limit2", windowStart, windowEnd, 3L, windowEnd.plusMonths(3))));
+		repository.updateUsageRecords(context);
+
+		try (ExpiredUsagePurger purger = ExpiredUsagePurger.builder(repository)
+				.clock(Clock.fixed(windowEnd.plusDays(1).toInstant(), ZoneOffset.UTC))
+				.pauseBetweenBatches(Duration.ZERO)
+				.build()) {
+			assertThat(purger.purgeExpiredRecords()).isEqualTo(1);
+		}
+	}
+
+	private JDBCUsageRepository repository(UpdateMode updateMode) {
+		return new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"", updateMode,
+				new H2UsageSqlDialect(WindowStorage.EPOCH_MILLIS));
+	}
+
+	private LimitTrackingContext newContext() {
+		return new LimitTrackingContext(featureRef, user, List.of(new RecordSearchCriteria("limit1", windowStart, windowEnd)));
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository.UpdateMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class JDBCUsageRepositoryLockingUpdateTests {
+
+	private static final String CUSTOM_SCHEMA = "pmitz";
+
+	private final FeatureRef featureRef = new FeatureRef("product1", "feature1");
+	private final IndividualUser user = new IndividualUser("user1");
+	private final ZonedDateTime windowStart = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	private final ZonedDateTime windowEnd = windowStart.plusMonths(1).minus(1, ChronoUnit.MICROS);
+
+	private JdbcDataSource dataSource;
+	private JDBCUsageRepository repository;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:lockingdb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+		dataSource.setUser("sa");
+		dataSource.setPassword("");
+
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("CREATE SCHEMA IF NOT EXISTS " + CUSTOM_SCHEMA);
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage\" (" +
+					"usage_id serial PRIMARY KEY, " +
+					"feature_id varchar, " +
+					"product_id varchar, " +
+					"user_grouping varchar, " +
+					"limit_id varchar, " +
+					"window_start TIMESTAMP, " +
+					"window_end TIMESTAMP, " +
+					"units bigint, " +
+					"expiration_date TIMESTAMP, " +
+					"updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+					"shard smallint DEFAULT 0 NOT NULL, " +
+					"shard_count smallint DEFAULT 1 NOT NULL, " +
+					"CONSTRAINT uk_usage_natural_key UNIQUE NULLS NOT DISTINCT " +
+					"(product_id, feature_id, user_grouping, limit_id, window_start, shard)" +
+					");");
+		}
+
+		repository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"", UpdateMode.LOCKING_READ_MODIFY_WRITE);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".\"Usage\";");
+		}
+	}
+
+	@Test
+	void updateUsageRecordsLockedShouldCreateAndUpdateCounter() throws Exception {
+		incrementLocked("limit1", 3);
+		incrementLocked("limit1", 4);
+
+		assertThat(countRows()).isEqualTo(1);
+		assertThat(unitsOf("limit1")).isEqualTo(7L);
+	}
+
+	@Test
+	void concurrentLockedUpdatesShouldNotBeLost() throws Exception {
+		incrementLocked("limit1", 0);
+		int threads = 4;
+		int incrementsPerThread = 25;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			executor.submit(() -> {
+				for (int j = 0; j < incrementsPerThread; j++) {
+					incrementLocked("limit1", 1);
+				}
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(unitsOf("limit1")).isEqualTo(threads * incrementsPerThread);
+	}
+
+	@Test
+	void updateUsageRecordsLockedShouldRollBackWhenUpdateFails() throws Exception {
+		incrementLocked("limit1", 3);
+
+		assertThatExceptionOfType(LimitExceededException.class).isThrownBy(() -> repository.updateUsageRecordsLocked(loader -> {
+			LimitTrackingContext context = newContext("limit1");
+			loader.accept(List.of(context));
+			throw new LimitExceededException("Limit exceeded", featureRef, user);
+		}));
+
+		assertThat(unitsOf("limit1")).isEqualTo(3L);
+	}
+
+	@Test
+	void lockingUpdatesShouldBeRejectedInOtherModes() {
+		var readModifyWriteRepository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"");
+
+		assertThat(readModifyWriteRepository.supportsLockingUpdates()).isFalse();
+		assertThat(repository.supportsLockingUpdates()).isTrue();
+		assertThatIllegalStateException().isThrownBy(() -> readModifyWriteRepository.updateUsageRecordsLocked(loader -> List.of()));
+	}
+
+	private void incrementLocked(String limitId, long units) {
+		repository.updateUsageRecordsLocked(loader -> {
+			LimitTrackingContext context = newContext(limitId);
+			loader.accept(List.of(context));
+			long currentUnits = context.getCurrentUsageRecords().stream().mapToLong(UsageRecord::units).sum();
+			context.addUpdatedUsageRecords(List.of(new UsageRecord(limitId, windowStart, windowEnd, currentUnits + units,
+					windowEnd.plusMonths(3))));
+			return List.of(context);
+		});
+	}
+
+	private LimitTrackingContext newContext(String limitId) {
+		return new LimitTrackingContext(featureRef, user, List.of(new RecordSearchCriteria(limitId, windowStart, windowEnd)));
+	}
+
+	private int countRows() throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + repository.getFullTableName())) {
+			resultSet.next();
+			return resultSet.getInt(1);
+		}
+	}
+
+	private long unitsOf(String limitId) throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT units FROM " + repository.getFullTableName()
+						+ " WHERE limit_id = '" + limitId + "'")) {
+			assertThat(resultSet.next()).isTrue();
+			return resultSet.getLong(1);
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRecordRepoMetadata;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository.UpdateMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class JDBCUsageRepositoryOptimisticUpdateTests {
+
+	private static final String CUSTOM_SCHEMA = "pmitz";
+
+	private final FeatureRef featureRef = new FeatureRef("product1", "feature1");
+	private final IndividualUser user = new IndividualUser("user1");
+	private final ZonedDateTime windowStart = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+	private final ZonedDateTime windowEnd = windowStart.plusMonths(1).minus(1, ChronoUnit.MICROS);
+
+	private JdbcDataSource dataSource;
+	private JDBCUsageRepository repository;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:optimisticdb;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		dataSource.setPassword("");
+
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("CREATE SCHEMA IF NOT EXISTS " + CUSTOM_SCHEMA);
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".\"Usage\" (" +
+					"usage_id serial PRIMARY KEY, " +
+					"feature_id varchar, " +
+					"product_id varchar, " +
+					"user_grouping varchar, " +
+					"limit_id varchar, " +
+					"window_start TIMESTAMP, " +
+					"window_end TIMESTAMP, " +
+					"units bigint, " +
+					"expiration_date TIMESTAMP, " +
+					"updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+					"shard smallint DEFAULT 0 NOT NULL, " +
+					"shard_count smallint DEFAULT 1 NOT NULL, " +
+					"version bigint DEFAULT 0 NOT NULL, " +
+					"CONSTRAINT uk_usage_natural_key UNIQUE NULLS NOT DISTINCT " +
+					"(product_id, feature_id, user_grouping, limit_id, window_start, shard)" +
+					");");
+		}
+
+		repository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"", UpdateMode.OPTIMISTIC_READ_MODIFY_WRITE);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+
+			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".\"Usage\";");
+		}
+	}
+
+	@Test
+	void loadUsageDataShouldReturnVersionIncrementedByEachUpdate() {
+		repository.updateUsageRecords(increment(loadContext(), 3));
+		repository.updateUsageRecords(increment(loadContext(), 4));
+
+		LimitTrackingContext context = loadContext();
+
+		assertThat(context.getCurrentUsageRecords()).singleElement().satisfies(usageRecord -> {
+			assertThat(usageRecord.units()).isEqualTo(7L);
+			assertThat(((JDBCUsageRecordRepoMetadata) usageRecord.repoMetadata()).version()).isEqualTo(1L);
+		});
+	}
+
+	@Test
+	void updateShouldBeRejectedWhenRecordChangedSinceItWasLoaded() throws Exception {
+		repository.updateUsageRecords(increment(loadContext(), 3));
+		LimitTrackingContext firstContext = loadContext();
+		LimitTrackingContext secondContext = loadContext();
+		repository.updateUsageRecords(increment(firstContext, 1));
+
+		LimitTrackingContext conflictingContext = increment(secondContext, 2);
+		assertThatExceptionOfType(UsageUpdateConflictException.class)
+				.isThrownBy(() -> repository.updateUsageRecords(conflictingContext));
+
+		assertThat(unitsOf("limit1")).isEqualTo(4L);
+	}
+
+	@Test
+	void insertShouldBeRejectedWhenCounterCreatedSinceRecordsWereLoaded() throws Exception {
+		LimitTrackingContext firstContext = loadContext();
+		LimitTrackingContext secondContext = loadContext();
+		repository.updateUsageRecords(increment(firstContext, 1));
+
+		LimitTrackingContext conflictingContext = increment(secondContext, 2);
+		assertThatExceptionOfType(UsageUpdateConflictException.class)
+				.isThrownBy(() -> repository.updateUsageRecords(conflictingContext));
+
+		assertThat(unitsOf("limit1")).isEqualTo(1L);
+	}
+
+	@Test
+	void updateShouldRejectRecordLoadedWithoutVersion() {
+		LimitTrackingContext context = newContext();
+		context.addUpdatedUsageRecords(List.of(new UsageRecord(new JDBCUsageRecordRepoMetadata(1L, windowStart),
+				"limit1", windowStart, windowEnd, 1L, windowEnd.plusMonths(3))));
+
+		assertThatIllegalArgumentException().isThrownBy(() -> repository.updateUsageRecords(context));
+	}
+
+	private LimitTrackingContext loadContext() {
+		LimitTrackingContext context = newContext();
+		repository.loadUsageData(context);
+		return context;
+	}
+
+	private LimitTrackingContext increment(LimitTrackingContext context, long units) {
+		UsageRecord updatedRecord = context.getCurrentUsageRecords().stream()
+				.findFirst()
+				.map(usageRecord -> UsageRecord.updage(usageRecord, usageRecord.units() + units, usageRecord.expirationDate()))
+				.orElseGet(() -> new UsageRecord("limit1", windowStart, windowEnd, units, windowEnd.plusMonths(3)));
+		context.addUpdatedUsageRecords(List.of(updatedRecord));
+		return context;
+	}
+
+	private LimitTrackingContext newContext() {
+		return new LimitTrackingContext(featureRef, user, List.of(new RecordSearchCriteria("limit1", windowStart, windowEnd)));
+	}
+
+	private long unitsOf(String limitId) throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT units FROM " + repository.getFullTableName()
+						+ " WHERE limit_id = '" + limitId + "'")) {
+			assertThat(resultSet.next()).isTrue();
+			return resultSet.getLong(1);
+		}
+	}
+}
@@ -19,6 +19,9 @@ package io.terpomo.pmitz.limits.usage.repository;
 
 import java.sql.Connection;
 import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -35,6 +38,11 @@ import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.limits.UsageRecord;
 import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRecordRepoMetadata;
 import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository.UpdateMode;
+import io.terpomo.pmitz.limits.usage.repository.impl.UsageSharding;
+import io.terpomo.pmitz.limits.usage.series.SeriesGranularity;
+import io.terpomo.pmitz.limits.usage.series.UsageBucket;
+import io.terpomo.pmitz.limits.usage.series.jdbc.JDBCUsageSeriesRepository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -79,6 +87,7 @@ class JDBCUsageRepositoryTests {
 				Statement stmt = conn.createStatement()) {
 
 			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".\"Usage\";");
+			stmt.execute("DROP TABLE IF EXISTS " + CUSTOM_SCHEMA + ".usage_series;");
 		}
 	}
 
@@ -255,4 +264,64 @@ class JDBCUsageRepositoryTests {
 		assertThat(insertedRecord.startTime()).isEqualTo(expectedStartUTC);
 		assertThat(insertedRecord.endTime()).isEqualTo(expectedEndUTC);
 	}
+
+	@Test
+	void testUpdateAndLoadAllUsageDataForSeveralContexts() {
+		ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+		FeatureRef featureRef = new FeatureRef("product6", "feature6");
+		IndividualUser firstUser = new IndividualUser("user6");
+		IndividualUser secondUser = new IndividualUser("user7");
+		IndividualUser thirdUser = new IndividualUser("user8");
+		RecordSearchCriteria criteria = new RecordSearchCriteria("limit6", now.minusDays(1), now.plusDays(1));
+
+		LimitTrackingContext firstContext = new LimitTrackingContext(featureRef, firstUser, List.of(criteria));
+		firstContext.addUpdatedUsageRecords(List.of(new UsageRecord("limit6", now.minusDays(1), now.plusDays(1), 10L, now.plusMonths(1))));
+		LimitTrackingContext secondContext = new LimitTrackingContext(featureRef, secondUser, List.of(criteria));
+		secondContext.addUpdatedUsageRecords(List.of(new UsageRecord("limit6", now.minusDays(1), now.plusDays(1), 20L, now.plusMonths(1)),
+				new UsageRecord("otherLimit", now.minusDays(1), now.plusDays(1), 30L, now.plusMonths(1))));
+		repository.updateAllUsageRecords(List.of(firstContext, secondContext));
+
+		firstContext = new LimitTrackingContext(featureRef, firstUser, List.of(criteria));
+		secondContext = new LimitTrackingContext(featureRef, secondUser, List.of(criteria));
+		LimitTrackingContext thirdContext = new LimitTrackingContext(featureRef, thirdUser, List.of(criteria));
+		repository.loadAllUsageData(List.of(firstContext, secondContext, thirdContext));
+
+		assertThat(firstContext.getCurrentUsageRecords()).extracting(UsageRecord::units).containsExactly(10L);
+		assertThat(secondContext.getCurrentUsageRecords()).extracting(UsageRecord::units).containsExactly(20L);
+		assertThat(thirdContext.getCurrentUsageRecords()).isEmpty();
+	}
+
+	@Test
+	void testUpdateUsageRecordsAddsRecordedUnitsToUsageSeries() throws Exception {
+		try (Connection conn = dataSource.getConnection();
+				Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE " + CUSTOM_SCHEMA + ".usage_series (" +
+					"product_id varchar, feature_id varchar, user_grouping varchar, limit_id varchar, " +
+					"granularity varchar, bucket_start TIMESTAMP, units bigint, " +
+					"PRIMARY KEY (product_id, feature_id, user_grouping, limit_id, granularity, bucket_start));");
+		}
+		Instant now = Instant.parse("2024-10-08T17:15:00Z");
+		var seriesRepository = new JDBCUsageSeriesRepository(dataSource, CUSTOM_SCHEMA, "usage_series",
+				Duration.ofHours(2), Duration.ofDays(7), null, Clock.fixed(now, ZoneOffset.UTC));
+		repository = new JDBCUsageRepository(dataSource, CUSTOM_SCHEMA, "\"Usage\"", UpdateMode.READ_MODIFY_WRITE,
+				null, UsageSharding.none(), seriesRepository);
+		ZonedDateTime windowStart = now.atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+		FeatureRef featureRef = new FeatureRef("product9", "feature9");
+		IndividualUser user = new IndividualUser("user9");
+		RecordSearchCriteria criteria = new RecordSearchCriteria("limit9", windowStart, windowStart.plusDays(1));
+
+		LimitTrackingContext context = new LimitTrackingContext(featureRef, user, List.of(criteria));
+		context.addUpdatedUsageRecords(List.of(new UsageRecord("limit9", windowStart, windowStart.plusDays(1), 10L,
+				windowStart.plusMonths(1))));
+		repository.updateUsageRecords(context);
+
+		context = new LimitTrackingContext(featureRef, user, List.of(criteria));
+		repository.loadUsageData(context);
+		UsageRecord currentRecord = context.getCurrentUsageRecords().get(0);
+		context.addUpdatedUsageRecords(List.of(UsageRecord.updage(currentRecord, 15L, currentRecord.expirationDate())));
+		repository.updateUsageRecords(context);
+
+		assertThat(seriesRepository.findUsageSeries(featureRef, user, now, now.plusSeconds(3600), SeriesGranularity.HOUR))
+				.containsExactly(new UsageBucket("limit9", SeriesGranularity.HOUR, now.truncatedTo(ChronoUnit.HOURS), 15));
+	}
 }
@@ -16,6 +16,8 @@
 
 package io.terpomo.pmitz.limits.usage.repository;
 
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -76,6 +78,23 @@ class LimitTrackingContextTests {
 		assertThat(filteredRecords).hasSize(4);
 	}
 
+	@Test
+	void findUsageRecordsShouldCompareInstantsRegardlessOfZone() {
+		ZonedDateTime startTime = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+		ZonedDateTime endTime = startTime.plusMonths(1).minusNanos(1);
+		ZoneId zone = ZoneId.of("Asia/Tokyo");
+
+		LimitTrackingContext context = new LimitTrackingContext(featureRef, new IndividualUser("user002"), Collections.emptyList());
+		context.addCurrentUsageRecords(List.of(
+				new UsageRecord(limitId, startTime.withZoneSameInstant(zone), endTime.withZoneSameInstant(zone), 1L, null),
+				new UsageRecord(limitId, startTime.minusNanos(1), endTime, 2L, null),
+				new UsageRecord(limitId, startTime, endTime.plusNanos(1), 3L, null)));
+
+		var filteredRecords = context.findUsageRecords(limitId, startTime, endTime);
+
+		assertThat(filteredRecords).extracting(UsageRecord::units).containsExactly(1L);
+	}
+
 	private List<UsageRecord> getCurrentUsageRecords(ZonedDateTime startTime, ZonedDateTime endTime) {
 		UsageRecord usageRecord1 = new UsageRecord(limitId, null, null, 3L, null);
 		UsageRecord usageRecord2 = new UsageRecord(limitId, null, null, 2L, null);
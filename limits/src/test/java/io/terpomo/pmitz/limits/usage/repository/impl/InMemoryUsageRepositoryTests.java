@@ -0,0 +1,271 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryUsageRepositoryTests {
+
+	static final FeatureRef FEATURE_REF = new FeatureRef("photo-sharing", "upload-photo");
+
+	static final String USER_ID = "user001";
+
+	static final ZonedDateTime WINDOW_START = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	static final ZonedDateTime WINDOW_END = WINDOW_START.plusMonths(1).minusNanos(1);
+
+	MutableClock clock;
+
+	InMemoryUsageRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		clock = new MutableClock(WINDOW_START.plusDays(1).toInstant());
+		repository = new InMemoryUsageRepository(clock, Duration.ofMinutes(1));
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldCreateAndAccumulateCounter() {
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta("photos", 3, 10)))).contains(List.of(3L));
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta("photos", 4, 10)))).contains(List.of(7L));
+
+		assertThat(loadUsageRecords("photos")).singleElement()
+				.extracting(UsageRecord::units).isEqualTo(7L);
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRejectAllDeltasWhenOneExceedsLimit() {
+		repository.applyDeltasWithinLimits(List.of(delta("photos", 5, 10), delta("albums", 1, 2)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(delta("photos", 5, 10), delta("albums", 2, 2)));
+
+		assertThat(result).isEmpty();
+		assertThat(loadUsageRecords("photos")).singleElement().extracting(UsageRecord::units).isEqualTo(5L);
+		assertThat(loadUsageRecords("albums")).singleElement().extracting(UsageRecord::units).isEqualTo(1L);
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRestoreClampedCountersWhenRejected() {
+		repository.applyDeltasWithinLimits(List.of(delta("photos", 2, 10), delta("albums", 2, 2)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(delta("photos", -5, 10), delta("albums", 1, 2)));
+
+		assertThat(result).isEmpty();
+		assertThat(loadUsageRecords("photos")).singleElement().extracting(UsageRecord::units).isEqualTo(2L);
+		assertThat(loadUsageRecords("albums")).singleElement().extracting(UsageRecord::units).isEqualTo(2L);
+	}
+
+	@Test
+	void applyDeltasShouldNeverGoBelowZero() {
+		repository.applyDeltas(List.of(delta("photos", 2, UsageDelta.UNBOUNDED)));
+		repository.applyDeltas(List.of(delta("photos", -5, UsageDelta.UNBOUNDED)));
+
+		assertThat(loadUsageRecords("photos")).singleElement().extracting(UsageRecord::units).isEqualTo(0L);
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRaiseCounterToMinUnits() {
+		repository.applyDeltas(List.of(delta("photos", 2, UsageDelta.UNBOUNDED)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(new UsageDelta(FEATURE_REF, USER_ID, "photos", WINDOW_START,
+				WINDOW_END, WINDOW_END.plusMonths(3), 3, 10, 8)));
+
+		assertThat(result).contains(List.of(8L));
+		assertThat(repository.applyDeltasWithinLimits(List.of(new UsageDelta(FEATURE_REF, USER_ID, "photos", WINDOW_START,
+				WINDOW_END, WINDOW_END.plusMonths(3), 3, 10, 8)))).isEmpty();
+	}
+
+	@Test
+	void loadUsageDataShouldOnlyReturnCountersMatchingCriteria() {
+		ZonedDateTime nextWindowStart = WINDOW_START.plusMonths(1);
+		repository.applyDeltas(List.of(delta("photos", 1, UsageDelta.UNBOUNDED),
+				new UsageDelta(FEATURE_REF, USER_ID, "photos", nextWindowStart, nextWindowStart.plusMonths(1).minusNanos(1),
+						nextWindowStart.plusMonths(4), 2, UsageDelta.UNBOUNDED),
+				delta("albums", 3, UsageDelta.UNBOUNDED)));
+
+		var records = loadUsageRecords("photos");
+
+		assertThat(records).singleElement().satisfies(usageRecord -> {
+			assertThat(usageRecord.startTime()).isEqualTo(WINDOW_START);
+			assertThat(usageRecord.units()).isEqualTo(1L);
+		});
+	}
+
+	@Test
+	void updateUsageRecordsShouldStoreUnits() {
+		var context = new LimitTrackingContext(FEATURE_REF, new IndividualUser(USER_ID),
+				List.of(new RecordSearchCriteria("photos", WINDOW_START, WINDOW_END)));
+		context.addUpdatedUsageRecords(List.of(new UsageRecord("photos", WINDOW_START, WINDOW_END, 6L,
+				WINDOW_END.plusMonths(3))));
+
+		repository.updateUsageRecords(context);
+
+		assertThat(loadUsageRecords("photos")).singleElement().extracting(UsageRecord::units).isEqualTo(6L);
+	}
+
+	@Test
+	void expiredCountersShouldBeIgnoredAndEvicted() {
+		repository.applyDeltas(List.of(delta("photos", 4, UsageDelta.UNBOUNDED)));
+
+		clock.advance(Duration.ofDays(200));
+
+		assertThat(loadUsageRecords("photos")).isEmpty();
+		repository.applyDeltas(List.of(new UsageDelta(FEATURE_REF, USER_ID, "albums", null, null, null, 1,
+				UsageDelta.UNBOUNDED)));
+		assertThat(repository.size()).isEqualTo(1);
+	}
+
+	@Test
+	void expiredCounterShouldRestartFromZero() {
+		repository.applyDeltas(List.of(delta("photos", 4, UsageDelta.UNBOUNDED)));
+
+		clock.advance(Duration.ofDays(200));
+
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta("photos", 1, 10)))).contains(List.of(1L));
+	}
+
+	@Test
+	void concurrentIncrementsShouldNeverExceedLimit() throws Exception {
+		int threads = 4;
+		int attemptsPerThread = 50;
+		int limit = 120;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Callable<Integer>> tasks = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				tasks.add(() -> {
+					int accepted = 0;
+					for (int j = 0; j < attemptsPerThread; j++) {
+						if (repository.applyDeltasWithinLimits(List.of(delta("photos", 1, limit))).isPresent()) {
+							accepted++;
+						}
+					}
+					return accepted;
+				});
+			}
+			int accepted = 0;
+			for (Future<Integer> future : executor.invokeAll(tasks)) {
+				accepted += future.get();
+			}
+
+			assertThat(accepted).isEqualTo(limit);
+			assertThat(loadUsageRecords("photos")).singleElement().extracting(UsageRecord::units).isEqualTo((long) limit);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void countersAddedDuringEvictionShouldBeKept() throws Exception {
+		int users = 10_000;
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> eviction = executor.submit(() -> {
+				while (writing.get()) {
+					repository.evictExpired();
+				}
+			});
+			for (int i = 0; i < users; i++) {
+				String userId = "user-" + i;
+				repository.applyDeltas(List.of(new UsageDelta(FEATURE_REF, userId, "albums", WINDOW_START, WINDOW_END,
+						WINDOW_START, 1, UsageDelta.UNBOUNDED)));
+				repository.applyDeltas(List.of(new UsageDelta(FEATURE_REF, userId, "photos", WINDOW_START, WINDOW_END,
+						WINDOW_END, 1, UsageDelta.UNBOUNDED)));
+			}
+			writing.set(false);
+			eviction.get();
+
+			for (int i = 0; i < users; i++) {
+				assertThat(loadUsageRecords("user-" + i, "photos")).singleElement()
+						.extracting(UsageRecord::units).isEqualTo(1L);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private List<UsageRecord> loadUsageRecords(String limitId) {
+		return loadUsageRecords(USER_ID, limitId);
+	}
+
+	private List<UsageRecord> loadUsageRecords(String userId, String limitId) {
+		var context = new LimitTrackingContext(FEATURE_REF, new IndividualUser(userId),
+				List.of(new RecordSearchCriteria(limitId, WINDOW_START, WINDOW_END)));
+		repository.loadUsageData(context);
+		return context.getCurrentUsageRecords();
+	}
+
+	private static UsageDelta delta(String limitId, long units, long maxUnits) {
+		return new UsageDelta(FEATURE_REF, USER_ID, limitId, WINDOW_START, WINDOW_END, WINDOW_END.plusMonths(3),
+				units, maxUnits);
+	}
+
+	static final class MutableClock extends Clock {
+
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
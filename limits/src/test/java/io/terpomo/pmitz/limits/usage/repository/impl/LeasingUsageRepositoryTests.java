@@ -0,0 +1,197 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LeasingUsageRepositoryTests {
+
+	static final FeatureRef FEATURE_REF = new FeatureRef("photo-sharing", "upload-photo");
+
+	static final String USER_ID = "user001";
+
+	static final ZonedDateTime WINDOW_START = ZonedDateTime.now(ZoneOffset.UTC).withDayOfMonth(1).toLocalDate()
+			.atStartOfDay(ZoneOffset.UTC);
+
+	static final ZonedDateTime WINDOW_END = WINDOW_START.plusMonths(1).minusNanos(1);
+
+	InMemoryUsageRepository delegate;
+
+	LeasingUsageRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		delegate = spy(new InMemoryUsageRepository());
+		repository = newNode();
+	}
+
+	@AfterEach
+	void tearDown() {
+		repository.close();
+	}
+
+	@Test
+	void recordsShouldBeServedFromLease() {
+		for (int i = 0; i < 10; i++) {
+			assertThat(repository.applyDeltasWithinLimits(List.of(delta(1, 100)))).isPresent();
+		}
+
+		verify(delegate, times(1)).applyDeltasWithinLimits(anyList());
+		assertThat(unitsIn(delegate)).isEqualTo(25L);
+		assertThat(unitsIn(repository)).isEqualTo(10L);
+		assertThat(repository.getStatistics().localConsumptions()).isEqualTo(10);
+	}
+
+	@Test
+	void leaseSizeShouldShrinkAsHeadroomDecreases() {
+		for (int i = 0; i < 50; i++) {
+			repository.applyDeltasWithinLimits(List.of(delta(1, 100)));
+		}
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<UsageDelta>> captor = ArgumentCaptor.forClass(List.class);
+		verify(delegate, times(3)).applyDeltasWithinLimits(captor.capture());
+		assertThat(captor.getAllValues()).extracting(deltas -> deltas.get(0).units())
+				.containsExactly(25L, 18L, 14L);
+	}
+
+	@Test
+	void leasesShouldNeverExceedLimitAcrossNodes() {
+		int accepted = 0;
+		try (LeasingUsageRepository otherNode = newNode()) {
+			for (int i = 0; i < 30; i++) {
+				LeasingUsageRepository node = (i % 2 == 0) ? repository : otherNode;
+				if (node.applyDeltasWithinLimits(List.of(delta(1, 20))).isPresent()) {
+					accepted++;
+				}
+			}
+			assertThat(accepted).isLessThanOrEqualTo(20);
+		}
+
+		while (repository.applyDeltasWithinLimits(List.of(delta(1, 20))).isPresent()) {
+			accepted++;
+		}
+
+		assertThat(accepted).isEqualTo(20);
+		assertThat(unitsIn(delegate)).isEqualTo(20L);
+	}
+
+	@Test
+	void unusedUnitsShouldBeReturnedOnClose() {
+		repository.applyDeltasWithinLimits(List.of(delta(1, 100)));
+		assertThat(unitsIn(delegate)).isEqualTo(25L);
+
+		repository.close();
+
+		assertThat(unitsIn(delegate)).isEqualTo(1L);
+		assertThat(repository.getStatistics().returnedUnits()).isEqualTo(24);
+	}
+
+	@Test
+	void idleLeasesShouldBeReturned() {
+		repository.close();
+		repository = LeasingUsageRepository.builder(delegate)
+				.leaseFraction(0.25)
+				.idleTimeout(Duration.ZERO)
+				.returnCheckInterval(Duration.ofHours(1))
+				.build();
+		repository.applyDeltasWithinLimits(List.of(delta(2, 100)));
+
+		await();
+		repository.returnExpiredLeases();
+
+		assertThat(unitsIn(delegate)).isEqualTo(2L);
+	}
+
+	@Test
+	void loadUsageDataShouldNotCountUnusedLeasedUnits() {
+		repository.applyDeltasWithinLimits(List.of(delta(3, 100)));
+
+		assertThat(unitsIn(repository)).isEqualTo(3L);
+	}
+
+	@Test
+	void reducedUnitsShouldGoBackToLease() {
+		repository.applyDeltasWithinLimits(List.of(delta(5, 100)));
+
+		repository.applyDeltas(List.of(delta(-2, UsageDelta.UNBOUNDED)));
+
+		verify(delegate, times(0)).applyDeltas(anyList());
+		assertThat(unitsIn(repository)).isEqualTo(3L);
+	}
+
+	@Test
+	void rejectedDeltaShouldGiveBackUnitsOfOtherDeltas() {
+		var photos = delta(1, 100);
+		var albums = new UsageDelta(FEATURE_REF, USER_ID, "albums", WINDOW_START, WINDOW_END,
+				WINDOW_END.plusMonths(3), 2, 1);
+
+		assertThat(repository.applyDeltasWithinLimits(List.of(photos, albums))).isEmpty();
+
+		assertThat(unitsIn(repository)).isZero();
+	}
+
+	private LeasingUsageRepository newNode() {
+		return LeasingUsageRepository.builder(delegate)
+				.leaseFraction(0.25)
+				.returnCheckInterval(Duration.ofHours(1))
+				.build();
+	}
+
+	private static void await() {
+		try {
+			Thread.sleep(5);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static long unitsIn(AtomicUsageRepository usageRepository) {
+		var context = new LimitTrackingContext(FEATURE_REF, new IndividualUser(USER_ID),
+				List.of(new RecordSearchCriteria("photos", WINDOW_START, WINDOW_END)));
+		usageRepository.loadUsageData(context);
+		return context.getCurrentUsageRecords().stream().mapToLong(UsageRecord::units).sum();
+	}
+
+	private static UsageDelta delta(long units, long maxUnits) {
+		return new UsageDelta(FEATURE_REF, USER_ID, "photos", WINDOW_START, WINDOW_END, WINDOW_END.plusMonths(3),
+				units, maxUnits);
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class MappedFileUsageRepositoryTests {
+
+	static final FeatureRef FEATURE_REF = new FeatureRef("photo-sharing", "upload-photo");
+
+	static final ZonedDateTime WINDOW_START = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	static final ZonedDateTime WINDOW_END = WINDOW_START.plusMonths(1).minusNanos(1);
+
+	static final Clock CLOCK = Clock.fixed(WINDOW_START.plusDays(1).toInstant(), ZoneOffset.UTC);
+
+	@TempDir
+	Path tempDir;
+
+	Path storePath;
+
+	MappedFileUsageRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		storePath = tempDir.resolve("usage.dat");
+		repository = new MappedFileUsageRepository(storePath, 16, CLOCK);
+	}
+
+	@AfterEach
+	void tearDown() {
+		repository.close();
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldAccumulateAndRejectAboveLimit() {
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta("user001", 4, 5)))).contains(List.of(4L));
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta("user001", 2, 5)))).isEmpty();
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta("user001", 1, 5)))).contains(List.of(5L));
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRollBackAllDeltasWhenOneIsRejected() {
+		repository.applyDeltas(List.of(delta("user001", 1, UsageDelta.UNBOUNDED), delta("user002", 3, UsageDelta.UNBOUNDED)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(delta("user001", 1, 5), delta("user002", 3, 5)));
+
+		assertThat(result).isEmpty();
+		assertThat(units("user001")).isEqualTo(1L);
+		assertThat(units("user002")).isEqualTo(3L);
+	}
+
+	@Test
+	void applyDeltasShouldNeverGoBelowZero() {
+		repository.applyDeltas(List.of(delta("user001", 2, UsageDelta.UNBOUNDED)));
+		repository.applyDeltas(List.of(delta("user001", -3, UsageDelta.UNBOUNDED)));
+
+		assertThat(units("user001")).isZero();
+	}
+
+	@Test
+	void updateUsageRecordsShouldStoreUnits() {
+		var context = new LimitTrackingContext(FEATURE_REF, new IndividualUser("user001"), List.of());
+		context.addUpdatedUsageRecords(List.of(new UsageRecord("photos", WINDOW_START, WINDOW_END, 7L,
+				WINDOW_END.plusMonths(3))));
+
+		repository.updateUsageRecords(context);
+
+		assertThat(loadUsageRecords("user001")).singleElement().satisfies(usageRecord -> {
+			assertThat(usageRecord.units()).isEqualTo(7L);
+			assertThat(usageRecord.startTime()).isEqualTo(WINDOW_START);
+			assertThat(usageRecord.endTime()).isEqualTo(WINDOW_END);
+		});
+	}
+
+	@Test
+	void countersShouldSurviveReopening() {
+		repository.applyDeltas(List.of(delta("user001", 3, UsageDelta.UNBOUNDED)));
+		repository.close();
+
+		repository = new MappedFileUsageRepository(storePath, 16, CLOCK);
+
+		assertThat(units("user001")).isEqualTo(3L);
+	}
+
+	@Test
+	void tableShouldGrowAndKeepCounters() {
+		for (int i = 0; i < 100; i++) {
+			repository.applyDeltas(List.of(delta("user" + i, i + 1, UsageDelta.UNBOUNDED)));
+		}
+
+		assertThat(repository.capacity()).isGreaterThan(100);
+		for (int i = 0; i < 100; i++) {
+			assertThat(units("user" + i)).isEqualTo(i + 1L);
+		}
+	}
+
+	@Test
+	void recoveryShouldDiscardIncompleteSlots() throws IOException {
+		repository.applyDeltas(List.of(delta("user001", 3, UsageDelta.UNBOUNDED), delta("user002", 5, UsageDelta.UNBOUNDED)));
+		repository.close();
+		simulateInterruptedClaim(storePath);
+
+		repository = new MappedFileUsageRepository(storePath, 16, CLOCK);
+
+		assertThat(loadUsageRecords("user001").size() + loadUsageRecords("user002").size()).isEqualTo(1);
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta("user001", 1, 10), delta("user002", 1, 10))))
+				.hasValueSatisfying(units -> assertThat(units).hasSize(2));
+	}
+
+	@Test
+	void incompleteClaimShouldBeAbandonedWhileFileIsOpen() throws IOException {
+		repository.applyDeltas(List.of(delta("user001", 3, UsageDelta.UNBOUNDED)));
+		simulateInterruptedClaim(storePath);
+
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta("user001", 2, 10)))).contains(List.of(2L));
+		assertThat(units("user001")).isEqualTo(2L);
+	}
+
+	@Test
+	void applyDeltasWithinLimitsShouldRestoreClampedCountersWhenRejected() {
+		repository.applyDeltas(List.of(delta("user001", 2, UsageDelta.UNBOUNDED), delta("user002", 2, UsageDelta.UNBOUNDED)));
+
+		var result = repository.applyDeltasWithinLimits(List.of(delta("user001", -5, 10), delta("user002", 1, 2)));
+
+		assertThat(result).isEmpty();
+		assertThat(units("user001")).isEqualTo(2L);
+		assertThat(units("user002")).isEqualTo(2L);
+	}
+
+	@Test
+	void reopeningWithLargerInitialCapacityShouldGrowTable() {
+		repository.applyDeltas(List.of(delta("user001", 3, UsageDelta.UNBOUNDED)));
+		repository.close();
+
+		repository = new MappedFileUsageRepository(storePath, 256, CLOCK);
+
+		assertThat(repository.capacity()).isEqualTo(256);
+		assertThat(units("user001")).isEqualTo(3L);
+	}
+
+	@Test
+	void recoveryShouldDropExpiredCounters() {
+		repository.applyDeltas(List.of(delta("user001", 3, UsageDelta.UNBOUNDED)));
+		repository.close();
+
+		repository = new MappedFileUsageRepository(storePath, 16,
+				Clock.fixed(WINDOW_END.plusYears(1).toInstant(), ZoneOffset.UTC));
+
+		assertThat(loadUsageRecords("user001")).isEmpty();
+	}
+
+	@Test
+	void openingTheSameFileTwiceInOneJvmShouldFail() {
+		assertThatExceptionOfType(UsageRepositoryException.class)
+				.isThrownBy(() -> new MappedFileUsageRepository(storePath, 16, CLOCK));
+	}
+
+	@Test
+	void invalidFileShouldBeRejected() throws IOException {
+		Path invalidPath = tempDir.resolve("invalid.dat");
+		Files.write(invalidPath, new byte[128]);
+
+		assertThatExceptionOfType(UsageRepositoryException.class)
+				.isThrownBy(() -> new MappedFileUsageRepository(invalidPath, 16, CLOCK));
+	}
+
+	@Test
+	void concurrentIncrementsShouldNeverExceedLimit() throws Exception {
+		int threads = 4;
+		int attemptsPerThread = 500;
+		int limit = 1500;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Callable<Integer>> tasks = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				tasks.add(() -> {
+					int accepted = 0;
+					for (int j = 0; j < attemptsPerThread; j++) {
+						if (repository.applyDeltasWithinLimits(List.of(delta("user001", 1, limit))).isPresent()) {
+							accepted++;
+						}
+					}
+					return accepted;
+				});
+			}
+			int accepted = 0;
+			for (Future<Integer> future : executor.invokeAll(tasks)) {
+				accepted += future.get();
+			}
+
+			assertThat(accepted).isEqualTo(limit);
+			assertThat(units("user001")).isEqualTo((long) limit);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private static void simulateInterruptedClaim(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+			int capacity = (int) MappedFileUsageRepository.getLong(buffer, MappedFileUsageRepository.CAPACITY_OFFSET);
+			for (int i = 0; i < capacity; i++) {
+				int slot = MappedFileUsageRepository.slotOffset(i);
+				if (MappedFileUsageRepository.getLong(buffer, slot) == MappedFileUsageRepository.ACTIVE) {
+					MappedFileUsageRepository.setLong(buffer, slot, MappedFileUsageRepository.CLAIMING);
+					MappedFileUsageRepository.setLong(buffer, slot + MappedFileUsageRepository.HASH1_OFFSET, 0);
+					break;
+				}
+			}
+			buffer.force();
+		}
+	}
+
+	private long units(String userId) {
+		return loadUsageRecords(userId).stream().mapToLong(UsageRecord::units).sum();
+	}
+
+	private List<UsageRecord> loadUsageRecords(String userId) {
+		var context = new LimitTrackingContext(FEATURE_REF, new IndividualUser(userId),
+				List.of(new RecordSearchCriteria("photos", WINDOW_START, WINDOW_END)));
+		repository.loadUsageData(context);
+		return context.getCurrentUsageRecords();
+	}
+
+	private static UsageDelta delta(String userId, long units, long maxUnits) {
+		return new UsageDelta(FEATURE_REF, userId, "photos", WINDOW_START, WINDOW_END, WINDOW_END.plusMonths(3),
+				units, maxUnits);
+	}
+}
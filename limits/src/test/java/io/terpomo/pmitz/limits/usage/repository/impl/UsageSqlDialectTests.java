@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class UsageSqlDialectTests {
+
+	@ParameterizedTest
+	@CsvSource({
+			"PostgreSQL, PostgreSQLUsageSqlDialect",
+			"H2, H2UsageSqlDialect",
+			"MySQL, MySQLUsageSqlDialect",
+			"MariaDB, MySQLUsageSqlDialect",
+			"Microsoft SQL Server, SQLServerUsageSqlDialect"
+	})
+	void forDatabaseShouldReturnDialectMatchingProductName(String databaseProductName, String expectedDialect) {
+		assertThat(UsageSqlDialect.forDatabase(databaseProductName).getClass().getSimpleName()).isEqualTo(expectedDialect);
+	}
+
+	@ParameterizedTest
+	@CsvSource({"Oracle", "Apache Derby"})
+	void forDatabaseShouldThrowExceptionWhenDatabaseIsNotSupported(String databaseProductName) {
+		assertThatExceptionOfType(UsageRepositoryException.class)
+				.isThrownBy(() -> UsageSqlDialect.forDatabase(databaseProductName));
+	}
+
+	@Test
+	void loadUsageRecordsSqlShouldBeReusedForCriteriaOfSameShape() {
+		UsageSqlDialect dialect = new H2UsageSqlDialect();
+		ZonedDateTime windowStart = ZonedDateTime.of(2024, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+		String firstQuery = dialect.loadUsageRecordsSql("dbo.usage", List.of(
+				context("user1", new RecordSearchCriteria("limit1", windowStart, windowStart.plusDays(1)))));
+		String secondQuery = dialect.loadUsageRecordsSql("dbo.usage", List.of(
+				context("user2", new RecordSearchCriteria("limit2", windowStart.plusDays(1), windowStart.plusDays(2)))));
+		String tokenBucketQuery = dialect.loadUsageRecordsSql("dbo.usage", List.of(
+				context("user1", new RecordSearchCriteria("limit1", null, null))));
+
+		assertThat(secondQuery).isSameAs(firstQuery);
+		assertThat(tokenBucketQuery).isNotEqualTo(firstQuery).doesNotContain("window_end");
+	}
+
+	@Test
+	void loadUsageRecordsSqlShouldHaveOneBranchPerCriteria() {
+		UsageSqlDialect dialect = new H2UsageSqlDialect();
+
+		String query = dialect.loadUsageRecordsSql("dbo.usage", List.of(
+				context("user1", new RecordSearchCriteria("limit1", null, null), new RecordSearchCriteria("limit2", null, null)),
+				context("user2", new RecordSearchCriteria(null, null, null)),
+				context("user3", new RecordSearchCriteria("limit1", null, null))));
+
+		assertThat(query.split(" UNION ALL ")).hasSize(3);
+		assertThat(query).contains("SELECT 0 AS context_index", "SELECT 2 AS context_index")
+				.doesNotContain("SELECT 1 AS context_index");
+	}
+
+	@Test
+	void loadUsageRecordsSqlShouldReturnNullWhenNoCriteriaIsSearchable() {
+		UsageSqlDialect dialect = new H2UsageSqlDialect();
+
+		assertThat(dialect.loadUsageRecordsSql("dbo.usage", List.of(context("user1")))).isNull();
+	}
+
+	@Test
+	void sqlServerQueriesShouldNotBeOptimizedForFirstParameters() {
+		UsageSqlDialect dialect = new SQLServerUsageSqlDialect();
+
+		assertThat(dialect.loadUsageRecordsSql("dbo.usage", List.of(context("user1", new RecordSearchCriteria("limit1", null, null)))))
+				.endsWith(" OPTION (OPTIMIZE FOR UNKNOWN)");
+	}
+
+	@Test
+	void versionedLoadUsageRecordsSqlShouldSelectVersion() {
+		UsageSqlDialect dialect = new H2UsageSqlDialect();
+		List<LimitTrackingContext> contexts = List.of(context("user1", new RecordSearchCriteria("limit1", null, null)));
+
+		assertThat(dialect.loadUsageRecordsSql("dbo.usage", contexts, true)).contains(", version FROM dbo.usage");
+		assertThat(dialect.loadUsageRecordsSql("dbo.usage", contexts)).doesNotContain("version");
+	}
+
+	@Test
+	void lockUsageRecordsSqlShouldLockRecordsInLimitOrder() {
+		UsageSqlDialect dialect = new PostgreSQLUsageSqlDialect();
+
+		String query = dialect.lockUsageRecordsSql("dbo.usage",
+				context("user1", new RecordSearchCriteria("limit1", null, null), new RecordSearchCriteria("limit2", null, null)));
+
+		assertThat(query).doesNotContain("UNION")
+				.contains("(limit_id = ?) OR (limit_id = ?)")
+				.endsWith(" ORDER BY limit_id, window_start FOR UPDATE");
+	}
+
+	@Test
+	void sqlServerShouldLockRecordsWithTableHint() {
+		UsageSqlDialect dialect = new SQLServerUsageSqlDialect();
+
+		assertThat(dialect.lockUsageRecordsSql("dbo.usage", context("user1", new RecordSearchCriteria("limit1", null, null))))
+				.contains("FROM dbo.usage WITH (UPDLOCK, HOLDLOCK) WHERE")
+				.doesNotContain("FOR UPDATE");
+	}
+
+	private static LimitTrackingContext context(String userId, RecordSearchCriteria... criteria) {
+		return new LimitTrackingContext(new FeatureRef("product1", "feature1"), new IndividualUser(userId), List.of(criteria));
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.repository.impl;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.UsageRecord;
+import io.terpomo.pmitz.limits.usage.repository.AtomicUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.LimitTrackingContext;
+import io.terpomo.pmitz.limits.usage.repository.RecordSearchCriteria;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WriteBehindUsageRepositoryTests {
+
+	static final FeatureRef FEATURE_REF = new FeatureRef("photo-sharing", "upload-photo");
+
+	static final String USER_ID = "user001";
+
+	static final ZonedDateTime WINDOW_START = ZonedDateTime.now(ZoneOffset.UTC).withDayOfMonth(1).toLocalDate()
+			.atStartOfDay(ZoneOffset.UTC);
+
+	static final ZonedDateTime WINDOW_END = WINDOW_START.plusMonths(1).minusNanos(1);
+
+	InMemoryUsageRepository delegate;
+
+	WriteBehindUsageRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		delegate = spy(new InMemoryUsageRepository());
+		repository = WriteBehindUsageRepository.builder(delegate)
+				.flushInterval(Duration.ofHours(1))
+				.build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		repository.close();
+	}
+
+	@Test
+	void flushShouldCoalesceDeltasOfSameCounter() {
+		for (int i = 0; i < 10; i++) {
+			repository.applyDeltasWithinLimits(List.of(delta(1, 100)));
+		}
+		verify(delegate, times(0)).applyDeltas(anyList());
+
+		repository.flush();
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<UsageDelta>> captor = ArgumentCaptor.forClass(List.class);
+		verify(delegate).applyDeltas(captor.capture());
+		assertThat(captor.getValue()).singleElement().extracting(UsageDelta::units).isEqualTo(10L);
+		assertThat(unitsIn(delegate)).isEqualTo(10L);
+
+		var statistics = repository.getStatistics();
+		assertThat(statistics.recordedDeltas()).isEqualTo(10);
+		assertThat(statistics.flushedDeltas()).isEqualTo(1);
+		assertThat(statistics.coalescingRatio()).isEqualTo(10.0);
+		assertThat(statistics.pendingCounters()).isZero();
+	}
+
+	@Test
+	void limitCheckShouldIncludeUnitsAlreadyInDelegate() {
+		delegate.applyDeltas(List.of(delta(4, UsageDelta.UNBOUNDED)));
+
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta(2, 5)))).isEmpty();
+		assertThat(repository.applyDeltasWithinLimits(List.of(delta(1, 5)))).contains(List.of(5L));
+	}
+
+	@Test
+	void loadUsageDataShouldIncludeUnflushedUnits() {
+		repository.applyDeltas(List.of(delta(3, UsageDelta.UNBOUNDED)));
+
+		assertThat(unitsIn(repository)).isEqualTo(3L);
+		assertThat(unitsIn(delegate)).isZero();
+	}
+
+	@Test
+	void updateUsageRecordsShouldBeFlushedAsDeltas() {
+		delegate.applyDeltas(List.of(delta(2, UsageDelta.UNBOUNDED)));
+		var context = new LimitTrackingContext(FEATURE_REF, new IndividualUser(USER_ID), List.of());
+		context.addUpdatedUsageRecords(List.of(new UsageRecord("photos", WINDOW_START, WINDOW_END, 5L,
+				WINDOW_END.plusMonths(3))));
+
+		repository.updateUsageRecords(context);
+		repository.flush();
+
+		assertThat(unitsIn(delegate)).isEqualTo(5L);
+	}
+
+	@Test
+	void failedFlushShouldKeepUnitsForNextFlush() {
+		repository.applyDeltas(List.of(delta(3, UsageDelta.UNBOUNDED)));
+		doThrow(new UsageRepositoryException("Failed to apply usage deltas")).doCallRealMethod()
+				.when(delegate).applyDeltas(anyList());
+
+		assertThatExceptionOfType(UsageRepositoryException.class).isThrownBy(repository::flush);
+		assertThat(repository.getStatistics().failedFlushes()).isEqualTo(1);
+		assertThat(repository.getStatistics().pendingCounters()).isEqualTo(1);
+
+		repository.flush();
+
+		assertThat(unitsIn(delegate)).isEqualTo(3L);
+	}
+
+	@Test
+	void closeShouldDrainUnflushedUnits() {
+		repository.applyDeltas(List.of(delta(3, UsageDelta.UNBOUNDED)));
+
+		repository.close();
+
+		assertThat(unitsIn(delegate)).isEqualTo(3L);
+	}
+
+	@Test
+	void reachingMaxUnflushedUnitsShouldTriggerFlush() {
+		repository.close();
+		repository = WriteBehindUsageRepository.builder(delegate)
+				.flushInterval(Duration.ofHours(1))
+				.maxUnflushedUnits(5)
+				.build();
+
+		repository.applyDeltas(List.of(delta(5, UsageDelta.UNBOUNDED)));
+
+		verify(delegate, timeout(2000)).applyDeltas(anyList());
+	}
+
+	@Test
+	void idleCountersShouldBeReloadedFromDelegate() {
+		repository.applyDeltas(List.of(delta(1, UsageDelta.UNBOUNDED)));
+		repository.flush();
+		repository.flush();
+		repository.flush();
+
+		delegate.applyDeltas(List.of(delta(4, UsageDelta.UNBOUNDED)));
+
+		assertThat(unitsIn(repository)).isEqualTo(5L);
+	}
+
+	@Test
+	void builderShouldRejectDelegateWithoutAtomicUpdates() {
+		AtomicUsageRepository nonAtomicDelegate = mock(AtomicUsageRepository.class);
+		when(nonAtomicDelegate.supportsAtomicUpdates()).thenReturn(false);
+
+		assertThatIllegalArgumentException().isThrownBy(() -> WriteBehindUsageRepository.builder(nonAtomicDelegate));
+	}
+
+	private static long unitsIn(AtomicUsageRepository usageRepository) {
+		var context = new LimitTrackingContext(FEATURE_REF, new IndividualUser(USER_ID),
+				List.of(new RecordSearchCriteria("photos", WINDOW_START, WINDOW_END)));
+		usageRepository.loadUsageData(context);
+		return context.getCurrentUsageRecords().stream().mapToLong(UsageRecord::units).sum();
+	}
+
+	private static UsageDelta delta(long units, long maxUnits) {
+		return new UsageDelta(FEATURE_REF, USER_ID, "photos", WINDOW_START, WINDOW_END, WINDOW_END.plusMonths(3),
+				units, maxUnits);
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.usage.series.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.usage.repository.UsageDelta;
+import io.terpomo.pmitz.limits.usage.series.SeriesGranularity;
+import io.terpomo.pmitz.limits.usage.series.UsageBucket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class JDBCUsageSeriesRepositoryTests {
+
+	private static final String SCHEMA_NAME = "public";
+	private static final String TABLE_NAME = "usage_series";
+
+	private final FeatureRef featureRef = new FeatureRef("Picture hosting service", "Uploading pictures");
+	private final UserGrouping userGrouping = new IndividualUser("User1");
+	private final Instant day = Instant.parse("2024-01-15T00:00:00Z");
+
+	private JdbcDataSource dataSource;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		dataSource.setPassword("");
+
+		executeUpdate(String.format("""
+				CREATE TABLE %s.%s (
+					product_id VARCHAR(255) NOT NULL,
+					feature_id VARCHAR(255) NOT NULL,
+					user_grouping VARCHAR(255) NOT NULL,
+					limit_id VARCHAR(255) NOT NULL,
+					granularity VARCHAR(10) NOT NULL,
+					bucket_start TIMESTAMP NOT NULL,
+					units BIGINT NOT NULL,
+					PRIMARY KEY (product_id, feature_id, user_grouping, limit_id, granularity, bucket_start)
+				)
+				""", SCHEMA_NAME, TABLE_NAME));
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		executeUpdate(String.format("DROP TABLE IF EXISTS %s.%s", SCHEMA_NAME, TABLE_NAME));
+	}
+
+	@Test
+	void addUsageShouldSumUnitsOfSameMinute() throws SQLException {
+		addUsage(day.plusSeconds(10), windowDelta("Pictures per hour", 2));
+		addUsage(day.plusSeconds(50), windowDelta("Pictures per hour", 3), windowDelta("Pictures per day", 5));
+		addUsage(day.plusSeconds(70), windowDelta("Pictures per hour", -1));
+
+		assertThat(repository().findUsageSeries(featureRef, userGrouping, day, day.plusSeconds(3600), SeriesGranularity.MINUTE))
+				.containsExactly(
+						new UsageBucket("Pictures per day", SeriesGranularity.MINUTE, day, 5),
+						new UsageBucket("Pictures per hour", SeriesGranularity.MINUTE, day, 5),
+						new UsageBucket("Pictures per hour", SeriesGranularity.MINUTE, day.plusSeconds(60), -1));
+	}
+
+	@Test
+	void addUsageShouldIgnoreCountersWithoutWindow() throws SQLException {
+		addUsage(day, new UsageDelta(featureRef, userGrouping.getId(), "Maximum pictures", null, null, null, 1, 10));
+
+		assertThat(repository().findUsageSeries(featureRef, userGrouping, day, day.plusSeconds(60), SeriesGranularity.MINUTE))
+				.isEmpty();
+	}
+
+	@Test
+	void findUsageSeriesShouldAggregateBucketsToGranularity() throws SQLException {
+		addUsage(day.plusSeconds(60), windowDelta("Pictures per hour", 2));
+		addUsage(day.plusSeconds(1800), windowDelta("Pictures per hour", 3));
+		addUsage(day.plusSeconds(3600), windowDelta("Pictures per hour", 4));
+
+		assertThat(repository().findUsageSeries(featureRef, userGrouping, day.plusSeconds(1200), day.plusSeconds(7200),
+				SeriesGranularity.HOUR))
+				.containsExactly(
+						new UsageBucket("Pictures per hour", SeriesGranularity.HOUR, day, 5),
+						new UsageBucket("Pictures per hour", SeriesGranularity.HOUR, day.plusSeconds(3600), 4));
+	}
+
+	@Test
+	void rollUpShouldCompactMinutesIntoHours() throws SQLException {
+		addUsage(day.plusSeconds(60), windowDelta("Pictures per hour", 2));
+		addUsage(day.plusSeconds(1800), windowDelta("Pictures per hour", 3));
+		addUsage(day.plusSeconds(3600), windowDelta("Pictures per hour", 4));
+
+		var repository = repository();
+		assertThat(repository.rollUp(day.plusSeconds(3600).plus(JDBCUsageSeriesRepository.DEFAULT_MINUTE_RETENTION)))
+				.isEqualTo(2);
+
+		assertThat(repository.findUsageSeries(featureRef, userGrouping, day, day.plusSeconds(7200), SeriesGranularity.MINUTE))
+				.containsExactly(
+						new UsageBucket("Pictures per hour", SeriesGranularity.HOUR, day, 5),
+						new UsageBucket("Pictures per hour", SeriesGranularity.MINUTE, day.plusSeconds(3600), 4));
+	}
+
+	@Test
+	void rollUpShouldCompactHoursIntoDaysAndDeleteExpiredDays() throws SQLException {
+		addUsage(day.plusSeconds(60), windowDelta("Pictures per hour", 2));
+		addUsage(day.plusSeconds(7200), windowDelta("Pictures per hour", 3));
+		var repository = new JDBCUsageSeriesRepository(dataSource, SCHEMA_NAME, TABLE_NAME, Duration.ZERO,
+				Duration.ofDays(1), Duration.ofDays(2));
+
+		repository.rollUp(day.plus(Duration.ofDays(2)));
+
+		assertThat(repository.findUsageSeries(featureRef, userGrouping, day, day.plus(Duration.ofDays(1)),
+				SeriesGranularity.HOUR))
+				.containsExactly(new UsageBucket("Pictures per hour", SeriesGranularity.DAY, day, 5));
+
+		repository.rollUp(day.plus(Duration.ofDays(3)));
+
+		assertThat(repository.findUsageSeries(featureRef, userGrouping, day, day.plus(Duration.ofDays(1)),
+				SeriesGranularity.DAY))
+				.isEmpty();
+	}
+
+	@Test
+	void rollUpShouldAddToExistingCoarserBucket() throws SQLException {
+		addUsage(day.plusSeconds(60), windowDelta("Pictures per hour", 2));
+		var repository = repository();
+		repository.rollUp(day.plus(Duration.ofDays(1)));
+		addUsage(day.plusSeconds(120), windowDelta("Pictures per hour", 3));
+
+		repository.rollUp(day.plus(Duration.ofDays(1)));
+
+		assertThat(repository.findUsageSeries(featureRef, userGrouping, day, day.plusSeconds(3600), SeriesGranularity.HOUR))
+				.containsExactly(new UsageBucket("Pictures per hour", SeriesGranularity.HOUR, day, 5));
+	}
+
+	@Test
+	void constructorShouldRejectHourRetentionShorterThanMinuteRetention() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new JDBCUsageSeriesRepository(dataSource, SCHEMA_NAME,
+				TABLE_NAME, Duration.ofHours(2), Duration.ofHours(1), null));
+	}
+
+	private JDBCUsageSeriesRepository repository() {
+		return new JDBCUsageSeriesRepository(dataSource, SCHEMA_NAME, TABLE_NAME);
+	}
+
+	private void addUsage(Instant time, UsageDelta... deltas) throws SQLException {
+		var repository = new JDBCUsageSeriesRepository(dataSource, SCHEMA_NAME, TABLE_NAME,
+				JDBCUsageSeriesRepository.DEFAULT_MINUTE_RETENTION, JDBCUsageSeriesRepository.DEFAULT_HOUR_RETENTION,
+				null, Clock.fixed(time, ZoneOffset.UTC));
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			repository.addUsage(connection, List.of(deltas));
+			connection.commit();
+		}
+	}
+
+	private UsageDelta windowDelta(String limitId, long units) {
+		ZonedDateTime windowStart = day.atZone(ZoneOffset.UTC);
+		return new UsageDelta(featureRef, userGrouping.getId(), limitId, windowStart, windowStart.plusDays(1),
+				windowStart.plusMonths(3), units, UsageDelta.UNBOUNDED);
+	}
+
+	private void executeUpdate(String query) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.executeUpdate(query);
+		}
+	}
+}
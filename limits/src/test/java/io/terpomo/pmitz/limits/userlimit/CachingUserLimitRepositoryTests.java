@@ -0,0 +1,242 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.limits.userlimit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.core.limits.LimitRule;
+import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingUserLimitRepositoryTests {
+
+	FeatureRef featureRef = new FeatureRef("FILE_SHARING", "ADD_FILE");
+
+	UserGrouping userGrouping = new IndividualUser("user001");
+
+	LimitRule limitRule = new CountLimit("MAX_FILES", 10L);
+
+	@Mock
+	UserLimitRepository delegate;
+
+	MutableClock clock;
+
+	CachingUserLimitRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		clock = new MutableClock(Instant.parse("2024-01-15T10:00:00Z"));
+		repository = CachingUserLimitRepository.builder(delegate)
+				.maximumSize(2)
+				.timeToLive(Duration.ofMinutes(5))
+				.negativeTimeToLive(Duration.ofMinutes(1))
+				.clock(clock)
+				.build();
+	}
+
+	@Test
+	void findLimitRuleShouldCallDelegateOnlyOnce() {
+		when(delegate.findLimitRule(featureRef, "MAX_FILES", userGrouping)).thenReturn(Optional.of(limitRule));
+
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).contains(limitRule);
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).contains(limitRule);
+
+		verify(delegate, times(1)).findLimitRule(featureRef, "MAX_FILES", userGrouping);
+		assertThat(repository.getStatistics().hits()).isEqualTo(1);
+		assertThat(repository.getStatistics().misses()).isEqualTo(1);
+	}
+
+	@Test
+	void findLimitRuleShouldCacheAbsentLimitRule() {
+		when(delegate.findLimitRule(featureRef, "MAX_FILES", userGrouping)).thenReturn(Optional.empty());
+
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).isEmpty();
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).isEmpty();
+
+		verify(delegate, times(1)).findLimitRule(featureRef, "MAX_FILES", userGrouping);
+		assertThat(repository.getStatistics().negativeHits()).isEqualTo(1);
+	}
+
+	@Test
+	void findLimitRuleShouldReloadAbsentLimitRuleAfterNegativeTimeToLive() {
+		when(delegate.findLimitRule(featureRef, "MAX_FILES", userGrouping))
+				.thenReturn(Optional.empty(), Optional.of(limitRule));
+
+		repository.findLimitRule(featureRef, "MAX_FILES", userGrouping);
+		clock.advance(Duration.ofMinutes(2));
+
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).contains(limitRule);
+		clock.advance(Duration.ofMinutes(2));
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).contains(limitRule);
+
+		verify(delegate, times(2)).findLimitRule(featureRef, "MAX_FILES", userGrouping);
+	}
+
+	@Test
+	void findLimitRuleShouldEvictOldestEntryWhenFull() {
+		when(delegate.findLimitRule(eq(featureRef), anyString(), eq(userGrouping))).thenReturn(Optional.empty());
+
+		repository.findLimitRule(featureRef, "LIMIT_1", userGrouping);
+		repository.findLimitRule(featureRef, "LIMIT_2", userGrouping);
+		repository.findLimitRule(featureRef, "LIMIT_3", userGrouping);
+		repository.findLimitRule(featureRef, "LIMIT_1", userGrouping);
+
+		verify(delegate, times(2)).findLimitRule(featureRef, "LIMIT_1", userGrouping);
+		assertThat(repository.size()).isEqualTo(2);
+		assertThat(repository.getStatistics().evictions()).isEqualTo(2);
+	}
+
+	@Test
+	void findLimitRuleShouldNotCacheDelegateFailure() {
+		when(delegate.findLimitRule(featureRef, "MAX_FILES", userGrouping))
+				.thenThrow(new RepositoryException("Error finding limit"))
+				.thenReturn(Optional.of(limitRule));
+
+		assertThatExceptionOfType(RepositoryException.class)
+				.isThrownBy(() -> repository.findLimitRule(featureRef, "MAX_FILES", userGrouping));
+
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).contains(limitRule);
+		assertThat(repository.getStatistics().loadFailures()).isEqualTo(1);
+	}
+
+	@Test
+	void findLimitRuleShouldShareConcurrentLoads() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(delegate.findLimitRule(featureRef, "MAX_FILES", userGrouping)).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.of(limitRule);
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Optional<LimitRule>>> results = new ArrayList<>();
+			results.add(executor.submit(() -> repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)));
+			assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+			for (int i = 0; i < 3; i++) {
+				results.add(executor.submit(() -> repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)));
+			}
+			release.countDown();
+
+			for (Future<Optional<LimitRule>> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).contains(limitRule);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		verify(delegate, times(1)).findLimitRule(featureRef, "MAX_FILES", userGrouping);
+	}
+
+	@Test
+	void findLimitRulesShouldLoadOnlyMissingEntries() {
+		when(delegate.findLimitRule(featureRef, "MAX_FILES", userGrouping)).thenReturn(Optional.of(limitRule));
+		when(delegate.findLimitRules(featureRef, Set.of("MAX_FILES_PER_DAY"), userGrouping)).thenReturn(Map.of());
+		repository.findLimitRule(featureRef, "MAX_FILES", userGrouping);
+
+		var limitRules = repository.findLimitRules(featureRef, List.of("MAX_FILES", "MAX_FILES_PER_DAY"), userGrouping);
+		var cachedLimitRules = repository.findLimitRules(featureRef, List.of("MAX_FILES", "MAX_FILES_PER_DAY"), userGrouping);
+
+		assertThat(limitRules).containsExactly(entry("MAX_FILES", limitRule));
+		assertThat(cachedLimitRules).isEqualTo(limitRules);
+		verify(delegate, times(1)).findLimitRules(any(), any(), any());
+		assertThat(repository.getStatistics().negativeHits()).isEqualTo(1);
+	}
+
+	@Test
+	void updateLimitRuleShouldInvalidateCachedEntry() {
+		LimitRule updatedLimitRule = new CountLimit("MAX_FILES", 20L);
+		when(delegate.findLimitRule(featureRef, "MAX_FILES", userGrouping))
+				.thenReturn(Optional.of(limitRule), Optional.of(updatedLimitRule));
+
+		repository.findLimitRule(featureRef, "MAX_FILES", userGrouping);
+		repository.updateLimitRule(featureRef, updatedLimitRule, userGrouping);
+
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).contains(updatedLimitRule);
+		verify(delegate).updateLimitRule(featureRef, updatedLimitRule, userGrouping);
+	}
+
+	@Test
+	void deleteLimitRuleShouldInvalidateCachedEntry() {
+		when(delegate.findLimitRule(featureRef, "MAX_FILES", userGrouping))
+				.thenReturn(Optional.of(limitRule), Optional.empty());
+
+		repository.findLimitRule(featureRef, "MAX_FILES", userGrouping);
+		repository.deleteLimitRule(featureRef, "MAX_FILES", userGrouping);
+
+		assertThat(repository.findLimitRule(featureRef, "MAX_FILES", userGrouping)).isEmpty();
+		verify(delegate).deleteLimitRule(featureRef, "MAX_FILES", userGrouping);
+	}
+
+	static final class MutableClock extends Clock {
+
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -43,4 +43,14 @@ class UserLimitRepositoryTests {
 		var noOpUserLimitRepo = UserLimitRepository.builder().noOpRepository();
 		assertThat(noOpUserLimitRepo).isNotNull().isInstanceOf(LimitRuleResolverImpl.NoOpUserLimitRepository.class);
 	}
+
+	@Test
+	void builderCachingRepositoryShouldReturnCachingUserLimitRepository() {
+		var jdbcUserLimitRepo = mock(JDBCUserLimitRepository.class);
+
+		var cachingUserLimitRepo = UserLimitRepository.builder().cachingRepository(jdbcUserLimitRepo).build();
+
+		assertThat(cachingUserLimitRepo).isNotNull();
+		assertThat(cachingUserLimitRepo.getDelegate()).isSameAs(jdbcUserLimitRepo);
+	}
 }
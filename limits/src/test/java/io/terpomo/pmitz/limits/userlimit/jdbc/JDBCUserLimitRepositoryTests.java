@@ -20,6 +20,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -37,6 +39,9 @@ import io.terpomo.pmitz.core.exception.RepositoryException;
 import io.terpomo.pmitz.core.limits.LimitRule;
 import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
 import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
+import io.terpomo.pmitz.core.limits.types.WindowUnit;
 import io.terpomo.pmitz.core.subjects.IndividualUser;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
@@ -221,6 +226,41 @@ class JDBCUserLimitRepositoryTests {
 				.withMessage(message);
 	}
 
+	@Test
+	void findLimitRules_LimitRulesExist() {
+
+		Map<String, LimitRule> limitRules = this.repository.findLimitRules(this.featureRef,
+				List.of("Maximum picture size", "Maximum number of picture uploaded in calendar month",
+						"Maximum picture resolution"), this.user);
+
+		assertThat(limitRules).containsOnlyKeys("Maximum picture size",
+				"Maximum number of picture uploaded in calendar month");
+		assertThat(limitRules.get("Maximum picture size")).isInstanceOf(CountLimit.class);
+		assertThat(limitRules.get("Maximum picture size").getValue()).isEqualTo(10L);
+		assertThat(limitRules.get("Maximum number of picture uploaded in calendar month"))
+				.isInstanceOf(CalendarPeriodRateLimit.class);
+	}
+
+	@Test
+	void findLimitRules_NoLimitRuleForUser() {
+
+		Map<String, LimitRule> limitRules = this.repository.findLimitRules(this.featureRef,
+				List.of("Maximum picture size"), new IndividualUser("User2"));
+
+		assertThat(limitRules).isEmpty();
+	}
+
+	@Test
+	void findLimitRules_SQLException() {
+
+		UserLimitRepository repositoryTest = new JDBCUserLimitRepository(new JdbcDataSource(), SCHEMA_NAME, "abc");
+
+		assertThatExceptionOfType(RepositoryException.class).isThrownBy(
+				() -> repositoryTest.findLimitRules(this.featureRef, List.of("Maximum picture size"), this.user))
+				.withMessage("Error finding limits")
+				.withCauseInstanceOf(SQLException.class);
+	}
+
 	@Test
 	void updateLimitRule_CountLimitRuleAdded() {
 
@@ -271,6 +311,49 @@ class JDBCUserLimitRepositoryTests {
 		assertThat(calendarPeriodRateLimitDb.getUnit()).isEqualTo(limitUnit);
 	}
 
+	@Test
+	void updateLimitRule_SlidingWindowRateLimitRuleAddedAndModified() {
+
+		String limitId = "Maximum number of picture uploaded in 10 minutes";
+		SlidingWindowRateLimit slidingWindowRateLimit =
+				new SlidingWindowRateLimit(limitId, 50, WindowUnit.MINUTE, 10);
+		slidingWindowRateLimit.setUnit("picture");
+
+		this.repository.updateLimitRule(this.featureRef, slidingWindowRateLimit, this.user);
+		this.repository.updateLimitRule(this.featureRef,
+				new SlidingWindowRateLimit(limitId, 20, WindowUnit.SECOND, 30), this.user);
+
+		Optional<LimitRule> userLimit = this.repository.findLimitRule(this.featureRef, limitId, this.user);
+
+		assertThat(userLimit).isPresent();
+		assertThat(userLimit.get()).isInstanceOf(SlidingWindowRateLimit.class);
+		SlidingWindowRateLimit slidingWindowRateLimitDb = (SlidingWindowRateLimit) userLimit.get();
+		assertThat(slidingWindowRateLimitDb.getId()).isEqualTo(limitId);
+		assertThat(slidingWindowRateLimitDb.getValue()).isEqualTo(20);
+		assertThat(slidingWindowRateLimitDb.getWindowUnit()).isEqualTo(WindowUnit.SECOND);
+		assertThat(slidingWindowRateLimitDb.getDuration()).isEqualTo(30);
+	}
+
+	@Test
+	void updateLimitRule_TokenBucketRateLimitRuleAdded() {
+
+		String limitId = "Maximum number of API calls per second";
+		TokenBucketRateLimit tokenBucketRateLimit = new TokenBucketRateLimit(limitId, 100, WindowUnit.SECOND, 1);
+		tokenBucketRateLimit.setUnit("call");
+
+		this.repository.updateLimitRule(this.featureRef, tokenBucketRateLimit, this.user);
+
+		Optional<LimitRule> userLimit = this.repository.findLimitRule(this.featureRef, limitId, this.user);
+
+		assertThat(userLimit).isPresent();
+		assertThat(userLimit.get()).isInstanceOf(TokenBucketRateLimit.class);
+		TokenBucketRateLimit tokenBucketRateLimitDb = (TokenBucketRateLimit) userLimit.get();
+		assertThat(tokenBucketRateLimitDb.getValue()).isEqualTo(100);
+		assertThat(tokenBucketRateLimitDb.getWindowUnit()).isEqualTo(WindowUnit.SECOND);
+		assertThat(tokenBucketRateLimitDb.getDuration()).isEqualTo(1);
+		assertThat(tokenBucketRateLimitDb.getUnit()).isEqualTo("call");
+	}
+
 	@Test
 	void updateLimitRule_CountLimitRuleModified() {
 		CountLimit countLimitToModified = new CountLimit("Maximum number of picture", 15);
@@ -305,6 +388,23 @@ class JDBCUserLimitRepositoryTests {
 		assertThat(calendarPeriodRateLimitDb.getValue()).isEqualTo(1500);
 	}
 
+	@Test
+	void updateLimitRule_LimitRuleTypeModified() {
+		CalendarPeriodRateLimit calendarPeriodRateLimit = new CalendarPeriodRateLimit("Maximum number of picture",
+				20, CalendarPeriodRateLimit.Periodicity.DAY);
+
+		this.repository.updateLimitRule(this.featureRef, calendarPeriodRateLimit, this.user);
+
+		Optional<LimitRule> userLimit = this.repository.findLimitRule(this.featureRef,
+				"Maximum number of picture", this.user);
+
+		assertThat(userLimit).isPresent();
+		assertThat(userLimit.get()).isInstanceOf(CalendarPeriodRateLimit.class);
+		CalendarPeriodRateLimit calendarPeriodRateLimitDb = (CalendarPeriodRateLimit) userLimit.get();
+		assertThat(calendarPeriodRateLimitDb.getValue()).isEqualTo(20);
+		assertThat(calendarPeriodRateLimitDb.getPeriodicity()).isEqualTo(CalendarPeriodRateLimit.Periodicity.DAY);
+	}
+
 	@Test
 	void updateLimitRule_SQLException() {
 
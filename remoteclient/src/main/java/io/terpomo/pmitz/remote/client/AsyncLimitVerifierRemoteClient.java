@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.remote.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import io.terpomo.pmitz.core.FeatureUsageInfo;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.limits.AsyncLimitVerifier;
+import io.terpomo.pmitz.limits.impl.CancellableFuturesUtil;
+import io.terpomo.pmitz.remote.client.http.PmitzApiKeyAuthenticationProvider;
+import io.terpomo.pmitz.remote.client.http.PmitzHttpAsyncClient;
+
+public class AsyncLimitVerifierRemoteClient implements AsyncLimitVerifier, AutoCloseable {
+
+	private final AsyncPmitzClient pmitzClient;
+
+	public AsyncLimitVerifierRemoteClient(String url) {
+		this(new PmitzHttpAsyncClient(url, new PmitzApiKeyAuthenticationProvider()));
+	}
+
+	public AsyncLimitVerifierRemoteClient(AsyncPmitzClient pmitzClient) {
+		this.pmitzClient = pmitzClient;
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Long>> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping) {
+		return CancellableFuturesUtil.thenApply(pmitzClient.getLimitsRemainingUnits(featureRef, userGrouping), FeatureUsageInfo::remainingUsageUnits);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> isWithinLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		return CancellableFuturesUtil.thenApply(pmitzClient.verifyLimits(featureRef, userGrouping, additionalUnits), usageInfo -> {
+			Map<String, Long> remainingUsageUnits = usageInfo.remainingUsageUnits();
+			return remainingUsageUnits != null && remainingUsageUnits.values().stream().noneMatch(v -> v < 0);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		return pmitzClient.recordOrReduce(featureRef, userGrouping, additionalUnits, false);
+	}
+
+	@Override
+	public CompletableFuture<Void> reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits) {
+		return pmitzClient.recordOrReduce(featureRef, userGrouping, reducedUnits, true);
+	}
+
+	@Override
+	public void close() {
+		if (pmitzClient instanceof PmitzHttpAsyncClient httpAsyncClient) {
+			httpAsyncClient.close();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.remote.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import io.terpomo.pmitz.core.FeatureUsageInfo;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+public interface AsyncPmitzClient {
+
+	CompletableFuture<FeatureUsageInfo> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping);
+
+	CompletableFuture<FeatureUsageInfo> verifyLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits);
+
+	default CompletableFuture<Void> recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits, boolean isReduce) {
+		return recordOrReduce(featureRef, userGrouping, additionalUnits, isReduce, null);
+	}
+
+	/**
+	 * Records or reduces the usage once per idempotency key, see
+	 * {@link PmitzClient#recordOrReduce(FeatureRef, UserGrouping, Map, boolean, String)}.
+	 */
+	CompletableFuture<Void> recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping,
+			Map<String, Long> additionalUnits, boolean isReduce, String idempotencyKey);
+}
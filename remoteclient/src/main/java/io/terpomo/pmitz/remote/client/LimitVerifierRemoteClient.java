@@ -17,16 +17,17 @@
 package io.terpomo.pmitz.remote.client;
 
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.Map;
 
 import io.terpomo.pmitz.core.FeatureUsageInfo;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
-import io.terpomo.pmitz.limits.LimitVerifier;
+import io.terpomo.pmitz.limits.IdempotentReservingLimitVerifier;
 import io.terpomo.pmitz.remote.client.http.PmitzApiKeyAuthenticationProvider;
 import io.terpomo.pmitz.remote.client.http.PmitzHttpClient;
 
-public class LimitVerifierRemoteClient implements LimitVerifier {
+public class LimitVerifierRemoteClient implements IdempotentReservingLimitVerifier {
 
 	private final PmitzClient pmitzClient;
 
@@ -61,6 +62,34 @@ public class LimitVerifierRemoteClient implements LimitVerifier {
 		pmitzClient.recordOrReduce(featureRef, userGrouping, reducedUnits, true);
 	}
 
+	@Override
+	public void recordFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits,
+			String idempotencyKey) {
+		pmitzClient.recordOrReduce(featureRef, userGrouping, additionalUnits, false, idempotencyKey);
+	}
+
+	@Override
+	public void reduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> reducedUnits,
+			String idempotencyKey) {
+		pmitzClient.recordOrReduce(featureRef, userGrouping, reducedUnits, true, idempotencyKey);
+	}
+
+	@Override
+	public String reserveFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units,
+			Duration timeToLive) {
+		return pmitzClient.reserve(featureRef, userGrouping, units, timeToLive);
+	}
+
+	@Override
+	public void commitReservation(String reservationId, Map<String, Long> actualUnits) {
+		pmitzClient.commitReservation(reservationId, actualUnits);
+	}
+
+	@Override
+	public void releaseReservation(String reservationId) {
+		pmitzClient.releaseReservation(reservationId);
+	}
+
 	public void uploadProduct(InputStream inputStream) {
 		pmitzClient.uploadProduct(inputStream);
 	}
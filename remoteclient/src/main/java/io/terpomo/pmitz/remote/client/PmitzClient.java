@@ -17,6 +17,7 @@
 package io.terpomo.pmitz.remote.client;
 
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 
@@ -33,7 +34,29 @@ public interface PmitzClient {
 
 	FeatureUsageInfo verifyLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits);
 
-	void recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits, boolean isReduce);
+	default void recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits, boolean isReduce) {
+		recordOrReduce(featureRef, userGrouping, additionalUnits, isReduce, null);
+	}
+
+	/**
+	 * Records or reduces the usage once per idempotency key, sent in the {@code Idempotency-Key}
+	 * header, so that the request can safely be retried.
+	 * @param idempotencyKey the key identifying the request, or {@code null} to always record or reduce
+	 */
+	void recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits,
+			boolean isReduce, String idempotencyKey);
+
+	/**
+	 * Reserves units on the server, see
+	 * {@link io.terpomo.pmitz.limits.ReservingLimitVerifier#reserveFeatureUsage(FeatureRef, UserGrouping, Map, Duration)}.
+	 * @param timeToLive the time to live of the reservation, sent in whole seconds
+	 * @return the id of the reservation
+	 */
+	String reserve(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units, Duration timeToLive);
+
+	void commitReservation(String reservationId, Map<String, Long> actualUnits);
+
+	void releaseReservation(String reservationId);
 
 	SubscriptionVerifDetail verifySubscription(FeatureRef featureRef, UserGrouping userGrouping);
 
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.remote.client.http;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import io.terpomo.pmitz.core.FeatureUsageInfo;
+import io.terpomo.pmitz.core.exception.FeatureNotFoundException;
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.exception.RequestInProgressException;
+import io.terpomo.pmitz.core.subjects.DirectoryGroup;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.core.subscriptions.Subscription;
+import io.terpomo.pmitz.limits.impl.LimitsValidationUtil;
+import io.terpomo.pmitz.remote.client.AsyncPmitzClient;
+import io.terpomo.pmitz.remote.client.AuthenticationException;
+import io.terpomo.pmitz.remote.client.RemoteCallException;
+
+public class PmitzHttpAsyncClient implements AsyncPmitzClient, AutoCloseable {
+
+	private final String url;
+
+	private final CloseableHttpAsyncClient httpClient;
+
+	private final ObjectMapper objectMapper;
+
+	private final Map<Class<?>, String> userGroupingTypes;
+	private final PmitzHttpAuthProvider authProvider;
+
+	public PmitzHttpAsyncClient(String url, PmitzHttpAuthProvider authProvider) {
+		this(url, authProvider, null);
+	}
+
+	public PmitzHttpAsyncClient(String url, PmitzHttpAuthProvider authProvider, Duration responseTimeout) {
+		this.objectMapper = JsonMapper.builder()
+				.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+				.build();
+
+		this.url = url;
+
+		HttpAsyncClientBuilder httpClientBuilder = HttpAsyncClients.custom();
+		if (responseTimeout != null) {
+			httpClientBuilder.setDefaultRequestConfig(RequestConfig.custom()
+					.setResponseTimeout(Timeout.ofMilliseconds(responseTimeout.toMillis()))
+					.build());
+		}
+		httpClient = httpClientBuilder.build();
+		httpClient.start();
+
+		this.authProvider = authProvider;
+
+		userGroupingTypes = Map.of(IndividualUser.class, "users",
+				DirectoryGroup.class, "directory-groups",
+				Subscription.class, "subscriptions");
+	}
+
+	@Override
+	public CompletableFuture<FeatureUsageInfo> getLimitsRemainingUnits(FeatureRef featureRef, UserGrouping userGrouping) {
+		SimpleHttpRequest httpGet = SimpleRequestBuilder.get(url + PmitzHttpClient.URL_DELIMITER + formatEndpoint("usage", userGrouping, featureRef))
+				.build();
+		addAuthenticationHeaders(httpGet);
+		return execute(httpGet, response -> {
+			checkLimitsResponse(response);
+			return parseBody(response, FeatureUsageInfo.class);
+		});
+	}
+
+	@Override
+	public CompletableFuture<FeatureUsageInfo> verifyLimits(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits) {
+		SimpleHttpRequest httpPost = SimpleRequestBuilder.post(url + PmitzHttpClient.URL_DELIMITER + formatEndpoint("limits-check", userGrouping, featureRef))
+				.setBody(toJson(additionalUnits), ContentType.APPLICATION_JSON)
+				.build();
+		addAuthenticationHeaders(httpPost);
+		return execute(httpPost, response -> {
+			checkLimitsResponse(response);
+			return parseBody(response, FeatureUsageInfo.class);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping,
+			Map<String, Long> additionalUnits, boolean isReduce, String idempotencyKey) {
+		LimitsValidationUtil.validateAdditionalUnits(additionalUnits);
+		SimpleHttpRequest httpPost = SimpleRequestBuilder.post(url + PmitzHttpClient.URL_DELIMITER + formatEndpoint("usage", userGrouping, featureRef))
+				.setBody(toJson(new RecordOrReduceRequest(isReduce, additionalUnits)), ContentType.APPLICATION_JSON)
+				.build();
+		if (idempotencyKey != null) {
+			httpPost.setHeader(PmitzHttpClient.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+		}
+		addAuthenticationHeaders(httpPost);
+		return execute(httpPost, response -> {
+			if (response.getCode() == 422 && PmitzHttpClient.isProblem(response)) {
+				throw new IdempotencyKeyReusedException("The idempotency key was used for a request with another payload",
+						idempotencyKey);
+			}
+			if (response.getCode() == 422) {
+				throw new LimitExceededException("Limit exceeded", featureRef, userGrouping);
+			}
+			if (response.getCode() == 409) {
+				throw new RequestInProgressException("A request with the same idempotency key is being processed",
+						idempotencyKey);
+			}
+			checkLimitsResponse(response);
+			return null;
+		});
+	}
+
+	@Override
+	public void close() {
+		httpClient.close(CloseMode.GRACEFUL);
+	}
+
+	private <T> CompletableFuture<T> execute(SimpleHttpRequest request, Function<SimpleHttpResponse, T> responseHandler) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Future<SimpleHttpResponse> exchange = httpClient.execute(request, new FutureCallback<>() {
+			@Override
+			public void completed(SimpleHttpResponse response) {
+				try {
+					result.complete(responseHandler.apply(response));
+				}
+				catch (RuntimeException ex) {
+					result.completeExceptionally(ex);
+				}
+			}
+
+			@Override
+			public void failed(Exception ex) {
+				result.completeExceptionally(new RemoteCallException("Unexpected error while calling remote server", ex));
+			}
+
+			@Override
+			public void cancelled() {
+				result.cancel(false);
+			}
+		});
+
+		// cancelling the returned future, or timing it out, aborts the exchange
+		result.whenComplete((value, ex) -> {
+			if (ex != null) {
+				exchange.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	private void checkLimitsResponse(SimpleHttpResponse response) {
+		if (response.getCode() == 401) {
+			throw new AuthenticationException("Authentication error. Please check your Credentials");
+		}
+		if (response.getCode() >= 400 && response.getCode() < 500) {
+			throw new FeatureNotFoundException("Invalid productId or FeatureId : " + response.getReasonPhrase());
+		}
+		else if (response.getCode() >= 300) {
+			throw new RemoteCallException(response.getReasonPhrase());
+		}
+	}
+
+	private <T> T parseBody(SimpleHttpResponse response, Class<T> type) {
+		String body = response.getBodyText();
+		if (body == null || body.isEmpty()) {
+			throw new RemoteCallException("Unexpected response from server (response empty)");
+		}
+		try {
+			return objectMapper.readValue(body, type);
+		}
+		catch (JacksonException jsonEx) {
+			throw new RemoteCallException("Unexpected error while parsing server response", jsonEx);
+		}
+	}
+
+	private String toJson(Object value) {
+		try {
+			return objectMapper.writeValueAsString(value);
+		}
+		catch (JacksonException jsonEx) {
+			throw new RemoteCallException("Unexpected exception while preparing request", jsonEx);
+		}
+	}
+
+	private String formatEndpoint(String resource, UserGrouping userGrouping, FeatureRef featureRef) {
+		String rootEndpoint = userGroupingTypes.get(userGrouping.getClass());
+		return String.join(PmitzHttpClient.URL_DELIMITER, rootEndpoint, userGrouping.getId(), resource, featureRef.productId(), featureRef.featureId());
+	}
+
+	private void addAuthenticationHeaders(SimpleHttpRequest request) {
+		authProvider.getAuthenticationHeaders()
+				.forEach(request::setHeader);
+	}
+}
@@ -18,6 +18,7 @@ package io.terpomo.pmitz.remote.client.http;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 
@@ -29,7 +30,9 @@ import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.io.entity.InputStreamEntity;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import tools.jackson.core.JacksonException;
@@ -40,8 +43,11 @@ import tools.jackson.databind.json.JsonMapper;
 
 import io.terpomo.pmitz.core.FeatureUsageInfo;
 import io.terpomo.pmitz.core.exception.FeatureNotFoundException;
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
 import io.terpomo.pmitz.core.exception.LimitExceededException;
 import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.core.exception.RequestInProgressException;
+import io.terpomo.pmitz.core.exception.ReservationNotFoundException;
 import io.terpomo.pmitz.core.subjects.DirectoryGroup;
 import io.terpomo.pmitz.core.subjects.IndividualUser;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
@@ -60,7 +66,10 @@ public class PmitzHttpClient implements PmitzClient {
 	public static final String URL_DELIMITER = "/";
 	public static final String CONTENT_TYPE_HEADER = "Content-Type";
 	public static final String CONTENT_TYPE_JSON = "application/json";
+	public static final String CONTENT_TYPE_PROBLEM_JSON = "application/problem+json";
 	public static final String SUBSCRIPTIONS_ENDPOINT = "subscriptions";
+	public static final String RESERVATIONS_ENDPOINT = "reservations";
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 	private final String url;
 
 	private final CloseableHttpClient httpClient;
@@ -171,7 +180,8 @@ public class PmitzHttpClient implements PmitzClient {
 	}
 
 	@Override
-	public void recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits, boolean isReduce) {
+	public void recordOrReduce(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> additionalUnits,
+			boolean isReduce, String idempotencyKey) {
 		LimitsValidationUtil.validateAdditionalUnits(additionalUnits);
 		HttpPost httpPost = new HttpPost(url + URL_DELIMITER + formatEndpoint("usage", userGrouping, featureRef));
 
@@ -180,6 +190,9 @@ public class PmitzHttpClient implements PmitzClient {
 			var jsonBody = objectMapper.writeValueAsString(recordOrReduceRequest);
 			httpPost.setEntity(new StringEntity(jsonBody));
 			httpPost.setHeader(CONTENT_TYPE_HEADER, CONTENT_TYPE_JSON);
+			if (idempotencyKey != null) {
+				httpPost.setHeader(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+			}
 			addAuthenticationHeaders(httpPost);
 		}
 		catch (JacksonException jsonEx) {
@@ -191,9 +204,17 @@ public class PmitzHttpClient implements PmitzClient {
 				if (response.getCode() == 401) {
 					throw new AuthenticationException("Authentication error. Please check your Credentials");
 				}
+				if (response.getCode() == 422 && isProblem(response)) {
+					throw new IdempotencyKeyReusedException("The idempotency key was used for a request with another payload",
+							idempotencyKey);
+				}
 				if (response.getCode() == 422) {
 					throw new LimitExceededException("Limit exceeded", featureRef, userGrouping);
 				}
+				if (response.getCode() == 409) {
+					throw new RequestInProgressException("A request with the same idempotency key is being processed",
+							idempotencyKey);
+				}
 				else if (response.getCode() >= 400 && response.getCode() < 500) {
 					throw new FeatureNotFoundException("Invalid productId or FeatureId : " + response.getReasonPhrase());
 				}
@@ -208,6 +229,126 @@ public class PmitzHttpClient implements PmitzClient {
 		}
 	}
 
+	@Override
+	public String reserve(FeatureRef featureRef, UserGrouping userGrouping, Map<String, Long> units,
+			Duration timeToLive) {
+		LimitsValidationUtil.validateAdditionalUnits(units);
+		if (timeToLive.toSeconds() <= 0) {
+			throw new IllegalArgumentException("timeToLive must be at least one second");
+		}
+		HttpPost httpPost = new HttpPost(url + URL_DELIMITER + formatEndpoint(RESERVATIONS_ENDPOINT, userGrouping, featureRef));
+
+		var reservationRequest = new ReservationRequest(units, timeToLive.toSeconds());
+		try {
+			var jsonBody = objectMapper.writeValueAsString(reservationRequest);
+			httpPost.setEntity(new StringEntity(jsonBody));
+			httpPost.setHeader(CONTENT_TYPE_HEADER, CONTENT_TYPE_JSON);
+			addAuthenticationHeaders(httpPost);
+		}
+		catch (JacksonException jsonEx) {
+			throw new RemoteCallException("Unexpected exception while preparing request", jsonEx);
+		}
+
+		JsonNode responseData;
+		try {
+			responseData = httpClient.execute(httpPost, response -> {
+				if (response.getCode() == 401) {
+					throw new AuthenticationException("Authentication error. Please check your Credentials");
+				}
+				if (response.getCode() == 422) {
+					throw new LimitExceededException("Limit exceeded", featureRef, userGrouping);
+				}
+				if (response.getCode() >= 400 && response.getCode() < 500) {
+					throw new FeatureNotFoundException("Invalid productId or FeatureId : " + response.getReasonPhrase());
+				}
+				else if (response.getCode() >= 300) {
+					throw new RemoteCallException(response.getReasonPhrase());
+				}
+				final HttpEntity responseEntity = response.getEntity();
+				if (responseEntity == null) {
+					throw new RemoteCallException("Unexpected response from server (response empty)");
+				}
+				try (InputStream inputStream = responseEntity.getContent()) {
+					return objectMapper.readTree(inputStream);
+				}
+			});
+		}
+		catch (IOException ioEx) {
+			throw new RemoteCallException("Unexpected error while calling remote server", ioEx);
+		}
+
+		try {
+			return objectMapper.treeToValue(responseData, ReservationResponse.class).reservationId();
+		}
+		catch (JacksonException jsonEx) {
+			throw new RemoteCallException("Unexpected error while parsing server response", jsonEx);
+		}
+	}
+
+	@Override
+	public void commitReservation(String reservationId, Map<String, Long> actualUnits) {
+		HttpPost httpPost = new HttpPost(url + URL_DELIMITER + RESERVATIONS_ENDPOINT + URL_DELIMITER + reservationId
+				+ URL_DELIMITER + "commit");
+		try {
+			var jsonBody = objectMapper.writeValueAsString(actualUnits);
+			httpPost.setEntity(new StringEntity(jsonBody));
+			httpPost.setHeader(CONTENT_TYPE_HEADER, CONTENT_TYPE_JSON);
+			addAuthenticationHeaders(httpPost);
+		}
+		catch (JacksonException jsonEx) {
+			throw new RemoteCallException("Unexpected exception while preparing request", jsonEx);
+		}
+
+		try {
+			httpClient.execute(httpPost, response -> {
+				if (response.getCode() == 401) {
+					throw new AuthenticationException("Authentication error. Please check your Credentials");
+				}
+				if (response.getCode() == 400) {
+					throw new IllegalArgumentException("Actual units must be zero or positive numbers");
+				}
+				if (response.getCode() == 404) {
+					throw new ReservationNotFoundException("Reservation not found", reservationId);
+				}
+				if (response.getCode() == 422) {
+					throw new LimitExceededException("Limit exceeded", null, null);
+				}
+				if (response.getCode() >= 300) {
+					throw new RemoteCallException("Error encountered while committing reservation : "
+							+ response.getReasonPhrase());
+				}
+				return null;
+			});
+		}
+		catch (IOException ioEx) {
+			throw new RemoteCallException("Unexpected error while calling remote server", ioEx);
+		}
+	}
+
+	@Override
+	public void releaseReservation(String reservationId) {
+		HttpDelete httpDelete = new HttpDelete(url + URL_DELIMITER + RESERVATIONS_ENDPOINT + URL_DELIMITER + reservationId);
+		addAuthenticationHeaders(httpDelete);
+		try {
+			httpClient.execute(httpDelete, response -> {
+				if (response.getCode() == 401) {
+					throw new AuthenticationException("Authentication error. Please check your Credentials");
+				}
+				if (response.getCode() == 404) {
+					throw new ReservationNotFoundException("Reservation not found", reservationId);
+				}
+				if (response.getCode() >= 300) {
+					throw new RemoteCallException("Error encountered while releasing reservation : "
+							+ response.getReasonPhrase());
+				}
+				return null;
+			});
+		}
+		catch (IOException ioEx) {
+			throw new RemoteCallException("Unexpected error while calling remote server", ioEx);
+		}
+	}
+
 	@Override
 	public SubscriptionVerifDetail verifySubscription(FeatureRef featureRef, UserGrouping userGrouping) {
 		HttpGet httpGet = new HttpGet(url + URL_DELIMITER + formatEndpoint("subscription-check", userGrouping, featureRef));
@@ -407,4 +548,12 @@ public class PmitzHttpClient implements PmitzClient {
 				.forEach(entry -> httpUriRequestBase.setHeader(entry.getKey(), entry.getValue()));
 	}
 
+	/**
+	 * Tells whether the response has a problem details body, which the server sends for errors
+	 * that share their status code with another error.
+	 */
+	static boolean isProblem(HttpResponse response) {
+		Header contentType = response.getFirstHeader(CONTENT_TYPE_HEADER);
+		return contentType != null && contentType.getValue().startsWith(CONTENT_TYPE_PROBLEM_JSON);
+	}
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.remote.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.terpomo.pmitz.core.FeatureStatus;
+import io.terpomo.pmitz.core.FeatureUsageInfo;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncLimitVerifierRemoteClientTests {
+
+	@Mock
+	AsyncPmitzClient pmitzClient;
+
+	AsyncLimitVerifierRemoteClient limitVerifierRemoteClient;
+
+	FeatureRef featureRef;
+	UserGrouping userGrouping;
+
+	@BeforeEach
+	void setUp() {
+		userGrouping = new IndividualUser("user001");
+		featureRef = new FeatureRef("productId", "featureId");
+		limitVerifierRemoteClient = new AsyncLimitVerifierRemoteClient(pmitzClient);
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldCallPmitzClient() throws Exception {
+		var expectedRemainingUnits = Map.of("limit1", 10L);
+		var featureUsageInfo = new FeatureUsageInfo(FeatureStatus.AVAILABLE, expectedRemainingUnits);
+		when(pmitzClient.getLimitsRemainingUnits(featureRef, userGrouping)).thenReturn(CompletableFuture.completedFuture(featureUsageInfo));
+
+		var returnedRemainingUnits = limitVerifierRemoteClient.getLimitsRemainingUnits(featureRef, userGrouping).get();
+
+		assertThat(returnedRemainingUnits).isSameAs(expectedRemainingUnits);
+	}
+
+	@Test
+	void isWithinLimitsShouldReturnFalseWhenLimitsExceeded() throws Exception {
+		var additionalUnits = Map.of("limit1", 10L);
+		var featureUsageInfo = new FeatureUsageInfo(FeatureStatus.AVAILABLE, Map.of("limit1", -2L));
+		when(pmitzClient.verifyLimits(featureRef, userGrouping, additionalUnits)).thenReturn(CompletableFuture.completedFuture(featureUsageInfo));
+
+		var isWithinLimits = limitVerifierRemoteClient.isWithinLimits(featureRef, userGrouping, additionalUnits).get();
+
+		assertThat(isWithinLimits).isFalse();
+	}
+
+	@Test
+	void recordFeatureUsageShouldCallPmitzClientRecord() {
+		var additionalUnits = Map.of("limit1", 10L);
+		when(pmitzClient.recordOrReduce(featureRef, userGrouping, additionalUnits, false)).thenReturn(CompletableFuture.completedFuture(null));
+
+		assertThat(limitVerifierRemoteClient.recordFeatureUsage(featureRef, userGrouping, additionalUnits)).isCompleted();
+		verify(pmitzClient).recordOrReduce(featureRef, userGrouping, additionalUnits, false);
+	}
+
+	@Test
+	void cancellingIsWithinLimitsShouldCancelRemoteCall() {
+		var additionalUnits = Map.of("limit1", 10L);
+		CompletableFuture<FeatureUsageInfo> remoteCall = new CompletableFuture<>();
+		when(pmitzClient.verifyLimits(featureRef, userGrouping, additionalUnits)).thenReturn(remoteCall);
+
+		limitVerifierRemoteClient.isWithinLimits(featureRef, userGrouping, additionalUnits).cancel(true);
+
+		assertThat(remoteCall).isCancelled();
+	}
+}
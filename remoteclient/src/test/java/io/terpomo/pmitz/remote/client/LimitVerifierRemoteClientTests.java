@@ -18,6 +18,7 @@ package io.terpomo.pmitz.remote.client;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -122,6 +123,15 @@ class LimitVerifierRemoteClientTests {
 		verify(pmitzClient).recordOrReduce(featureRef, userGrouping, additionalUnits, true);
 	}
 
+	@Test
+	void recordFeatureUsageWithIdempotencyKeyShouldCallPmitzClient() {
+		var additionalUnits = Map.of("limit1", 10L);
+
+		limitVerifierRemoteClient.recordFeatureUsage(featureRef, userGrouping, additionalUnits, "request-1");
+
+		verify(pmitzClient).recordOrReduce(featureRef, userGrouping, additionalUnits, false, "request-1");
+	}
+
 	@Test
 	void updateProductShouldCallPmitzClient() {
 		var inputStream = new ByteArrayInputStream("Content of product File".getBytes(StandardCharsets.UTF_8));
@@ -129,4 +139,29 @@ class LimitVerifierRemoteClientTests {
 
 		verify(pmitzClient).uploadProduct(inputStream);
 	}
+
+	@Test
+	void reserveFeatureUsageShouldCallPmitzClient() {
+		var units = Map.of("limit1", 3L);
+		when(pmitzClient.reserve(featureRef, userGrouping, units, Duration.ofMinutes(1))).thenReturn("reservation-1");
+
+		var reservationId = limitVerifierRemoteClient.reserveFeatureUsage(featureRef, userGrouping, units,
+				Duration.ofMinutes(1));
+
+		assertThat(reservationId).isEqualTo("reservation-1");
+	}
+
+	@Test
+	void commitReservationShouldCallPmitzClient() {
+		limitVerifierRemoteClient.commitReservation("reservation-1", Map.of("limit1", 2L));
+
+		verify(pmitzClient).commitReservation("reservation-1", Map.of("limit1", 2L));
+	}
+
+	@Test
+	void releaseReservationShouldCallPmitzClient() {
+		limitVerifierRemoteClient.releaseReservation("reservation-1");
+
+		verify(pmitzClient).releaseReservation("reservation-1");
+	}
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.remote.client.http;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.terpomo.pmitz.core.FeatureStatus;
+import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subscriptions.FeatureRef;
+import io.terpomo.pmitz.remote.client.RemoteCallException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@WireMockTest
+@ExtendWith(MockitoExtension.class)
+class PmitzHttpAsyncClientTests {
+
+	private static final String AUTH_HEADER_NAME = "x-api-key";
+
+	private final String authHeaderValue = "api-key-val";
+
+	private final FeatureRef featureRef = new FeatureRef("picUpload", "newPicUpload");
+
+	private final UserGrouping userGrouping = new IndividualUser("user001");
+
+	@Mock
+	PmitzHttpAuthProvider httpAuthProviderMock;
+
+	@BeforeEach
+	void setup() {
+		when(httpAuthProviderMock.getAuthenticationHeaders())
+				.thenReturn(Collections.singletonMap(AUTH_HEADER_NAME, authHeaderValue));
+	}
+
+	@Test
+	void getLimitsRemainingUnitsShouldParseHttpResponseWhenRemoteResponse200(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		String jsonResponse = """
+				{
+					"featureStatus" : "AVAILABLE",
+					"remainingUsageUnits" : {
+						"limit1" : 10,
+						"limit2" : 6
+					}
+				}
+				""";
+
+		stubFor(get("/users/user001/usage/picUpload/newPicUpload")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.willReturn(aResponse().withBody(jsonResponse).withStatus(200)));
+
+		try (var pmitzHttpClient = new PmitzHttpAsyncClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock)) {
+			var featureUsageInfo = pmitzHttpClient.getLimitsRemainingUnits(featureRef, userGrouping).get(5, TimeUnit.SECONDS);
+
+			assertThat(featureUsageInfo.featureStatus()).isEqualTo(FeatureStatus.AVAILABLE);
+			assertThat(featureUsageInfo.remainingUsageUnits()).containsEntry("limit1", 10L)
+					.containsEntry("limit2", 6L);
+		}
+	}
+
+	@Test
+	void recordOrReduceShouldCompleteWithLimitExceededExceptionWhenResponse422(WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(post("/users/user001/usage/picUpload/newPicUpload")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.withRequestBody(equalToJson("{\"reduceUnits\" : false, \"units\" : {\"limit1\" : 1}}"))
+				.willReturn(aResponse().withStatus(422)));
+
+		try (var pmitzHttpClient = new PmitzHttpAsyncClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock)) {
+			var future = pmitzHttpClient.recordOrReduce(featureRef, userGrouping, Map.of("limit1", 1L), false);
+
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+					.withCauseInstanceOf(LimitExceededException.class);
+		}
+	}
+
+	@Test
+	void verifyLimitsShouldCompleteWithRemoteCallExceptionWhenResponseTimesOut(WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(post("/users/user001/limits-check/picUpload/newPicUpload")
+				.willReturn(aResponse().withStatus(200).withFixedDelay(2_000)));
+
+		try (var pmitzHttpClient = new PmitzHttpAsyncClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock,
+				Duration.ofMillis(100))) {
+			var future = pmitzHttpClient.verifyLimits(featureRef, userGrouping, Map.of("limit1", 1L));
+
+			assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+					.withCauseInstanceOf(RemoteCallException.class);
+		}
+	}
+
+	@Test
+	void cancelShouldCompleteWithoutWaitingForResponse(WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/users/user001/usage/picUpload/newPicUpload")
+				.willReturn(aResponse().withStatus(200).withFixedDelay(5_000)));
+
+		try (var pmitzHttpClient = new PmitzHttpAsyncClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock)) {
+			var future = pmitzHttpClient.getLimitsRemainingUnits(featureRef, userGrouping);
+
+			future.cancel(true);
+
+			assertThat(future).isCancelled();
+		}
+	}
+}
@@ -18,6 +18,7 @@ package io.terpomo.pmitz.remote.client.http;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -35,8 +36,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import io.terpomo.pmitz.core.FeatureStatus;
 import io.terpomo.pmitz.core.exception.FeatureNotFoundException;
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
 import io.terpomo.pmitz.core.exception.LimitExceededException;
 import io.terpomo.pmitz.core.exception.RepositoryException;
+import io.terpomo.pmitz.core.exception.RequestInProgressException;
+import io.terpomo.pmitz.core.exception.ReservationNotFoundException;
 import io.terpomo.pmitz.core.subjects.DirectoryGroup;
 import io.terpomo.pmitz.core.subjects.IndividualUser;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
@@ -184,6 +188,57 @@ class PmitzHttpClientTests {
 				.isInstanceOf(LimitExceededException.class);
 	}
 
+	@ParameterizedTest
+	@MethodSource({"userGroupingsProvider"})
+	void recordOrReduceRemoteShouldSendIdempotencyKey(UserGrouping userGrouping, String endpoint, WireMockRuntimeInfo wmRuntimeInfo) {
+		var featureRef = new FeatureRef("picUpload", "newPicUpload");
+
+		stubFor(post(endpoint + "/usage/picUpload/newPicUpload")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.withHeader(PmitzHttpClient.IDEMPOTENCY_KEY_HEADER, equalTo("request-1"))
+				.withRequestBody(equalToJson(jsonRequestBody))
+				.willReturn(aResponse().withStatus(200)));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThatCode(() -> pmitzHttpClient.recordOrReduce(featureRef, userGrouping, Map.of("limit1", 1L, "limit2", 2L), false, "request-1"))
+				.doesNotThrowAnyException();
+	}
+
+	@ParameterizedTest
+	@MethodSource({"userGroupingsProvider"})
+	void recordOrReduceRemoteShouldThrowRequestInProgressExceptionWhenResponse409(UserGrouping userGrouping, String endpoint, WireMockRuntimeInfo wmRuntimeInfo) {
+		var featureRef = new FeatureRef("picUpload", "newPicUpload");
+
+		stubFor(post(endpoint + "/usage/picUpload/newPicUpload")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.withHeader(PmitzHttpClient.IDEMPOTENCY_KEY_HEADER, equalTo("request-1"))
+				.willReturn(aResponse().withStatus(409)));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThatThrownBy(() -> pmitzHttpClient.recordOrReduce(featureRef, userGrouping, Map.of("limit1", 1L, "limit2", 2L), false, "request-1"))
+				.isInstanceOf(RequestInProgressException.class);
+	}
+
+	@ParameterizedTest
+	@MethodSource({"userGroupingsProvider"})
+	void recordOrReduceRemoteShouldThrowIdempotencyKeyReusedExceptionWhenResponse422WithProblem(UserGrouping userGrouping, String endpoint, WireMockRuntimeInfo wmRuntimeInfo) {
+		var featureRef = new FeatureRef("picUpload", "newPicUpload");
+
+		stubFor(post(endpoint + "/usage/picUpload/newPicUpload")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.withHeader(PmitzHttpClient.IDEMPOTENCY_KEY_HEADER, equalTo("request-1"))
+				.willReturn(aResponse().withStatus(422)
+						.withHeader(PmitzHttpClient.CONTENT_TYPE_HEADER, PmitzHttpClient.CONTENT_TYPE_PROBLEM_JSON)
+						.withBody("{\"status\":422,\"detail\":\"Key reused\"}")));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThatThrownBy(() -> pmitzHttpClient.recordOrReduce(featureRef, userGrouping, Map.of("limit1", 1L, "limit2", 2L), false, "request-1"))
+				.isInstanceOf(IdempotencyKeyReusedException.class);
+	}
+
 	@ParameterizedTest
 	@MethodSource({"userGroupingsProvider"})
 	void recordOrReduceRemoteShouldThrowRemoteCallExceptionWnenResponse4xx(UserGrouping userGrouping, String endpoint, WireMockRuntimeInfo wmRuntimeInfo) {
@@ -220,6 +275,99 @@ class PmitzHttpClientTests {
 				.isInstanceOf(RemoteCallException.class);
 	}
 
+	@ParameterizedTest
+	@MethodSource({"userGroupingsProvider"})
+	void reserveShouldReturnReservationIdWhenResponse201(UserGrouping userGrouping, String endpoint, WireMockRuntimeInfo wmRuntimeInfo) {
+		var featureRef = new FeatureRef("picUpload", "newPicUpload");
+
+		stubFor(post(endpoint + "/reservations/picUpload/newPicUpload")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.withRequestBody(equalToJson("""
+						{
+							"units" : {
+								"limit1" : 1
+							},
+							"timeToLiveSeconds" : 60
+						}
+						"""))
+				.willReturn(aResponse().withStatus(201)
+						.withHeader("Content-Type", "application/json")
+						.withBody("""
+								{"reservationId" : "reservation-1"}
+								""")));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThat(pmitzHttpClient.reserve(featureRef, userGrouping, Map.of("limit1", 1L), Duration.ofMinutes(1)))
+				.isEqualTo("reservation-1");
+	}
+
+	@Test
+	void reserveShouldThrowLimitExceededExceptionWhenResponse422(WireMockRuntimeInfo wmRuntimeInfo) {
+		var featureRef = new FeatureRef("picUpload", "newPicUpload");
+
+		stubFor(post("/users/user001/reservations/picUpload/newPicUpload")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.willReturn(aResponse().withStatus(422)));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThatThrownBy(() -> pmitzHttpClient.reserve(featureRef, new IndividualUser("user001"), Map.of("limit1", 1L),
+				Duration.ofMinutes(1)))
+				.isInstanceOf(LimitExceededException.class);
+	}
+
+	@Test
+	void commitReservationShouldSendActualUnits(WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(post("/reservations/reservation-1/commit")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.withRequestBody(equalToJson("""
+						{"limit1" : 0}
+						"""))
+				.willReturn(aResponse().withStatus(200)));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThatCode(() -> pmitzHttpClient.commitReservation("reservation-1", Map.of("limit1", 0L)))
+				.doesNotThrowAnyException();
+	}
+
+	@Test
+	void commitReservationShouldThrowReservationNotFoundExceptionWhenResponse404(WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(post("/reservations/reservation-1/commit")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.willReturn(aResponse().withStatus(404)));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThatThrownBy(() -> pmitzHttpClient.commitReservation("reservation-1", Map.of("limit1", 1L)))
+				.isInstanceOf(ReservationNotFoundException.class);
+	}
+
+	@Test
+	void releaseReservationShouldSendDeleteRequest(WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(delete("/reservations/reservation-1")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.willReturn(aResponse().withStatus(200)));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThatCode(() -> pmitzHttpClient.releaseReservation("reservation-1"))
+				.doesNotThrowAnyException();
+	}
+
+	@Test
+	void releaseReservationShouldThrowReservationNotFoundExceptionWhenResponse404(WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(delete("/reservations/reservation-1")
+				.withHeader(AUTH_HEADER_NAME, equalTo(authHeaderValue))
+				.willReturn(aResponse().withStatus(404)));
+
+		var pmitzHttpClient = new PmitzHttpClient(wmRuntimeInfo.getHttpBaseUrl(), httpAuthProviderMock);
+
+		assertThatThrownBy(() -> pmitzHttpClient.releaseReservation("reservation-1"))
+				.isInstanceOf(ReservationNotFoundException.class);
+	}
+
 	@ParameterizedTest
 	@MethodSource({"userGroupingsProvider"})
 	void verifyLimitsShouldReturnRemoteResponse(UserGrouping userGrouping, String endpoint, WireMockRuntimeInfo wmRuntimeInfo) {
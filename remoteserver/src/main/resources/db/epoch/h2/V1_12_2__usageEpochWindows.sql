@@ -0,0 +1,23 @@
+-- Optional migration, applied when classpath:db/epoch/{vendor} is added to the Flyway locations.
+-- Stores the window boundaries and expiration dates as BIGINT milliseconds since the epoch, read and written by
+-- the EPOCH_MILLIS window storage. The TIMESTAMP values are converted as UTC date times.
+-- Versioned after every core migration of db/migration, so that it applies in order to a database they were applied to.
+ALTER TABLE dbo.usage ADD COLUMN window_start_millis BIGINT;
+ALTER TABLE dbo.usage ADD COLUMN window_end_millis BIGINT;
+ALTER TABLE dbo.usage ADD COLUMN expiration_date_millis BIGINT;
+
+UPDATE dbo.usage
+SET window_start_millis = DATEDIFF(MILLISECOND, TIMESTAMP '1970-01-01 00:00:00', window_start),
+    window_end_millis = DATEDIFF(MILLISECOND, TIMESTAMP '1970-01-01 00:00:00', window_end),
+    expiration_date_millis = DATEDIFF(MILLISECOND, TIMESTAMP '1970-01-01 00:00:00', expiration_date);
+
+ALTER TABLE dbo.usage DROP CONSTRAINT uk_usage_natural_key;
+ALTER TABLE dbo.usage DROP COLUMN window_start;
+ALTER TABLE dbo.usage DROP COLUMN window_end;
+ALTER TABLE dbo.usage DROP COLUMN expiration_date;
+ALTER TABLE dbo.usage ALTER COLUMN window_start_millis RENAME TO window_start;
+ALTER TABLE dbo.usage ALTER COLUMN window_end_millis RENAME TO window_end;
+ALTER TABLE dbo.usage ALTER COLUMN expiration_date_millis RENAME TO expiration_date;
+
+ALTER TABLE dbo.usage ADD CONSTRAINT uk_usage_natural_key
+    UNIQUE NULLS NOT DISTINCT (product_id, feature_id, user_grouping, limit_id, window_start, shard);
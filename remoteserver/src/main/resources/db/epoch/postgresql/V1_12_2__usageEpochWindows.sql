@@ -0,0 +1,12 @@
+-- Optional migration, applied when classpath:db/epoch/{vendor} is added to the Flyway locations.
+-- Stores the window boundaries and expiration dates as BIGINT milliseconds since the epoch, read and written by
+-- the EPOCH_MILLIS window storage. The TIMESTAMP values are converted as UTC date times.
+-- Versioned after every core migration of db/migration, so that it applies in order to a database they were applied to.
+-- The partition key of a table partitioned by db/partitioning cannot be converted.
+ALTER TABLE dbo.usage
+    ALTER COLUMN window_start TYPE BIGINT
+        USING CAST(EXTRACT(EPOCH FROM window_start AT TIME ZONE 'UTC') * 1000 AS BIGINT),
+    ALTER COLUMN window_end TYPE BIGINT
+        USING CAST(EXTRACT(EPOCH FROM window_end AT TIME ZONE 'UTC') * 1000 AS BIGINT),
+    ALTER COLUMN expiration_date TYPE BIGINT
+        USING CAST(EXTRACT(EPOCH FROM expiration_date AT TIME ZONE 'UTC') * 1000 AS BIGINT);
@@ -0,0 +1,2 @@
+-- Plan of the subscription a reservation was made for, so that it is released against the limits of that plan
+ALTER TABLE dbo.usage_reservation ADD COLUMN plan_id VARCHAR(255);
@@ -0,0 +1,2 @@
+-- Token of the request holding the key, so that a request whose lease was taken over cannot complete it
+ALTER TABLE dbo.idempotency_key ADD COLUMN claim_token VARCHAR(36) DEFAULT '' NOT NULL;
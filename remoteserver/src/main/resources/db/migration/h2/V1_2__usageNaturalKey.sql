@@ -0,0 +1,32 @@
+-- Merge duplicated counters before adding the natural key used by atomic upserts
+UPDATE dbo.usage u
+SET units = (
+    SELECT SUM(d.units) FROM dbo.usage d
+    WHERE d.product_id = u.product_id
+      AND d.feature_id = u.feature_id
+      AND d.user_grouping = u.user_grouping
+      AND d.limit_id = u.limit_id
+      AND d.window_start IS NOT DISTINCT FROM u.window_start
+)
+WHERE u.usage_id = (
+    SELECT MIN(k.usage_id) FROM dbo.usage k
+    WHERE k.product_id = u.product_id
+      AND k.feature_id = u.feature_id
+      AND k.user_grouping = u.user_grouping
+      AND k.limit_id = u.limit_id
+      AND k.window_start IS NOT DISTINCT FROM u.window_start
+);
+
+DELETE FROM dbo.usage u
+WHERE EXISTS (
+    SELECT 1 FROM dbo.usage k
+    WHERE k.product_id = u.product_id
+      AND k.feature_id = u.feature_id
+      AND k.user_grouping = u.user_grouping
+      AND k.limit_id = u.limit_id
+      AND k.window_start IS NOT DISTINCT FROM u.window_start
+      AND k.usage_id < u.usage_id
+);
+
+ALTER TABLE dbo.usage ADD CONSTRAINT uk_usage_natural_key
+    UNIQUE NULLS NOT DISTINCT (product_id, feature_id, user_grouping, limit_id, window_start);
@@ -0,0 +1,2 @@
+-- Token bucket limits keep a timestamp in nanoseconds in the units column
+ALTER TABLE dbo.usage ALTER COLUMN units SET DATA TYPE BIGINT;
@@ -0,0 +1,6 @@
+-- Hot counters can be spread over several rows, told apart by their shard
+ALTER TABLE dbo.usage ADD COLUMN shard SMALLINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE dbo.usage DROP CONSTRAINT uk_usage_natural_key;
+ALTER TABLE dbo.usage ADD CONSTRAINT uk_usage_natural_key
+    UNIQUE NULLS NOT DISTINCT (product_id, feature_id, user_grouping, limit_id, window_start, shard);
@@ -0,0 +1,12 @@
+-- Units recorded per minute, compacted into hours and days by the roll-up
+CREATE TABLE dbo.usage_series (
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    limit_id VARCHAR(255) NOT NULL,
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    units BIGINT NOT NULL,
+    PRIMARY KEY (product_id, feature_id, user_grouping, limit_id, granularity, bucket_start)
+);
+CREATE INDEX idx_usage_series_rollup ON dbo.usage_series (granularity, bucket_start);
@@ -0,0 +1,2 @@
+-- Version of the usage records, incremented by each update of the OPTIMISTIC_READ_MODIFY_WRITE update mode
+ALTER TABLE dbo.usage ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
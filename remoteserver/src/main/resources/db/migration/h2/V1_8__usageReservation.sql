@@ -0,0 +1,13 @@
+-- Units reserved ahead of their use, one row per reserved limit, released when they expire
+CREATE TABLE dbo.usage_reservation (
+    reservation_id VARCHAR(36) NOT NULL,
+    limit_id VARCHAR(255) NOT NULL,
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping_type VARCHAR(20) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    units BIGINT NOT NULL,
+    expiration_date TIMESTAMP NOT NULL,
+    PRIMARY KEY (reservation_id, limit_id)
+);
+CREATE INDEX idx_usage_reservation_expiration ON dbo.usage_reservation (expiration_date);
@@ -0,0 +1,2 @@
+-- Number of shards of a sharded counter, stored with its first shard so that every node updates it as sharded
+ALTER TABLE dbo.usage ADD COLUMN shard_count SMALLINT DEFAULT 1 NOT NULL;
@@ -0,0 +1,2 @@
+-- Hash of the direction and units of the request, so that a key reused for another request is rejected
+ALTER TABLE dbo.idempotency_key ADD COLUMN payload_hash VARCHAR(64) DEFAULT '' NOT NULL;
@@ -0,0 +1,25 @@
+-- Merge duplicated counters before adding the natural key used by atomic upserts
+UPDATE dbo.usage u
+SET units = d.total_units
+FROM (
+    SELECT MIN(usage_id) AS kept_usage_id, SUM(units) AS total_units
+    FROM dbo.usage
+    GROUP BY product_id, feature_id, user_grouping, limit_id, window_start
+    HAVING COUNT(*) > 1
+) d
+WHERE u.usage_id = d.kept_usage_id;
+
+DELETE FROM dbo.usage u
+WHERE EXISTS (
+    SELECT 1 FROM dbo.usage k
+    WHERE k.product_id = u.product_id
+      AND k.feature_id = u.feature_id
+      AND k.user_grouping = u.user_grouping
+      AND k.limit_id = u.limit_id
+      AND k.window_start IS NOT DISTINCT FROM u.window_start
+      AND k.usage_id < u.usage_id
+);
+
+-- NULLS NOT DISTINCT (PostgreSQL 15+) makes counters without window (count limits) unique as well
+ALTER TABLE dbo.usage ADD CONSTRAINT uk_usage_natural_key
+    UNIQUE NULLS NOT DISTINCT (product_id, feature_id, user_grouping, limit_id, window_start);
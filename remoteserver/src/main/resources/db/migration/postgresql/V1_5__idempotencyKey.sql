@@ -0,0 +1,11 @@
+-- Keys of the usage requests already processed, so that their replays return the same outcome
+CREATE TABLE dbo.idempotency_key (
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    request_key VARCHAR(255) NOT NULL,
+    outcome VARCHAR(20) NOT NULL,
+    expiration_date TIMESTAMP NOT NULL,
+    PRIMARY KEY (product_id, feature_id, user_grouping, request_key)
+);
+CREATE INDEX idx_idempotency_key_expiration ON dbo.idempotency_key (expiration_date);
@@ -0,0 +1,50 @@
+-- Optional migration, applied when classpath:db/partitioning/{vendor} is added to the Flyway locations.
+-- Partitions the usage table by month of window_start, so that expired months are dropped as a whole.
+-- Counters without a window (count limits, token buckets) are kept in the default partition.
+-- Versioned after every core migration of db/migration, so that it applies in order to a database they were applied
+-- to and converts the usage table with all their columns. It cannot be combined with db/epoch, whose window
+-- boundaries cannot be split into monthly partitions by this migration.
+-- Requires PostgreSQL 15 or later, for the UNIQUE NULLS NOT DISTINCT key of the partitioned table.
+DO $$
+BEGIN
+    IF current_setting('server_version_num')::integer < 150000 THEN
+        RAISE EXCEPTION 'db/partitioning requires PostgreSQL 15 or later, the server is %',
+            current_setting('server_version');
+    END IF;
+END $$;
+
+ALTER TABLE dbo.usage RENAME TO usage_unpartitioned;
+ALTER SEQUENCE dbo.usage_usage_id_seq OWNED BY NONE;
+
+-- The partitioned table keeps every column of the existing table, with their defaults
+CREATE TABLE dbo.usage (LIKE dbo.usage_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (window_start);
+CREATE TABLE dbo.usage_default PARTITION OF dbo.usage DEFAULT;
+
+-- Monthly partitions named usage_pYYYY_MM, from the oldest window to three months ahead
+DO $$
+DECLARE
+    partition_start TIMESTAMP;
+    last_partition_start TIMESTAMP;
+BEGIN
+    SELECT date_trunc('month', LEAST(MIN(window_start), LOCALTIMESTAMP)),
+           date_trunc('month', GREATEST(MAX(window_start), LOCALTIMESTAMP)) + INTERVAL '3 months'
+    INTO partition_start, last_partition_start
+    FROM dbo.usage_unpartitioned;
+    WHILE partition_start <= last_partition_start LOOP
+        EXECUTE format('CREATE TABLE dbo.%I PARTITION OF dbo.usage FOR VALUES FROM (%L) TO (%L)',
+                'usage_p' || to_char(partition_start, 'YYYY_MM'), partition_start,
+                partition_start + INTERVAL '1 month');
+        partition_start := partition_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO dbo.usage SELECT * FROM dbo.usage_unpartitioned;
+DROP TABLE dbo.usage_unpartitioned;
+ALTER SEQUENCE dbo.usage_usage_id_seq OWNED BY dbo.usage.usage_id;
+
+-- Unique keys of a partitioned table include the partition key, usage_id stays unique through its sequence
+ALTER TABLE dbo.usage ADD CONSTRAINT uk_usage_natural_key
+    UNIQUE NULLS NOT DISTINCT (product_id, feature_id, user_grouping, limit_id, window_start, shard);
+CREATE INDEX idx_usage_usage_id ON dbo.usage (usage_id);
+CREATE INDEX idx_usage_limit_id ON dbo.usage (limit_id);
+CREATE INDEX idx_usage_feature_product_user ON dbo.usage (feature_id, product_id, user_grouping);
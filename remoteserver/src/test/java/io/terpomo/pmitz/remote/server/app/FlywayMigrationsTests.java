@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.terpomo.pmitz.remote.server.app;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FlywayMigrationsTests {
+
+	private static final String H2_URL = "jdbc:h2:mem:flyway-migrations;DB_CLOSE_DELAY=-1";
+
+	@Test
+	void optionalMigrationsShouldApplyInOrderAfterCoreMigrations() {
+		Flyway.configure().dataSource(H2_URL, "sa", "")
+				.locations("classpath:db/migration/h2")
+				.load()
+				.migrate();
+
+		MigrateResult result = Flyway.configure().dataSource(H2_URL, "sa", "")
+				.locations("classpath:db/migration/h2", "classpath:db/epoch/h2")
+				.load()
+				.migrate();
+
+		assertThat(result.migrationsExecuted).isEqualTo(1);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "h2", "postgresql" })
+	void optionalMigrationsShouldBeVersionedAfterCoreMigrations(String vendor) throws IOException {
+		MigrationVersion lastCoreVersion = versions("db/migration/" + vendor).stream()
+				.max(Comparator.naturalOrder())
+				.orElseThrow();
+
+		List<MigrationVersion> optionalVersions = versions("db/partitioning/" + vendor);
+		optionalVersions.addAll(versions("db/epoch/" + vendor));
+
+		assertThat(optionalVersions).isNotEmpty()
+				.allSatisfy(version -> assertThat(version).isGreaterThan(lastCoreVersion));
+	}
+
+	private static List<MigrationVersion> versions(String location) throws IOException {
+		Resource[] scripts = new PathMatchingResourcePatternResolver()
+				.getResources("classpath*:" + location + "/V*.sql");
+		return Arrays.stream(scripts)
+				.map(Resource::getFilename)
+				.map(filename -> MigrationVersion.fromVersion(filename.substring(1, filename.indexOf("__"))))
+				.collect(Collectors.toCollection(ArrayList::new));
+	}
+}
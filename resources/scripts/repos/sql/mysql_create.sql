@@ -17,11 +17,19 @@ CREATE TABLE IF NOT EXISTS your_schema.Usage (
     limit_id VARCHAR(255) NOT NULL,
     window_start TIMESTAMP NULL,
     window_end TIMESTAMP NULL,
-    units INT NOT NULL,
+    units BIGINT NOT NULL,
     expiration_date TIMESTAMP NULL,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    shard SMALLINT DEFAULT 0 NOT NULL,
+    shard_count SMALLINT DEFAULT 1 NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    -- Natural key required by the ATOMIC_UPSERT update mode. The key columns are too long
+    -- for a composite InnoDB index, and NULL window starts would not collide, hence the hash.
+    natural_key BINARY(32) AS (UNHEX(SHA2(CONCAT_WS(0x1F, product_id, feature_id, user_grouping, limit_id,
+        IFNULL(DATE_FORMAT(window_start, '%Y-%m-%d %H:%i:%s.%f'), ''), shard), 256))) STORED,
     INDEX idx_limit_id (limit_id),
-    INDEX idx_feature_product_user (feature_id, product_id, user_grouping)
+    INDEX idx_feature_product_user (feature_id, product_id, user_grouping),
+    UNIQUE INDEX uk_usage_natural_key (natural_key)
 );
 
 -- User Limit Table
@@ -39,6 +47,56 @@ CREATE TABLE IF NOT EXISTS your_schema.user_usage_limit (
 ) ENGINE=InnoDB;
 ALTER TABLE your_schema.user_usage_limit ADD CONSTRAINT c_limit UNIQUE (limit_id,feature_id,user_group_id);
 
+-- Idempotency Key Table
+
+CREATE TABLE IF NOT EXISTS your_schema.idempotency_key (
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    request_key VARCHAR(255) NOT NULL,
+    payload_hash VARCHAR(64) NOT NULL,
+    claim_token VARCHAR(36) NOT NULL,
+    outcome VARCHAR(20) NOT NULL,
+    expiration_date TIMESTAMP NOT NULL,
+    -- The key columns are too long for a composite InnoDB index, hence the hash
+    key_hash BINARY(32) AS (UNHEX(SHA2(CONCAT_WS(0x1F, product_id, feature_id, user_grouping, request_key), 256))) STORED,
+    PRIMARY KEY (key_hash),
+    INDEX idx_idempotency_key_expiration (expiration_date)
+) ENGINE=InnoDB;
+
+-- Usage Reservation Table
+
+CREATE TABLE IF NOT EXISTS your_schema.usage_reservation (
+    reservation_id VARCHAR(36) NOT NULL,
+    limit_id VARCHAR(255) NOT NULL,
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping_type VARCHAR(20) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    plan_id VARCHAR(255),
+    units BIGINT NOT NULL,
+    expiration_date TIMESTAMP NOT NULL,
+    PRIMARY KEY (reservation_id, limit_id),
+    INDEX idx_usage_reservation_expiration (expiration_date)
+) ENGINE=InnoDB;
+
+-- Usage Series Table
+
+CREATE TABLE IF NOT EXISTS your_schema.usage_series (
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    limit_id VARCHAR(255) NOT NULL,
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    units BIGINT NOT NULL,
+    -- The key columns are too long for a composite InnoDB index, hence the hash
+    key_hash BINARY(32) AS (UNHEX(SHA2(CONCAT_WS(0x1F, product_id, feature_id, user_grouping, limit_id, granularity,
+        bucket_start), 256))) STORED,
+    PRIMARY KEY (key_hash),
+    INDEX idx_usage_series_rollup (granularity, bucket_start)
+) ENGINE=InnoDB;
+
 -- Subscription Tables
 
 CREATE TABLE IF NOT EXISTS your_schema.subscription (
@@ -17,15 +17,22 @@ CREATE TABLE IF NOT EXISTS your_schema."Usage" (
     limit_id VARCHAR(255) NOT NULL,
     window_start TIMESTAMP NULL,
     window_end TIMESTAMP NULL,
-    units INT NOT NULL,
+    units BIGINT NOT NULL,
     expiration_date TIMESTAMP NULL,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    shard SMALLINT DEFAULT 0 NOT NULL,
+    shard_count SMALLINT DEFAULT 1 NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL
 );
 
 -- Separate index creation statements
 CREATE INDEX IF NOT EXISTS idx_limit_id ON your_schema."Usage" (limit_id);
 CREATE INDEX IF NOT EXISTS idx_feature_product_user ON your_schema."Usage" (feature_id, product_id, user_grouping);
 
+-- Natural key required by the ATOMIC_UPSERT update mode (NULLS NOT DISTINCT requires PostgreSQL 15+)
+ALTER TABLE your_schema."Usage" ADD CONSTRAINT uk_usage_natural_key
+    UNIQUE NULLS NOT DISTINCT (product_id, feature_id, user_grouping, limit_id, window_start, shard);
+
 
 -- User Limit Table
 CREATE SCHEMA IF NOT EXISTS your_schema;
@@ -42,6 +49,51 @@ CREATE TABLE IF NOT EXISTS your_schema.user_usage_limit (
 );
 ALTER TABLE your_schema.user_usage_limit ADD CONSTRAINT c_limit UNIQUE (limit_id,feature_id,user_group_id);
 
+-- Idempotency Key Table
+CREATE SCHEMA IF NOT EXISTS your_schema;
+CREATE TABLE IF NOT EXISTS your_schema.idempotency_key (
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    request_key VARCHAR(255) NOT NULL,
+    payload_hash VARCHAR(64) NOT NULL,
+    claim_token VARCHAR(36) NOT NULL,
+    outcome VARCHAR(20) NOT NULL,
+    expiration_date TIMESTAMP NOT NULL,
+    PRIMARY KEY (product_id, feature_id, user_grouping, request_key)
+);
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_expiration ON your_schema.idempotency_key (expiration_date);
+
+-- Usage Reservation Table
+CREATE SCHEMA IF NOT EXISTS your_schema;
+CREATE TABLE IF NOT EXISTS your_schema.usage_reservation (
+    reservation_id VARCHAR(36) NOT NULL,
+    limit_id VARCHAR(255) NOT NULL,
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping_type VARCHAR(20) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    plan_id VARCHAR(255),
+    units BIGINT NOT NULL,
+    expiration_date TIMESTAMP NOT NULL,
+    PRIMARY KEY (reservation_id, limit_id)
+);
+CREATE INDEX IF NOT EXISTS idx_usage_reservation_expiration ON your_schema.usage_reservation (expiration_date);
+
+-- Usage Series Table
+CREATE SCHEMA IF NOT EXISTS your_schema;
+CREATE TABLE IF NOT EXISTS your_schema.usage_series (
+    product_id VARCHAR(255) NOT NULL,
+    feature_id VARCHAR(255) NOT NULL,
+    user_grouping VARCHAR(255) NOT NULL,
+    limit_id VARCHAR(255) NOT NULL,
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    units BIGINT NOT NULL,
+    PRIMARY KEY (product_id, feature_id, user_grouping, limit_id, granularity, bucket_start)
+);
+CREATE INDEX IF NOT EXISTS idx_usage_series_rollup ON your_schema.usage_series (granularity, bucket_start);
+
 -- Subscription Tables
 
 CREATE SCHEMA IF NOT EXISTS your_schema;
@@ -6,6 +6,18 @@ DROP TABLE IF EXISTS your_schema.Usage;
 
 DROP TABLE IF EXISTS your_schema.user_usage_limit;
 
+-- Idempotency Key Table
+
+DROP TABLE IF EXISTS your_schema.idempotency_key;
+
+-- Usage Reservation Table
+
+DROP TABLE IF EXISTS your_schema.usage_reservation;
+
+-- Usage Series Table
+
+DROP TABLE IF EXISTS your_schema.usage_series;
+
 -- Subscription Tables
 
 DROP TABLE IF EXISTS your_schema.subscription_plan;
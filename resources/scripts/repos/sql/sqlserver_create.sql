@@ -20,14 +20,24 @@ BEGIN
         limit_id NVARCHAR(255) NOT NULL,
         window_start DATETIME2 NULL,
         window_end DATETIME2 NULL,
-        units INT NOT NULL,
+        units BIGINT NOT NULL,
         expiration_date DATETIME2 NULL,
-        updated_at DATETIME2 DEFAULT SYSUTCDATETIME() NOT NULL
+        updated_at DATETIME2 DEFAULT SYSUTCDATETIME() NOT NULL,
+        shard SMALLINT DEFAULT 0 NOT NULL,
+        shard_count SMALLINT DEFAULT 1 NOT NULL,
+        version BIGINT DEFAULT 0 NOT NULL,
+        -- Natural key required by the ATOMIC_UPSERT update mode. The key columns exceed the maximum size of an
+        -- index key, hence the hash
+        natural_key AS CAST(HASHBYTES('SHA2_256', CONCAT_WS(NCHAR(31), product_id, feature_id, user_grouping,
+            limit_id, COALESCE(CONVERT(NVARCHAR(27), window_start, 126), N''), CAST(shard AS NVARCHAR(6))))
+            AS BINARY(32)) PERSISTED NOT NULL,
+        CONSTRAINT uk_usage_natural_key UNIQUE (natural_key)
     );
 
     -- Create indexes separately
     CREATE INDEX idx_limit_id ON your_schema.Usage (limit_id);
     CREATE INDEX idx_feature_product_user ON your_schema.Usage (feature_id, product_id, user_grouping);
+
 END;
 
 -- User Limit Table
@@ -47,6 +57,63 @@ BEGIN
     ALTER TABLE your_schema.user_usage_limit ADD CONSTRAINT c_limit UNIQUE (limit_id,feature_id, user_group_id);
 END
 
+-- Idempotency Key Table
+IF OBJECT_ID(N'your_schema.idempotency_key', N'U') IS NULL
+BEGIN
+    CREATE TABLE your_schema.idempotency_key (
+        product_id NVARCHAR(255) NOT NULL,
+        feature_id NVARCHAR(255) NOT NULL,
+        user_grouping NVARCHAR(255) NOT NULL,
+        request_key NVARCHAR(255) NOT NULL,
+        payload_hash VARCHAR(64) NOT NULL,
+        claim_token VARCHAR(36) NOT NULL,
+        outcome VARCHAR(20) NOT NULL,
+        expiration_date DATETIME2 NOT NULL,
+        -- The key columns exceed the maximum size of an index key, hence the hash
+        key_hash AS CAST(HASHBYTES('SHA2_256',
+            CONCAT_WS(NCHAR(31), product_id, feature_id, user_grouping, request_key)) AS BINARY(32)) PERSISTED NOT NULL,
+        CONSTRAINT pk_idempotency_key PRIMARY KEY (key_hash)
+    );
+    CREATE INDEX idx_idempotency_key_expiration ON your_schema.idempotency_key (expiration_date);
+END
+
+-- Usage Reservation Table
+IF OBJECT_ID(N'your_schema.usage_reservation', N'U') IS NULL
+BEGIN
+    CREATE TABLE your_schema.usage_reservation (
+        reservation_id VARCHAR(36) NOT NULL,
+        limit_id NVARCHAR(255) NOT NULL,
+        product_id NVARCHAR(255) NOT NULL,
+        feature_id NVARCHAR(255) NOT NULL,
+        user_grouping_type VARCHAR(20) NOT NULL,
+        user_grouping NVARCHAR(255) NOT NULL,
+        plan_id NVARCHAR(255),
+        units BIGINT NOT NULL,
+        expiration_date DATETIME2 NOT NULL,
+        CONSTRAINT pk_usage_reservation PRIMARY KEY (reservation_id, limit_id)
+    );
+    CREATE INDEX idx_usage_reservation_expiration ON your_schema.usage_reservation (expiration_date);
+END
+
+-- Usage Series Table
+IF OBJECT_ID(N'your_schema.usage_series', N'U') IS NULL
+BEGIN
+    CREATE TABLE your_schema.usage_series (
+        product_id NVARCHAR(255) NOT NULL,
+        feature_id NVARCHAR(255) NOT NULL,
+        user_grouping NVARCHAR(255) NOT NULL,
+        limit_id NVARCHAR(255) NOT NULL,
+        granularity VARCHAR(10) NOT NULL,
+        bucket_start DATETIME2 NOT NULL,
+        units BIGINT NOT NULL,
+        -- The key columns exceed the maximum size of an index key, hence the hash
+        key_hash AS CAST(HASHBYTES('SHA2_256', CONCAT_WS(NCHAR(31), product_id, feature_id, user_grouping, limit_id,
+            granularity, CONVERT(NVARCHAR(27), bucket_start, 126))) AS BINARY(32)) PERSISTED NOT NULL,
+        CONSTRAINT pk_usage_series PRIMARY KEY (key_hash)
+    );
+    CREATE INDEX idx_usage_series_rollup ON your_schema.usage_series (granularity, bucket_start);
+END
+
 -- Subscription Tables
 IF OBJECT_ID(N'your_schema.subscription', N'U') IS NULL
 BEGIN
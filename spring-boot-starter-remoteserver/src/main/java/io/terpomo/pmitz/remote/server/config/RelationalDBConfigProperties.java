@@ -16,13 +16,93 @@
 
 package io.terpomo.pmitz.remote.server.config;
 
+import java.time.Duration;
+import java.time.Period;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.WindowStorage;
+
 @ConfigurationProperties(prefix = "pmitz.remoteserver.repository.rdb")
 public record RelationalDBConfigProperties(
 		String schemaName,
 		String userUsageTableName,
 		String userLimitTableName,
 		String subscriptionTableName,
-		String subscriptionPlanTableName) {
+		String subscriptionPlanTableName,
+		JDBCUsageRepository.UpdateMode usageUpdateMode,
+		String idempotencyKeyTableName,
+		Duration idempotencyKeyTimeToLive,
+		Integer idempotencyKeyCacheSize,
+		Duration idempotencyKeyPurgeInterval,
+		Integer idempotencyKeyPurgeBatchSize,
+		Duration idempotencyKeyPurgePause,
+		Duration idempotencyKeyPurgeMaxRunTime,
+		String usageSeriesTableName,
+		Duration usageSeriesRollupInterval,
+		Duration usagePurgeInterval,
+		Integer usagePurgeBatchSize,
+		Duration usagePurgePause,
+		Duration usagePurgeMaxRunTime,
+		Integer usagePartitionsAhead,
+		Duration usagePartitionMaintenanceInterval,
+		Period usagePartitionRetention,
+		WindowStorage usageWindowStorage,
+		String reservationTableName,
+		Duration reservationSweepInterval) {
+
+	public RelationalDBConfigProperties {
+		if (usageUpdateMode == null) {
+			usageUpdateMode = JDBCUsageRepository.UpdateMode.READ_MODIFY_WRITE;
+		}
+		if (idempotencyKeyTimeToLive == null) {
+			idempotencyKeyTimeToLive = Duration.ofHours(24);
+		}
+		if (idempotencyKeyCacheSize == null) {
+			idempotencyKeyCacheSize = 10_000;
+		}
+		if (idempotencyKeyPurgeInterval == null) {
+			idempotencyKeyPurgeInterval = Duration.ofMinutes(10);
+		}
+		if (idempotencyKeyPurgeBatchSize == null) {
+			idempotencyKeyPurgeBatchSize = 1_000;
+		}
+		if (idempotencyKeyPurgePause == null) {
+			idempotencyKeyPurgePause = Duration.ofMillis(100);
+		}
+		if (idempotencyKeyPurgeMaxRunTime == null) {
+			idempotencyKeyPurgeMaxRunTime = Duration.ofMinutes(1);
+		}
+		if (usageSeriesRollupInterval == null) {
+			usageSeriesRollupInterval = Duration.ofMinutes(5);
+		}
+		if (usagePurgeInterval == null) {
+			usagePurgeInterval = Duration.ofMinutes(10);
+		}
+		if (usagePurgeBatchSize == null) {
+			usagePurgeBatchSize = 1_000;
+		}
+		if (usagePurgePause == null) {
+			usagePurgePause = Duration.ofMillis(100);
+		}
+		if (usagePurgeMaxRunTime == null) {
+			usagePurgeMaxRunTime = Duration.ofMinutes(1);
+		}
+		if (usagePartitionsAhead == null) {
+			usagePartitionsAhead = 3;
+		}
+		if (usagePartitionMaintenanceInterval == null) {
+			usagePartitionMaintenanceInterval = Duration.ofHours(12);
+		}
+		if (usagePartitionRetention == null) {
+			usagePartitionRetention = Period.ofMonths(15);
+		}
+		if (usageWindowStorage == null) {
+			usageWindowStorage = WindowStorage.TIMESTAMP;
+		}
+		if (reservationSweepInterval == null) {
+			reservationSweepInterval = Duration.ofSeconds(1);
+		}
+	}
 }
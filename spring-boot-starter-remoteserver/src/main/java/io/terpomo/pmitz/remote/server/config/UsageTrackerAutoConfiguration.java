@@ -16,9 +16,15 @@
 
 package io.terpomo.pmitz.remote.server.config;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+
 import javax.sql.DataSource;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
@@ -30,6 +36,19 @@ import io.terpomo.pmitz.core.subscriptions.SubscriptionRepository;
 import io.terpomo.pmitz.core.subscriptions.SubscriptionVerifier;
 import io.terpomo.pmitz.limits.LimitVerifier;
 import io.terpomo.pmitz.limits.LimitVerifierBuilder;
+import io.terpomo.pmitz.limits.idempotency.IdempotencyKeyPurger;
+import io.terpomo.pmitz.limits.idempotency.InMemoryIdempotencyRepository;
+import io.terpomo.pmitz.limits.idempotency.jdbc.JDBCIdempotencyRepository;
+import io.terpomo.pmitz.limits.impl.ReservationSweeper;
+import io.terpomo.pmitz.limits.reservation.jdbc.JDBCReservationRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.ExpiredUsagePurger;
+import io.terpomo.pmitz.limits.usage.repository.impl.JDBCUsageRepository;
+import io.terpomo.pmitz.limits.usage.repository.impl.UsagePartitionMaintainer;
+import io.terpomo.pmitz.limits.usage.repository.impl.UsageSharding;
+import io.terpomo.pmitz.limits.usage.repository.impl.UsageSqlDialect;
+import io.terpomo.pmitz.limits.usage.repository.impl.WindowStorage;
+import io.terpomo.pmitz.limits.usage.series.UsageSeriesRollup;
+import io.terpomo.pmitz.limits.usage.series.jdbc.JDBCUsageSeriesRepository;
 import io.terpomo.pmitz.limits.userlimit.UserLimitRepository;
 import io.terpomo.pmitz.subscriptions.DefaultSubscriptionFeatureManager;
 import io.terpomo.pmitz.subscriptions.SubscriptionFeatureManager;
@@ -46,13 +65,119 @@ public class UsageTrackerAutoConfiguration {
 	}
 
 	@Bean
-	LimitVerifier limitVerifier(ProductRepository productRepo, DataSource dataSource,
+	@ConditionalOnProperty(name = "pmitz.remoteserver.repository.rdb.usage-series-table-name")
+	JDBCUsageSeriesRepository usageSeriesRepository(DataSource dataSource, RelationalDBConfigProperties dbConfig) {
+		return new JDBCUsageSeriesRepository(dataSource, dbConfig.schemaName(), dbConfig.usageSeriesTableName());
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "pmitz.remoteserver.repository.rdb.usage-series-table-name")
+	UsageSeriesRollup usageSeriesRollup(JDBCUsageSeriesRepository usageSeriesRepository,
+			RelationalDBConfigProperties dbConfig) {
+		return UsageSeriesRollup.start(usageSeriesRepository, dbConfig.usageSeriesRollupInterval());
+	}
+
+	@Bean
+	JDBCUsageRepository usageRepository(DataSource dataSource, RelationalDBConfigProperties dbConfig,
+			ObjectProvider<JDBCUsageSeriesRepository> usageSeriesRepository) throws SQLException {
+		return new JDBCUsageRepository(dataSource, dbConfig.schemaName(), dbConfig.userUsageTableName(),
+				dbConfig.usageUpdateMode(), usageSqlDialect(dataSource, dbConfig.usageWindowStorage()),
+				UsageSharding.none(), usageSeriesRepository.getIfAvailable());
+	}
+
+	/**
+	 * Returns the dialect storing the time columns as set, or {@code null} to let the repository
+	 * detect the dialect when the columns are timestamps.
+	 */
+	private static UsageSqlDialect usageSqlDialect(DataSource dataSource, WindowStorage windowStorage)
+			throws SQLException {
+		if (windowStorage == WindowStorage.TIMESTAMP) {
+			return null;
+		}
+		try (Connection connection = dataSource.getConnection()) {
+			return UsageSqlDialect.forDatabase(connection.getMetaData().getDatabaseProductName(), windowStorage);
+		}
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnExpression("${pmitz.remoteserver.repository.rdb.usage-purge-enabled:true} "
+			+ "and !${pmitz.remoteserver.repository.rdb.usage-partitioning-enabled:false}")
+	ExpiredUsagePurger expiredUsagePurger(JDBCUsageRepository usageRepository, RelationalDBConfigProperties dbConfig) {
+		return ExpiredUsagePurger.builder(usageRepository)
+				.purgeInterval(dbConfig.usagePurgeInterval())
+				.batchSize(dbConfig.usagePurgeBatchSize())
+				.pauseBetweenBatches(dbConfig.usagePurgePause())
+				.maxRunTime(dbConfig.usagePurgeMaxRunTime())
+				.build();
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "pmitz.remoteserver.repository.rdb.usage-partitioning-enabled", havingValue = "true")
+	UsagePartitionMaintainer usagePartitionMaintainer(JDBCUsageRepository usageRepository,
 			RelationalDBConfigProperties dbConfig) {
+		return UsagePartitionMaintainer.builder(usageRepository)
+				.partitionsAhead(dbConfig.usagePartitionsAhead())
+				.maintenanceInterval(dbConfig.usagePartitionMaintenanceInterval())
+				.retention(dbConfig.usagePartitionRetention())
+				.build();
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "pmitz.remoteserver.repository.rdb.reservation-table-name")
+	JDBCReservationRepository reservationRepository(DataSource dataSource, RelationalDBConfigProperties dbConfig) {
+		return new JDBCReservationRepository(dataSource, dbConfig.schemaName(), dbConfig.reservationTableName());
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "pmitz.remoteserver.repository.rdb.reservation-table-name")
+	ReservationSweeper reservationSweeper(JDBCReservationRepository reservationRepository, LimitVerifier limitVerifier,
+			RelationalDBConfigProperties dbConfig) {
+		return ReservationSweeper.builder(reservationRepository, limitVerifier)
+				.tickInterval(dbConfig.reservationSweepInterval())
+				.build();
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "pmitz.remoteserver.repository.rdb.idempotency-key-table-name")
+	JDBCIdempotencyRepository idempotencyRepository(DataSource dataSource, RelationalDBConfigProperties dbConfig) {
+		return new JDBCIdempotencyRepository(dataSource, dbConfig.schemaName(), dbConfig.idempotencyKeyTableName());
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnExpression("${pmitz.remoteserver.repository.rdb.idempotency-key-purge-enabled:true} "
+			+ "and '${pmitz.remoteserver.repository.rdb.idempotency-key-table-name:}' != ''")
+	IdempotencyKeyPurger idempotencyKeyPurger(JDBCIdempotencyRepository idempotencyRepository,
+			RelationalDBConfigProperties dbConfig) {
+		return IdempotencyKeyPurger.builder(idempotencyRepository)
+				.purgeInterval(dbConfig.idempotencyKeyPurgeInterval())
+				.batchSize(dbConfig.idempotencyKeyPurgeBatchSize())
+				.pauseBetweenBatches(dbConfig.idempotencyKeyPurgePause())
+				.maxRunTime(dbConfig.idempotencyKeyPurgeMaxRunTime())
+				.build();
+	}
+
+	@Bean
+	LimitVerifier limitVerifier(ProductRepository productRepo, DataSource dataSource,
+			RelationalDBConfigProperties dbConfig, JDBCUsageRepository usageRepository,
+			ObjectProvider<JDBCReservationRepository> reservationRepository,
+			ObjectProvider<JDBCIdempotencyRepository> idempotencyRepository) {
 		var userLimitRepository = UserLimitRepository.builder().jdbcRepository(dataSource, dbConfig.schemaName(), dbConfig.userLimitTableName());
-		return LimitVerifierBuilder.of(productRepo)
+		var limitVerifierBuilder = LimitVerifierBuilder.of(productRepo)
 				.withUserLimitRepository(userLimitRepository)
-				.withJdbcUsageRepository(dataSource, dbConfig.schemaName(), dbConfig.userUsageTableName())
-				.build();
+				.withCustomUsageRepository(usageRepository);
+		JDBCReservationRepository sharedReservationRepository = reservationRepository.getIfAvailable();
+		JDBCIdempotencyRepository sharedIdempotencyRepository = idempotencyRepository.getIfAvailable();
+		if (sharedIdempotencyRepository == null) {
+			return (sharedReservationRepository != null)
+					? limitVerifierBuilder.withReservations(sharedReservationRepository).build()
+					: limitVerifierBuilder.build();
+		}
+		var idempotentLimitVerifierBuilder = limitVerifierBuilder
+				.withIdempotency(new InMemoryIdempotencyRepository(dbConfig.idempotencyKeyCacheSize(),
+						sharedIdempotencyRepository), dbConfig.idempotencyKeyTimeToLive());
+		return (sharedReservationRepository != null)
+				? idempotentLimitVerifierBuilder.withReservations(sharedReservationRepository).build()
+				: idempotentLimitVerifierBuilder.build();
 	}
 
 	@Bean
@@ -26,12 +26,16 @@ import io.terpomo.pmitz.core.Product;
 import io.terpomo.pmitz.core.limits.LimitRule;
 import io.terpomo.pmitz.core.limits.types.CalendarPeriodRateLimit;
 import io.terpomo.pmitz.core.limits.types.CountLimit;
+import io.terpomo.pmitz.core.limits.types.SlidingWindowRateLimit;
+import io.terpomo.pmitz.core.limits.types.TokenBucketRateLimit;
 import io.terpomo.pmitz.core.repository.product.inmemory.CalendarPeriodRateLimitMixIn;
 import io.terpomo.pmitz.core.repository.product.inmemory.CountLimitMixIn;
 import io.terpomo.pmitz.core.repository.product.inmemory.FeatureMixIn;
 import io.terpomo.pmitz.core.repository.product.inmemory.LimitRuleMixIn;
 import io.terpomo.pmitz.core.repository.product.inmemory.PlanMixIn;
 import io.terpomo.pmitz.core.repository.product.inmemory.ProductMixIn;
+import io.terpomo.pmitz.core.repository.product.inmemory.SlidingWindowRateLimitMixIn;
+import io.terpomo.pmitz.core.repository.product.inmemory.TokenBucketRateLimitMixIn;
 
 @Configuration
 public class Jackson2ObjectMapperBuilderMixinCustomizer implements JsonMapperBuilderCustomizer {
@@ -43,7 +47,9 @@ public class Jackson2ObjectMapperBuilderMixinCustomizer implements JsonMapperBui
 				.addMixIn(Plan.class, PlanMixIn.class)
 				.addMixIn(LimitRule.class, LimitRuleMixIn.class)
 				.addMixIn(CalendarPeriodRateLimit.class, CalendarPeriodRateLimitMixIn.class)
-				.addMixIn(CountLimit.class, CountLimitMixIn.class);
+				.addMixIn(CountLimit.class, CountLimitMixIn.class)
+				.addMixIn(SlidingWindowRateLimit.class, SlidingWindowRateLimitMixIn.class)
+				.addMixIn(TokenBucketRateLimit.class, TokenBucketRateLimitMixIn.class);
 	}
 }
 
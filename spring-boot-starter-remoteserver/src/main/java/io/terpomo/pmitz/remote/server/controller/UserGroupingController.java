@@ -16,18 +16,26 @@
 
 package io.terpomo.pmitz.remote.server.controller;
 
+import java.time.Duration;
 import java.util.Map;
 
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.terpomo.pmitz.all.usage.tracker.FeatureUsageTracker;
 import io.terpomo.pmitz.core.FeatureUsageInfo;
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
 import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.exception.RequestInProgressException;
+import io.terpomo.pmitz.core.exception.ReservationNotFoundException;
 import io.terpomo.pmitz.core.subjects.DirectoryGroup;
 import io.terpomo.pmitz.core.subjects.IndividualUser;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
@@ -40,6 +48,8 @@ import io.terpomo.pmitz.limits.impl.LimitsValidationUtil;
 @RestController
 public class UserGroupingController {
 
+	static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
 	private final FeatureUsageTracker featureUsageTracker;
 	private final SubscriptionVerifier subscriptionVerifier;
 
@@ -61,14 +71,15 @@ public class UserGroupingController {
 	}
 
 	@PostMapping("/{userGroupingType}/{userGroupingId}/usage/{productId}/{featureId}")
-	public ResponseEntity<Void> recordOrReduceUserFeatureUsage(@PathVariable String userGroupingType, @RequestBody UsageRecordRequest usageRecordRequest,
+	public ResponseEntity<ProblemDetail> recordOrReduceUserFeatureUsage(@PathVariable String userGroupingType, @RequestBody UsageRecordRequest usageRecordRequest,
 			@PathVariable String productId,
 			@PathVariable String featureId,
-			@PathVariable String userGroupingId) {
+			@PathVariable String userGroupingId,
+			@RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 		FeatureRef featureRef = new FeatureRef(productId, featureId);
 		UserGrouping userGrouping = resolveUserGrouping(userGroupingType, userGroupingId);
 
-		return recordOrReduceFeatureUsage(featureRef, userGrouping, usageRecordRequest);
+		return recordOrReduceFeatureUsage(featureRef, userGrouping, usageRecordRequest, idempotencyKey);
 	}
 
 	@PostMapping("/{userGroupingType}/{userGroupingId}/limits-check/{productId}/{featureId}")
@@ -82,6 +93,57 @@ public class UserGroupingController {
 		return featureUsageTracker.verifyLimits(featureRef, userGrouping, additionalUnits);
 	}
 
+	@PostMapping("/{userGroupingType}/{userGroupingId}/reservations/{productId}/{featureId}")
+	public ResponseEntity<ReservationResponse> reserveUserFeatureUsage(@PathVariable String userGroupingType,
+			@RequestBody ReservationRequest reservationRequest,
+			@PathVariable String productId,
+			@PathVariable String featureId,
+			@PathVariable String userGroupingId) {
+		FeatureRef featureRef = new FeatureRef(productId, featureId);
+		UserGrouping userGrouping = resolveUserGrouping(userGroupingType, userGroupingId);
+
+		try {
+			String reservationId = featureUsageTracker.reserveFeatureUsage(featureRef, userGrouping,
+					reservationRequest.getUnits(), Duration.ofSeconds(reservationRequest.getTimeToLiveSeconds()));
+			return ResponseEntity.status(201).body(new ReservationResponse(reservationId));
+		}
+		catch (IllegalArgumentException exception) {
+			return ResponseEntity.status(400).build();
+		}
+		catch (LimitExceededException exception) {
+			return ResponseEntity.status(422).build();
+		}
+	}
+
+	@PostMapping("/reservations/{reservationId}/commit")
+	public ResponseEntity<Void> commitReservation(@PathVariable String reservationId,
+			@RequestBody Map<String, Long> actualUnits) {
+		try {
+			featureUsageTracker.commitReservation(reservationId, actualUnits);
+		}
+		catch (IllegalArgumentException exception) {
+			return ResponseEntity.status(400).build();
+		}
+		catch (ReservationNotFoundException exception) {
+			return ResponseEntity.status(404).build();
+		}
+		catch (LimitExceededException exception) {
+			return ResponseEntity.status(422).build();
+		}
+		return ResponseEntity.ok().build();
+	}
+
+	@DeleteMapping("/reservations/{reservationId}")
+	public ResponseEntity<Void> releaseReservation(@PathVariable String reservationId) {
+		try {
+			featureUsageTracker.releaseReservation(reservationId);
+		}
+		catch (ReservationNotFoundException exception) {
+			return ResponseEntity.status(404).build();
+		}
+		return ResponseEntity.ok().build();
+	}
+
 	@GetMapping("/{userGroupingType}/{userGroupingId}/subscription-check/{productId}/{featureId}")
 	public SubscriptionVerifDetail verifySubscription(@PathVariable String userGroupingType,
 			@PathVariable String productId,
@@ -91,7 +153,8 @@ public class UserGroupingController {
 		return subscriptionVerifier.verifyEntitlement(new FeatureRef(productId, featureId), userGrouping);
 	}
 
-	private ResponseEntity<Void> recordOrReduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping, UsageRecordRequest usageRecordRequest) {
+	private ResponseEntity<ProblemDetail> recordOrReduceFeatureUsage(FeatureRef featureRef, UserGrouping userGrouping,
+			UsageRecordRequest usageRecordRequest, String idempotencyKey) {
 		try {
 			LimitsValidationUtil.validateAdditionalUnits(usageRecordRequest.getUnits());
 		}
@@ -99,16 +162,31 @@ public class UserGroupingController {
 			ResponseEntity.status(400).body(exception.getMessage());
 		}
 
-		if (usageRecordRequest.isReduceUnits()) {
-			featureUsageTracker.reduceFeatureUsage(featureRef, userGrouping, usageRecordRequest.getUnits());
-		}
-		else {
-			try {
-				featureUsageTracker.recordFeatureUsage(featureRef, userGrouping, usageRecordRequest.getUnits());
+		Map<String, Long> units = usageRecordRequest.getUnits();
+		try {
+			if (usageRecordRequest.isReduceUnits() && idempotencyKey == null) {
+				featureUsageTracker.reduceFeatureUsage(featureRef, userGrouping, units);
+			}
+			else if (usageRecordRequest.isReduceUnits()) {
+				featureUsageTracker.reduceFeatureUsage(featureRef, userGrouping, units, idempotencyKey);
 			}
-			catch (LimitExceededException exception) {
-				return ResponseEntity.status(422).build();
+			else if (idempotencyKey == null) {
+				featureUsageTracker.recordFeatureUsage(featureRef, userGrouping, units);
 			}
+			else {
+				featureUsageTracker.recordFeatureUsage(featureRef, userGrouping, units, idempotencyKey);
+			}
+		}
+		catch (LimitExceededException exception) {
+			return ResponseEntity.status(422).build();
+		}
+		catch (RequestInProgressException exception) {
+			return ResponseEntity.status(409).build();
+		}
+		catch (IdempotencyKeyReusedException exception) {
+			// told apart from an exceeded limit by its problem details body
+			return ResponseEntity.status(422)
+					.body(ProblemDetail.forStatusAndDetail(HttpStatusCode.valueOf(422), exception.getMessage()));
 		}
 		return ResponseEntity.ok().build();
 	}
@@ -16,10 +16,12 @@
 
 package io.terpomo.pmitz.remote.server.controller;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.stream.Stream;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -34,7 +36,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import io.terpomo.pmitz.all.usage.tracker.FeatureUsageTracker;
 import io.terpomo.pmitz.core.FeatureStatus;
 import io.terpomo.pmitz.core.FeatureUsageInfo;
+import io.terpomo.pmitz.core.exception.IdempotencyKeyReusedException;
 import io.terpomo.pmitz.core.exception.LimitExceededException;
+import io.terpomo.pmitz.core.exception.RequestInProgressException;
+import io.terpomo.pmitz.core.exception.ReservationNotFoundException;
 import io.terpomo.pmitz.core.subjects.DirectoryGroup;
 import io.terpomo.pmitz.core.subjects.IndividualUser;
 import io.terpomo.pmitz.core.subjects.UserGrouping;
@@ -84,6 +89,13 @@ class UserGroupingControllerTests {
 				Arguments.of("/subscriptions/theId/limits-check/product1/feature1", new Subscription("theId")));
 	}
 
+	private static Stream<Arguments> reservationUrlsAndUserGroupingsProvider() {
+		return Stream.of(
+				Arguments.of("/users/theId/reservations/product1/feature1", new IndividualUser("theId")),
+				Arguments.of("/directory-groups/theId/reservations/product1/feature1", new DirectoryGroup("theId")),
+				Arguments.of("/subscriptions/theId/reservations/product1/feature1", new Subscription("theId")));
+	}
+
 	private static Stream<Arguments> subscriptionCheckUrlsAndUserGroupingsProvider() {
 		return Stream.of(
 				Arguments.of("/users/theId/subscription-check/product1/feature1", new IndividualUser("theId")),
@@ -243,6 +255,80 @@ class UserGroupingControllerTests {
 				argThat(unitsArgMatcher));
 	}
 
+	@ParameterizedTest
+	@MethodSource("usageUrlsAndUserGroupingsProvider")
+	void recordOrReduceFeatureUsageShouldPassIdempotencyKey(String url, UserGrouping userGrouping) throws Exception {
+		doReturn(apiKeyAuthentication).when(authenticationService).getAuthentication(any(HttpServletRequest.class));
+
+		String jsonContent = """
+				{
+					"reduceUnits" : false,
+					"units" : {
+						"limit1" : 1
+					}
+				}
+				""";
+
+		mockMvc.perform(post(url)
+						.header("Idempotency-Key", "request-1")
+						.contentType("application/json")
+						.content(jsonContent))
+				.andExpect(status().isOk());
+
+		verify(featureUsageTracker, times(1)).recordFeatureUsage(featureRef, userGrouping, Map.of("limit1", 1L), "request-1");
+		verify(featureUsageTracker, never()).recordFeatureUsage(any(), any(), any());
+	}
+
+	@ParameterizedTest
+	@MethodSource("usageUrlsAndUserGroupingsProvider")
+	void recordOrReduceFeatureUsageShouldReturnStatus409WhenRequestInProgress(String url, UserGrouping userGrouping) throws Exception {
+		doReturn(apiKeyAuthentication).when(authenticationService).getAuthentication(any(HttpServletRequest.class));
+
+		doThrow(new RequestInProgressException("Request in progress", "request-1")).when(featureUsageTracker)
+				.reduceFeatureUsage(featureRef, userGrouping, Map.of("limit1", 1L), "request-1");
+
+		String jsonContent = """
+				{
+					"reduceUnits" : true,
+					"units" : {
+						"limit1" : 1
+					}
+				}
+				""";
+
+		mockMvc.perform(post(url)
+						.header("Idempotency-Key", "request-1")
+						.contentType("application/json")
+						.content(jsonContent))
+				.andExpect(status().is(409));
+	}
+
+	@ParameterizedTest
+	@MethodSource("usageUrlsAndUserGroupingsProvider")
+	void recordOrReduceFeatureUsageShouldReturnProblemWhenIdempotencyKeyReused(String url, UserGrouping userGrouping) throws Exception {
+		doReturn(apiKeyAuthentication).when(authenticationService).getAuthentication(any(HttpServletRequest.class));
+
+		doThrow(new IdempotencyKeyReusedException("Key reused", "request-1")).when(featureUsageTracker)
+				.recordFeatureUsage(featureRef, userGrouping, Map.of("limit1", 1L), "request-1");
+
+		String jsonContent = """
+				{
+					"reduceUnits" : false,
+					"units" : {
+						"limit1" : 1
+					}
+				}
+				""";
+
+		mockMvc.perform(post(url)
+						.header("Idempotency-Key", "request-1")
+						.contentType("application/json")
+						.content(jsonContent))
+				.andExpect(status().is(422))
+				.andExpect(content().contentType("application/problem+json"))
+				.andExpect(jsonPath("$.detail").value("Key reused"));
+	}
+
 	@ParameterizedTest
 	@MethodSource("usageUrlsAndUserGroupingsProvider")
 	void recordOrReduceFeatureUsageShouldReturnStatus401WhenAuthenticationFails(String url, UserGrouping userGrouping) throws Exception {
@@ -305,6 +391,83 @@ class UserGroupingControllerTests {
 		verify(featureUsageTracker, never()).getUsageInfo(any(), any());
 	}
 
+	@ParameterizedTest
+	@MethodSource("reservationUrlsAndUserGroupingsProvider")
+	void reserveFeatureUsageShouldReturnStatus201WithReservationId(String url, UserGrouping userGrouping) throws Exception {
+		doReturn(apiKeyAuthentication).when(authenticationService).getAuthentication(any(HttpServletRequest.class));
+		doReturn("reservation-1").when(featureUsageTracker).reserveFeatureUsage(featureRef, userGrouping,
+				Map.of("limit1", 3L), Duration.ofSeconds(30));
+
+		String jsonContent = """
+				{
+					"units" : { "limit1" : 3 },
+					"timeToLiveSeconds" : 30
+				}
+				""";
+
+		mockMvc.perform(post(url)
+						.contentType("application/json")
+						.content(jsonContent))
+				.andExpect(status().is(201))
+				.andExpect(content().json("""
+						{ "reservationId" : "reservation-1" }
+						"""));
+	}
+
+	@ParameterizedTest
+	@MethodSource("reservationUrlsAndUserGroupingsProvider")
+	void reserveFeatureUsageShouldReturnStatus422WhenLimitExceeded(String url, UserGrouping userGrouping) throws Exception {
+		doReturn(apiKeyAuthentication).when(authenticationService).getAuthentication(any(HttpServletRequest.class));
+		doThrow(new LimitExceededException("Limit exceeded", featureRef, userGrouping)).when(featureUsageTracker)
+				.reserveFeatureUsage(eq(featureRef), eq(userGrouping), any(), any());
+
+		String jsonContent = """
+				{
+					"units" : { "limit1" : 3 },
+					"timeToLiveSeconds" : 30
+				}
+				""";
+
+		mockMvc.perform(post(url)
+						.contentType("application/json")
+						.content(jsonContent))
+				.andExpect(status().is(422));
+	}
+
+	@Test
+	void commitReservationShouldReturnStatus200() throws Exception {
+		doReturn(apiKeyAuthentication).when(authenticationService).getAuthentication(any(HttpServletRequest.class));
+
+		mockMvc.perform(post("/reservations/reservation-1/commit")
+						.contentType("application/json")
+						.content("{ \"limit1\" : 2 }"))
+				.andExpect(status().isOk());
+
+		verify(featureUsageTracker).commitReservation("reservation-1", Map.of("limit1", 2L));
+	}
+
+	@Test
+	void commitReservationShouldReturnStatus404WhenReservationNotFound() throws Exception {
+		doReturn(apiKeyAuthentication).when(authenticationService).getAuthentication(any(HttpServletRequest.class));
+		doThrow(new ReservationNotFoundException("Reservation not found", "reservation-1")).when(featureUsageTracker)
+				.commitReservation(eq("reservation-1"), any());
+
+		mockMvc.perform(post("/reservations/reservation-1/commit")
+						.contentType("application/json")
+						.content("{ \"limit1\" : 2 }"))
+				.andExpect(status().is(404));
+	}
+
+	@Test
+	void releaseReservationShouldReturnStatus404WhenReservationNotFound() throws Exception {
+		doReturn(apiKeyAuthentication).when(authenticationService).getAuthentication(any(HttpServletRequest.class));
+		doThrow(new ReservationNotFoundException("Reservation not found", "reservation-1")).when(featureUsageTracker)
+				.releaseReservation("reservation-1");
+
+		mockMvc.perform(delete("/reservations/reservation-1"))
+				.andExpect(status().is(404));
+	}
+
 	@ParameterizedTest
 	@MethodSource("subscriptionCheckUrlsAndUserGroupingsProvider")
 	void verifySubscriptionShouldReturnVerifDetailWhenFeatureAllowed(String url, UserGrouping userGrouping) throws Exception {
@@ -19,6 +19,7 @@ package io.terpomo.pmitz.subscriptions;
 import java.util.Optional;
 
 import io.terpomo.pmitz.core.subjects.UserGrouping;
+import io.terpomo.pmitz.core.subjects.UserGroupingHierarchy;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.core.subscriptions.Subscription;
 import io.terpomo.pmitz.core.subscriptions.SubscriptionRepository;
@@ -37,6 +38,9 @@ public class SubscriptionVerifierImpl implements SubscriptionVerifier {
 
 	@Override
 	public SubscriptionVerifDetail verifyEntitlement(FeatureRef featureRef, UserGrouping userGrouping) {
+		if (userGrouping instanceof UserGroupingHierarchy hierarchy) {
+			return verifyHierarchyEntitlement(featureRef, hierarchy);
+		}
 		if (!(userGrouping instanceof Subscription)) {
 			return SubscriptionVerifDetail.verificationOk();
 		}
@@ -61,4 +65,14 @@ public class SubscriptionVerifierImpl implements SubscriptionVerifier {
 				SubscriptionVerifDetail.verificationOk().withFetchedSubscription(subscription);
 	}
 
+	private SubscriptionVerifDetail verifyHierarchyEntitlement(FeatureRef featureRef, UserGroupingHierarchy hierarchy) {
+		for (UserGrouping level : hierarchy.getLevels()) {
+			var verifDetail = verifyEntitlement(featureRef, level);
+			if (!verifDetail.isFeatureAllowed()) {
+				return verifDetail;
+			}
+		}
+		return SubscriptionVerifDetail.verificationOk();
+	}
+
 }
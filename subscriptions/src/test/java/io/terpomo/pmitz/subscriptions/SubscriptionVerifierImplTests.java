@@ -25,6 +25,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import io.terpomo.pmitz.core.subjects.IndividualUser;
+import io.terpomo.pmitz.core.subjects.UserGroupingHierarchy;
 import io.terpomo.pmitz.core.subscriptions.FeatureRef;
 import io.terpomo.pmitz.core.subscriptions.Subscription;
 import io.terpomo.pmitz.core.subscriptions.SubscriptionRepository;
@@ -126,4 +127,17 @@ class SubscriptionVerifierImplTests {
 		assertThat(result.isFeatureAllowed()).isTrue();
 		assertThat(result.getErrorCause()).isNull();
 	}
+
+	@Test
+	void verifyEntitlementShouldVerifySubscriptionLevelOfHierarchy() {
+		when(subscriptionRepository.find("user-123")).thenReturn(Optional.of(subscription));
+		when(subscription.getId()).thenReturn("user-123");
+		when(subscription.isValid()).thenReturn(false);
+
+		SubscriptionVerifDetail result = subscriptionVerifier.verifyEntitlement(featureRef,
+				new UserGroupingHierarchy(new IndividualUser("user-456"), subscription));
+
+		assertThat(result.isFeatureAllowed()).isFalse();
+		assertThat(result.getErrorCause()).isEqualTo(SubscriptionVerifDetail.ErrorCause.INVALID_SUBSCRIPTION);
+	}
 }